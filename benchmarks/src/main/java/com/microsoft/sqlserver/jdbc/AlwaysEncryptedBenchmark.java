@@ -0,0 +1,78 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Always Encrypted cell encryption and decryption with AEAD_AES_256_CBC_HMAC_SHA256, as done for each encrypted parameter and column
+ * value. decryptIntoBuffer decrypts into a buffer that is used again, as the driver does for values that are not PLP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlwaysEncryptedBenchmark {
+
+    @Param({"Deterministic", "Randomized"})
+    String encryptionType;
+
+    @Param({"8", "1024"})
+    int valueLength;
+
+    private SQLServerAeadAes256CbcHmac256Algorithm algorithm;
+    private byte[] plainText;
+    private byte[] cipherText;
+    private byte[] plainTextBuffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLServerException {
+        Random random = new Random(0);
+        byte[] rootKey = new byte[32];
+        random.nextBytes(rootKey);
+        plainText = new byte[valueLength];
+        random.nextBytes(plainText);
+
+        SQLServerAeadAes256CbcHmac256EncryptionKey key = new SQLServerAeadAes256CbcHmac256EncryptionKey(rootKey,
+                SQLServerAeadAes256CbcHmac256Algorithm.algorithmName);
+        algorithm = new SQLServerAeadAes256CbcHmac256Algorithm(key, SQLServerEncryptionType.valueOf(encryptionType), (byte) 0x1);
+        cipherText = algorithm.encryptData(plainText);
+        plainTextBuffer = new byte[cipherText.length];
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws SQLServerException {
+        return algorithm.encryptData(plainText);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws SQLServerException {
+        return algorithm.decryptData(cipherText);
+    }
+
+    @Benchmark
+    public int decryptIntoBuffer() throws SQLServerException {
+        return algorithm.decryptData(cipherText, 0, cipherText.length, plainTextBuffer, 0);
+    }
+}
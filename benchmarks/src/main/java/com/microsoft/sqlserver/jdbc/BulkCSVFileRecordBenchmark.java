@@ -0,0 +1,95 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading a CSV file through SQLServerBulkCSVFileRecord: splitting each line and converting its fields to the column types, with double
+ * quotes as part of the data and with quoted fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkCSVFileRecordBenchmark {
+
+    @Param({"10000"})
+    int rowCount;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = File.createTempFile("BulkCSVFileRecordBenchmark", ".csv");
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            writer.write("id,quantity,ratio,price,name,modified\n");
+            for (int i = 0; i < rowCount; i++) {
+                writer.write(i + "," + (i * 1000L) + "," + (i / 3.0) + "," + BigDecimal.valueOf(i * 125L, 2).toPlainString() + ",\"Row number " + i
+                        + "\",2017-06-01 12:30:15.1234567\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void readRows(Blackhole blackhole) throws SQLServerException {
+        try (SQLServerBulkCSVFileRecord record = new SQLServerBulkCSVFileRecord(file.getPath(), "UTF-8", ",", true)) {
+            readAll(record, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void readQuotedRows(Blackhole blackhole) throws SQLServerException {
+        try (SQLServerBulkCSVFileRecord record = new SQLServerBulkCSVFileRecord(file.getPath(), "UTF-8", ",", true)) {
+            record.setEscapeColumnDelimitersCSV(true);
+            readAll(record, blackhole);
+        }
+    }
+
+    private static void readAll(SQLServerBulkCSVFileRecord record,
+            Blackhole blackhole) throws SQLServerException {
+        record.addColumnMetadata(1, null, java.sql.Types.INTEGER, 0, 0);
+        record.addColumnMetadata(2, null, java.sql.Types.BIGINT, 0, 0);
+        record.addColumnMetadata(3, null, java.sql.Types.DOUBLE, 0, 0);
+        record.addColumnMetadata(4, null, java.sql.Types.DECIMAL, 18, 4);
+        record.addColumnMetadata(5, null, java.sql.Types.NVARCHAR, 100, 0);
+        record.addColumnMetadata(6, null, java.sql.Types.TIMESTAMP, 27, 7);
+
+        while (record.next())
+            blackhole.consume(record.getRowData());
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.sqlserver.jdbc.TDSResponseBuilder.ColumnType;
+
+/**
+ * Measures a bulk copy from an in-memory source: mostly SQLServerBulkCopy.writeColumnToTdsWriter encoding each value into the bulk load stream,
+ * plus the destination metadata queries and INSERT BULK round trips of each writeToServer call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkCopyBenchmark {
+
+    private static final String DESTINATION_TABLE = "dbo.Orders";
+
+    private static final int[] SOURCE_TYPES = {java.sql.Types.INTEGER, java.sql.Types.BIGINT, java.sql.Types.DOUBLE, java.sql.Types.DECIMAL,
+            java.sql.Types.NVARCHAR, java.sql.Types.TIMESTAMP, java.sql.Types.VARBINARY, java.sql.Types.VARCHAR};
+    private static final int[] SOURCE_PRECISIONS = {10, 19, 15, ColumnType.DECIMAL_PRECISION, 100, 27, 100, 100};
+    private static final int[] SOURCE_SCALES = {0, 0, 0, ColumnType.DECIMAL_SCALE, 0, 7, 0, 0};
+
+    // The response to "SET FMTONLY ON SELECT * FROM dbo.Orders SET FMTONLY OFF"
+    private static final byte[] DESTINATION_METADATA_RESPONSE = new TDSResponseBuilder()
+            .columnMetadata(ResultSetParsingBenchmark.COLUMN_NAMES, ResultSetParsingBenchmark.COLUMN_TYPES)
+            .done(TDSResponseBuilder.DONE_FINAL, TDSResponseBuilder.CMD_SELECT, 0).toByteArray();
+
+    // The response to "select collation_name from sys.columns ...": no rows, so the collations of the column metadata are used.
+    private static final byte[] COLLATION_RESPONSE = new TDSResponseBuilder()
+            .columnMetadata(new String[] {"collation_name"}, new ColumnType[] {ColumnType.NVARCHAR})
+            .done(TDSResponseBuilder.DONE_COUNT, TDSResponseBuilder.CMD_SELECT, 0).toByteArray();
+
+    private static final byte[] DONE_RESPONSE = new TDSResponseBuilder().done(TDSResponseBuilder.DONE_FINAL, 0, 0).toByteArray();
+
+    /**
+     * A bulk copy source over rows held in memory.
+     */
+    static final class InMemoryBulkRecord implements ISQLServerBulkRecord {
+        private final Object[][] rows;
+        private final Set<Integer> columnOrdinals = new TreeSet<Integer>();
+        private int currentRow = -1;
+
+        InMemoryBulkRecord(Object[][] rows) {
+            this.rows = rows;
+            for (int i = 1; i <= SOURCE_TYPES.length; i++)
+                columnOrdinals.add(i);
+        }
+
+        public Set<Integer> getColumnOrdinals() {
+            return columnOrdinals;
+        }
+
+        public String getColumnName(int column) {
+            return ResultSetParsingBenchmark.COLUMN_NAMES[column - 1];
+        }
+
+        public int getColumnType(int column) {
+            return SOURCE_TYPES[column - 1];
+        }
+
+        public int getPrecision(int column) {
+            return SOURCE_PRECISIONS[column - 1];
+        }
+
+        public int getScale(int column) {
+            return SOURCE_SCALES[column - 1];
+        }
+
+        public boolean isAutoIncrement(int column) {
+            return false;
+        }
+
+        public Object[] getRowData() {
+            return rows[currentRow];
+        }
+
+        public boolean next() {
+            return ++currentRow < rows.length;
+        }
+    }
+
+    @Param({"1000"})
+    int rowCount;
+
+    private ReplayServer server;
+    private Connection connection;
+    private Object[][] rows;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        server = new ReplayServer(new ReplayServer.Responder() {
+            public byte[] respond(byte messageType,
+                    byte[] request) {
+                if (TDS.PKT_QUERY == messageType) {
+                    String sql = ReplayServer.getSQLText(request);
+                    if (sql.startsWith("SET FMTONLY ON"))
+                        return DESTINATION_METADATA_RESPONSE;
+                    if (sql.startsWith("select collation_name"))
+                        return COLLATION_RESPONSE;
+                }
+
+                // INSERT BULK and the bulk load itself
+                return DONE_RESPONSE;
+            }
+        });
+        connection = DriverManager.getConnection(server.getConnectionString());
+
+        Timestamp modified = Timestamp.valueOf("2017-06-01 12:30:15.1234567");
+        byte[] payload = new byte[32];
+        rows = new Object[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            boolean isNull = (9 == i % 10);
+            rows[i] = new Object[] {i, isNull ? null : (long) i * 1000, isNull ? null : i / 3.0,
+                    isNull ? null : BigDecimal.valueOf(i * 125L, 2).setScale(ColumnType.DECIMAL_SCALE), isNull ? null : "Row number " + i,
+                    isNull ? null : modified, isNull ? null : payload, isNull ? null : "ORD-" + i};
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void writeToServer() throws SQLException {
+        try (SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(connection)) {
+            bulkCopy.setDestinationTableName(DESTINATION_TABLE);
+            bulkCopy.writeToServer(new InMemoryBulkRecord(rows));
+        }
+    }
+}
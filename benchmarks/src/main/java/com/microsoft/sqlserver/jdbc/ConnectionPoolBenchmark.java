@@ -0,0 +1,91 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.sqlserver.jdbc.TDSResponseBuilder.ColumnType;
+
+/**
+ * Measures getting a connection, running a query on it and closing it.
+ *
+ * pooledConnection borrows the connection from a SQLServerPoolingDataSource, so that the query also carries the reset of the connection;
+ * unpooledConnection opens and closes a new connection each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+
+    private ReplayServer server;
+    private SQLServerPoolingDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        final byte[] response = new TDSResponseBuilder().columnMetadata(new String[] {"one"}, new ColumnType[] {ColumnType.INT}).row(1)
+                .done(TDSResponseBuilder.DONE_COUNT, TDSResponseBuilder.CMD_SELECT, 1).toByteArray();
+        server = new ReplayServer(new ReplayServer.Responder() {
+            public byte[] respond(byte messageType,
+                    byte[] request) {
+                return response;
+            }
+        });
+        dataSource = new SQLServerPoolingDataSource();
+        dataSource.setURL(server.getConnectionString());
+        dataSource.setMinPoolSize(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataSource.close();
+        server.close();
+    }
+
+    private static int selectOne(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery("SELECT 1")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Benchmark
+    public int pooledConnection() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return selectOne(connection);
+        }
+    }
+
+    @Benchmark
+    public int unpooledConnection() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(server.getConnectionString())) {
+            return selectOne(connection);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the DTV conversions behind the result set getters, each reading a value of the current row.
+ *
+ * A value read again is decoded again from the buffered response, so each invocation measures a full conversion. Run with -prof gc to see the
+ * allocations of each getter: the primitive getters of INT, BIGINT and FLOAT columns allocate nothing, and getString of NVARCHAR and VARCHAR
+ * columns allocates only the String.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DTVGetterBenchmark {
+
+    private ReplayServer server;
+    private Connection connection;
+    private Statement statement;
+    private ResultSet rs;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        final byte[] response = ResultSetParsingBenchmark.buildResultSetResponse(1);
+        server = new ReplayServer(new ReplayServer.Responder() {
+            public byte[] respond(byte messageType,
+                    byte[] request) {
+                return response;
+            }
+        });
+        connection = DriverManager.getConnection(server.getConnectionString());
+        statement = connection.createStatement();
+        rs = statement.executeQuery("SELECT * FROM dbo.Orders");
+        rs.next();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        server.close();
+    }
+
+    @Benchmark
+    public int getInt() throws SQLException {
+        return rs.getInt(1);
+    }
+
+    @Benchmark
+    public short getShort() throws SQLException {
+        return rs.getShort(1);
+    }
+
+    @Benchmark
+    public boolean getBoolean() throws SQLException {
+        return rs.getBoolean(1);
+    }
+
+    @Benchmark
+    public String getIntAsString() throws SQLException {
+        return rs.getString(1);
+    }
+
+    @Benchmark
+    public long getLong() throws SQLException {
+        return rs.getLong(2);
+    }
+
+    @Benchmark
+    public double getDouble() throws SQLException {
+        return rs.getDouble(3);
+    }
+
+    @Benchmark
+    public float getFloat() throws SQLException {
+        return rs.getFloat(3);
+    }
+
+    @Benchmark
+    public BigDecimal getBigDecimal() throws SQLException {
+        return rs.getBigDecimal(4);
+    }
+
+    @Benchmark
+    public double getDecimalAsDouble() throws SQLException {
+        return rs.getDouble(4);
+    }
+
+    @Benchmark
+    public String getString() throws SQLException {
+        return rs.getString(5);
+    }
+
+    @Benchmark
+    public String getVarcharString() throws SQLException {
+        return rs.getString(8);
+    }
+
+    @Benchmark
+    public Timestamp getTimestamp() throws SQLException {
+        return rs.getTimestamp(6);
+    }
+
+    @Benchmark
+    public LocalDateTime getLocalDateTime() throws SQLException {
+        return rs.getObject(6, LocalDateTime.class);
+    }
+
+    @Benchmark
+    public String getDateTime2AsString() throws SQLException {
+        return rs.getString(6);
+    }
+
+    @Benchmark
+    public Object getObject() throws SQLException {
+        return rs.getObject(6);
+    }
+
+    @Benchmark
+    public byte[] getBytes() throws SQLException {
+        return rs.getBytes(7);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.microsoft.sqlserver.jdbc.TDSResponseBuilder.ColumnType;
+
+/**
+ * Measures reading a result set with Always Encrypted columns, which decrypts every encrypted value: ROWS rows of a plain id, an encrypted SSN
+ * and an encrypted balance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptedResultSetBenchmark {
+
+    static final int ROWS = 1000;
+
+    static final String KEY_STORE_NAME = "BENCHMARK_KEY_STORE";
+
+    @Param({"Deterministic", "Randomized"})
+    String encryptionType;
+
+    private ReplayServer server;
+    private Connection connection;
+    private Statement statement;
+
+    /**
+     * A key store whose encrypted column encryption keys are the keys themselves.
+     */
+    static final class PlainKeyStoreProvider extends SQLServerColumnEncryptionKeyStoreProvider {
+        private String name = KEY_STORE_NAME;
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public byte[] decryptColumnEncryptionKey(String masterKeyPath,
+                String encryptionAlgorithm,
+                byte[] encryptedColumnEncryptionKey) {
+            return encryptedColumnEncryptionKey;
+        }
+
+        public byte[] encryptColumnEncryptionKey(String masterKeyPath,
+                String encryptionAlgorithm,
+                byte[] columnEncryptionKey) {
+            return columnEncryptionKey;
+        }
+    }
+
+    private static boolean keyStoreRegistered = false;
+
+    // Custom key stores can be registered only once
+    private static synchronized void registerKeyStore() throws SQLServerException {
+        if (!keyStoreRegistered) {
+            SQLServerConnection.registerColumnEncryptionKeyStoreProviders(
+                    Collections.<String, SQLServerColumnEncryptionKeyStoreProvider> singletonMap(KEY_STORE_NAME, new PlainKeyStoreProvider()));
+            keyStoreRegistered = true;
+        }
+    }
+
+    /**
+     * Builds the response SQL Server returns for a SELECT of the rows, with the values encrypted as the driver encrypts parameters.
+     */
+    static byte[] buildResultSetResponse(SQLServerEncryptionType encryptionType) throws SQLServerException {
+        Random random = new Random(0);
+        byte[] rootKey = new byte[32];
+        random.nextBytes(rootKey);
+        SQLServerAeadAes256CbcHmac256Algorithm algorithm = new SQLServerAeadAes256CbcHmac256Algorithm(
+                new SQLServerAeadAes256CbcHmac256EncryptionKey(rootKey, SQLServerAeadAes256CbcHmac256Algorithm.algorithmName), encryptionType,
+                (byte) 0x1);
+
+        TDSResponseBuilder response = new TDSResponseBuilder().encryptedColumnMetadata(rootKey, KEY_STORE_NAME, "benchmark/key",
+                new String[] {"id", "ssn", "balance"}, new ColumnType[] {ColumnType.INT, ColumnType.NVARCHAR, ColumnType.BIGINT},
+                new SQLServerEncryptionType[] {null, encryptionType, encryptionType});
+        for (int i = 0; i < ROWS; i++) {
+            String ssn = String.format("%03d-%02d-%04d", random.nextInt(1000), random.nextInt(100), random.nextInt(10000));
+            // Integer values are encrypted normalized to 8 bytes
+            byte[] balance = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(random.nextInt(1000000)).array();
+            response.row(i, algorithm.encryptData(ssn.getBytes(StandardCharsets.UTF_16LE)), algorithm.encryptData(balance));
+        }
+        return response.done(TDSResponseBuilder.DONE_COUNT, TDSResponseBuilder.CMD_SELECT, ROWS).toByteArray();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        registerKeyStore();
+        final byte[] response = buildResultSetResponse(SQLServerEncryptionType.valueOf(encryptionType));
+        server = new ReplayServer(new ReplayServer.Responder() {
+            public byte[] respond(byte messageType,
+                    byte[] request) {
+                return response;
+            }
+        }, true);
+        connection = DriverManager.getConnection(server.getConnectionString() + ";columnEncryptionSetting=Enabled");
+        statement = connection.createStatement();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void readRows(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT id, ssn, balance FROM dbo.Customers")) {
+            while (rs.next()) {
+                blackhole.consume(rs.getInt(1));
+                blackhole.consume(rs.getString(2));
+                blackhole.consume(rs.getLong(3));
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.IOException;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.microsoft.sqlserver.jdbc.TDSResponseBuilder.ColumnType;
+
+/**
+ * Measures reading a Blob and a Clob of a varbinary(max) and an nvarchar(max) value of valueLength bytes from a result set.
+ *
+ * readParts reads the lengths of the LOBs and PART_LENGTH bytes from the middle of each; readWhole reads the whole values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LOBBenchmark {
+
+    static final int PART_LENGTH = 4096;
+
+    @Param({"65536", "16777216"})
+    int valueLength;
+
+    private ReplayServer server;
+    private Connection connection;
+    private Statement statement;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        byte[] document = new byte[valueLength];
+        Arrays.fill(document, (byte) 'x');
+        char[] text = new char[valueLength / 2];
+        Arrays.fill(text, 'y');
+        final byte[] response = new TDSResponseBuilder()
+                .columnMetadata(new String[] {"document", "text"}, new ColumnType[] {ColumnType.VARBINARYMAX, ColumnType.NVARCHARMAX})
+                .row(document, new String(text)).done(TDSResponseBuilder.DONE_COUNT, TDSResponseBuilder.CMD_SELECT, 1).toByteArray();
+        server = new ReplayServer(new ReplayServer.Responder() {
+            public byte[] respond(byte messageType,
+                    byte[] request) {
+                return response;
+            }
+        });
+        connection = DriverManager.getConnection(server.getConnectionString());
+        statement = connection.createStatement();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void readParts(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT document, text FROM dbo.Documents")) {
+            rs.next();
+            Blob document = rs.getBlob(1);
+            blackhole.consume(document.getBytes(document.length() / 2, PART_LENGTH));
+            Clob text = rs.getClob(2);
+            blackhole.consume(text.getSubString(text.length() / 2, PART_LENGTH / 2));
+            document.free();
+            text.free();
+        }
+    }
+
+    @Benchmark
+    public void readWhole(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT document, text FROM dbo.Documents")) {
+            rs.next();
+            Blob document = rs.getBlob(1);
+            blackhole.consume(document.getBytes(1, (int) document.length()));
+            Clob text = rs.getClob(2);
+            blackhole.consume(text.getSubString(1, (int) text.length()));
+            document.free();
+            text.free();
+        }
+    }
+}
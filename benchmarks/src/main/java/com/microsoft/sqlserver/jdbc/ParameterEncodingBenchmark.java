@@ -0,0 +1,98 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures executing a prepared INSERT: the TDSWriter encoding of its parameters into the RPC request, and the round trip to the replay server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterEncodingBenchmark {
+
+    private static final int PREPARED_HANDLE = 1;
+
+    // The response to an INSERT of one row through sp_executesql or sp_execute.
+    private static final byte[] EXECUTE_RESPONSE = new TDSResponseBuilder()
+            .doneInProc(TDSResponseBuilder.DONE_COUNT | TDSResponseBuilder.DONE_MORE, TDSResponseBuilder.CMD_INSERT, 1).returnStatus(0)
+            .doneProc(TDSResponseBuilder.DONE_FINAL, TDSResponseBuilder.CMD_EXECUTE, 0).toByteArray();
+
+    // The response to an INSERT of one row through sp_prepexec, which also returns the prepared statement handle.
+    private static final byte[] PREPEXEC_RESPONSE = new TDSResponseBuilder()
+            .doneInProc(TDSResponseBuilder.DONE_COUNT | TDSResponseBuilder.DONE_MORE, TDSResponseBuilder.CMD_INSERT, 1).returnStatus(0)
+            .returnValue(0, "", PREPARED_HANDLE).doneProc(TDSResponseBuilder.DONE_FINAL, TDSResponseBuilder.CMD_EXECUTE, 0).toByteArray();
+
+    @Param({"false", "true"})
+    boolean sendStringParametersAsUnicode;
+
+    private ReplayServer server;
+    private Connection connection;
+    private PreparedStatement pstmt;
+
+    private final BigDecimal price = new BigDecimal("1234.5678");
+    private final Timestamp modified = Timestamp.valueOf("2017-06-01 12:30:15.1234567");
+    private final byte[] payload = new byte[32];
+    private int id = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        server = new ReplayServer(new ReplayServer.Responder() {
+            public byte[] respond(byte messageType,
+                    byte[] request) {
+                return (TDS.PROCID_SP_PREPEXEC == ReplayServer.getProcID(request)) ? PREPEXEC_RESPONSE : EXECUTE_RESPONSE;
+            }
+        });
+        connection = DriverManager.getConnection(server.getConnectionString() + ";sendStringParametersAsUnicode=" + sendStringParametersAsUnicode);
+        pstmt = connection.prepareStatement("INSERT INTO dbo.Orders (id, quantity, ratio, price, name, modified, payload) VALUES (?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        server.close();
+    }
+
+    @Benchmark
+    public int executeUpdate() throws SQLException {
+        ++id;
+        pstmt.setInt(1, id);
+        pstmt.setLong(2, id * 1000L);
+        pstmt.setDouble(3, id / 3.0);
+        pstmt.setBigDecimal(4, price);
+        pstmt.setString(5, "Row number " + id);
+        pstmt.setTimestamp(6, modified);
+        pstmt.setBytes(7, payload);
+        return pstmt.executeUpdate();
+    }
+}
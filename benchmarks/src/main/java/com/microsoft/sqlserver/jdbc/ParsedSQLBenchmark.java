@@ -0,0 +1,76 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ * 
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ * 
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the SQL parsing done for every prepared or callable statement created: JDBC call syntax translation, parameter marker scanning and,
+ * on (re)prepare, replacement of the parameter markers.
+ * 
+ * parsedSQLCacheSize=0 is the cost without the parsed SQL cache; any other value is the cost of a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsedSQLBenchmark {
+
+    @Param({"0", "100"})
+    int parsedSQLCacheSize;
+
+    @Param({"SELECT * FROM dbo.Orders WHERE CustomerID = ? AND OrderDate >= ? /* ? */ AND Status <> '?'",
+            "{? = call dbo.UpdateOrder(?, ?, ?, ?)}"})
+    String sql;
+
+    private SQLServerConnection connection;
+    private Parameter[] params;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLServerException {
+        SQLServerConnection.setParsedSQLCacheSize(parsedSQLCacheSize);
+
+        // replaceParameterMarkers does not use the connection's session, so the connection need not be opened.
+        connection = new SQLServerConnection("ParsedSQLBenchmark");
+        params = new Parameter[SQLServerConnection.parseAndCacheSQL(sql).parameterPositions.length];
+        for (int i = 0; i < params.length; i++)
+            params[i] = new Parameter(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SQLServerConnection.setParsedSQLCacheSize(SQLServerConnection.getInitialDefaultParsedSQLCacheSize());
+    }
+
+    @Benchmark
+    public ParsedSQLCacheItem parseSQL() throws SQLServerException {
+        return SQLServerConnection.parseAndCacheSQL(sql);
+    }
+
+    @Benchmark
+    public String parseAndReplaceParameterMarkers() throws SQLServerException {
+        ParsedSQLCacheItem parsedSQL = SQLServerConnection.parseAndCacheSQL(sql);
+        return connection.replaceParameterMarkers(parsedSQL.processedSQL, parsedSQL.parameterPositions, params, parsedSQL.bReturnValueSyntax);
+    }
+}
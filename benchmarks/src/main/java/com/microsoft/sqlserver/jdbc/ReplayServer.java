@@ -0,0 +1,264 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-process fake SQL Server that replays canned TDS responses, so that benchmarks measure the driver rather than the server or the network.
+ *
+ * The server completes prelogin and login itself, without encryption, and passes every other request message to a Responder for the response to
+ * replay. Column encryption is acknowledged at login only if the server is started for it, as the responses for it have a CEK table in their
+ * COLMETADATA tokens.
+ */
+final class ReplayServer implements AutoCloseable {
+    /**
+     * Chooses the response to replay for a request message.
+     */
+    interface Responder {
+        /**
+         * @param messageType
+         *            the TDS message type of the request (TDS.PKT_QUERY, TDS.PKT_RPC, TDS.PKT_BULK, ...)
+         * @param request
+         *            the payload of the request message
+         * @return the payload of the response message
+         */
+        byte[] respond(byte messageType,
+                byte[] request);
+    }
+
+    static final int PACKET_SIZE = 8000;
+
+    private static final int SERVER_MAJOR_VERSION = 13; // SQL Server 2016
+
+    private static final byte[] PRELOGIN_RESPONSE = {
+            // OPTION_TOKEN (BYTE), OFFSET (USHORT), LENGTH (USHORT)
+            TDS.B_PRELOGIN_OPTION_VERSION, 0, 11, 0, 6, TDS.B_PRELOGIN_OPTION_ENCRYPTION, 0, 17, 0, 1, TDS.B_PRELOGIN_OPTION_TERMINATOR,
+
+            // UL_VERSION + US_SUBBUILD
+            SERVER_MAJOR_VERSION, 0, 0x10, 0, 0, 0,
+
+            // B_FENCRYPTION
+            TDS.ENCRYPT_NOT_SUP};
+
+    private static final byte[] LOGIN_RESPONSE = new TDSResponseBuilder().collationChange(TDSResponseBuilder.DEFAULT_COLLATION)
+            .loginAck(TDS.VER_DENALI, SERVER_MAJOR_VERSION).packetSizeChange(PACKET_SIZE, TDS.INITIAL_PACKET_SIZE)
+            .done(TDSResponseBuilder.DONE_FINAL, 0, 0).toByteArray();
+
+    private static final byte[] COLUMN_ENCRYPTION_LOGIN_RESPONSE = new TDSResponseBuilder().collationChange(TDSResponseBuilder.DEFAULT_COLLATION)
+            .loginAck(TDS.VER_DENALI, SERVER_MAJOR_VERSION).packetSizeChange(PACKET_SIZE, TDS.INITIAL_PACKET_SIZE).columnEncryptionAck()
+            .done(TDSResponseBuilder.DONE_FINAL, 0, 0).toByteArray();
+
+    private static final byte[] ATTENTION_RESPONSE = new TDSResponseBuilder().done(TDSResponseBuilder.DONE_ATTN, 0, 0).toByteArray();
+
+    private final Responder responder;
+    private final byte[] loginResponse;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final Set<Socket> sockets = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+    private volatile boolean closed = false;
+
+    /**
+     * Starts a server on an ephemeral port of the loopback address.
+     */
+    ReplayServer(Responder responder) throws IOException {
+        this(responder, false);
+    }
+
+    /**
+     * Starts a server on an ephemeral port of the loopback address, which acknowledges column encryption if columnEncryption is true.
+     */
+    ReplayServer(Responder responder,
+            boolean columnEncryption) throws IOException {
+        this.responder = responder;
+        loginResponse = columnEncryption ? COLUMN_ENCRYPTION_LOGIN_RESPONSE : LOGIN_RESPONSE;
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "ReplayServer-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        executor.execute(new Runnable() {
+            public void run() {
+                acceptConnections();
+            }
+        });
+    }
+
+    String getConnectionString() {
+        return "jdbc:sqlserver://localhost:" + serverSocket.getLocalPort() + ";user=benchmark;password=benchmark";
+    }
+
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket socket : sockets)
+            socket.close();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the SQL text of a SQL batch request.
+     */
+    static String getSQLText(byte[] request) {
+        // The SQL text follows the ALL_HEADERS section, whose total length is its first DWORD.
+        int headersLength = readInt(request, 0);
+        return new String(request, headersLength, request.length - headersLength, StandardCharsets.UTF_16LE);
+    }
+
+    /**
+     * Returns the procedure ID of an RPC request, or -1 if the procedure is called by name.
+     */
+    static int getProcID(byte[] request) {
+        int offset = readInt(request, 0);
+        int nameLength = readShort(request, offset);
+        return (0xFFFF == nameLength) ? readShort(request, offset + 2) : -1;
+    }
+
+    private void acceptConnections() {
+        while (!closed) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            }
+            catch (IOException e) {
+                // The server was closed.
+                return;
+            }
+
+            sockets.add(socket);
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        serve(socket);
+                    }
+                    catch (IOException e) {
+                        // The connection was closed.
+                    }
+                    finally {
+                        sockets.remove(socket);
+                        try {
+                            socket.close();
+                        }
+                        catch (IOException e) {
+                            // Already closed.
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private void serve(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        OutputStream out = socket.getOutputStream();
+        ByteArrayOutputStream request = new ByteArrayOutputStream(PACKET_SIZE);
+        ByteArrayOutputStream response = new ByteArrayOutputStream(PACKET_SIZE);
+        byte[] packet = new byte[PACKET_SIZE];
+        int packetSize = TDS.INITIAL_PACKET_SIZE;
+
+        while (true) {
+            // Read a request message.
+            request.reset();
+            byte messageType;
+            boolean eom;
+            do {
+                try {
+                    in.readFully(packet, 0, TDS.PACKET_HEADER_SIZE);
+                }
+                catch (EOFException e) {
+                    return;
+                }
+                messageType = packet[0];
+                eom = TDS.STATUS_BIT_EOM == (packet[1] & TDS.STATUS_BIT_EOM);
+                int payloadLength = readShortBigEndian(packet, TDS.PACKET_HEADER_MESSAGE_LENGTH) - TDS.PACKET_HEADER_SIZE;
+                in.readFully(packet, 0, payloadLength);
+                request.write(packet, 0, payloadLength);
+            }
+            while (!eom);
+
+            byte[] payload;
+            switch (messageType) {
+                case TDS.PKT_PRELOGIN:
+                    payload = PRELOGIN_RESPONSE;
+                    break;
+                case TDS.PKT_LOGON70:
+                    payload = loginResponse;
+                    break;
+                case TDS.PKT_CANCEL_REQ:
+                    payload = ATTENTION_RESPONSE;
+                    break;
+                default:
+                    payload = responder.respond(messageType, request.toByteArray());
+                    break;
+            }
+
+            // Write the response message, in packets of the negotiated size.
+            response.reset();
+            int packetNumber = 1;
+            int offset = 0;
+            do {
+                int length = Math.min(packetSize - TDS.PACKET_HEADER_SIZE, payload.length - offset);
+                int packetLength = TDS.PACKET_HEADER_SIZE + length;
+                response.write(TDS.PKT_REPLY);
+                response.write((offset + length == payload.length) ? TDS.STATUS_BIT_EOM : 0);
+                response.write(packetLength >>> 8);
+                response.write(packetLength);
+                response.write(0); // SPID
+                response.write(0);
+                response.write(packetNumber++);
+                response.write(0); // window
+                response.write(payload, offset, length);
+                offset += length;
+            }
+            while (offset < payload.length);
+
+            out.write(response.toByteArray());
+            out.flush();
+
+            if (TDS.PKT_LOGON70 == messageType)
+                packetSize = PACKET_SIZE;
+        }
+    }
+
+    private static int readShort(byte[] data,
+            int offset) {
+        return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8);
+    }
+
+    private static int readShortBigEndian(byte[] data,
+            int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] data,
+            int offset) {
+        return readShort(data, offset) | (readShort(data, offset + 2) << 16);
+    }
+}
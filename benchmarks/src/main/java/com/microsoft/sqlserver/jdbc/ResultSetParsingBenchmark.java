@@ -0,0 +1,139 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.microsoft.sqlserver.jdbc.TDSResponseBuilder.ColumnType;
+
+/**
+ * Measures reading a result set off the wire: TDSReader packet reads, COLMETADATA and ROW token parsing, and the column getters.
+ *
+ * skipRows only moves through the rows, so that the driver parses and skips every column value; readRows also gets every value.
+ * readColumnBatches reads every value into column batches of up to BATCH_ROWS rows instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultSetParsingBenchmark {
+
+    static final String[] COLUMN_NAMES = {"id", "quantity", "ratio", "price", "name", "modified", "payload", "code"};
+    static final ColumnType[] COLUMN_TYPES = {ColumnType.INT, ColumnType.BIGINT, ColumnType.FLOAT, ColumnType.DECIMAL, ColumnType.NVARCHAR,
+            ColumnType.DATETIME2, ColumnType.VARBINARY, ColumnType.VARCHAR};
+
+    static final int BATCH_ROWS = 256;
+
+    @Param({"1", "1000"})
+    int rowCount;
+
+    private ReplayServer server;
+    private Connection connection;
+    private Statement statement;
+
+    /**
+     * Builds the response SQL Server returns for a SELECT of rowCount rows of all the column types, with every tenth value null.
+     */
+    static byte[] buildResultSetResponse(int rowCount) {
+        TDSResponseBuilder response = new TDSResponseBuilder().columnMetadata(COLUMN_NAMES, COLUMN_TYPES);
+        LocalDateTime modified = LocalDateTime.of(2017, 6, 1, 12, 30, 15, 123456700);
+        byte[] payload = new byte[32];
+        for (int i = 0; i < rowCount; i++) {
+            boolean isNull = (9 == i % 10);
+            response.row(i, isNull ? null : (long) i * 1000, isNull ? null : i / 3.0, isNull ? null : BigDecimal.valueOf(i * 125L, 2),
+                    isNull ? null : "Row number " + i, isNull ? null : modified.plusSeconds(i), isNull ? null : payload,
+                    isNull ? null : "ORD-" + i);
+        }
+        return response.done(TDSResponseBuilder.DONE_COUNT, TDSResponseBuilder.CMD_SELECT, rowCount).toByteArray();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        final byte[] response = buildResultSetResponse(rowCount);
+        server = new ReplayServer(new ReplayServer.Responder() {
+            public byte[] respond(byte messageType,
+                    byte[] request) {
+                return response;
+            }
+        });
+        connection = DriverManager.getConnection(server.getConnectionString());
+        statement = connection.createStatement();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        server.close();
+    }
+
+    @Benchmark
+    public int skipRows() throws SQLException {
+        int rows = 0;
+        try (ResultSet rs = statement.executeQuery("SELECT * FROM dbo.Orders")) {
+            while (rs.next())
+                ++rows;
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public void readRows(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT * FROM dbo.Orders")) {
+            while (rs.next()) {
+                blackhole.consume(rs.getInt(1));
+                blackhole.consume(rs.getLong(2));
+                blackhole.consume(rs.getDouble(3));
+                blackhole.consume(rs.getBigDecimal(4));
+                blackhole.consume(rs.getString(5));
+                blackhole.consume(rs.getTimestamp(6));
+                blackhole.consume(rs.getBytes(7));
+                blackhole.consume(rs.getString(8));
+            }
+        }
+    }
+
+    @Benchmark
+    public int readColumnBatches() throws SQLException {
+        int rows = 0;
+        try (ResultSet rs = statement.executeQuery("SELECT * FROM dbo.Orders")) {
+            ISQLServerResultSet ssrs = rs.unwrap(ISQLServerResultSet.class);
+            SQLServerColumnBatch batch;
+            do {
+                batch = ssrs.fetchColumnBatch(BATCH_ROWS);
+                rows += batch.getRowCount();
+            }
+            while (BATCH_ROWS == batch.getRowCount());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Encodes TDS response token streams, byte for byte as SQL Server 2016 returns them, for ReplayServer to replay.
+ */
+final class TDSResponseBuilder {
+    // SQL_Latin1_General_CP1_CI_AS
+    static final byte[] DEFAULT_COLLATION = {0x09, 0x04, (byte) 0xD0, 0x00, 0x34};
+
+    static final int DONE_FINAL = 0x0000;
+    static final int DONE_MORE = 0x0001;
+    static final int DONE_COUNT = 0x0010;
+    static final int DONE_ATTN = 0x0020;
+
+    static final int CMD_SELECT = 0xC1;
+    static final int CMD_INSERT = 0xC3;
+    static final int CMD_EXECUTE = 0xE0;
+
+    private static final long DAYS_INTO_CE = -LocalDate.of(1, 1, 1).toEpochDay();
+
+    /**
+     * The column types a response can hold, with the type info SQL Server sends for each.
+     */
+    enum ColumnType {
+        INT(TDSType.INTN.byteValue(), 4),
+        BIGINT(TDSType.INTN.byteValue(), 8),
+        FLOAT(TDSType.FLOATN.byteValue(), 8),
+        DECIMAL(TDSType.DECIMALN.byteValue(), 9), // decimal(18, 4)
+        NVARCHAR(TDSType.NVARCHAR.byteValue(), 200), // nvarchar(100)
+        VARCHAR(TDSType.BIGVARCHAR.byteValue(), 100), // varchar(100) in the default collation, code page 1252
+        DATETIME2(TDSType.DATETIME2N.byteValue(), 7), // datetime2(7)
+        VARBINARY(TDSType.BIGVARBINARY.byteValue(), 100), // varbinary(100)
+        VARBINARYMAX(TDSType.BIGVARBINARY.byteValue(), 0xFFFF), // varbinary(max)
+        VARCHARMAX(TDSType.BIGVARCHAR.byteValue(), 0xFFFF), // varchar(max) in the default collation, code page 1252
+        NVARCHARMAX(TDSType.NVARCHAR.byteValue(), 0xFFFF); // nvarchar(max)
+
+        // Size of the chunks max type values are sent in
+        static final int PLP_CHUNK_SIZE = 8000;
+
+        static final int DECIMAL_PRECISION = 18;
+        static final int DECIMAL_SCALE = 4;
+
+        private final byte tdsType;
+        private final int length;
+
+        ColumnType(byte tdsType,
+                int length) {
+            this.tdsType = tdsType;
+            this.length = length;
+        }
+
+        void writeTypeInfo(TDSResponseBuilder response) {
+            response.writeByte(tdsType);
+            switch (this) {
+                case INT:
+                case BIGINT:
+                case FLOAT:
+                    response.writeByte(length);
+                    break;
+                case DECIMAL:
+                    response.writeByte(length);
+                    response.writeByte(DECIMAL_PRECISION);
+                    response.writeByte(DECIMAL_SCALE);
+                    break;
+                case NVARCHAR:
+                case VARCHAR:
+                case NVARCHARMAX:
+                case VARCHARMAX:
+                    response.writeShort(length);
+                    response.writeBytes(DEFAULT_COLLATION);
+                    break;
+                case DATETIME2:
+                    response.writeByte(length); // scale
+                    break;
+                case VARBINARY:
+                case VARBINARYMAX:
+                    response.writeShort(length);
+                    break;
+            }
+        }
+
+        void writeValue(TDSResponseBuilder response,
+                Object value) {
+            switch (this) {
+                case INT:
+                    if (null == value) {
+                        response.writeByte(0);
+                    }
+                    else {
+                        response.writeByte(4);
+                        response.writeInt((Integer) value);
+                    }
+                    break;
+                case BIGINT:
+                    if (null == value) {
+                        response.writeByte(0);
+                    }
+                    else {
+                        response.writeByte(8);
+                        response.writeLong((Long) value);
+                    }
+                    break;
+                case FLOAT:
+                    if (null == value) {
+                        response.writeByte(0);
+                    }
+                    else {
+                        response.writeByte(8);
+                        response.writeLong(Double.doubleToLongBits((Double) value));
+                    }
+                    break;
+                case DECIMAL:
+                    if (null == value) {
+                        response.writeByte(0);
+                    }
+                    else {
+                        BigInteger unscaled = ((BigDecimal) value).setScale(DECIMAL_SCALE).unscaledValue();
+                        response.writeByte(length);
+                        response.writeByte(unscaled.signum() >= 0 ? 1 : 0);
+                        response.writeLong(unscaled.abs().longValue());
+                    }
+                    break;
+                case NVARCHAR:
+                    if (null == value) {
+                        response.writeShort(0xFFFF);
+                    }
+                    else {
+                        byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_16LE);
+                        response.writeShort(bytes.length);
+                        response.writeBytes(bytes);
+                    }
+                    break;
+                case VARCHAR:
+                    if (null == value) {
+                        response.writeShort(0xFFFF);
+                    }
+                    else {
+                        byte[] bytes = ((String) value).getBytes(Charset.forName("windows-1252"));
+                        response.writeShort(bytes.length);
+                        response.writeBytes(bytes);
+                    }
+                    break;
+                case DATETIME2:
+                    if (null == value) {
+                        response.writeByte(0);
+                    }
+                    else {
+                        LocalDateTime dateTime = (LocalDateTime) value;
+                        long ticks = dateTime.toLocalTime().toNanoOfDay() / 100;
+                        long days = dateTime.toLocalDate().toEpochDay() + DAYS_INTO_CE;
+                        response.writeByte(8);
+                        for (int i = 0; i < 5; i++)
+                            response.writeByte((int) (ticks >>> (8 * i)));
+                        for (int i = 0; i < 3; i++)
+                            response.writeByte((int) (days >>> (8 * i)));
+                    }
+                    break;
+                case VARBINARY:
+                    if (null == value) {
+                        response.writeShort(0xFFFF);
+                    }
+                    else {
+                        byte[] bytes = (byte[]) value;
+                        response.writeShort(bytes.length);
+                        response.writeBytes(bytes);
+                    }
+                    break;
+                case VARBINARYMAX:
+                    response.writePLP((byte[]) value);
+                    break;
+                case VARCHARMAX:
+                    response.writePLP((null == value) ? null : ((String) value).getBytes(Charset.forName("windows-1252")));
+                    break;
+                case NVARCHARMAX:
+                    response.writePLP((null == value) ? null : ((String) value).getBytes(StandardCharsets.UTF_16LE));
+                    break;
+            }
+        }
+    }
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private ColumnType[] columnTypes;
+
+    /**
+     * Appends a COLMETADATA token for nullable columns with the given names and types.
+     */
+    TDSResponseBuilder columnMetadata(String[] names,
+            ColumnType[] types) {
+        assert names.length == types.length;
+        columnTypes = types;
+
+        writeByte(TDS.TDS_COLMETADATA);
+        writeShort(types.length);
+        for (int i = 0; i < types.length; i++) {
+            writeInt(0); // user type
+            writeShort(0x0009); // flags: nullable, updatable
+            types[i].writeTypeInfo(this);
+            writeBVarchar(names[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Appends a COLMETADATA token for a connection that column encryption was acknowledged on, with a CEK table of one column encryption key and
+     * nullable columns with the given names and types, of which those with an encryption type are encrypted with the key. The values of the
+     * encrypted columns are passed to row as their cipher text, which must fit in a varbinary(100).
+     */
+    TDSResponseBuilder encryptedColumnMetadata(byte[] encryptedKey,
+            String keyStoreName,
+            String keyPath,
+            String[] names,
+            ColumnType[] types,
+            SQLServerEncryptionType[] encryptionTypes) {
+        assert names.length == types.length && names.length == encryptionTypes.length;
+        columnTypes = new ColumnType[types.length];
+
+        writeByte(TDS.TDS_COLMETADATA);
+        writeShort(types.length);
+
+        // CEK table
+        writeShort(1);
+        writeInt(5); // database ID
+        writeInt(1); // CEK ID
+        writeInt(1); // CEK version
+        writeLong(0); // CEK metadata version
+        writeByte(1); // value count
+        writeShort(encryptedKey.length);
+        writeBytes(encryptedKey);
+        writeBVarchar(keyStoreName);
+        writeUSVarchar(keyPath);
+        writeBVarchar("RSA_OAEP");
+
+        for (int i = 0; i < types.length; i++) {
+            writeInt(0); // user type
+            if (null == encryptionTypes[i]) {
+                columnTypes[i] = types[i];
+                writeShort(0x0009); // flags: nullable, updatable
+                types[i].writeTypeInfo(this);
+            }
+            else {
+                columnTypes[i] = ColumnType.VARBINARY;
+                writeShort(0x0809); // flags: nullable, updatable, encrypted
+                ColumnType.VARBINARY.writeTypeInfo(this);
+
+                // Crypto metadata
+                writeShort(0); // CEK table ordinal
+                writeInt(0); // user type
+                types[i].writeTypeInfo(this);
+                writeByte(TDS.AEAD_AES_256_CBC_HMAC_SHA256);
+                writeByte(encryptionTypes[i].getValue());
+                writeByte(1); // normalization rule version
+            }
+            writeBVarchar(names[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Appends a ROW token for the columns of the last COLMETADATA token.
+     */
+    TDSResponseBuilder row(Object... values) {
+        assert values.length == columnTypes.length;
+
+        writeByte(TDS.TDS_ROW);
+        for (int i = 0; i < values.length; i++)
+            columnTypes[i].writeValue(this, values[i]);
+        return this;
+    }
+
+    /**
+     * Appends a RETURNSTATUS token.
+     */
+    TDSResponseBuilder returnStatus(int status) {
+        writeByte(TDS.TDS_RET_STAT);
+        writeInt(status);
+        return this;
+    }
+
+    /**
+     * Appends a RETURNVALUE token for an int OUTPUT parameter, such as the handle returned by sp_prepexec.
+     */
+    TDSResponseBuilder returnValue(int ordinal,
+            String name,
+            int value) {
+        writeByte(TDS.TDS_RETURN_VALUE);
+        writeShort(ordinal);
+        writeBVarchar(name);
+        writeByte(0x01); // status: OUTPUT parameter
+        writeInt(0); // user type
+        writeShort(0x0001); // flags: nullable
+        ColumnType.INT.writeTypeInfo(this);
+        ColumnType.INT.writeValue(this, value);
+        return this;
+    }
+
+    /**
+     * Appends an ENVCHANGE token that changes the TDS packet size.
+     */
+    TDSResponseBuilder packetSizeChange(int packetSize,
+            int oldPacketSize) {
+        byte[] newValue = Integer.toString(packetSize).getBytes(StandardCharsets.UTF_16LE);
+        byte[] oldValue = Integer.toString(oldPacketSize).getBytes(StandardCharsets.UTF_16LE);
+        writeByte(TDS.TDS_ENV_CHG);
+        writeShort(1 + 1 + newValue.length + 1 + oldValue.length);
+        writeByte(4); // ENVCHANGE_PACKETSIZE
+        writeByte(newValue.length / 2);
+        writeBytes(newValue);
+        writeByte(oldValue.length / 2);
+        writeBytes(oldValue);
+        return this;
+    }
+
+    /**
+     * Appends an ENVCHANGE token that sets the database collation.
+     */
+    TDSResponseBuilder collationChange(byte[] collation) {
+        writeByte(TDS.TDS_ENV_CHG);
+        writeShort(1 + 1 + collation.length + 1);
+        writeByte(7); // ENVCHANGE_SQLCOLLATION
+        writeByte(collation.length);
+        writeBytes(collation);
+        writeByte(0);
+        return this;
+    }
+
+    /**
+     * Appends a LOGINACK token.
+     */
+    TDSResponseBuilder loginAck(int tdsVersion,
+            int serverMajorVersion) {
+        byte[] programName = "Microsoft SQL Server".getBytes(StandardCharsets.UTF_16LE);
+        writeByte(TDS.TDS_LOGIN_ACK);
+        writeShort(1 + 4 + 1 + programName.length + 4);
+        writeByte(1); // interface: SQL
+        writeByte(tdsVersion >>> 24);
+        writeByte(tdsVersion >>> 16);
+        writeByte(tdsVersion >>> 8);
+        writeByte(tdsVersion);
+        writeByte(programName.length / 2);
+        writeBytes(programName);
+        writeByte(serverMajorVersion);
+        writeByte(0); // minor version
+        writeShort(0); // build number
+        return this;
+    }
+
+    /**
+     * Appends a FEATUREEXTACK token that acknowledges column encryption.
+     */
+    TDSResponseBuilder columnEncryptionAck() {
+        writeByte(TDS.TDS_FEATURE_EXTENSION_ACK);
+        writeByte(TDS.TDS_FEATURE_EXT_AE);
+        writeInt(1);
+        writeByte(TDS.MAX_SUPPORTED_TCE_VERSION);
+        writeByte(TDS.FEATURE_EXT_TERMINATOR);
+        return this;
+    }
+
+    TDSResponseBuilder done(int status,
+            int curCmd,
+            long rowCount) {
+        return doneToken(TDS.TDS_DONE, status, curCmd, rowCount);
+    }
+
+    TDSResponseBuilder doneInProc(int status,
+            int curCmd,
+            long rowCount) {
+        return doneToken(TDS.TDS_DONEINPROC, status, curCmd, rowCount);
+    }
+
+    TDSResponseBuilder doneProc(int status,
+            int curCmd,
+            long rowCount) {
+        return doneToken(TDS.TDS_DONEPROC, status, curCmd, rowCount);
+    }
+
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private TDSResponseBuilder doneToken(int token,
+            int status,
+            int curCmd,
+            long rowCount) {
+        writeByte(token);
+        writeShort(status);
+        writeShort(curCmd);
+        writeLong(rowCount);
+        return this;
+    }
+
+    private void writePLP(byte[] value) {
+        if (null == value) {
+            writeLong(PLPInputStream.PLP_NULL);
+            return;
+        }
+
+        writeLong(value.length);
+        for (int offset = 0; offset < value.length; offset += ColumnType.PLP_CHUNK_SIZE) {
+            int chunkLength = Math.min(ColumnType.PLP_CHUNK_SIZE, value.length - offset);
+            writeInt(chunkLength);
+            out.write(value, offset, chunkLength);
+        }
+        writeInt(PLPInputStream.PLP_TERMINATOR);
+    }
+
+    private void writeBVarchar(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_16LE);
+        writeByte(bytes.length / 2);
+        writeBytes(bytes);
+    }
+
+    private void writeUSVarchar(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_16LE);
+        writeShort(bytes.length / 2);
+        writeBytes(bytes);
+    }
+
+    private void writeByte(int value) {
+        out.write(value);
+    }
+
+    private void writeBytes(byte[] value) {
+        out.write(value, 0, value.length);
+    }
+
+    private void writeShort(int value) {
+        out.write(value);
+        out.write(value >>> 8);
+    }
+
+    private void writeInt(int value) {
+        writeShort(value);
+        writeShort(value >>> 16);
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) value);
+        writeInt((int) (value >>> 32));
+    }
+}
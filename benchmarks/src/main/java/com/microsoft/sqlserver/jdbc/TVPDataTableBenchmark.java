@@ -0,0 +1,155 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building a table-valued parameter of ROWS rows of (BIGINT, INTEGER, DOUBLE, NVARCHAR) and sending it in an INSERT, from a
+ * SQLServerDataTable, from a SQLServerColumnarDataTable filled with addRow or with the set methods, and from a SQLServerStreamingDataTable that
+ * binds each row while it is sent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TVPDataTableBenchmark {
+
+    static final int ROWS = 100000;
+
+    private static final String SQL = "INSERT INTO dbo.Orders SELECT * FROM ?";
+
+    private static final String[] CODES = {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel"};
+
+    private ReplayServer server;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        final byte[] response = new TDSResponseBuilder().done(TDSResponseBuilder.DONE_COUNT, TDSResponseBuilder.CMD_INSERT, ROWS).toByteArray();
+        server = new ReplayServer(new ReplayServer.Responder() {
+            public byte[] respond(byte messageType,
+                    byte[] request) {
+                return response;
+            }
+        });
+        connection = DriverManager.getConnection(server.getConnectionString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        server.close();
+    }
+
+    @Benchmark
+    public int dataTable() throws SQLException {
+        SQLServerDataTable table = new SQLServerDataTable();
+        table.addColumnMetadata("id", java.sql.Types.BIGINT);
+        table.addColumnMetadata("quantity", java.sql.Types.INTEGER);
+        table.addColumnMetadata("price", java.sql.Types.DOUBLE);
+        table.addColumnMetadata("code", java.sql.Types.NVARCHAR);
+        for (int i = 0; i < ROWS; i++)
+            table.addRow((long) i, i % 100, i * 0.25, CODES[i % CODES.length]);
+        try (SQLServerPreparedStatement statement = (SQLServerPreparedStatement) connection.prepareStatement(SQL)) {
+            statement.setStructured(1, "dbo.OrderType", table);
+            return statement.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public int columnarDataTable() throws SQLException {
+        SQLServerColumnarDataTable table = new SQLServerColumnarDataTable(ROWS);
+        table.addColumnMetadata("id", java.sql.Types.BIGINT);
+        table.addColumnMetadata("quantity", java.sql.Types.INTEGER);
+        table.addColumnMetadata("price", java.sql.Types.DOUBLE);
+        table.addColumnMetadata("code", java.sql.Types.NVARCHAR);
+        for (int i = 0; i < ROWS; i++)
+            table.addRow((long) i, i % 100, i * 0.25, CODES[i % CODES.length]);
+        try (SQLServerPreparedStatement statement = (SQLServerPreparedStatement) connection.prepareStatement(SQL)) {
+            statement.setStructured(1, "dbo.OrderType", table);
+            return statement.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public int columnarDataTableSetters() throws SQLException {
+        SQLServerColumnarDataTable table = new SQLServerColumnarDataTable(ROWS);
+        table.addColumnMetadata("id", java.sql.Types.BIGINT);
+        table.addColumnMetadata("quantity", java.sql.Types.INTEGER);
+        table.addColumnMetadata("price", java.sql.Types.DOUBLE);
+        table.addColumnMetadata("code", java.sql.Types.NVARCHAR);
+        for (int i = 0; i < ROWS; i++) {
+            table.appendRow();
+            table.setLong(1, i);
+            table.setInt(2, i % 100);
+            table.setDouble(3, i * 0.25);
+            table.setString(4, CODES[i % CODES.length]);
+        }
+        try (SQLServerPreparedStatement statement = (SQLServerPreparedStatement) connection.prepareStatement(SQL)) {
+            statement.setStructured(1, "dbo.OrderType", table);
+            return statement.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public int streamingDataTable() throws SQLException {
+        Iterator<Integer> ids = new Iterator<Integer>() {
+            private int next = 0;
+
+            public boolean hasNext() {
+                return next < ROWS;
+            }
+
+            public Integer next() {
+                return next++;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        SQLServerStreamingDataTable<Integer> table = new SQLServerStreamingDataTable<Integer>(ids, new ISQLServerTVPRowBinder<Integer>() {
+            public void bindRow(Integer i,
+                    SQLServerTVPRow row) throws SQLServerException {
+                row.setLong(1, i);
+                row.setInt(2, i % 100);
+                row.setDouble(3, i * 0.25);
+                row.setString(4, CODES[i % CODES.length]);
+            }
+        });
+        table.addColumnMetadata("id", java.sql.Types.BIGINT);
+        table.addColumnMetadata("quantity", java.sql.Types.INTEGER);
+        table.addColumnMetadata("price", java.sql.Types.DOUBLE);
+        table.addColumnMetadata(new SQLServerMetaData("code", java.sql.Types.NVARCHAR, 10, 0));
+        try (SQLServerPreparedStatement statement = (SQLServerPreparedStatement) connection.prepareStatement(SQL)) {
+            statement.setStructured(1, "dbo.OrderType", table);
+            return statement.executeUpdate();
+        }
+    }
+}
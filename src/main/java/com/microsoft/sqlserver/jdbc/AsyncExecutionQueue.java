@@ -0,0 +1,85 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * AsyncExecutionQueue runs the asynchronous executions of the statements of a connection one at a time, in the order they were added. Each execution
+ * is handed to its executor only once the one before it has finished, so that at most one thread waits on the connection for them, however many
+ * executions are pending.
+ */
+final class AsyncExecutionQueue {
+
+    /**
+     * An execution in the queue, with the executor that runs it.
+     */
+    abstract static class Execution implements Runnable {
+        final Executor executor;
+
+        Execution(Executor executor) {
+            this.executor = executor;
+        }
+
+        /**
+         * Called instead of run when the executor rejects the execution.
+         */
+        abstract void rejected(RejectedExecutionException e);
+    }
+
+    private final ArrayDeque<Execution> executions = new ArrayDeque<Execution>();
+
+    // True while an execution of the queue is with its executor
+    private boolean isRunning = false;
+
+    /**
+     * Adds an execution to the queue, and hands it to its executor if no other execution of the queue is running.
+     */
+    void add(Execution execution) {
+        synchronized (this) {
+            executions.add(execution);
+            if (isRunning)
+                return;
+            isRunning = true;
+        }
+        runNext();
+    }
+
+    private void runNext() {
+        while (true) {
+            final Execution execution;
+            synchronized (this) {
+                execution = executions.poll();
+                if (null == execution) {
+                    isRunning = false;
+                    return;
+                }
+            }
+
+            try {
+                execution.executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            execution.run();
+                        }
+                        finally {
+                            runNext();
+                        }
+                    }
+                });
+                return;
+            }
+            catch (RejectedExecutionException e) {
+                execution.rejected(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Presents the parameter values of a PreparedStatement batch as a bulk copy source, so that a batch of INSERT statements can be sent as a bulk
+ * load.
+ *
+ * Only batches whose parameters are plain values of a type bulk copy handles the same way as an RPC parameter can be presented this way; see
+ * {@link #fromBatch}.
+ */
+final class BatchInsertBulkRecord implements ISQLServerBulkRecord {
+    private final List<Parameter[]> rows;
+    private final String[] columnNames;
+    private final int[] columnTypes;
+    private final int[] precisions;
+    private final int[] scales;
+    private final Set<Integer> columnOrdinals = new HashSet<Integer>();
+
+    private int currentRow = -1;
+
+    private BatchInsertBulkRecord(List<Parameter[]> rows,
+            String[] columnNames,
+            int[] columnTypes,
+            int[] precisions,
+            int[] scales) {
+        this.rows = rows;
+        this.columnNames = columnNames;
+        this.columnTypes = columnTypes;
+        this.precisions = precisions;
+        this.scales = scales;
+        for (int i = 1; i <= columnNames.length; i++)
+            columnOrdinals.add(i);
+    }
+
+    /**
+     * Creates a bulk copy source for the rows of a batch.
+     *
+     * @param rows
+     *            the parameter values of the batch
+     * @param columnNames
+     *            the destination column of each parameter
+     * @param sendStringParametersAsUnicode
+     *            whether string values are sent as Unicode
+     * @return the bulk copy source, or null if a parameter is a stream, a temporal value with a calendar, a value whose JDBC type differs from its
+     *         Java type, or if a column has values of different Java types.
+     * @throws SQLServerException
+     *             if the parameter types cannot be determined
+     */
+    static BatchInsertBulkRecord fromBatch(List<Parameter[]> rows,
+            String[] columnNames,
+            boolean sendStringParametersAsUnicode) throws SQLServerException {
+        final int numColumns = columnNames.length;
+        JavaType[] javaTypes = new JavaType[numColumns];
+        int[] columnTypes = new int[numColumns];
+        int[] precisions = new int[numColumns];
+        int[] scales = new int[numColumns];
+        boolean[] isUnicode = new boolean[numColumns];
+
+        for (Parameter[] row : rows) {
+            assert row.length == numColumns;
+            for (int i = 0; i < numColumns; i++) {
+                Object value = row[i].getSetterValue();
+                if (null == value)
+                    continue;
+
+                JavaType javaType = row[i].getJavaType();
+                if (null == javaTypes[i])
+                    javaTypes[i] = javaType;
+                else if (javaType != javaTypes[i])
+                    return null;
+
+                JDBCType jdbcType = row[i].getJdbcType();
+                switch (javaType) {
+                    case STRING:
+                        if (!jdbcType.isTextual())
+                            return null;
+                        isUnicode[i] |= sendStringParametersAsUnicode || JDBCType.NCHAR == jdbcType || JDBCType.NVARCHAR == jdbcType
+                                || JDBCType.LONGNVARCHAR == jdbcType;
+                        precisions[i] = Math.max(precisions[i], ((String) value).length());
+                        break;
+
+                    case BYTEARRAY:
+                        if (!jdbcType.isBinary())
+                            return null;
+                        precisions[i] = Math.max(precisions[i], ((byte[]) value).length);
+                        break;
+
+                    case BIGDECIMAL:
+                        if (JDBCType.DECIMAL != jdbcType && JDBCType.NUMERIC != jdbcType)
+                            return null;
+                        scales[i] = Math.max(scales[i], ((BigDecimal) value).scale());
+                        break;
+
+                    case DATE:
+                    case TIMESTAMP:
+                        if (javaType.getJDBCType(SSType.UNKNOWN, jdbcType) != jdbcType || null != row[i].getCalendar())
+                            return null;
+                        break;
+
+                    case INTEGER:
+                    case LONG:
+                    case SHORT:
+                    case BYTE:
+                    case BOOLEAN:
+                    case DOUBLE:
+                    case FLOAT:
+                        if (javaType.getJDBCType(SSType.UNKNOWN, jdbcType) != jdbcType)
+                            return null;
+                        break;
+
+                    default:
+                        return null;
+                }
+            }
+        }
+
+        for (int i = 0; i < numColumns; i++) {
+            // Columns that are null in every row are sent as null strings.
+            JavaType javaType = (null != javaTypes[i]) ? javaTypes[i] : JavaType.STRING;
+            switch (javaType) {
+                case STRING:
+                    columnTypes[i] = (isUnicode[i] || null == javaTypes[i]) ? java.sql.Types.NVARCHAR : java.sql.Types.VARCHAR;
+                    precisions[i] = Math.max(1, precisions[i]);
+                    break;
+                case BYTEARRAY:
+                    columnTypes[i] = java.sql.Types.VARBINARY;
+                    precisions[i] = Math.max(1, precisions[i]);
+                    break;
+                case BIGDECIMAL:
+                    columnTypes[i] = java.sql.Types.DECIMAL;
+                    precisions[i] = SQLServerConnection.maxDecimalPrecision;
+                    break;
+                case DATE:
+                    columnTypes[i] = java.sql.Types.DATE;
+                    break;
+                case TIMESTAMP:
+                    columnTypes[i] = java.sql.Types.TIMESTAMP;
+                    scales[i] = TDS.MAX_FRACTIONAL_SECONDS_SCALE;
+                    break;
+                case INTEGER:
+                    columnTypes[i] = java.sql.Types.INTEGER;
+                    break;
+                case LONG:
+                    columnTypes[i] = java.sql.Types.BIGINT;
+                    break;
+                case SHORT:
+                case BYTE:
+                    // Java bytes are signed, so they are sent as smallint and converted by the server.
+                    columnTypes[i] = java.sql.Types.SMALLINT;
+                    break;
+                case BOOLEAN:
+                    columnTypes[i] = java.sql.Types.BIT;
+                    break;
+                case DOUBLE:
+                    columnTypes[i] = java.sql.Types.DOUBLE;
+                    break;
+                case FLOAT:
+                    columnTypes[i] = java.sql.Types.REAL;
+                    break;
+                default:
+                    return null;
+            }
+        }
+
+        return new BatchInsertBulkRecord(rows, columnNames, columnTypes, precisions, scales);
+    }
+
+    public Set<Integer> getColumnOrdinals() {
+        return columnOrdinals;
+    }
+
+    public String getColumnName(int column) {
+        return columnNames[column - 1];
+    }
+
+    public int getColumnType(int column) {
+        return columnTypes[column - 1];
+    }
+
+    public int getPrecision(int column) {
+        return precisions[column - 1];
+    }
+
+    public int getScale(int column) {
+        return scales[column - 1];
+    }
+
+    public boolean isAutoIncrement(int column) {
+        return false;
+    }
+
+    public Object[] getRowData() throws SQLServerException {
+        Parameter[] row = rows.get(currentRow);
+        Object[] data = new Object[row.length];
+        for (int i = 0; i < row.length; i++) {
+            Object value = row[i].getSetterValue();
+
+            // The bulk load sends decimal values unscaled, at the scale of the column.
+            if (value instanceof BigDecimal)
+                value = ((BigDecimal) value).setScale(scales[i]);
+
+            data[i] = value;
+        }
+        return data;
+    }
+
+    public boolean next() throws SQLServerException {
+        return ++currentRow < rows.size();
+    }
+}
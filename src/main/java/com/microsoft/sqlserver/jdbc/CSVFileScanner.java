@@ -0,0 +1,450 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Scans the records of a range of a delimited text file for SQLServerBulkCSVFileRecord. <br>
+ * <br>
+ * The range is read through a large buffer with positional reads, so that several scanners can read one file at once, and decoded in bulk. The
+ * fields of each record are found by looking at the decoded characters directly, and a String is only built for a field that is asked for. <br>
+ * <br>
+ * A record ends at a line feed, a carriage return, or a carriage return followed by a line feed, as a line read by BufferedReader.readLine. With
+ * quoting on, a field that starts with a double quote is quoted as in RFC 4180: the field ends at the next double quote that is not doubled, and
+ * may contain the delimiter and line breaks in between. A doubled double quote in a quoted field stands for one double quote, and any characters
+ * between the closing quote and the delimiter are kept.
+ */
+final class CSVFileScanner {
+    // The size of the byte buffer the file is read through, which is also the initial size of the char buffer.
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    // States of the byte level scan for record boundaries
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+    private static final int CARRIAGE_RETURN = 4;
+
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+
+    // All bytes of the range were read, all of them were decoded and the decoder is being flushed, or all characters were decoded
+    private boolean endOfFile;
+    private boolean flushing;
+    private boolean endOfInput;
+
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharsetDecoder decoder;
+
+    // The delimiter, or null to read each record as a single field
+    private final char[] delimiter;
+    private boolean quoting;
+
+    // The decoded characters, from the start of the current record up to limit. The characters of quoted fields are unescaped in place.
+    private char[] chars = new char[BUFFER_SIZE];
+    private int next;
+    private int limit;
+    private int recordStart;
+
+    private int fieldCount;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+
+    /**
+     * Creates a scanner for the records in a range of a file.
+     *
+     * @param channel
+     *            the file, which is only read with positional reads
+     * @param start
+     *            the position of the first record
+     * @param end
+     *            the position after the last record, or Long.MAX_VALUE to read to the end of the file
+     * @param charset
+     *            the encoding of the file. Malformed input is replaced, as by an InputStreamReader.
+     * @param delimiter
+     *            the delimiter of the fields, or null to read each record as a single field
+     * @param quoting
+     *            whether fields may be quoted
+     */
+    CSVFileScanner(FileChannel channel,
+            long start,
+            long end,
+            Charset charset,
+            String delimiter,
+            boolean quoting) {
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+        this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.delimiter = (null == delimiter) ? null : delimiter.toCharArray();
+        this.quoting = quoting;
+        bytes.limit(0);
+    }
+
+    void setQuoting(boolean quoting) {
+        this.quoting = quoting;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return false if there are no more records
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    boolean next() throws IOException {
+        fieldCount = 0;
+        recordStart = next;
+        int p = next;
+        if (p == limit) {
+            p -= fill();
+            if (p == limit)
+                return false;
+        }
+
+        fields: while (true) {
+            if (quoting && p == limit)
+                p -= fill();
+
+            int start = p;
+            int textEnd = p;
+            boolean quoted = false;
+
+            if (quoting && p < limit && '"' == chars[p]) {
+                quoted = true;
+                start = ++p;
+                textEnd = p;
+
+                // The quoted text, up to the closing quote
+                while (true) {
+                    if (p == limit) {
+                        int shift = fill();
+                        p -= shift;
+                        start -= shift;
+                        textEnd -= shift;
+                        if (p == limit) {
+                            addField(start, textEnd);
+                            break fields;
+                        }
+                    }
+                    char c = chars[p];
+                    if ('"' == c) {
+                        int shift = require(p, 2);
+                        p -= shift;
+                        start -= shift;
+                        textEnd -= shift;
+                        if (p + 1 < limit && '"' == chars[p + 1]) {
+                            chars[textEnd++] = '"';
+                            p += 2;
+                            continue;
+                        }
+                        p++;
+                        break;
+                    }
+                    chars[textEnd++] = c;
+                    p++;
+                }
+            }
+
+            // The rest of the field, up to the delimiter or the end of the record
+            while (true) {
+                if (p == limit) {
+                    int shift = fill();
+                    p -= shift;
+                    start -= shift;
+                    textEnd -= shift;
+                    if (p == limit) {
+                        addField(start, quoted ? textEnd : p);
+                        break fields;
+                    }
+                }
+                char c = chars[p];
+                if ('\n' == c || '\r' == c) {
+                    addField(start, quoted ? textEnd : p);
+                    p++;
+                    if ('\r' == c) {
+                        if (p == limit)
+                            p -= fill();
+                        if (p < limit && '\n' == chars[p])
+                            p++;
+                    }
+                    break fields;
+                }
+                if (null != delimiter && delimiter[0] == c) {
+                    if (1 < delimiter.length) {
+                        int shift = require(p, delimiter.length);
+                        p -= shift;
+                        start -= shift;
+                        textEnd -= shift;
+                    }
+                    if (isDelimiterAt(p)) {
+                        addField(start, quoted ? textEnd : p);
+                        p += delimiter.length;
+                        continue fields;
+                    }
+                }
+                if (quoted)
+                    chars[textEnd++] = c;
+                p++;
+            }
+        }
+
+        next = p;
+        return true;
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    String getField(int index) {
+        if (index >= fieldCount)
+            throw new ArrayIndexOutOfBoundsException(index);
+        return new String(chars, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    private boolean isDelimiterAt(int index) {
+        if (index + delimiter.length > limit)
+            return false;
+        for (int i = 1; i < delimiter.length; i++) {
+            if (delimiter[i] != chars[index + i])
+                return false;
+        }
+        return true;
+    }
+
+    private void addField(int start,
+            int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, 2 * fieldCount);
+            fieldEnds = Arrays.copyOf(fieldEnds, 2 * fieldCount);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /*
+     * Makes count characters from index available, unless the input ends first. Returns how far the characters moved toward the start of the
+     * buffer.
+     */
+    private int require(int index,
+            int count) throws IOException {
+        int shift = 0;
+        while (limit - (index - shift) < count && !endOfInput)
+            shift += fill();
+        return shift;
+    }
+
+    /*
+     * Decodes more characters, unless the input has ended. The current record is first moved to the start of the buffer, or the buffer grown if the
+     * record fills it. Returns how far the characters moved toward the start of the buffer; the caller sees that the input has ended when no
+     * characters follow its position.
+     */
+    private int fill() throws IOException {
+        if (endOfInput)
+            return 0;
+
+        int shift = recordStart;
+        if (0 < shift) {
+            System.arraycopy(chars, shift, chars, 0, limit - shift);
+            for (int i = 0; i < fieldCount; i++) {
+                fieldStarts[i] -= shift;
+                fieldEnds[i] -= shift;
+            }
+            limit -= shift;
+            recordStart = 0;
+        }
+
+        int previousLimit = limit;
+        while (limit == previousLimit && !endOfInput) {
+            if (limit == chars.length)
+                chars = Arrays.copyOf(chars, 2 * chars.length);
+            CharBuffer out = CharBuffer.wrap(chars, limit, chars.length - limit);
+            CoderResult result = flushing ? CoderResult.UNDERFLOW : decoder.decode(bytes, out, endOfFile);
+            if (result.isUnderflow() && endOfFile) {
+                flushing = true;
+                result = decoder.flush(out);
+            }
+            limit = out.position();
+
+            if (result.isOverflow()) {
+                // Too little room for the next character
+                if (limit == previousLimit)
+                    chars = Arrays.copyOf(chars, 2 * chars.length);
+            }
+            else if (endOfFile) {
+                endOfInput = true;
+            }
+            else {
+                read();
+            }
+        }
+        return shift;
+    }
+
+    private void read() throws IOException {
+        bytes.compact();
+        if (end - position < bytes.remaining())
+            bytes.limit(bytes.position() + (int) (end - position));
+        int count = channel.read(bytes, position);
+        if (0 < count)
+            position += count;
+        if (0 > count || position >= end)
+            endOfFile = true;
+        bytes.flip();
+    }
+
+    /**
+     * Returns whether record boundaries can be found in the bytes of a file in the given encoding, which is when the encoding is UTF-8 or a single
+     * byte encoding that encodes line breaks, double quotes and the delimiter as their ASCII bytes. Such bytes are then never part of the encoding of
+     * another character.
+     */
+    static boolean isAsciiCompatible(Charset charset,
+            String delimiter) {
+        if (!StandardCharsets.UTF_8.equals(charset) && 1 != Math.round(charset.newEncoder().maxBytesPerChar()))
+            return false;
+        String special = "\r\n\"" + ((null == delimiter) ? "" : delimiter);
+        byte[] encoded = special.getBytes(charset);
+        if (encoded.length != special.length())
+            return false;
+        for (int i = 0; i < encoded.length; i++) {
+            if (special.charAt(i) != encoded[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds record boundaries in the bytes of a range of a file, in an encoding for which isAsciiCompatible is true. For each of the given positions,
+     * in ascending order, returns the first position at or after it that starts a record, or the end of the range if there is none. <br>
+     * <br>
+     * Without quoting, the line break following each position is searched for. With quoting, line breaks may be part of quoted fields, so the range
+     * is read from its start to follow the quoted fields, which takes a delimiter of a single character.
+     *
+     * @param channel
+     *            the file, which is only read with positional reads
+     * @param start
+     *            the position of the first record of the range
+     * @param end
+     *            the position after the last record of the range
+     * @param positions
+     *            the positions to find record boundaries from, in ascending order
+     * @param delimiter
+     *            the delimiter, which is only used with quoting
+     * @param quoting
+     *            whether fields may be quoted
+     * @return the record boundaries
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    static long[] findRecordBoundaries(FileChannel channel,
+            long start,
+            long end,
+            long[] positions,
+            char delimiter,
+            boolean quoting) throws IOException {
+        long[] boundaries = new long[positions.length];
+        Arrays.fill(boundaries, end);
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] block = buffer.array();
+        int target = 0;
+        int state = FIELD_START;
+        long blockStart = start;
+        while (target < positions.length && blockStart < end) {
+            if (!quoting && blockStart < positions[target]) {
+                // Without quoting, the bytes before the position need not be read
+                blockStart = positions[target];
+                state = UNQUOTED;
+                if (blockStart >= end)
+                    break;
+            }
+
+            buffer.clear();
+            if (end - blockStart < buffer.capacity())
+                buffer.limit((int) (end - blockStart));
+            int count = channel.read(buffer, blockStart);
+            if (0 >= count)
+                break;
+
+            int i = 0;
+            for (; i < count && target < positions.length; i++) {
+                if (!quoting && FIELD_START == state && blockStart + i < positions[target])
+                    break;
+
+                byte b = block[i];
+                if (QUOTED == state) {
+                    if ('"' == b)
+                        state = QUOTE_IN_QUOTED;
+                    continue;
+                }
+                if (QUOTE_IN_QUOTED == state) {
+                    // A doubled quote, or the closing quote followed by the rest of the field
+                    if ('"' == b) {
+                        state = QUOTED;
+                        continue;
+                    }
+                    state = UNQUOTED;
+                }
+                else if (CARRIAGE_RETURN == state) {
+                    state = FIELD_START;
+                    if ('\n' == b) {
+                        target = setBoundary(positions, boundaries, target, blockStart + i + 1);
+                        continue;
+                    }
+                    // The record ended at the carriage return, and this byte starts the next one
+                    target = setBoundary(positions, boundaries, target, blockStart + i);
+                }
+
+                if ('\n' == b) {
+                    state = FIELD_START;
+                    target = setBoundary(positions, boundaries, target, blockStart + i + 1);
+                }
+                else if ('\r' == b) {
+                    state = CARRIAGE_RETURN;
+                }
+                else if (quoting && FIELD_START == state && '"' == b) {
+                    state = QUOTED;
+                }
+                else if (quoting && delimiter == b) {
+                    state = FIELD_START;
+                }
+                else {
+                    state = UNQUOTED;
+                }
+            }
+            blockStart += i;
+        }
+        return boundaries;
+    }
+
+    /*
+     * Sets the boundary of the positions up to it, and returns the index of the first position after it.
+     */
+    private static int setBoundary(long[] positions,
+            long[] boundaries,
+            int target,
+            long boundary) {
+        while (target < positions.length && positions[target] <= boundary)
+            boundaries[target++] = boundary;
+        return target;
+    }
+}
@@ -190,6 +190,80 @@ final class Column {
         return (null != filter) ? filter.apply(value, jdbcType) : value;
     }
 
+    /**
+     * Returns whether this column's value is an unencrypted, unfiltered BIT, TINYINT, SMALLINT, INT or BIGINT value from the server, which
+     * getLongValue reads without converting it to an object.
+     */
+    final boolean hasIntegralValue() {
+        if (null != filter || null != cryptoMetadata || !getterDTV.isServerValue())
+            return false;
+
+        switch (typeInfo.getSSType()) {
+            case BIT:
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns whether this column's value is an unencrypted, unfiltered REAL or FLOAT value from the server, which getDoubleValue reads without
+     * converting it to an object.
+     */
+    final boolean hasFloatingPointValue() {
+        return null == filter && null == cryptoMetadata && getterDTV.isServerValue()
+                && (SSType.REAL == typeInfo.getSSType() || SSType.FLOAT == typeInfo.getSSType());
+    }
+
+    /**
+     * Returns whether this column's value is an unencrypted, unfiltered temporal value from the server, which getJavaTimeValue reads without
+     * converting it to a JDBC temporal type.
+     */
+    final boolean hasTemporalValue() {
+        if (null != filter || null != cryptoMetadata || !getterDTV.isServerValue())
+            return false;
+
+        switch (typeInfo.getSSType()) {
+            case DATE:
+            case TIME:
+            case DATETIME:
+            case SMALLDATETIME:
+            case DATETIME2:
+            case DATETIMEOFFSET:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Retrieves this column's integral value (see hasIntegralValue) as a long, or 0 if it is null.
+     */
+    final long getLongValue(TDSReader tdsReader) throws SQLServerException {
+        return getterDTV.getLongValue(typeInfo, tdsReader);
+    }
+
+    /**
+     * Retrieves this column's floating point value (see hasFloatingPointValue) as a double, or 0 if it is null.
+     */
+    final double getDoubleValue(TDSReader tdsReader) throws SQLServerException {
+        return getterDTV.getDoubleValue(typeInfo, tdsReader);
+    }
+
+    /**
+     * Retrieves this column's temporal value (see hasTemporalValue) as a java.time.LocalDateTime or, for DATETIMEOFFSET, a
+     * java.time.OffsetDateTime, or null if it is null.
+     */
+    final Object getJavaTimeValue(TDSReader tdsReader) throws SQLServerException {
+        return getterDTV.getJavaTimeValue(typeInfo, tdsReader);
+    }
+
     int getInt(TDSReader tdsReader) throws SQLServerException {
         return ((Integer) getValue(JDBCType.INTEGER, null, null, tdsReader)).intValue();
     }
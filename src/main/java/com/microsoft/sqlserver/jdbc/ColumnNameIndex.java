@@ -0,0 +1,78 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the names of the columns of a result set, or of the parameters of a stored procedure, to their indexes for findColumn. <br>
+ * <br>
+ * As findColumn has always searched the names, a name that matches exactly, in a binary compare, is found before one that matches ignoring case,
+ * with String.equalsIgnoreCase, and of several matching names the first is found. Names are looked up in two hash maps instead of being compared
+ * one by one, so that finding a column of a wide row by name does not take a compare for each column.
+ */
+final class ColumnNameIndex {
+    private final String[] names;
+    private final Map<String, Integer> exactIndexes;
+    private final Map<String, Integer> caseInsensitiveIndexes;
+
+    ColumnNameIndex(String[] names) {
+        this.names = names;
+        exactIndexes = new HashMap<String, Integer>(2 * names.length);
+        caseInsensitiveIndexes = new HashMap<String, Integer>(2 * names.length);
+        for (int i = names.length - 1; i >= 0; i--) {
+            // Put the names from the last, so that the first of several matching names is kept
+            Integer index = i;
+            exactIndexes.put(names[i], index);
+            caseInsensitiveIndexes.put(caseInsensitiveKey(names[i]), index);
+        }
+    }
+
+    /**
+     * Returns the index of the column with the given name, or -1 if there is none.
+     */
+    int indexOf(String name) {
+        Integer index = exactIndexes.get(name);
+        if (null == index && null != name)
+            index = caseInsensitiveIndexes.get(caseInsensitiveKey(name));
+        return (null == index) ? -1 : index;
+    }
+
+    /**
+     * Returns whether this index is for the names of the given columns, so that it can be used again for a result set with the same columns.
+     */
+    boolean hasNames(Column[] columns) {
+        if (columns.length != names.length)
+            return false;
+        for (int i = 0; i < columns.length; i++) {
+            if (!names[i].equals(columns[i].getColumnName()))
+                return false;
+        }
+        return true;
+    }
+
+    /*
+     * Returns a key that two names have in common exactly when they are equal ignoring case. As String.equalsIgnoreCase, two characters are equal
+     * ignoring case if their upper case characters are equal, or the lower case characters of those.
+     */
+    private static String caseInsensitiveKey(String name) {
+        char[] key = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            char k = Character.toLowerCase(Character.toUpperCase(c));
+            if (k != c) {
+                if (null == key)
+                    key = name.toCharArray();
+                key[i] = k;
+            }
+        }
+        return (null == key) ? name : new String(key);
+    }
+}
@@ -0,0 +1,496 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+
+/**
+ * The pool of the connections of a SQLServerPoolingDataSource. <br>
+ * <br>
+ * Each pooled connection is in an entry whose state is changed by compare-and-set, so that borrowing and returning a connection take no lock. A
+ * thread first tries the connection it returned last, then any idle connection, then opens a new connection if the pool is not full, and otherwise
+ * waits for a connection that another thread returns, which is handed to it directly. The entries are only added and removed when connections are
+ * opened and closed. Connections are opened up to the minimum size of the pool in the background. <br>
+ * <br>
+ * If a keep-alive interval is set, idle connections on which nothing has been read from the server for that long are queried in the background, so
+ * that connections closed by the server or the network are removed from the pool before they are borrowed.
+ */
+final class ConnectionPool {
+    // Piggyback SQLServerDataSource logger as SQLServerPooledConnection does.
+    private static final java.util.logging.Logger poolLogger = SQLServerDataSource.dsLogger;
+
+    private static final ThreadFactory threadFactory = new ThreadFactory() {
+        private final AtomicInteger threadNumber = new AtomicInteger(0);
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "mssql-jdbc-ConnectionPool-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    };
+
+    // Threads that open the connections of the pools in the background, which end when they have been idle for a while
+    private static final ThreadPoolExecutor openExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 5, TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(), threadFactory);
+
+    // Runs the keep-alive checks of the pools, on the threads of openExecutor
+    private static final ScheduledThreadPoolExecutor keepAliveScheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+
+    // How long a waiting thread waits for a returned connection to be handed to it before it checks the pool for an idle connection, or whether it
+    // can open a connection instead
+    private static final long MAX_HANDOFF_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final int IDLE = 0;
+    private static final int IN_USE = 1;
+    private static final int REMOVED = 2;
+    private static final int KEEPING_ALIVE = 3;
+
+    private final SQLServerPoolingDataSource dataSource;
+    private final int minPoolSize;
+    private final int maxPoolSize;
+    private final int waitTimeout;
+    private final long keepAliveNanos;
+    private final int pingTimeout;
+
+    private final CopyOnWriteArrayList<PoolEntry> entries = new CopyOnWriteArrayList<PoolEntry>();
+
+    // The connection that each thread returned last, which it tries first when it borrows a connection again
+    private final ThreadLocal<PoolEntry> lastEntry = new ThreadLocal<PoolEntry>();
+
+    // Returned connections are handed to waiting threads through this queue
+    private final SynchronousQueue<PoolEntry> handoff = new SynchronousQueue<PoolEntry>(true);
+
+    // The number of connections, counting those being opened
+    private final AtomicInteger connectionCount = new AtomicInteger(0);
+    private final AtomicInteger activeCount = new AtomicInteger(0);
+    private final AtomicInteger waitingCount = new AtomicInteger(0);
+    private final AtomicBoolean filling = new AtomicBoolean(false);
+    private final AtomicBoolean keepingAlive = new AtomicBoolean(false);
+    private final ScheduledFuture<?> keepAliveTask;
+    private volatile boolean closed;
+
+    private final AtomicLong requestCount = new AtomicLong(0);
+    private final AtomicLong totalWaitNanos = new AtomicLong(0);
+    private final AtomicLong maxWaitNanos = new AtomicLong(0);
+
+    ConnectionPool(SQLServerPoolingDataSource dataSource,
+            int minPoolSize,
+            int maxPoolSize,
+            int waitTimeout,
+            int keepAliveInterval) throws SQLServerException {
+        if (minPoolSize < 0 || maxPoolSize < 1 || minPoolSize > maxPoolSize) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidPoolSize"));
+            Object[] msgArgs = {minPoolSize, maxPoolSize};
+            SQLServerException.makeFromDriverError(null, null, form.format(msgArgs), null, false);
+        }
+        if (waitTimeout < 0) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidPoolWaitTimeout"));
+            Object[] msgArgs = {waitTimeout};
+            SQLServerException.makeFromDriverError(null, null, form.format(msgArgs), null, false);
+        }
+        this.dataSource = dataSource;
+        this.minPoolSize = minPoolSize;
+        this.maxPoolSize = maxPoolSize;
+        this.waitTimeout = waitTimeout;
+        this.keepAliveNanos = TimeUnit.SECONDS.toNanos(keepAliveInterval);
+        this.pingTimeout = dataSource.getLoginTimeout();
+
+        if (keepAliveInterval > 0) {
+            keepAliveTask = keepAliveScheduler.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    if (!closed && keepingAlive.compareAndSet(false, true)) {
+                        openExecutor.execute(new Runnable() {
+                            public void run() {
+                                try {
+                                    keepAlive();
+                                }
+                                finally {
+                                    keepingAlive.set(false);
+                                }
+                            }
+                        });
+                    }
+                }
+            }, keepAliveInterval, keepAliveInterval, TimeUnit.SECONDS);
+        }
+        else {
+            keepAliveTask = null;
+        }
+
+        fill();
+    }
+
+    /**
+     * Borrows a connection of the pool. The connection is reset, by the reset flag of the first request that is sent on it, if it has been used
+     * before.
+     *
+     * @return a handle to the connection, which returns the connection to the pool when it is closed
+     */
+    Connection getConnection() throws SQLServerException {
+        long start = System.nanoTime();
+        Connection connection = null;
+        while (null == connection) {
+            PoolEntry entry = borrow(start);
+            connection = entry.getConnection();
+        }
+
+        long waitNanos = System.nanoTime() - start;
+        requestCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        for (long max = maxWaitNanos.get(); waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos); max = maxWaitNanos.get())
+            ;
+        return connection;
+    }
+
+    private PoolEntry borrow(long start) throws SQLServerException {
+        checkClosed();
+
+        PoolEntry entry = lastEntry.get();
+        if (null != entry && entry.take())
+            return entry;
+        entry = takeIdle();
+        if (null != entry)
+            return entry;
+        entry = open(true);
+        if (null != entry)
+            return entry;
+
+        // The pool is full, so wait for a connection to be returned
+        waitingCount.incrementAndGet();
+        try {
+            for (;;) {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(waitTimeout) - (System.nanoTime() - start);
+                if (remaining <= 0) {
+                    MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_poolWaitTimedOut"));
+                    Object[] msgArgs = {waitTimeout};
+                    SQLServerException.makeFromDriverError(null, null, form.format(msgArgs), null, false);
+                }
+
+                entry = handoff.poll(Math.min(remaining, MAX_HANDOFF_WAIT_NANOS), TimeUnit.NANOSECONDS);
+                if (null != entry && entry.take())
+                    return entry;
+
+                // A connection may have been closed, or returned while this thread was not yet waiting for it
+                checkClosed();
+                entry = takeIdle();
+                if (null != entry)
+                    return entry;
+                entry = open(true);
+                if (null != entry)
+                    return entry;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLServerException(e.getMessage(), e);
+        }
+        finally {
+            waitingCount.decrementAndGet();
+        }
+    }
+
+    private PoolEntry takeIdle() {
+        for (PoolEntry entry : entries) {
+            if (entry.take())
+                return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Opens a connection if the pool is not full.
+     *
+     * @return the entry of the connection, or null if the pool is full
+     */
+    private PoolEntry open(boolean inUse) throws SQLServerException {
+        for (int count = connectionCount.get(); count < maxPoolSize; count = connectionCount.get()) {
+            if (!connectionCount.compareAndSet(count, count + 1))
+                continue;
+
+            PoolEntry entry;
+            try {
+                entry = new PoolEntry(new SQLServerPooledConnection(dataSource, null, null), inUse ? IN_USE : IDLE);
+            }
+            catch (SQLException e) {
+                connectionCount.decrementAndGet();
+                if (e instanceof SQLServerException)
+                    throw (SQLServerException) e;
+                throw new SQLServerException(e.getMessage(), e);
+            }
+
+            if (inUse)
+                activeCount.incrementAndGet();
+            entries.add(entry);
+            if (poolLogger.isLoggable(Level.FINER))
+                poolLogger.finer(toString() + " opened " + entry.pooledConnection.toString() + ", connections:" + connectionCount.get());
+            if (closed) {
+                remove(entry);
+                checkClosed();
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Opens connections in the background, up to the minimum size of the pool.
+     */
+    private void fill() {
+        if (closed || connectionCount.get() >= minPoolSize || !filling.compareAndSet(false, true))
+            return;
+
+        openExecutor.execute(new Runnable() {
+            public void run() {
+                try {
+                    while (!closed && connectionCount.get() < minPoolSize) {
+                        PoolEntry entry = open(false);
+                        if (null == entry)
+                            break;
+                        handOff(entry);
+                    }
+                }
+                catch (SQLServerException e) {
+                    if (poolLogger.isLoggable(Level.FINE))
+                        poolLogger.fine(ConnectionPool.this.toString() + " could not open a connection: " + e.getMessage());
+                }
+                finally {
+                    filling.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Queries the server on the idle connections on which nothing has been read for the keep-alive interval, and removes those that do not work.
+     */
+    private void keepAlive() {
+        for (PoolEntry entry : entries) {
+            if (closed)
+                return;
+
+            SQLServerConnection physicalConnection = entry.pooledConnection.getPhysicalConnection();
+            if (IDLE != entry.state.get() || null == physicalConnection || System.nanoTime() - physicalConnection.getLastReadTime() < keepAliveNanos
+                    || !entry.state.compareAndSet(IDLE, KEEPING_ALIVE))
+                continue;
+
+            if (!physicalConnection.ping(pingTimeout)) {
+                if (poolLogger.isLoggable(Level.FINER))
+                    poolLogger.finer(toString() + " keep-alive check failed for " + entry.pooledConnection.toString());
+                remove(entry);
+                continue;
+            }
+
+            // close() skips the connection while it is being checked, so the pool is checked again once the connection is idle
+            if (entry.state.compareAndSet(KEEPING_ALIVE, IDLE)) {
+                if (closed) {
+                    removeIdle(entry);
+                    return;
+                }
+                handOff(entry);
+            }
+        }
+    }
+
+    /**
+     * Returns a connection to the pool, when the handle to it is closed.
+     */
+    private void release(PoolEntry entry) {
+        if (IN_USE != entry.state.get())
+            return;
+
+        SQLServerConnection physicalConnection = entry.pooledConnection.getPhysicalConnection();
+        if (closed || null == physicalConnection || physicalConnection.isSessionUnAvailable()) {
+            remove(entry);
+            return;
+        }
+
+        // A pending transaction would otherwise stay open, holding its locks, until the connection is borrowed again, so it is rolled back, which
+        // costs a round trip only in manual commit mode. The connection is reset when it is borrowed again: the reset flag restores the rest of the
+        // session state on the server, including the commit mode, and resetPooledConnection restores the connection's own settings.
+        try {
+            if (!physicalConnection.getAutoCommit())
+                physicalConnection.rollback();
+        }
+        catch (SQLServerException e) {
+            remove(entry);
+            return;
+        }
+
+        activeCount.decrementAndGet();
+        entry.state.set(IDLE);
+        lastEntry.set(entry);
+        handOff(entry);
+    }
+
+    /**
+     * Hands an idle connection to a thread that is waiting for one, if there is one. A waiting thread that is not polling the handoff queue at that
+     * moment, because it is checking the pool or opening a connection, takes the idle connection the next time it checks the pool.
+     */
+    private void handOff(PoolEntry entry) {
+        if (waitingCount.get() > 0 && IDLE == entry.state.get())
+            handoff.offer(entry);
+    }
+
+    /**
+     * Removes a connection from the pool and closes it.
+     */
+    private void remove(PoolEntry entry) {
+        int state = entry.state.getAndSet(REMOVED);
+        if (REMOVED == state)
+            return;
+        if (IN_USE == state)
+            activeCount.decrementAndGet();
+        entries.remove(entry);
+        connectionCount.decrementAndGet();
+
+        try {
+            entry.pooledConnection.close();
+        }
+        catch (SQLException e) {
+            if (poolLogger.isLoggable(Level.FINE))
+                poolLogger.fine(toString() + " could not close " + entry.pooledConnection.toString() + ": " + e.getMessage());
+        }
+        if (poolLogger.isLoggable(Level.FINER))
+            poolLogger.finer(toString() + " removed " + entry.pooledConnection.toString() + ", connections:" + connectionCount.get());
+
+        fill();
+    }
+
+    /**
+     * Closes the pool and its idle connections. The connections in use are closed when they are returned.
+     */
+    void close() {
+        closed = true;
+        if (null != keepAliveTask)
+            keepAliveTask.cancel(false);
+        for (PoolEntry entry : entries)
+            removeIdle(entry);
+    }
+
+    /**
+     * Removes a connection from the pool if it is idle, so that a connection borrowed at the same time is not closed.
+     */
+    private void removeIdle(PoolEntry entry) {
+        if (entry.state.compareAndSet(IDLE, IN_USE)) {
+            activeCount.incrementAndGet();
+            remove(entry);
+        }
+    }
+
+    private void checkClosed() throws SQLServerException {
+        if (closed)
+            SQLServerException.makeFromDriverError(null, null, SQLServerException.getErrString("R_poolIsClosed"), null, false);
+    }
+
+    int getActiveConnectionCount() {
+        return activeCount.get();
+    }
+
+    int getIdleConnectionCount() {
+        int idleCount = 0;
+        for (PoolEntry entry : entries) {
+            if (IDLE == entry.state.get())
+                idleCount++;
+        }
+        return idleCount;
+    }
+
+    int getConnectionCount() {
+        return entries.size();
+    }
+
+    int getWaitingThreadCount() {
+        return waitingCount.get();
+    }
+
+    long getConnectionRequestCount() {
+        return requestCount.get();
+    }
+
+    long getTotalConnectionWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+
+    long getMaxConnectionWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    public String toString() {
+        return dataSource.toString() + " pool";
+    }
+
+    /**
+     * A connection of the pool, which is idle, in use, being checked by the keep-alive or removed.
+     */
+    private final class PoolEntry implements ConnectionEventListener {
+        final SQLServerPooledConnection pooledConnection;
+        final AtomicInteger state;
+
+        PoolEntry(SQLServerPooledConnection pooledConnection,
+                int state) {
+            this.pooledConnection = pooledConnection;
+            this.state = new AtomicInteger(state);
+            pooledConnection.addConnectionEventListener(this);
+        }
+
+        boolean take() {
+            if (!state.compareAndSet(IDLE, IN_USE))
+                return false;
+            activeCount.incrementAndGet();
+            return true;
+        }
+
+        /**
+         * Gets a handle to the connection, which has been taken, or removes the connection if it has been closed.
+         *
+         * @return the handle, or null if the connection has been removed
+         */
+        Connection getConnection() throws SQLServerException {
+            SQLServerConnection physicalConnection = pooledConnection.getPhysicalConnection();
+            if (null == physicalConnection || physicalConnection.isSessionUnAvailable()) {
+                remove(this);
+                return null;
+            }
+
+            try {
+                return pooledConnection.getConnection();
+            }
+            catch (SQLException e) {
+                remove(this);
+                if (e instanceof SQLServerException)
+                    throw (SQLServerException) e;
+                throw new SQLServerException(e.getMessage(), e);
+            }
+        }
+
+        public void connectionClosed(ConnectionEvent event) {
+            release(this);
+        }
+
+        public void connectionErrorOccurred(ConnectionEvent event) {
+            remove(this);
+        }
+    }
+}
@@ -24,6 +24,11 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.text.MessageFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.Locale;
@@ -576,6 +581,55 @@ final class DDC {
         }
     }
 
+    /**
+     * Returns whether convertStreamToObject converts a character stream to the given jdbc type by way of a String, with convertStringToObject.
+     */
+    static final boolean convertsFromString(JDBCType jdbcType) {
+        switch (jdbcType) {
+            case CLOB:
+            case NCLOB:
+            case SQLXML:
+            case BINARY:
+            case VARBINARY:
+            case LONGVARBINARY:
+            case BLOB:
+                return false;
+
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Converts a String value of a character type read from the server to the required type, as convertStreamToObject converts a stream of it.
+     * 
+     * @param stringVal
+     *            the value to convert.
+     * @param typeInfo
+     *            the type info of the value.
+     * @param jdbcType
+     *            the jdbc type required.
+     * @param streamType
+     *            the stream type required.
+     * @return the required object.
+     */
+    static final Object convertStringToObject(String stringVal,
+            TypeInfo typeInfo,
+            JDBCType jdbcType,
+            StreamType streamType) throws SQLServerException {
+        try {
+            return convertStringToObject(stringVal, typeInfo.getCharset(), jdbcType, streamType);
+        }
+        catch (IllegalArgumentException e) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_errorConvertingValue"));
+            throw new SQLServerException(form.format(new Object[] {typeInfo.getSSType(), jdbcType}), null, 0, e);
+        }
+        catch (UnsupportedEncodingException e) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_errorConvertingValue"));
+            throw new SQLServerException(form.format(new Object[] {typeInfo.getSSType(), jdbcType}), null, 0, e);
+        }
+    }
+
     static final Object convertStreamToObject(BaseInputStream stream,
             TypeInfo typeInfo,
             JDBCType jdbcType,
@@ -771,6 +825,14 @@ final class DDC {
             int daysSinceBaseDate,
             long ticksSinceMidnight,
             int fractionalSecondsScale) {
+        // Values of types other than DATETIMEOFFSET are in the local time zone. Convert them
+        // by epoch arithmetic, rather than through a calendar, wherever the result is the same.
+        if (SSType.DATETIMEOFFSET != ssType) {
+            Object value = convertLocalTemporalToObject(jdbcType, ssType, timeZoneCalendar, daysSinceBaseDate, ticksSinceMidnight);
+            if (null != value)
+                return value;
+        }
+
         // Determine the local time zone to associate with the value. Use the default VM
         // time zone if no time zone is otherwise specified.
         TimeZone localTimeZone = (null != timeZoneCalendar) ? timeZoneCalendar.getTimeZone() : TimeZone.getDefault();
@@ -909,16 +971,18 @@ final class DDC {
             default:
                 throw new AssertionError("Unexpected SSType: " + ssType);
         }
+        // The local time zone offset is used only for DATETIMEOFFSET values.
         int localMillisOffset = 0;
-        if (null == timeZoneCalendar) {
-            TimeZone tz = TimeZone.getDefault();
-            GregorianCalendar _cal = new GregorianCalendar(componentTimeZone, Locale.US);
-            _cal.setLenient(true);
-            _cal.clear();
-            localMillisOffset = tz.getOffset(_cal.getTimeInMillis());
-        }
-        else {
-            localMillisOffset = timeZoneCalendar.get(Calendar.ZONE_OFFSET);
+        if (SSType.DATETIMEOFFSET == ssType) {
+            if (null == timeZoneCalendar) {
+                GregorianCalendar _cal = new GregorianCalendar(componentTimeZone, Locale.US);
+                _cal.setLenient(true);
+                _cal.clear();
+                localMillisOffset = localTimeZone.getOffset(_cal.getTimeInMillis());
+            }
+            else {
+                localMillisOffset = timeZoneCalendar.get(Calendar.ZONE_OFFSET);
+            }
         }
         // Convert the calendar value (in local time) to the desired Java object type.
         switch (jdbcType.category) {
@@ -1073,6 +1137,224 @@ final class DDC {
         }
     }
 
+    // Days from the base dates of SQL Server temporal values (1/1/0001 and 1/1/1900) to 1/1/1970, the epoch of java.sql.Date, Time and Timestamp.
+    private static final int EPOCH_DAYS_SINCE_BASE_DATE = daysSinceBaseDate(TDS.BASE_YEAR_1970, 1, 1);
+    private static final int EPOCH_DAYS_SINCE_BASE_DATE_1900 = daysSinceBaseDate(TDS.BASE_YEAR_1970, 1, TDS.BASE_YEAR_1900);
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    // Returned by localTimeZoneOffset when the offset cannot be determined without a calendar
+    private static final int UNKNOWN_TIME_ZONE_OFFSET = Integer.MIN_VALUE;
+
+    /**
+     * Converts a DATE, TIME, DATETIME2, DATETIME or SMALLDATETIME value to java.sql.Date, java.sql.Time or java.sql.Timestamp (or the String of a
+     * DATETIME or SMALLDATETIME value) by epoch arithmetic on its date and time parts, with the same result as the calendar-based conversion in
+     * convertTemporalToObject.
+     *
+     * Returns null, leaving the conversion to the calendar, for other target types, for dates before the standard Gregorian change date and for
+     * values within a day of a change in the offset of the local time zone, where local times may be skipped or repeated.
+     */
+    private static Object convertLocalTemporalToObject(JDBCType jdbcType,
+            SSType ssType,
+            Calendar timeZoneCalendar,
+            int daysSinceBaseDate,
+            long ticksSinceMidnight) {
+        long epochDays;
+        long millisSinceMidnight;
+        int subSecondNanos;
+
+        switch (ssType) {
+            case TIME:
+                // Dated 1/1/1900, as by the calendar. Ticks are in nanoseconds.
+                epochDays = -EPOCH_DAYS_SINCE_BASE_DATE_1900;
+                millisSinceMidnight = ticksSinceMidnight / Nanos.PER_MILLISECOND;
+                subSecondNanos = (int) (ticksSinceMidnight % Nanos.PER_SECOND);
+                break;
+
+            case DATE:
+            case DATETIME2:
+                if (daysSinceBaseDate < GregorianChange.DAYS_SINCE_BASE_DATE_HINT)
+                    return null;
+
+                // Ticks are in nanoseconds.
+                epochDays = daysSinceBaseDate - EPOCH_DAYS_SINCE_BASE_DATE;
+                millisSinceMidnight = ticksSinceMidnight / Nanos.PER_MILLISECOND;
+                subSecondNanos = (int) (ticksSinceMidnight % Nanos.PER_SECOND);
+                break;
+
+            case DATETIME: // and SMALLDATETIME
+                // Ticks are in milliseconds.
+                epochDays = daysSinceBaseDate - EPOCH_DAYS_SINCE_BASE_DATE_1900;
+                millisSinceMidnight = ticksSinceMidnight;
+                subSecondNanos = (int) ((ticksSinceMidnight * Nanos.PER_MILLISECOND) % Nanos.PER_SECOND);
+                break;
+
+            default:
+                return null;
+        }
+
+        JDBCType.Category category = jdbcType.category;
+        switch (category) {
+            case BINARY:
+                // getObject, which returns the JDBC type of the SQL Server type
+                category = (SSType.DATE == ssType) ? JDBCType.Category.DATE
+                        : (SSType.TIME == ssType) ? JDBCType.Category.TIME : JDBCType.Category.TIMESTAMP;
+                break;
+
+            case CHARACTER:
+                // Only DATETIME and SMALLDATETIME values are formatted from a java.sql.Timestamp
+                if (SSType.DATETIME != ssType)
+                    return null;
+                break;
+
+            default:
+                break;
+        }
+
+        TimeZone localTimeZone = (null != timeZoneCalendar) ? timeZoneCalendar.getTimeZone() : TimeZone.getDefault();
+
+        // The local ("wall clock") value to convert, in milliseconds since 1/1/1970 00:00:00 local time
+        long localMillis;
+        switch (category) {
+            case DATE:
+                // Midnight in the local time zone
+                localMillis = epochDays * MILLIS_PER_DAY;
+                break;
+
+            case TIME:
+                // Rounded, not truncated, to the nearest millisecond, then dated 1/1/1970 (see convertTemporalToObject).
+                // The calendar rounds the value on its own date, so the offset must be known there too.
+                if (subSecondNanos % Nanos.PER_MILLISECOND >= Nanos.PER_MILLISECOND / 2) {
+                    if (UNKNOWN_TIME_ZONE_OFFSET == localTimeZoneOffset(localTimeZone, epochDays * MILLIS_PER_DAY + millisSinceMidnight))
+                        return null;
+                    ++millisSinceMidnight;
+                }
+                localMillis = millisSinceMidnight % MILLIS_PER_DAY;
+                break;
+
+            case TIMESTAMP:
+            case CHARACTER:
+                localMillis = epochDays * MILLIS_PER_DAY + millisSinceMidnight;
+                break;
+
+            default:
+                return null;
+        }
+
+        int localMillisOffset = localTimeZoneOffset(localTimeZone, localMillis);
+        if (UNKNOWN_TIME_ZONE_OFFSET == localMillisOffset)
+            return null;
+
+        long utcMillis = localMillis - localMillisOffset;
+        switch (category) {
+            case DATE:
+                return new java.sql.Date(utcMillis);
+
+            case TIME:
+                return new java.sql.Time(utcMillis);
+
+            case CHARACTER:
+                return (new java.sql.Timestamp(utcMillis)).toString();
+
+            default: {
+                java.sql.Timestamp ts = new java.sql.Timestamp(utcMillis);
+                ts.setNanos(subSecondNanos);
+                return ts;
+            }
+        }
+    }
+
+    /**
+     * Returns the offset from UTC, in milliseconds, of the specified time zone at the specified local time, or UNKNOWN_TIME_ZONE_OFFSET if the
+     * offset changes within a day of that time.
+     */
+    private static int localTimeZoneOffset(TimeZone timeZone,
+            long localMillis) {
+        int rawOffset = timeZone.getRawOffset();
+        long utcMillis = localMillis - rawOffset;
+        int offset = timeZone.getOffset(utcMillis);
+
+        // Only an offset that is the same a day before and after is certain: no local time near the value
+        // is skipped or repeated, and the estimate from the raw offset is within that range.
+        if (Math.abs(offset - rawOffset) >= MILLIS_PER_DAY || offset != timeZone.getOffset(utcMillis - MILLIS_PER_DAY)
+                || offset != timeZone.getOffset(utcMillis + MILLIS_PER_DAY))
+            return UNKNOWN_TIME_ZONE_OFFSET;
+
+        return offset;
+    }
+
+    /**
+     * Converts a DATE, TIME, DATETIME2, DATETIME or SMALLDATETIME value to java.time.LocalDateTime. Unlike the JDBC temporal types, LocalDateTime
+     * has no time zone and uses the same (proleptic Gregorian) calendar as SQL Server, so the date and time parts convert directly.
+     *
+     * @param ssType
+     *            the SQL Server data type of the value, DATETIME for SMALLDATETIME
+     * @param daysSinceBaseDate
+     *            the date part of the value, as for convertTemporalToObject. Ignored for TIME values, which are dated 1/1/1900.
+     * @param nanosSinceMidnight
+     *            the time part of the value, in nanoseconds
+     * @return the LocalDateTime
+     */
+    static LocalDateTime convertTemporalToLocalDateTime(SSType ssType,
+            int daysSinceBaseDate,
+            long nanosSinceMidnight) {
+        long epochDays;
+        switch (ssType) {
+            case TIME:
+                epochDays = -EPOCH_DAYS_SINCE_BASE_DATE_1900;
+                break;
+
+            case DATETIME:
+                epochDays = daysSinceBaseDate - EPOCH_DAYS_SINCE_BASE_DATE_1900;
+                break;
+
+            default:
+                epochDays = daysSinceBaseDate - EPOCH_DAYS_SINCE_BASE_DATE;
+                break;
+        }
+
+        return LocalDateTime.of(LocalDate.ofEpochDay(epochDays), LocalTime.ofNanoOfDay(nanosSinceMidnight));
+    }
+
+    /**
+     * Converts a DATETIMEOFFSET value to java.time.OffsetDateTime.
+     *
+     * @param utcDaysIntoCE
+     *            the date part of the value in UTC, as a number of days since 1/1/0001
+     * @param utcNanosSinceMidnight
+     *            the time part of the value in UTC, in nanoseconds
+     * @param minutesOffset
+     *            the offset part of the value, in minutes
+     * @return the OffsetDateTime
+     */
+    static OffsetDateTime convertTemporalToOffsetDateTime(int utcDaysIntoCE,
+            long utcNanosSinceMidnight,
+            int minutesOffset) {
+        ZoneOffset offset = zoneOffset(minutesOffset);
+        long epochSeconds = (utcDaysIntoCE - EPOCH_DAYS_SINCE_BASE_DATE) * (MILLIS_PER_DAY / 1000) + utcNanosSinceMidnight / Nanos.PER_SECOND;
+        return OffsetDateTime.of(LocalDateTime.ofEpochSecond(epochSeconds, (int) (utcNanosSinceMidnight % Nanos.PER_SECOND), offset), offset);
+    }
+
+    // Offsets of DATETIMEOFFSET values, which range from -14:00 to +14:00, by minutes offset + MAX_MINUTES_OFFSET. Created on first use.
+    private static final int MAX_MINUTES_OFFSET = 14 * 60;
+    private static final ZoneOffset[] zoneOffsets = new ZoneOffset[2 * MAX_MINUTES_OFFSET + 1];
+
+    /**
+     * Returns the ZoneOffset of the specified minutes offset. ZoneOffset instances are immutable, so they are cached for reuse by all values with
+     * the same offset.
+     */
+    static ZoneOffset zoneOffset(int minutesOffset) {
+        if (minutesOffset < -MAX_MINUTES_OFFSET || minutesOffset > MAX_MINUTES_OFFSET)
+            return ZoneOffset.ofTotalSeconds(60 * minutesOffset);
+
+        ZoneOffset offset = zoneOffsets[minutesOffset + MAX_MINUTES_OFFSET];
+        if (null == offset) {
+            offset = ZoneOffset.ofTotalSeconds(60 * minutesOffset);
+            zoneOffsets[minutesOffset + MAX_MINUTES_OFFSET] = offset;
+        }
+        return offset;
+    }
+
     /**
      * Returns the number of days elapsed from January 1 of the specified baseYear (Gregorian) to the specified dayOfYear in the specified year,
      * assuming pure Gregorian calendar rules (no Julian to Gregorian cutover).
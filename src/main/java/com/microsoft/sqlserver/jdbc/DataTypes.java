@@ -618,7 +618,8 @@ enum JavaType
     }
 
     static JavaType of(Object obj) {
-        if (obj instanceof SQLServerDataTable || obj instanceof ResultSet || obj instanceof ISQLServerDataRecord)
+        if (obj instanceof SQLServerDataTable || obj instanceof SQLServerColumnarDataTable || obj instanceof SQLServerStreamingDataTable
+                || obj instanceof ResultSet || obj instanceof ISQLServerDataRecord)
             return JavaType.TVP;
         if (null != obj) {
             for (JavaType javaType : values())
@@ -17,6 +17,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.Inet4Address;
@@ -29,10 +31,14 @@ import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.CharBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
 import java.security.Provider;
 import java.security.Security;
@@ -46,6 +52,8 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -57,16 +65,21 @@ import java.util.SimpleTimeZone;
 import java.util.TimeZone;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
@@ -576,6 +589,10 @@ final class TDSChannel {
     private InputStream inputStream;
     private OutputStream outputStream;
 
+    // I/O interface over the TCP/IP socket's channel, used instead of the streams
+    // above when the useSocketChannel connection property is set.
+    private TDSSocketChannel socketChannel;
+
     /** TDS packet payload logger */
     private static Logger packetLogger = Logger.getLogger("com.microsoft.sqlserver.jdbc.internals.TDS.DATA");
     private final boolean isLoggingPackets = packetLogger.isLoggable(Level.FINEST);
@@ -604,9 +621,32 @@ final class TDSChannel {
         tdsWriter.resetPooledConnection();
     }
 
+    // Time, from System.nanoTime, of the last read from the server, which shows that the connection worked at that time
+    private volatile long lastReadTime = System.nanoTime();
+
+    final long getLastReadTime() {
+        return lastReadTime;
+    }
+
+    // Pool of recycled response packet buffers. Null when packet pooling is disabled.
+    private final TDSPacketPool packetPool;
+
+    final TDSPacketPool getPacketPool() {
+        return packetPool;
+    }
+
+    /**
+     * Returns a new packet to read a response packet into, taking its payload buffer from the packet pool if pooling is enabled.
+     */
+    final TDSPacket allocatePacket(int size) {
+        return (null == packetPool) ? new TDSPacket(size) : packetPool.allocatePacket(size);
+    }
+
     TDSChannel(SQLServerConnection con) {
         this.con = con;
         traceID = "TDSChannel (" + con.toString() + ")";
+        int packetPoolSize = con.getPacketPoolSize();
+        this.packetPool = (packetPoolSize > 0) ? new TDSPacketPool(con.toString(), packetPoolSize) : null;
         this.tcpSocket = null;
         this.sslSocket = null;
         this.channelSocket = null;
@@ -614,6 +654,7 @@ final class TDSChannel {
         this.tcpOutputStream = null;
         this.inputStream = null;
         this.outputStream = null;
+        this.socketChannel = null;
         this.tdsWriter = new TDSWriter(this, con);
     }
 
@@ -644,8 +685,17 @@ final class TDSChannel {
             int socketTimeout = con.getSocketTimeoutMilliseconds();
             tcpSocket.setSoTimeout(socketTimeout);
 
-            inputStream = tcpInputStream = tcpSocket.getInputStream();
-            outputStream = tcpOutputStream = tcpSocket.getOutputStream();
+            // SocketFinder returns a socket with a channel when useSocketChannel is set.
+            if (null != tcpSocket.getChannel()) {
+                if (logger.isLoggable(Level.FINER))
+                    logger.finer(this.toString() + ": Using socket channel");
+
+                socketChannel = new TDSSocketChannel(tcpSocket.getChannel(), socketTimeout, toString());
+            }
+            else {
+                inputStream = tcpInputStream = tcpSocket.getInputStream();
+                outputStream = tcpOutputStream = tcpSocket.getOutputStream();
+            }
         }
         catch (IOException ex) {
             SQLServerException.ConvertConnectExceptionToSQLServerException(host, port, con, ex);
@@ -659,6 +709,15 @@ final class TDSChannel {
         if (logger.isLoggable(Level.FINER))
             logger.finer(toString() + " Disabling SSL...");
 
+        // The socket channel just stops using its SSL engine.
+        if (null != socketChannel) {
+            socketChannel.stopTLS();
+
+            if (logger.isLoggable(Level.FINER))
+                logger.finer(toString() + " SSL disabled");
+            return;
+        }
+
         /*
          * The mission: To close the SSLSocket and release everything that it is holding onto other than the TCP/IP socket and streams.
          *
@@ -1732,6 +1791,28 @@ final class TDSChannel {
 
             sslContext.init(null, tm, null);
 
+            // Over a socket channel, do the handshake with an SSL engine over the TDS-framed
+            // handshake streams, then let the channel encrypt and decrypt its I/O.
+            if (null != socketChannel) {
+                if (logger.isLoggable(Level.FINEST))
+                    logger.finest(toString() + " Creating SSL engine");
+
+                SSLEngine sslEngine = sslContext.createSSLEngine(host, port);
+                sslEngine.setUseClientMode(true);
+
+                if (logger.isLoggable(Level.FINER))
+                    logger.finer(toString() + " Starting SSL handshake");
+
+                SSLHandshakeOutputStream sslHandshakeOutputStream = new SSLHandshakeOutputStream(this);
+                handshakeState = SSLHandhsakeState.SSL_HANDHSAKE_STARTED;
+                socketChannel.startTLS(sslEngine, new SSLHandshakeInputStream(this, sslHandshakeOutputStream), sslHandshakeOutputStream);
+                handshakeState = SSLHandhsakeState.SSL_HANDHSAKE_COMPLETE;
+
+                if (logger.isLoggable(Level.FINER))
+                    logger.finer(toString() + " SSL enabled");
+                return;
+            }
+
             // Got the SSL context. Now create an SSL socket over our own proxy socket
             // which we can toggle between TDS-encapsulated and raw communications.
             // Initially, the proxy is set to encapsulate the SSL handshake in TDS packets.
@@ -1977,7 +2058,10 @@ final class TDSChannel {
             int offset,
             int length) throws SQLServerException {
         try {
-            return inputStream.read(data, offset, length);
+            int bytesRead = (null != socketChannel) ? socketChannel.read(data, offset, length) : inputStream.read(data, offset, length);
+            if (bytesRead > 0)
+                lastReadTime = System.nanoTime();
+            return bytesRead;
         }
         catch (IOException e) {
             if (logger.isLoggable(Level.FINE))
@@ -1998,7 +2082,10 @@ final class TDSChannel {
             int offset,
             int length) throws SQLServerException {
         try {
-            outputStream.write(data, offset, length);
+            if (null != socketChannel)
+                socketChannel.write(data, offset, length);
+            else
+                outputStream.write(data, offset, length);
         }
         catch (IOException e) {
             if (logger.isLoggable(Level.FINER))
@@ -2009,6 +2096,10 @@ final class TDSChannel {
     }
 
     final void flush() throws SQLServerException {
+        // Socket channel writes are not buffered.
+        if (null != socketChannel)
+            return;
+
         try {
             outputStream.flush();
         }
@@ -2024,6 +2115,16 @@ final class TDSChannel {
         if (null != sslSocket)
             disableSSL();
 
+        if (null != packetPool)
+            packetPool.clear();
+
+        if (null != socketChannel) {
+            if (logger.isLoggable(Level.FINEST))
+                logger.finest(this.toString() + ": Closing socket channel...");
+
+            socketChannel.close();
+        }
+
         if (null != inputStream) {
             if (logger.isLoggable(Level.FINEST))
                 logger.finest(this.toString() + ": Closing inputStream...");
@@ -2187,11 +2288,14 @@ final class SocketFinder {
 
     // lock used for synchronization while updating
     // data within a socketFinder object
-    private final Object socketFinderlock = new Object();
+    private final Lock socketFinderlock = new ReentrantLock();
 
     // lock on which the parent thread would wait
     // after spawning threads.
-    private final Object parentThreadLock = new Object();
+    private final Lock parentThreadLock = new ReentrantLock();
+
+    // condition signalled to the parent thread once the result is known
+    private final Condition parentThreadCondition = parentThreadLock.newCondition();
 
     // indicates whether the socketFinder has succeeded or failed
     // in finding a socket or is still trying to find a socket
@@ -2360,7 +2464,8 @@ final class SocketFinder {
             // for both IPv4 and IPv6.
             // Using double-checked locking for performance reasons.
             if (result.equals(Result.UNKNOWN)) {
-                synchronized (socketFinderlock) {
+                socketFinderlock.lock();
+                try {
                     if (result.equals(Result.UNKNOWN)) {
                         result = Result.FAILURE;
                         if (logger.isLoggable(Level.FINER)) {
@@ -2368,6 +2473,9 @@ final class SocketFinder {
                         }
                     }
                 }
+                finally {
+                    socketFinderlock.unlock();
+                }
             }
 
             // After we reach this point, there is no need for synchronization any more.
@@ -2561,7 +2669,7 @@ final class SocketFinder {
             //the selectedChannel has the address that is connected successfully
             //convert it to a java.net.Socket object with the address
             SocketAddress  iadd = selectedChannel.getRemoteAddress();
-            selectedSocket = new Socket();
+            selectedSocket = newSocket();
             selectedSocket.connect(iadd);
 
             result = Result.SUCCESS;
@@ -2589,6 +2697,13 @@ final class SocketFinder {
         return getConnectedSocket(addr, timeoutInMilliSeconds);
     }
 
+    /**
+     * Creates an unconnected socket, backed by a socket channel if the connection uses one (useSocketChannel).
+     */
+    private Socket newSocket() throws IOException {
+        return conn.getUseSocketChannel() ? SocketChannel.open().socket() : new Socket();
+    }
+
     private Socket getConnectedSocket(InetAddress inetAddr,
             int portNumber,
             int timeoutInMilliSeconds) throws IOException {
@@ -2601,7 +2716,7 @@ final class SocketFinder {
         assert timeoutInMilliSeconds != 0 : "timeout cannot be zero";
         if (addr.isUnresolved())
             throw new java.net.UnknownHostException();
-        selectedSocket = new Socket();
+        selectedSocket = newSocket();
         selectedSocket.connect(addr, timeoutInMilliSeconds);
         return selectedSocket;
     }
@@ -2620,7 +2735,7 @@ final class SocketFinder {
             // create a socket, inetSocketAddress and a corresponding socketConnector per inetAddress
             noOfSpawnedThreads = inetAddrs.size();
             for (InetAddress inetAddress : inetAddrs) {
-                Socket s = new Socket();
+                Socket s = newSocket();
                 sockets.add(s);
 
                 InetSocketAddress inetSocketAddress = new InetSocketAddress(inetAddress, portNumber);
@@ -2630,7 +2745,8 @@ final class SocketFinder {
             }
 
             // acquire parent lock and spawn all threads
-            synchronized (parentThreadLock) {
+            parentThreadLock.lock();
+            try {
                 for (SocketConnector sc : socketConnectors) {
                     threadPoolExecutor.execute(sc);
                 }
@@ -2661,7 +2777,7 @@ final class SocketFinder {
                     if (timeRemaining <= 0 || (!result.equals(Result.UNKNOWN)))
                         break;
 
-                    parentThreadLock.wait(timeRemaining);
+                    parentThreadCondition.await(timeRemaining, TimeUnit.MILLISECONDS);
 
                     if (logger.isLoggable(Level.FINER)) {
                         logger.finer(this.toString() + " The parent thread wokeup.");
@@ -2671,6 +2787,9 @@ final class SocketFinder {
                 }
 
             }
+            finally {
+                parentThreadLock.unlock();
+            }
 
         }
         finally {
@@ -2763,7 +2882,8 @@ final class SocketFinder {
                 logger.finer("The following child thread is waiting for socketFinderLock:" + threadId);
             }
 
-            synchronized (socketFinderlock) {
+            socketFinderlock.lock();
+            try {
                 if (logger.isLoggable(Level.FINER)) {
                     logger.finer("The following child thread acquired socketFinderLock:" + threadId);
                 }
@@ -2820,12 +2940,16 @@ final class SocketFinder {
                         logger.finer("The following child thread is waiting for parentThreadLock:" + threadId);
                     }
 
-                    synchronized (parentThreadLock) {
+                    parentThreadLock.lock();
+                    try {
                         if (logger.isLoggable(Level.FINER)) {
                             logger.finer("The following child thread acquired parentThreadLock:" + threadId);
                         }
 
-                        parentThreadLock.notify();
+                        parentThreadCondition.signal();
+                    }
+                    finally {
+                        parentThreadLock.unlock();
                     }
 
                     if (logger.isLoggable(Level.FINER)) {
@@ -2833,6 +2957,9 @@ final class SocketFinder {
                     }
                 }
             }
+            finally {
+                socketFinderlock.unlock();
+            }
 
             if (logger.isLoggable(Level.FINER)) {
                 logger.finer("The following child thread released socketFinderLock:" + threadId);
@@ -3563,10 +3690,11 @@ final class TDSWriter {
         calendar.setTimeInMillis(utcMillis);
 
         // Local timezone value in minutes
-        int minuteAdjustment = ((TimeZone.getDefault().getRawOffset()) / (60 * 1000));
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        int minuteAdjustment = ((defaultTimeZone.getRawOffset()) / (60 * 1000));
         // check if date is in day light savings and add daylight saving minutes
-        if (TimeZone.getDefault().inDaylightTime(calendar.getTime()))
-            minuteAdjustment += (TimeZone.getDefault().getDSTSavings()) / (60 * 1000);
+        if (defaultTimeZone.inDaylightTime(calendar.getTime()))
+            minuteAdjustment += (defaultTimeZone.getDSTSavings()) / (60 * 1000);
         // If the local time is negative then positive minutesOffset must be subtracted from calender
         minuteAdjustment += (minuteAdjustment < 0) ? (minutesOffset * (-1)) : minutesOffset;
         calendar.add(Calendar.MINUTE, minuteAdjustment);
@@ -3620,10 +3748,11 @@ final class TDSWriter {
         calendar = initializeCalender(timeZone);
         calendar.setTimeInMillis(utcMillis);
 
-        int minuteAdjustment = (TimeZone.getDefault().getRawOffset()) / (60 * 1000);
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        int minuteAdjustment = (defaultTimeZone.getRawOffset()) / (60 * 1000);
         // check if date is in day light savings and add daylight saving minutes to Local timezone(in minutes)
-        if (TimeZone.getDefault().inDaylightTime(calendar.getTime()))
-            minuteAdjustment += ((TimeZone.getDefault().getDSTSavings()) / (60 * 1000));
+        if (defaultTimeZone.inDaylightTime(calendar.getTime()))
+            minuteAdjustment += ((defaultTimeZone.getDSTSavings()) / (60 * 1000));
         // If the local time is negative then positive minutesOffset must be subtracted from calender
         minuteAdjustment += (minuteAdjustment < 0) ? (minutesOffset * (-1)) : minutesOffset;
         calendar.add(Calendar.MINUTE, minuteAdjustment);
@@ -4533,10 +4662,25 @@ final class TDSWriter {
     }
 
     void writeTVPRows(TVP value) throws SQLServerException {
-        boolean isShortValue, isNull;
-        int dataLength;
+        boolean isShortValue;
 
-        if (!value.isNull()) {
+        if (TVPType.SQLServerColumnarDataTable == value.tvpType) {
+            SQLServerColumnarDataTable dataTable = value.sourceColumnarDataTable;
+            List<SQLServerColumnarDataTable.Column> columns = dataTable.getColumns();
+            TVPColumnLayout layout = new TVPColumnLayout(columns.toArray(new SQLServerColumnarDataTable.Column[columns.size()]),
+                    value.getColumnMetadata());
+            int rowCount = dataTable.getRowCount();
+            for (int row = 0; row < rowCount; row++)
+                writeTVPRow(layout, row);
+        }
+        else if (TVPType.SQLServerStreamingDataTable == value.tvpType) {
+            // Each row is written as soon as it is bound, from the same row buffer
+            TVPColumnLayout layout = new TVPColumnLayout(value.streamingDataTableRow.getColumns(), value.getColumnMetadata());
+            value.sourceStreamingDataTable.startRows();
+            while (value.sourceStreamingDataTable.nextRow(value.streamingDataTableRow))
+                writeTVPRow(layout, 0);
+        }
+        else if (!value.isNull()) {
             Map<Integer, SQLServerMetaData> columnMetadata = value.getColumnMetadata();
             Iterator<Entry<Integer, SQLServerMetaData>> columnsIterator;
 
@@ -4613,18 +4757,7 @@ final class TDSWriter {
                                 writeByte((byte) 0);
                             else {
                                 writeByte((byte) TDSWriter.BIGDECIMAL_MAX_LENGTH); // maximum length
-                                BigDecimal bdValue = new BigDecimal(currentColumnStringValue);
-
-                                // setScale of all BigDecimal value based on metadata sent
-                                bdValue = bdValue.setScale(columnPair.getValue().scale);
-                                byte[] valueBytes = DDC.convertBigDecimalToBytes(bdValue, bdValue.scale());
-
-                                // 1-byte for sign and 16-byte for integer
-                                byte[] byteValue = new byte[17];
-
-                                // removing the precision and scale information from the valueBytes array
-                                System.arraycopy(valueBytes, 2, byteValue, 0, valueBytes.length - 2);
-                                writeBytes(byteValue);
+                                writeTVPDecimalValue(new BigDecimal(currentColumnStringValue), columnPair.getValue().scale);
                             }
                             break;
 
@@ -4665,83 +4798,17 @@ final class TDSWriter {
                         case NCHAR:
                         case NVARCHAR:
                             isShortValue = (2 * columnPair.getValue().precision) <= DataTypes.SHORT_VARTYPE_MAX_BYTES;
-                            isNull = (null == currentColumnStringValue);
-                            dataLength = isNull ? 0 : currentColumnStringValue.length() * 2;
-                            if (!isShortValue) {
-                                // check null
-                                if (isNull)
-                                    // Null header for v*max types is 0xFFFFFFFFFFFFFFFF.
-                                    writeLong(0xFFFFFFFFFFFFFFFFL);
-                                else if (DataTypes.UNKNOWN_STREAM_LENGTH == dataLength)
-                                    // Append v*max length.
-                                    // UNKNOWN_PLP_LEN is 0xFFFFFFFFFFFFFFFE
-                                    writeLong(0xFFFFFFFFFFFFFFFEL);
-                                else
-                                    // For v*max types with known length, length is <totallength8><chunklength4>
-                                    writeLong(dataLength);
-                                if (!isNull) {
-                                    if (dataLength > 0) {
-                                        writeInt(dataLength);
-                                        writeString(currentColumnStringValue);
-                                    }
-                                    // Send the terminator PLP chunk.
-                                    writeInt(0);
-                                }
-                            }
-                            else {
-                                if (isNull)
-                                    writeShort((short) -1); // actual len
-                                else {
-                                    writeShort((short) dataLength);
-                                    writeString(currentColumnStringValue);
-                                }
-                            }
+                            writeTVPCharacterValue(currentColumnStringValue, isShortValue);
                             break;
 
                         case BINARY:
                         case VARBINARY:
                             // Handle conversions as done in other types.
                             isShortValue = columnPair.getValue().precision <= DataTypes.SHORT_VARTYPE_MAX_BYTES;
-                            isNull = (null == currentObject);
                             if (currentObject instanceof String)
-                                dataLength = isNull ? 0 : (toByteArray(currentObject.toString())).length;
+                                writeTVPBinaryValue(toByteArray(currentObject.toString()), isShortValue);
                             else
-                                dataLength = isNull ? 0 : ((byte[]) currentObject).length;
-                            if (!isShortValue) {
-                                // check null
-                                if (isNull)
-                                    // Null header for v*max types is 0xFFFFFFFFFFFFFFFF.
-                                    writeLong(0xFFFFFFFFFFFFFFFFL);
-                                else if (DataTypes.UNKNOWN_STREAM_LENGTH == dataLength)
-                                    // Append v*max length.
-                                    // UNKNOWN_PLP_LEN is 0xFFFFFFFFFFFFFFFE
-                                    writeLong(0xFFFFFFFFFFFFFFFEL);
-                                else
-                                    // For v*max types with known length, length is <totallength8><chunklength4>
-                                    writeLong(dataLength);
-                                if (!isNull) {
-                                    if (dataLength > 0) {
-                                        writeInt(dataLength);
-                                        if (currentObject instanceof String)
-                                            writeBytes(toByteArray(currentObject.toString()));
-                                        else
-                                            writeBytes((byte[]) currentObject);
-                                    }
-                                    // Send the terminator PLP chunk.
-                                    writeInt(0);
-                                }
-                            }
-                            else {
-                                if (isNull)
-                                    writeShort((short) -1); // actual len
-                                else {
-                                    writeShort((short) dataLength);
-                                    if (currentObject instanceof String)
-                                        writeBytes(toByteArray(currentObject.toString()));
-                                    else
-                                        writeBytes((byte[]) currentObject);
-                                }
-                            }
+                                writeTVPBinaryValue((byte[]) currentObject, isShortValue);
                             break;
 
                         default:
@@ -4755,6 +4822,215 @@ final class TDSWriter {
         writeByte((byte) 0x00);
     }
 
+    /**
+     * The columns of a TVP whose rows are written straight from the arrays of SQLServerColumnarDataTable columns, with the lengths and scales sent in
+     * the column metadata of the TVP.
+     */
+    static final class TVPColumnLayout {
+        final SQLServerColumnarDataTable.Column[] columns;
+        final boolean[] useServerDefault;
+        final boolean[] isShortValue;
+        final int[] scale;
+
+        TVPColumnLayout(SQLServerColumnarDataTable.Column[] columns,
+                Map<Integer, SQLServerMetaData> columnMetadata) {
+            this.columns = columns;
+            useServerDefault = new boolean[columns.length];
+            isShortValue = new boolean[columns.length];
+            scale = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                SQLServerMetaData metaData = columnMetadata.get(i);
+                useServerDefault[i] = metaData.useServerDefault;
+                switch (columns[i].jdbcType) {
+                    case BINARY:
+                    case VARBINARY:
+                        isShortValue[i] = metaData.precision <= DataTypes.SHORT_VARTYPE_MAX_BYTES;
+                        break;
+                    default:
+                        isShortValue[i] = (2 * metaData.precision) <= DataTypes.SHORT_VARTYPE_MAX_BYTES;
+                }
+                scale[i] = metaData.scale;
+            }
+        }
+    }
+
+    /**
+     * Writes a TVP row straight from the arrays of the columns.
+     */
+    private void writeTVPRow(TVPColumnLayout layout,
+            int row) throws SQLServerException {
+        // ROW
+        writeByte((byte) TDS.TVP_ROW);
+        for (int i = 0; i < layout.columns.length; i++) {
+            // If useServerDefault is set, client MUST NOT emit TvpColumnData for the associated column
+            if (layout.useServerDefault[i])
+                continue;
+
+            SQLServerColumnarDataTable.Column column = layout.columns[i];
+            boolean isNull = column.isNull(row);
+            switch (column.jdbcType) {
+                case BIGINT:
+                    if (isNull)
+                        writeByte((byte) 0);
+                    else {
+                        writeByte((byte) 8);
+                        writeLong(column.longValues[row]);
+                    }
+                    break;
+
+                case BIT:
+                    if (isNull)
+                        writeByte((byte) 0);
+                    else {
+                        writeByte((byte) 1);
+                        writeByte((byte) column.longValues[row]);
+                    }
+                    break;
+
+                case INTEGER:
+                    if (isNull)
+                        writeByte((byte) 0);
+                    else {
+                        writeByte((byte) 4);
+                        writeInt((int) column.longValues[row]);
+                    }
+                    break;
+
+                case SMALLINT:
+                case TINYINT:
+                    if (isNull)
+                        writeByte((byte) 0);
+                    else {
+                        writeByte((byte) 2); // length of datatype
+                        writeShort((short) column.longValues[row]);
+                    }
+                    break;
+
+                case DECIMAL:
+                case NUMERIC:
+                    if (isNull)
+                        writeByte((byte) 0);
+                    else {
+                        writeByte((byte) TDSWriter.BIGDECIMAL_MAX_LENGTH); // maximum length
+                        writeTVPDecimalValue((BigDecimal) column.objectValues[row], layout.scale[i]);
+                    }
+                    break;
+
+                case DOUBLE:
+                    if (isNull)
+                        writeByte((byte) 0); // len of data bytes
+                    else {
+                        writeByte((byte) 8); // len of data bytes
+                        writeDouble(column.doubleValues[row]);
+                    }
+                    break;
+
+                case FLOAT:
+                case REAL:
+                    if (isNull)
+                        writeByte((byte) 0); // actual length (0 == null)
+                    else {
+                        writeByte((byte) 4); // actual length
+                        writeInt(Float.floatToRawIntBits((float) column.doubleValues[row]));
+                    }
+                    break;
+
+                case BINARY:
+                case VARBINARY:
+                    writeTVPBinaryValue(isNull ? null : (byte[]) column.objectValues[row], layout.isShortValue[i]);
+                    break;
+
+                default:
+                    // Character and temporal types
+                    writeTVPCharacterValue(isNull ? null : (String) column.objectValues[row], layout.isShortValue[i]);
+            }
+        }
+    }
+
+    private void writeTVPDecimalValue(BigDecimal bdValue,
+            int scale) throws SQLServerException {
+        // setScale of all BigDecimal value based on metadata sent
+        bdValue = bdValue.setScale(scale);
+        byte[] valueBytes = DDC.convertBigDecimalToBytes(bdValue, bdValue.scale());
+
+        // 1-byte for sign and 16-byte for integer
+        byte[] byteValue = new byte[17];
+
+        // removing the precision and scale information from the valueBytes array
+        System.arraycopy(valueBytes, 2, byteValue, 0, valueBytes.length - 2);
+        writeBytes(byteValue);
+    }
+
+    private void writeTVPCharacterValue(String value,
+            boolean isShortValue) throws SQLServerException {
+        boolean isNull = (null == value);
+        int dataLength = isNull ? 0 : value.length() * 2;
+        if (!isShortValue) {
+            // check null
+            if (isNull)
+                // Null header for v*max types is 0xFFFFFFFFFFFFFFFF.
+                writeLong(0xFFFFFFFFFFFFFFFFL);
+            else if (DataTypes.UNKNOWN_STREAM_LENGTH == dataLength)
+                // Append v*max length.
+                // UNKNOWN_PLP_LEN is 0xFFFFFFFFFFFFFFFE
+                writeLong(0xFFFFFFFFFFFFFFFEL);
+            else
+                // For v*max types with known length, length is <totallength8><chunklength4>
+                writeLong(dataLength);
+            if (!isNull) {
+                if (dataLength > 0) {
+                    writeInt(dataLength);
+                    writeString(value);
+                }
+                // Send the terminator PLP chunk.
+                writeInt(0);
+            }
+        }
+        else {
+            if (isNull)
+                writeShort((short) -1); // actual len
+            else {
+                writeShort((short) dataLength);
+                writeString(value);
+            }
+        }
+    }
+
+    private void writeTVPBinaryValue(byte[] value,
+            boolean isShortValue) throws SQLServerException {
+        boolean isNull = (null == value);
+        int dataLength = isNull ? 0 : value.length;
+        if (!isShortValue) {
+            // check null
+            if (isNull)
+                // Null header for v*max types is 0xFFFFFFFFFFFFFFFF.
+                writeLong(0xFFFFFFFFFFFFFFFFL);
+            else if (DataTypes.UNKNOWN_STREAM_LENGTH == dataLength)
+                // Append v*max length.
+                // UNKNOWN_PLP_LEN is 0xFFFFFFFFFFFFFFFE
+                writeLong(0xFFFFFFFFFFFFFFFEL);
+            else
+                // For v*max types with known length, length is <totallength8><chunklength4>
+                writeLong(dataLength);
+            if (!isNull) {
+                if (dataLength > 0) {
+                    writeInt(dataLength);
+                    writeBytes(value);
+                }
+                // Send the terminator PLP chunk.
+                writeInt(0);
+            }
+        }
+        else {
+            if (isNull)
+                writeShort((short) -1); // actual len
+            else {
+                writeShort((short) dataLength);
+                writeBytes(value);
+            }
+        }
+    }
+
     private static byte[] toByteArray(String s) {
         return DatatypeConverter.parseHexBinary(s);
     }
@@ -5412,6 +5688,32 @@ final class TDSWriter {
         writeScaledTemporal(localCalendar, subSecondNanos, scale, SSType.DATETIME2);
     }
 
+    /**
+     * Appends a DATETIME2 parameter from the date and time parts of its local value (see writeScaledTemporal).
+     */
+    void writeRPCDateTime2(String sName,
+            int daysIntoCE,
+            int secondsSinceMidnight,
+            int subSecondNanos,
+            int scale,
+            boolean bOut) throws SQLServerException {
+        writeRPCNameValType(sName, bOut, TDSType.DATETIME2N);
+        writeByte((byte) scale);
+        writeByte((byte) TDS.datetime2ValueLength(scale));
+        writeScaledTemporal(daysIntoCE, secondsSinceMidnight, subSecondNanos, scale, SSType.DATETIME2);
+    }
+
+    /**
+     * Appends a DATE parameter from the number of days since 1/1/0001 of its local value (see writeScaledTemporal).
+     */
+    void writeRPCDate(String sName,
+            int daysIntoCE,
+            boolean bOut) throws SQLServerException {
+        writeRPCNameValType(sName, bOut, TDSType.DATEN);
+        writeByte((byte) TDS.DAYS_INTO_CE_LENGTH);
+        writeScaledTemporal(daysIntoCE, 0, 0, 0, SSType.DATE);
+    }
+
     void writeRPCDateTimeOffset(String sName,
             GregorianCalendar utcCalendar,
             int minutesOffset,
@@ -5556,25 +5858,75 @@ final class TDSWriter {
                 cal.set(year, month, date);
             }
 
-            int daysIntoCE = DDC.daysSinceBaseDate(cal.get(Calendar.YEAR), cal.get(Calendar.DAY_OF_YEAR), 1);
+            writeDaysIntoCE(DDC.daysSinceBaseDate(cal.get(Calendar.YEAR), cal.get(Calendar.DAY_OF_YEAR), 1), ssType);
+        }
+    }
 
-            // Last-ditch verification that the value is in the valid range for the
-            // DATE/DATETIME2/DATETIMEOFFSET TDS data type (1/1/0001 to 12/31/9999).
-            // If it's not, then throw an exception now so that statement execution
-            // is safely canceled. Attempting to put an invalid value on the wire
-            // would result in a TDS exception, which would close the connection.
-            if (daysIntoCE < 0 || daysIntoCE >= DDC.daysSinceBaseDate(10000, 1, 1)) {
-                MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_valueOutOfRange"));
-                Object[] msgArgs = {ssType};
-                throw new SQLServerException(form.format(msgArgs), SQLState.DATA_EXCEPTION_DATETIME_FIELD_OVERFLOW, DriverError.NOT_SET, null);
+    /**
+     * Writes to the TDS channel a DATE or DATETIME2 value from the date and time parts of its local ("wall clock") value, as writeScaledTemporal
+     * does from a calendar.
+     *
+     * @param daysIntoCE
+     *            the date part of the value, as a number of days since 1/1/0001 (pure Gregorian)
+     * @param secondsSinceMidnight
+     *            the time part of the value in whole seconds (0 for DATE values)
+     * @param subSecondNanos
+     *            the sub-second nanoseconds (0 - 999,999,999)
+     * @param scale
+     *            the scale (in digits: 0 - 7) to use for the sub-second nanos component
+     * @param ssType
+     *            the SQL Server data type (DATE or DATETIME2)
+     *
+     * @throws SQLServerException
+     *             if an I/O error occurs or if the value is not in the valid range
+     */
+    private void writeScaledTemporal(int daysIntoCE,
+            int secondsSinceMidnight,
+            int subSecondNanos,
+            int scale,
+            SSType ssType) throws SQLServerException {
+        assert SSType.DATE == ssType || SSType.DATETIME2 == ssType : "Unexpected SSType: " + ssType;
+
+        if (SSType.DATETIME2 == ssType) {
+            long divisor = Nanos.PER_MAX_SCALE_INTERVAL * (long) Math.pow(10, TDS.MAX_FRACTIONAL_SECONDS_SCALE - scale);
+            long scaledNanos = ((long) Nanos.PER_SECOND * secondsSinceMidnight + getRoundedSubSecondNanos(subSecondNanos) + divisor / 2) / divisor;
+
+            // If rounding rolls the value to the next day, bump the date unless that takes it
+            // out of range, in which case truncate the nanos instead (see above).
+            if (Nanos.PER_DAY / divisor == scaledNanos) {
+                if (daysIntoCE + 1 < DDC.daysSinceBaseDate(10000, 1, 1)) {
+                    ++daysIntoCE;
+                    scaledNanos = 0;
+                }
+                else {
+                    --scaledNanos;
+                }
             }
 
-            byte encodedBytes[] = new byte[3];
-            encodedBytes[0] = (byte) ((daysIntoCE >> 0) & 0xFF);
-            encodedBytes[1] = (byte) ((daysIntoCE >> 8) & 0xFF);
-            encodedBytes[2] = (byte) ((daysIntoCE >> 16) & 0xFF);
-            writeBytes(encodedBytes);
+            int encodedLength = TDS.nanosSinceMidnightLength(scale);
+            for (int i = 0; i < encodedLength; i++)
+                writeByte((byte) ((scaledNanos >> (8 * i)) & 0xFF));
+        }
+
+        writeDaysIntoCE(daysIntoCE, ssType);
+    }
+
+    private void writeDaysIntoCE(int daysIntoCE,
+            SSType ssType) throws SQLServerException {
+        // Last-ditch verification that the value is in the valid range for the
+        // DATE/DATETIME2/DATETIMEOFFSET TDS data type (1/1/0001 to 12/31/9999).
+        // If it's not, then throw an exception now so that statement execution
+        // is safely canceled. Attempting to put an invalid value on the wire
+        // would result in a TDS exception, which would close the connection.
+        if (daysIntoCE < 0 || daysIntoCE >= DDC.daysSinceBaseDate(10000, 1, 1)) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_valueOutOfRange"));
+            Object[] msgArgs = {ssType};
+            throw new SQLServerException(form.format(msgArgs), SQLState.DATA_EXCEPTION_DATETIME_FIELD_OVERFLOW, DriverError.NOT_SET, null);
         }
+
+        writeByte((byte) ((daysIntoCE >> 0) & 0xFF));
+        writeByte((byte) ((daysIntoCE >> 8) & 0xFF));
+        writeByte((byte) ((daysIntoCE >> 16) & 0xFF));
     }
 
     /**
@@ -6041,7 +6393,11 @@ final class TDSPacket {
     }
 
     TDSPacket(int size) {
-        payload = new byte[size];
+        this(new byte[size]);
+    }
+
+    TDSPacket(byte[] payload) {
+        this.payload = payload;
         payloadLength = 0;
         next = null;
     }
@@ -6051,6 +6407,132 @@ final class TDSPacket {
     }
 };
 
+/**
+ * TDSPacketPool recycles the payload buffers of response packets read from a TDS channel.
+ *
+ * A packet stays reachable for as long as any TDSReaderMark refers to it (or to a packet ahead of it in the chain), and marks are simply dropped
+ * rather than released. So the pool lets GC tell it when a packet is no longer referenced: each packet handed out by the pool is tracked by a
+ * phantom reference that holds onto the packet's payload buffer. Once the packet itself has been reclaimed, the reference is enqueued and its
+ * payload buffer is used for a subsequent packet.
+ *
+ * The pool never tracks more than maxSize buffers at a time. Packets requested beyond that are allocated normally and left to GC.
+ */
+final class TDSPacketPool {
+    private static final Logger logger = Logger.getLogger("com.microsoft.sqlserver.jdbc.internals.TDS.PacketPool");
+
+    private final String traceID;
+
+    final public String toString() {
+        return traceID;
+    }
+
+    /**
+     * Phantom reference to a pooled packet. Keeps the packet's payload buffer alive so that it can be recycled once the packet is gone.
+     */
+    private static final class PacketReference extends PhantomReference<TDSPacket> {
+        final byte[] payload;
+
+        PacketReference(TDSPacket packet,
+                ReferenceQueue<TDSPacket> queue) {
+            super(packet, queue);
+            this.payload = packet.payload;
+        }
+    }
+
+    private final int maxSize;
+    private final ReferenceQueue<TDSPacket> reclaimedPackets = new ReferenceQueue<TDSPacket>();
+
+    // Phantom references are only enqueued if they are themselves still reachable,
+    // so the pool keeps every outstanding reference until its packet is reclaimed.
+    private final Set<PacketReference> outstandingPackets = new HashSet<PacketReference>();
+
+    private long allocatedCount = 0;
+    private long reusedCount = 0;
+
+    TDSPacketPool(String traceID,
+            int maxSize) {
+        assert maxSize > 0;
+        this.traceID = "TDSPacketPool (" + traceID + ")";
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a packet with a payload of the specified size, reusing the payload buffer of a previously reclaimed packet when one is available.
+     *
+     * @param size
+     *            the payload size (i.e. the negotiated TDS packet size)
+     * @return the packet
+     */
+    synchronized final TDSPacket allocatePacket(int size) {
+        byte[] payload = null;
+
+        PacketReference reclaimed;
+        while (null != (reclaimed = (PacketReference) reclaimedPackets.poll())) {
+            outstandingPackets.remove(reclaimed);
+
+            // Buffers from before a change in the negotiated packet size are not reusable; let them go.
+            if (null == payload && size == reclaimed.payload.length)
+                payload = reclaimed.payload;
+        }
+
+        TDSPacket packet;
+        if (null != payload) {
+            ++reusedCount;
+            packet = new TDSPacket(payload);
+        }
+        else {
+            ++allocatedCount;
+            packet = new TDSPacket(size);
+
+            // Leave the packet untracked if the pool is already full.
+            if (outstandingPackets.size() >= maxSize) {
+                if (logger.isLoggable(Level.FINEST))
+                    logger.finest(toString() + " pool is full; allocating untracked packet");
+                return packet;
+            }
+        }
+
+        outstandingPackets.add(new PacketReference(packet, reclaimedPackets));
+        return packet;
+    }
+
+    final int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of payload buffers currently tracked by the pool, both in use and awaiting reuse
+     */
+    synchronized final int getPooledCount() {
+        return outstandingPackets.size();
+    }
+
+    /**
+     * @return the number of packets for which a new payload buffer had to be allocated
+     */
+    synchronized final long getAllocatedCount() {
+        return allocatedCount;
+    }
+
+    /**
+     * @return the number of packets that were given a recycled payload buffer
+     */
+    synchronized final long getReusedCount() {
+        return reusedCount;
+    }
+
+    /**
+     * Stops tracking all packets. Called when the channel is closed.
+     */
+    synchronized final void clear() {
+        for (PacketReference packetRef : outstandingPackets)
+            packetRef.clear();
+        outstandingPackets.clear();
+        while (null != reclaimedPackets.poll())
+            ;
+    }
+}
+
 /**
  * TDSReaderMark encapsulates a fixed position in the response data stream.
  *
@@ -6105,6 +6587,15 @@ final class TDSReader {
     private boolean serverSupportsColumnEncryption = false;
 
     private final byte valueBytes[] = new byte[256];
+
+    // The decoders of the character sets of the strings read, the buffer the strings are decoded to,
+    // and the buffer of the bytes they are decoded from, which wraps the payload of the last packet read from
+    private static final int MAX_DECODED_CHARS = 32768;
+    private Map<Charset, CharsetDecoder> decoders;
+    private CharBuffer decodedChars;
+    private ByteBuffer encodedBytes;
+
+    private final Lock readPacketLock = new ReentrantLock();
     private static final AtomicInteger lastReaderID = new AtomicInteger(0);
 
     private static int nextReaderID() {
@@ -6201,10 +6692,21 @@ final class TDSReader {
     /**
      * Reads the next packet of the TDS channel.
      *
-     * This method is synchronized to guard against simultaneously reading packets from one thread that is processing the response and another thread
-     * that is trying to buffer it with TDSCommand.detach().
+     * This method holds readPacketLock to guard against simultaneously reading packets from one thread that is processing the response and another
+     * thread that is trying to buffer it with TDSCommand.detach(). A ReentrantLock is used rather than a monitor so that a virtual thread blocked in
+     * the socket read is not pinned to its carrier thread.
      */
-    synchronized final boolean readPacket() throws SQLServerException {
+    final boolean readPacket() throws SQLServerException {
+        readPacketLock.lock();
+        try {
+            return readPacketInternal();
+        }
+        finally {
+            readPacketLock.unlock();
+        }
+    }
+
+    private boolean readPacketInternal() throws SQLServerException {
         if (null != command && !command.readingResponse())
             return false;
 
@@ -6214,7 +6716,7 @@ final class TDSReader {
         assert tdsChannel.numMsgsRcvd < tdsChannel.numMsgsSent : "numMsgsRcvd:" + tdsChannel.numMsgsRcvd + " should be less than numMsgsSent:"
                 + tdsChannel.numMsgsSent;
 
-        TDSPacket newPacket = new TDSPacket(con.getTDSPacketSize());
+        TDSPacket newPacket = tdsChannel.allocatePacket(con.getTDSPacketSize());
 
         // First, read the packet header.
         for (int headerBytesRead = 0; headerBytesRead < TDS.PACKET_HEADER_SIZE;) {
@@ -6389,11 +6891,114 @@ final class TDSReader {
     }
 
     final String readUnicodeString(int length) throws SQLServerException {
-        int byteLength = 2 * length;
-        byte bytes[] = new byte[byteLength];
-        readBytes(bytes, 0, byteLength);
-        return Util.readUnicodeString(bytes, 0, byteLength, con);
+        return readString(2 * length, Encoding.UNICODE.charset(), false);
+    }
 
+    /**
+     * Reads a string of the given length in bytes, encoded in the given character set.
+     *
+     * A string that is in the current packet is decoded from the packet payload, rather than from a copy of its bytes. It is decoded with a decoder
+     * that is kept for the character set, into a buffer that is kept for the next string, so that only the string is allocated. A string of ASCII
+     * characters in a character set that encodes them as ASCII bytes is not decoded at all, but copied as a Latin-1 string.
+     *
+     * @param byteLength
+     *            the length of the string in bytes
+     * @param charset
+     *            the character set of the string
+     * @param asciiCompatible
+     *            whether the character set is a single byte character set that encodes the ASCII characters as their ASCII bytes
+     * @return the string
+     */
+    final String readString(int byteLength,
+            Charset charset,
+            boolean asciiCompatible) throws SQLServerException {
+        if (0 == byteLength)
+            return "";
+
+        if (!ensurePayload())
+            throwInvalidTDS();
+
+        byte[] bytes;
+        int offset;
+        if (payloadOffset + byteLength <= currentPacket.payloadLength) {
+            bytes = currentPacket.payload;
+            offset = payloadOffset;
+            payloadOffset += byteLength;
+        }
+        else {
+            // The string continues in the next packet, so its bytes are copied together first
+            bytes = new byte[byteLength];
+            offset = 0;
+            readBytes(bytes, 0, byteLength);
+        }
+
+        if (asciiCompatible && isAscii(bytes, offset, byteLength))
+            return new String(bytes, offset, byteLength, StandardCharsets.ISO_8859_1);
+
+        CharBuffer chars = decode(bytes, offset, byteLength, charset);
+        if (null == chars)
+            return new String(bytes, offset, byteLength, charset);
+        return new String(chars.array(), 0, chars.position());
+    }
+
+    /**
+     * Decodes the given bytes, encoded in the given character set, into a buffer of this reader that is used again by the next call. The decoded
+     * characters are at the start of the buffer's array, up to its position.
+     *
+     * @return the buffer, or null if the bytes are too many to keep a buffer for their characters
+     */
+    final CharBuffer decode(byte[] bytes,
+            int offset,
+            int length,
+            Charset charset) {
+        CharsetDecoder decoder = getDecoder(charset);
+        int maxChars = (int) (length * (double) decoder.maxCharsPerByte());
+        if (maxChars > MAX_DECODED_CHARS) {
+            // Do not keep a buffer for a long string, that is longer than any packet
+            return null;
+        }
+        if (null == decodedChars || decodedChars.capacity() < maxChars)
+            decodedChars = CharBuffer.allocate(Math.max(maxChars, 256));
+        if (null == encodedBytes || encodedBytes.array() != bytes)
+            encodedBytes = ByteBuffer.wrap(bytes);
+
+        encodedBytes.limit(offset + length);
+        encodedBytes.position(offset);
+        decodedChars.clear();
+        decoder.reset();
+        if (!decoder.decode(encodedBytes, decodedChars, true).isUnderflow() || !decoder.flush(decodedChars).isUnderflow()) {
+            // The characters do not fit the buffer, which the maximum number of characters per byte should rule out
+            return null;
+        }
+        return decodedChars;
+    }
+
+    /**
+     * Returns whether the given bytes are all ASCII bytes.
+     */
+    private static boolean isAscii(byte[] bytes,
+            int offset,
+            int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] < 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the decoder of the given character set, which decodes malformed and unmappable bytes to the replacement character as
+     * java.lang.String does. The decoders are kept by character set, so that the columns of one collation share a decoder.
+     */
+    private CharsetDecoder getDecoder(Charset charset) {
+        if (null == decoders)
+            decoders = new HashMap<Charset, CharsetDecoder>();
+        CharsetDecoder decoder = decoders.get(charset);
+        if (null == decoder) {
+            decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+            decoders.put(charset, decoder);
+        }
+        return decoder;
     }
 
     final char readChar() throws SQLServerException {
@@ -6655,13 +7260,75 @@ final class TDSReader {
                 typeInfo.getScale());
     }
 
-    private int readDaysIntoCE() throws SQLServerException {
-        byte value[] = new byte[TDS.DAYS_INTO_CE_LENGTH];
-        readBytes(value, 0, value.length);
+    /**
+     * Reads a DATETIME, SMALLDATETIME, DATE, TIME or DATETIME2 value as a java.time.LocalDateTime, or a DATETIMEOFFSET value as a
+     * java.time.OffsetDateTime, directly from its date and time parts.
+     */
+    final Object readJavaTime(int valueLength,
+            TypeInfo typeInfo) throws SQLServerException {
+        switch (typeInfo.getSSType()) {
+            case DATETIME:
+            case SMALLDATETIME: {
+                int daysSinceSQLBaseDate;
+                long nanosSinceMidnight;
+
+                switch (valueLength) {
+                    case 8:
+                        // Days since 1/1/1900 and three hundredths (1/300) of a second since midnight, as in readDateTime
+                        daysSinceSQLBaseDate = readInt();
+                        nanosSinceMidnight = Nanos.PER_MILLISECOND * (long) ((readInt() * 10 + 1) / 3);
+                        break;
 
+                    case 4:
+                        // Days since 1/1/1900 and minutes since midnight
+                        daysSinceSQLBaseDate = readUnsignedShort();
+                        nanosSinceMidnight = 60L * Nanos.PER_SECOND * readUnsignedShort();
+                        break;
+
+                    default:
+                        throwInvalidTDS();
+                        return null;
+                }
+
+                return DDC.convertTemporalToLocalDateTime(SSType.DATETIME, daysSinceSQLBaseDate, nanosSinceMidnight);
+            }
+
+            case DATE:
+                if (TDS.DAYS_INTO_CE_LENGTH != valueLength)
+                    throwInvalidTDS();
+                return DDC.convertTemporalToLocalDateTime(SSType.DATE, readDaysIntoCE(), 0);
+
+            case TIME:
+                if (TDS.timeValueLength(typeInfo.getScale()) != valueLength)
+                    throwInvalidTDS();
+                return DDC.convertTemporalToLocalDateTime(SSType.TIME, 0, readNanosSinceMidnight(typeInfo.getScale()));
+
+            case DATETIME2: {
+                if (TDS.datetime2ValueLength(typeInfo.getScale()) != valueLength)
+                    throwInvalidTDS();
+                long localNanosSinceMidnight = readNanosSinceMidnight(typeInfo.getScale());
+                int localDaysIntoCE = readDaysIntoCE();
+                return DDC.convertTemporalToLocalDateTime(SSType.DATETIME2, localDaysIntoCE, localNanosSinceMidnight);
+            }
+
+            case DATETIMEOFFSET: {
+                if (TDS.datetimeoffsetValueLength(typeInfo.getScale()) != valueLength)
+                    throwInvalidTDS();
+                long utcNanosSinceMidnight = readNanosSinceMidnight(typeInfo.getScale());
+                int utcDaysIntoCE = readDaysIntoCE();
+                int localMinutesOffset = readShort();
+                return DDC.convertTemporalToOffsetDateTime(utcDaysIntoCE, utcNanosSinceMidnight, localMinutesOffset);
+            }
+
+            default:
+                throw new AssertionError("Unexpected SSType: " + typeInfo.getSSType());
+        }
+    }
+
+    private int readDaysIntoCE() throws SQLServerException {
         int daysIntoCE = 0;
-        for (int i = 0; i < value.length; i++)
-            daysIntoCE |= ((value[i] & 0xFF) << (8 * i));
+        for (int i = 0; i < TDS.DAYS_INTO_CE_LENGTH; i++)
+            daysIntoCE |= (readUnsignedByte() << (8 * i));
 
         // Theoretically should never encounter a value that is outside of the valid date range
         if (daysIntoCE < 0)
@@ -6678,12 +7345,10 @@ final class TDSReader {
     private long readNanosSinceMidnight(int scale) throws SQLServerException {
         assert 0 <= scale && scale <= TDS.MAX_FRACTIONAL_SECONDS_SCALE;
 
-        byte value[] = new byte[TDS.nanosSinceMidnightLength(scale)];
-        readBytes(value, 0, value.length);
-
+        int length = TDS.nanosSinceMidnightLength(scale);
         long hundredNanosSinceMidnight = 0;
-        for (int i = 0; i < value.length; i++)
-            hundredNanosSinceMidnight |= (value[i] & 0xFFL) << (8 * i);
+        for (int i = 0; i < length; i++)
+            hundredNanosSinceMidnight |= ((long) readUnsignedByte()) << (8 * i);
 
         hundredNanosSinceMidnight *= SCALED_MULTIPLIERS[scale];
 
@@ -6825,18 +7490,16 @@ final class TDSReader {
 }
 
 /**
- * Timer for use with Commands that support a timeout.
+ * Scheduler for the timeouts of all TimeoutTimers.
  *
- * Once started, the timer runs for the prescribed number of seconds unless stopped. If the timer runs out, it interrupts its associated Command with
- * a reason like "timed out".
+ * A single daemon thread holds the pending timeouts in a delay queue, so starting or stopping a timer adds or removes a queue entry rather than
+ * occupying a thread for the duration of the timeout. Expired timeouts are run on a separate pool, because interrupting a command may block
+ * sending an attention signal to the server, which must not hold up the timeouts of other commands.
  */
-final class TimeoutTimer implements Runnable {
+final class TimeoutScheduler {
     private static final String threadGroupName = "mssql-jdbc-TimeoutTimer";
-    private final int timeoutSeconds;
-    private final TDSCommand command;
-    private volatile Future<?> task;
-    
-    private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+    private static final ThreadFactory threadFactory = new ThreadFactory() {
         private final ThreadGroup tg = new ThreadGroup(threadGroupName);
         private final String threadNamePrefix = tg.getName() + "-";
         private final AtomicInteger threadNumber = new AtomicInteger(0);
@@ -6846,9 +7509,70 @@ final class TimeoutTimer implements Runnable {
             t.setDaemon(true);
             return t;
         }
-    });
-    
+    };
+
+    private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+    private static final ExecutorService expiredTimeouts = Executors.newCachedThreadPool(threadFactory);
+
+    // Number of timeouts that are scheduled and have neither expired nor been canceled.
+    private static final AtomicInteger activeTimeouts = new AtomicInteger(0);
+
+    static {
+        // Remove canceled timeouts from the queue right away, rather than when they would have expired.
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    private TimeoutScheduler() {
+    }
+
+    /**
+     * Schedules a timeout.
+     * 
+     * @param timeout
+     *            the action to run when the timeout expires
+     * @param timeoutMillis
+     *            the timeout in milliseconds
+     * @return the scheduled timeout, to be passed to {@link #cancel}
+     */
+    static ScheduledFuture<?> schedule(final Runnable timeout,
+            long timeoutMillis) {
+        activeTimeouts.incrementAndGet();
+        return scheduler.schedule(new Runnable() {
+            public void run() {
+                activeTimeouts.decrementAndGet();
+                expiredTimeouts.execute(timeout);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels a timeout that has not expired yet.
+     * 
+     * @param scheduledTimeout
+     *            the timeout returned by {@link #schedule}
+     */
+    static void cancel(ScheduledFuture<?> scheduledTimeout) {
+        if (scheduledTimeout.cancel(false))
+            activeTimeouts.decrementAndGet();
+    }
+
+    static int getActiveTimeoutCount() {
+        return activeTimeouts.get();
+    }
+}
+
+/**
+ * Timer for use with Commands that support a timeout.
+ *
+ * Once started, the timer runs for the prescribed number of seconds unless stopped. If the timer runs out, it interrupts its associated Command with
+ * a reason like "timed out".
+ */
+final class TimeoutTimer implements Runnable {
+    private final int timeoutSeconds;
+    private final TDSCommand command;
+    private volatile ScheduledFuture<?> task;
     private volatile boolean canceled = false;
+    private volatile boolean expired = false;
 
     TimeoutTimer(int timeoutSeconds,
             TDSCommand command) {
@@ -6860,32 +7584,31 @@ final class TimeoutTimer implements Runnable {
     }
 
     final void start() {
-        task = executor.submit(this);
+        canceled = false;
+        expired = false;
+        task = TimeoutScheduler.schedule(this, TimeUnit.SECONDS.toMillis(timeoutSeconds));
     }
 
     final void stop() {
-        task.cancel(true);
         canceled = true;
+        ScheduledFuture<?> scheduledTask = task;
+        if (null != scheduledTask) {
+            task = null;
+            TimeoutScheduler.cancel(scheduledTask);
+        }
     }
 
-    public void run() { 
-        int secondsRemaining = timeoutSeconds;
-        try {
-            // Poll every second while time is left on the timer.
-            // Return if/when the timer is canceled.
-            do {
-                if (canceled)
-                    return;
+    final boolean expired() {
+        return expired;
+    }
 
-                Thread.sleep(1000);
-            }
-            while (--secondsRemaining > 0);
-        }
-        catch (InterruptedException e) {
-            // re-interrupt the current thread, in order to restore the thread's interrupt status.
-            Thread.currentThread().interrupt();
+    public void run() {
+        // The timer may have been stopped after it ran out of time, but before the
+        // timeout was run.
+        if (canceled)
             return;
-        }
+
+        expired = true;
 
         // If the timer wasn't canceled before it ran out of
         // time then interrupt the registered command.
@@ -6945,7 +7668,7 @@ abstract class TDSCommand {
 
     // Lock to ensure atomicity when manipulating more than one of the following
     // shared interrupt state variables below.
-    private final Object interruptLock = new Object();
+    private final Lock interruptLock = new ReentrantLock();
 
     // Flag set when this command starts execution, indicating that it is
     // ready to respond to interrupts; and cleared when its last response packet is
@@ -7169,7 +7892,8 @@ abstract class TDSCommand {
     void interrupt(String reason) throws SQLServerException {
         // Multiple, possibly simultaneous, interrupts may occur.
         // Only the first one should be recognized and acted upon.
-        synchronized (interruptLock) {
+        interruptLock.lock();
+        try {
             if (interruptsEnabled && !wasInterrupted()) {
                 if (logger.isLoggable(Level.FINEST))
                     logger.finest(this + ": Raising interrupt for reason:" + reason);
@@ -7181,6 +7905,9 @@ abstract class TDSCommand {
 
             }
         }
+        finally {
+            interruptLock.unlock();
+        }
     }
 
     private boolean interruptChecked = false;
@@ -7230,7 +7957,8 @@ abstract class TDSCommand {
         if (logger.isLoggable(Level.FINEST))
             logger.finest(this + ": request complete");
 
-        synchronized (interruptLock) {
+        interruptLock.lock();
+        try {
             requestComplete = true;
 
             // If this command was interrupted before its request was complete then
@@ -7263,6 +7991,9 @@ abstract class TDSCommand {
                 readingResponse = true;
             }
         }
+        finally {
+            interruptLock.unlock();
+        }
     }
 
     /**
@@ -7281,7 +8012,8 @@ abstract class TDSCommand {
 
         // Atomically disable interrupts and check for a previous interrupt requiring
         // an attention ack to be read.
-        synchronized (interruptLock) {
+        interruptLock.lock();
+        try {
             if (interruptsEnabled) {
                 if (logger.isLoggable(Level.FINEST))
                     logger.finest(this + ": disabling interrupts");
@@ -7296,6 +8028,9 @@ abstract class TDSCommand {
                 interruptsEnabled = false;
             }
         }
+        finally {
+            interruptLock.unlock();
+        }
 
         // If an attention packet needs to be read then read it. This should
         // be done outside of the interrupt lock to avoid unnecessarily blocking
@@ -7356,7 +8091,8 @@ abstract class TDSCommand {
         // (Re)initialize this command's interrupt state for its current execution.
         // To ensure atomically consistent behavior, do not leave the interrupt lock
         // until interrupts have been (re)enabled.
-        synchronized (interruptLock) {
+        interruptLock.lock();
+        try {
             requestComplete = false;
             readingResponse = false;
             processedResponse = false;
@@ -7365,6 +8101,9 @@ abstract class TDSCommand {
             interruptReason = null;
             interruptsEnabled = true;
         }
+        finally {
+            interruptLock.unlock();
+        }
 
         return tdsWriter;
     }
@@ -8,7 +8,10 @@
 
 package com.microsoft.sqlserver.jdbc;
 
+import java.sql.ResultSet;
 import java.sql.SQLType;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * This interface requires all the PreparedStatement methods including those are specific to JDBC 4.2
@@ -85,4 +88,60 @@ public interface ISQLServerPreparedStatement42 extends ISQLServerPreparedStateme
             Integer precision,
             Integer scale,
             boolean forceEncrypt) throws SQLServerException;
+
+    /**
+     * Executes the SQL query in this PreparedStatement object asynchronously on a thread of the driver's shared asynchronous execution pool.
+     * <P>
+     * The statement, including its parameter values, must not be used until the returned future completes. Cancelling the future cancels the
+     * execution of the statement as by {@link java.sql.Statement#cancel()}. The asynchronous executions of the statements of a connection run one at a
+     * time, in the order they were started, and the returned future completes exceptionally if an asynchronous execution of this statement has not
+     * completed yet.
+     *
+     * @return a future that completes with the ResultSet object that contains the data produced by the query, or completes exceptionally with the
+     *         SQLException that executeQuery would throw
+     */
+    public CompletableFuture<ResultSet> executeQueryAsync();
+
+    /**
+     * Executes the SQL query in this PreparedStatement object asynchronously using the given executor.
+     * <P>
+     * The statement, including its parameter values, must not be used until the returned future completes. Cancelling the future cancels the
+     * execution of the statement as by {@link java.sql.Statement#cancel()}. The asynchronous executions of the statements of a connection run one at a
+     * time, in the order they were started, and the returned future completes exceptionally if an asynchronous execution of this statement has not
+     * completed yet.
+     *
+     * @param executor
+     *            the executor that runs the query
+     * @return a future that completes with the ResultSet object that contains the data produced by the query, or completes exceptionally with the
+     *         SQLException that executeQuery would throw
+     */
+    public CompletableFuture<ResultSet> executeQueryAsync(Executor executor);
+
+    /**
+     * Executes the SQL statement in this PreparedStatement object asynchronously on a thread of the driver's shared asynchronous execution pool.
+     * <P>
+     * The statement, including its parameter values, must not be used until the returned future completes. Cancelling the future cancels the
+     * execution of the statement as by {@link java.sql.Statement#cancel()}. The asynchronous executions of the statements of a connection run one at a
+     * time, in the order they were started, and the returned future completes exceptionally if an asynchronous execution of this statement has not
+     * completed yet.
+     *
+     * @return a future that completes with the row count that executeUpdate would return, or completes exceptionally with the SQLException that
+     *         executeUpdate would throw
+     */
+    public CompletableFuture<Integer> executeUpdateAsync();
+
+    /**
+     * Executes the SQL statement in this PreparedStatement object asynchronously using the given executor.
+     * <P>
+     * The statement, including its parameter values, must not be used until the returned future completes. Cancelling the future cancels the
+     * execution of the statement as by {@link java.sql.Statement#cancel()}. The asynchronous executions of the statements of a connection run one at a
+     * time, in the order they were started, and the returned future completes exceptionally if an asynchronous execution of this statement has not
+     * completed yet.
+     *
+     * @param executor
+     *            the executor that runs the statement
+     * @return a future that completes with the row count that executeUpdate would return, or completes exceptionally with the SQLException that
+     *         executeUpdate would throw
+     */
+    public CompletableFuture<Integer> executeUpdateAsync(Executor executor);
 }
@@ -71,4 +71,20 @@ public interface ISQLServerResultSet extends java.sql.ResultSet {
     public void updateDateTimeOffset(String columnName,
             microsoft.sql.DateTimeOffset x) throws SQLException;
 
+    /**
+     * Reads the next rows of this result set into a batch that keeps the values of each column in an array, as next() and the getters would read
+     * them one by one. The values of a forward only result set of a client cursor, with no encrypted columns, are read straight from the response
+     * into the arrays. <br>
+     * <br>
+     * If the batch has maxRows rows, the cursor is left on its last row, which the getters can still read. Otherwise, the result set has no more
+     * rows and the cursor is left after the last row.
+     * 
+     * @param maxRows
+     *            the maximum number of rows of the batch, which is greater than 0
+     * @return the batch, which has no rows if the result set has no more rows
+     * @throws SQLException
+     *             when an error occurs
+     */
+    public SQLServerColumnBatch fetchColumnBatch(int maxRows) throws SQLException;
+
 }
@@ -0,0 +1,31 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+/**
+ * The ISQLServerTVPRowBinder interface sets the values of the rows that a SQLServerStreamingDataTable sends to a table-valued parameter from the
+ * source objects of the rows.
+ *
+ * @param <T>
+ *            the type of the source objects
+ */
+public interface ISQLServerTVPRowBinder<T> {
+    /**
+     * Sets the values of a row from its source object. The row is reused for every source object; its values are null when the method is called.
+     *
+     * @param source
+     *            the source object of the row
+     * @param row
+     *            the row, whose values are set with its set methods
+     * @throws SQLServerException
+     *             if a value cannot be set
+     */
+    public void bindRow(T source,
+            SQLServerTVPRow row) throws SQLServerException;
+}
@@ -0,0 +1,432 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * LOBValue is the value of a Blob, Clob or NClob read from a response, which is read a part at a time rather than copied into a single array.
+ *
+ * The parts of the value are read from its stream, and so from the buffered response, when they are needed. A value longer than the
+ * lobInMemoryLimit of the connection is copied to a temporary file when the LOB is retrieved instead, so that the response buffers can be
+ * released, and its parts are read from the file.
+ *
+ * The temporary file is deleted when the value is closed, which the LOB does when it is freed. As LOBs are often not freed, the file is also deleted
+ * once the value is reclaimed by GC, which the TemporaryFiles of the connection learn from a phantom reference to the value, or when the connection
+ * is closed.
+ */
+final class LOBValue {
+    private static final Logger logger = Logger.getLogger("com.microsoft.sqlserver.jdbc.internals.LOBValue");
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    // The stream of the value, or null once the value is copied to a file or closed
+    private BaseInputStream stream;
+
+    // Position of the TDSReader after the last read from the stream, and the position in the value it corresponds to, so that reading on
+    // from there does not skip from the start of the value again. The mark is null when the stream must be reset to the start of the value.
+    private TDSReaderMark streamMark;
+    private long streamPosition;
+
+    // The temporary file the value is copied to, and the channel it is read from
+    private TemporaryFile file;
+    private FileChannel fileChannel;
+
+    // Length of the value in bytes, or -1 until it is known
+    private long length;
+
+    LOBValue(BaseInputStream stream) throws SQLServerException {
+        this.stream = stream;
+        this.length = stream.getStatedLength();
+
+        int inMemoryLimit = stream.tdsReader.getConnection().getLobInMemoryLimit();
+        if (0 < inMemoryLimit && length() > inMemoryLimit)
+            copyToFile();
+    }
+
+    /**
+     * Returns the length of the value in bytes.
+     */
+    long length() throws SQLServerException {
+        // The response did not state the length, so skip over the value once to count it.
+        if (-1 == length)
+            length = read(Long.MAX_VALUE, null, 0, 0);
+
+        return length;
+    }
+
+    /**
+     * Reads the whole value into a byte array.
+     */
+    byte[] getBytes() throws SQLServerException {
+        byte[] value = new byte[(int) length()];
+        read(0, value, 0, value.length);
+        return value;
+    }
+
+    /**
+     * Reads up to maxBytes bytes of the value, starting at the 0 based position pos, into b.
+     *
+     * When b is null, nothing is read, and the position the stream was skipped to is returned; it is less than pos if pos is past the end of the
+     * value.
+     *
+     * @return the number of bytes read, which is less than maxBytes only at the end of the value
+     */
+    int read(long pos,
+            byte[] b,
+            int offset,
+            int maxBytes) throws SQLServerException {
+        try {
+            // The file is closed if the connection was closed.
+            if (null != fileChannel && fileChannel.isOpen())
+                return readFromFile(pos, b, offset, maxBytes);
+
+            if (null == stream)
+                throw new IOException(SQLServerException.getErrString("R_streamIsClosed"));
+
+            return (int) readFromStream(pos, b, offset, maxBytes);
+        }
+        catch (IOException e) {
+            throw new SQLServerException(e.getMessage(), null, 0, e);
+        }
+    }
+
+    private int readFromFile(long pos,
+            byte[] b,
+            int offset,
+            int maxBytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(b, offset, maxBytes);
+        while (buffer.hasRemaining() && -1 != fileChannel.read(buffer, pos + buffer.position() - offset))
+            ;
+        return buffer.position() - offset;
+    }
+
+    private long readFromStream(long pos,
+            byte[] b,
+            int offset,
+            int maxBytes) throws IOException {
+        // The TDSReader is shared with the result set the value was read from, which may be reading other values from it,
+        // so leave it where it was.
+        TDSReader tdsReader = stream.tdsReader;
+        TDSReaderMark readerMark = tdsReader.mark();
+        try {
+            if (null == streamMark || pos < streamPosition) {
+                streamMark = null;
+                stream.reset();
+                streamPosition = 0;
+            }
+            else {
+                tdsReader.reset(streamMark);
+            }
+
+            for (long bytesSkipped; streamPosition < pos && 0 < (bytesSkipped = stream.skip(pos - streamPosition)); streamPosition += bytesSkipped)
+                ;
+
+            if (null == b) {
+                streamMark = tdsReader.mark();
+                return streamPosition;
+            }
+
+            int bytesRead = 0;
+            for (int n; bytesRead < maxBytes && -1 != (n = stream.read(b, offset + bytesRead, maxBytes - bytesRead)); bytesRead += n)
+                ;
+
+            streamPosition += bytesRead;
+            streamMark = tdsReader.mark();
+            return bytesRead;
+        }
+        finally {
+            tdsReader.reset(readerMark);
+        }
+    }
+
+    /**
+     * Copies the value to a temporary file and releases its stream.
+     */
+    private void copyToFile() throws SQLServerException {
+        try {
+            file = stream.tdsReader.getConnection().getLobTemporaryFiles().create(this);
+            fileChannel = file.channel;
+
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long position = 0;
+            for (int bytesRead; 0 < (bytesRead = (int) readFromStream(position, buffer, 0, buffer.length)); position += bytesRead) {
+                ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, bytesRead);
+                while (bytes.hasRemaining())
+                    fileChannel.write(bytes);
+            }
+            length = position;
+        }
+        catch (IOException e) {
+            deleteFile();
+            throw new SQLServerException(e.getMessage(), null, 0, e);
+        }
+
+        if (logger.isLoggable(Level.FINER))
+            logger.finer(toString() + " copied " + length + " bytes from " + stream + " to " + file);
+
+        releaseStream();
+    }
+
+    /**
+     * Returns a stream of length bytes of the value, starting at the 0 based position pos. Each stream reads from its own position in the value,
+     * so the streams of a value can be read together.
+     */
+    InputStream getInputStream(long pos,
+            long length) {
+        return new LOBValueInputStream(pos, pos + length);
+    }
+
+    /**
+     * Releases the stream of the value, or deletes the file it was copied to.
+     */
+    void close() {
+        releaseStream();
+        deleteFile();
+    }
+
+    private void releaseStream() {
+        if (null == stream)
+            return;
+
+        // The value is not skipped to its end as when the stream itself is closed: the result set positions the TDSReader at the values it reads.
+        try {
+            stream.closeHelper();
+        }
+        catch (IOException e) {
+            logger.fine(toString() + " ignored IOException closing stream " + stream + ": " + e.getMessage());
+        }
+        stream = null;
+        streamMark = null;
+    }
+
+    private void deleteFile() {
+        if (null != file) {
+            file.delete();
+            file = null;
+            fileChannel = null;
+        }
+    }
+
+    /**
+     * A temporary file that a value is copied to. It is also a phantom reference to the value, which is enqueued once the value is reclaimed, so that
+     * the file can be deleted even if the value was never closed.
+     */
+    static final class TemporaryFile extends PhantomReference<LOBValue> {
+        private final TemporaryFiles files;
+        private final File file;
+        final FileChannel channel;
+
+        private TemporaryFile(LOBValue value,
+                TemporaryFiles files) throws IOException {
+            super(value, files.reclaimedValues);
+            this.files = files;
+            this.file = File.createTempFile("mssql-jdbc-lob", null);
+            try {
+                this.channel = new RandomAccessFile(file, "rw").getChannel();
+            }
+            catch (IOException e) {
+                file.delete();
+                throw e;
+            }
+        }
+
+        public String toString() {
+            return file.toString();
+        }
+
+        /**
+         * Closes and deletes the file, unless it is already deleted.
+         */
+        void delete() {
+            if (!files.remove(this))
+                return;
+
+            try {
+                channel.close();
+            }
+            catch (IOException e) {
+                logger.fine(files.toString() + " ignored IOException closing file " + file + ": " + e.getMessage());
+            }
+            if (!file.delete())
+                logger.fine(files.toString() + " could not delete file " + file);
+            else if (logger.isLoggable(Level.FINER))
+                logger.finer(files.toString() + " deleted " + file);
+        }
+    }
+
+    /**
+     * TemporaryFiles keeps track of the temporary files of the values of a connection, and deletes the files of the values that have been reclaimed
+     * without being closed whenever it creates another file, and all the files when the connection is closed.
+     */
+    static final class TemporaryFiles {
+        private final String traceID;
+        private final ReferenceQueue<LOBValue> reclaimedValues = new ReferenceQueue<LOBValue>();
+
+        // Phantom references are only enqueued if they are themselves still reachable,
+        // so the files are kept here until they are deleted.
+        private final Set<TemporaryFile> files = new HashSet<TemporaryFile>();
+
+        TemporaryFiles(String traceID) {
+            this.traceID = "LOBValue.TemporaryFiles (" + traceID + ")";
+        }
+
+        final public String toString() {
+            return traceID;
+        }
+
+        /**
+         * Creates a temporary file for a value.
+         */
+        TemporaryFile create(LOBValue value) throws IOException {
+            deleteReclaimed();
+
+            TemporaryFile file = new TemporaryFile(value, this);
+            synchronized (this) {
+                files.add(file);
+            }
+            return file;
+        }
+
+        private synchronized boolean remove(TemporaryFile file) {
+            file.clear();
+            return files.remove(file);
+        }
+
+        /**
+         * Deletes the files of the values that have been reclaimed.
+         */
+        void deleteReclaimed() {
+            TemporaryFile file;
+            while (null != (file = (TemporaryFile) reclaimedValues.poll()))
+                file.delete();
+        }
+
+        /**
+         * Deletes all the files. Called when the connection is closed.
+         */
+        void deleteAll() {
+            TemporaryFile[] allFiles;
+            synchronized (this) {
+                allFiles = files.toArray(new TemporaryFile[files.size()]);
+            }
+            for (TemporaryFile file : allFiles)
+                file.delete();
+            deleteReclaimed();
+        }
+
+        /**
+         * @return the number of files that have not been deleted
+         */
+        synchronized int getFileCount() {
+            return files.size();
+        }
+    }
+
+    /**
+     * LOBValueInputStream is an InputStream of a range of a LOBValue, which reads from the value at its own position.
+     */
+    private final class LOBValueInputStream extends InputStream {
+        private long position;
+        private final long end;
+        private long markedPosition;
+        private boolean isClosed = false;
+        private byte[] oneByteArray;
+
+        LOBValueInputStream(long position,
+                long end) {
+            this.position = this.markedPosition = position;
+            this.end = end;
+        }
+
+        private void checkClosed() throws IOException {
+            if (isClosed)
+                throw new IOException(SQLServerException.getErrString("R_streamIsClosed"));
+        }
+
+        public int read() throws IOException {
+            if (null == oneByteArray)
+                oneByteArray = new byte[1];
+            if (-1 != read(oneByteArray, 0, 1))
+                return oneByteArray[0] & 0xFF;
+            return -1;
+        }
+
+        public int read(byte[] b,
+                int offset,
+                int maxBytes) throws IOException {
+            if (null == b)
+                throw new NullPointerException();
+            if (offset < 0 || maxBytes < 0 || offset + maxBytes > b.length)
+                throw new IndexOutOfBoundsException();
+
+            checkClosed();
+
+            if (0 == maxBytes)
+                return 0;
+            if (position >= end)
+                return -1;
+
+            if (maxBytes > end - position)
+                maxBytes = (int) (end - position);
+
+            int bytesRead;
+            try {
+                bytesRead = LOBValue.this.read(position, b, offset, maxBytes);
+            }
+            catch (SQLServerException e) {
+                throw new IOException(e.getMessage());
+            }
+
+            if (0 == bytesRead)
+                return -1;
+
+            position += bytesRead;
+            return bytesRead;
+        }
+
+        public long skip(long n) throws IOException {
+            checkClosed();
+            if (n <= 0 || position >= end)
+                return 0L;
+            if (n > end - position)
+                n = end - position;
+            position += n;
+            return n;
+        }
+
+        public boolean markSupported() {
+            return true;
+        }
+
+        public void mark(int readLimit) {
+            markedPosition = position;
+        }
+
+        public void reset() throws IOException {
+            checkClosed();
+            position = markedPosition;
+        }
+
+        public void close() {
+            isClosed = true;
+        }
+    }
+}
@@ -151,6 +151,10 @@ class PLPInputStream extends BaseInputStream {
         return value;
     }
 
+    int getStatedLength() {
+        return payloadLength;
+    }
+
     /**
      * Skips over and discards n bytes of data from this input stream.
      * 
@@ -487,6 +491,10 @@ final class PLPXMLInputStream extends PLPInputStream {
         return -1;
     }
 
+    int getStatedLength() {
+        return (-1 != payloadLength) ? xmlBOM.length + payloadLength : -1;
+    }
+
     public void mark(int readLimit) {
         bomStream.mark(xmlBOM.length);
         super.mark(readLimit);
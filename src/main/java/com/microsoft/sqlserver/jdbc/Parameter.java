@@ -78,6 +78,27 @@ final class Parameter {
         return (null != inputDTV) ? inputDTV.getJdbcType() : JDBCType.UNKNOWN;
     }
 
+    // Java type of the IN parameter value, or null if no value has been set.
+    JavaType getJavaType() {
+        return (null != inputDTV) ? inputDTV.getJavaType() : null;
+    }
+
+    // The IN parameter value as it was passed to the setter, or null if no value has been set.
+    Object getSetterValue() {
+        return (null != inputDTV) ? inputDTV.getSetterValue() : null;
+    }
+
+    // True if the IN parameter is a table valued parameter streamed from its source, whose rows can be sent only once.
+    boolean isStreamingTVP() {
+        Object value = getSetterValue();
+        return value instanceof TVP && TVPType.SQLServerStreamingDataTable == ((TVP) value).tvpType;
+    }
+
+    // Calendar passed along with a temporal IN parameter value, if any.
+    Calendar getCalendar() {
+        return (null != inputDTV) ? inputDTV.getCalendar() : null;
+    }
+
     /**
      * Used when sendStringParametersAsUnicode=true to derive the appropriate National Character Set JDBC type corresponding to the specified JDBC
      * type.
@@ -330,6 +351,12 @@ final class Parameter {
             else if (value instanceof SQLServerDataTable) {
                 tvpValue = new TVP(tvpName, (SQLServerDataTable) value);
             }
+            else if (value instanceof SQLServerColumnarDataTable) {
+                tvpValue = new TVP(tvpName, (SQLServerColumnarDataTable) value);
+            }
+            else if (value instanceof SQLServerStreamingDataTable) {
+                tvpValue = new TVP(tvpName, (SQLServerStreamingDataTable<?>) value);
+            }
             else if (value instanceof ResultSet) {
                 // if ResultSet and PreparedStatemet/CallableStatement are created from same connection object
                 // with property SelectMethod=cursor, TVP is not supported
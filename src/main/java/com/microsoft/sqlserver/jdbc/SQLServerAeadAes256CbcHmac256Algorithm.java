@@ -8,18 +8,14 @@
 
 package com.microsoft.sqlserver.jdbc;
 
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.logging.Level;
 
-import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.Mac;
-import javax.crypto.NoSuchPaddingException;
-import javax.crypto.ShortBufferException;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -58,6 +54,40 @@ class SQLServerAeadAes256CbcHmac256Algorithm extends SQLServerEncryptionAlgorith
      */
     private int minimumCipherTextLengthInBytesWithAuthenticationTag = minimumCipherTextLengthInBytesNoAuthenticationTag + keySizeInBytes;
 
+    private final SecretKeySpec encryptionKeySpec;
+    private final SecretKeySpec macKeySpec;
+    private final SecretKeySpec ivKeySpec;
+
+    // The ciphers and MACs of each thread that uses the key. Getting them from the providers and initializing them for each value costs more
+    // than encrypting or decrypting most values.
+    private final ThreadLocal<CryptoContext> cryptoContexts = new ThreadLocal<CryptoContext>();
+
+    /**
+     * The cipher and MACs that a thread uses to encrypt and decrypt values with the key, with the MACs initialized with their keys.
+     */
+    private final class CryptoContext {
+        final Cipher cipher;
+        final Mac hmac;
+        final Mac ivHmac;
+        final byte[] hash;
+        SecureRandom random;
+
+        CryptoContext() throws GeneralSecurityException {
+            // AES encryption CBC mode and PKCS5 padding, initialized with the IV of each value
+            cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            hmac = Mac.getInstance("HmacSHA256");
+            hmac.init(macKeySpec);
+            if (isDeterministic) {
+                ivHmac = Mac.getInstance("HmacSHA256");
+                ivHmac.init(ivKeySpec);
+            }
+            else {
+                ivHmac = null;
+            }
+            hash = new byte[hmac.getMacLength()];
+        }
+    }
+
     /**
      * Initializes a new instance of SQLServerAeadAes256CbcHmac256Algorithm with a given key, encryption type and algorithm version
      * 
@@ -78,6 +108,22 @@ class SQLServerAeadAes256CbcHmac256Algorithm extends SQLServerEncryptionAlgorith
         }
         this.algorithmVersion = algorithmVersion;
         version[0] = algorithmVersion;
+
+        encryptionKeySpec = new SecretKeySpec(columnEncryptionkey.getEncryptionKey(), "AES");
+        macKeySpec = new SecretKeySpec(columnEncryptionkey.getMacKey(), "HmacSHA256");
+        ivKeySpec = new SecretKeySpec(columnEncryptionkey.getIVKey(), "HmacSHA256");
+    }
+
+    /**
+     * Returns the crypto context of the current thread, creating it on the first use of the key by the thread.
+     */
+    private CryptoContext getCryptoContext() throws GeneralSecurityException {
+        CryptoContext context = cryptoContexts.get();
+        if (null == context) {
+            context = new CryptoContext();
+            cryptoContexts.set(context);
+        }
+        return context;
     }
 
     @Override
@@ -98,30 +144,10 @@ class SQLServerAeadAes256CbcHmac256Algorithm extends SQLServerEncryptionAlgorith
      */
     protected byte[] encryptData(byte[] plainText,
             boolean hasAuthenticationTag) throws SQLServerException {
-        aeLogger.entering(SQLServerAeadAes256CbcHmac256Algorithm.class.getName(), Thread.currentThread().getStackTrace()[1].getMethodName(),
-                "Encrypting data.");
-        // we will generate this initialization vector based whether
-        // this encryption type is deterministic
-        assert (plainText != null);
-        byte[] iv = new byte[blockSizeInBytes];
-        // Secret/private key to be used in AES encryption
-        SecretKeySpec skeySpec = new SecretKeySpec(columnEncryptionkey.getEncryptionKey(), "AES");
-
-        if (isDeterministic) {
-            // this method makes sure this is 16 bytes key
-            try {
-                iv = SQLServerSecurityUtility.getHMACWithSHA256(plainText, columnEncryptionkey.getIVKey(), blockSizeInBytes);
-            }
-            catch (InvalidKeyException | NoSuchAlgorithmException e) {
-                MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_EncryptionFailed"));
-                Object[] msgArgs = {e.getMessage()};
-                throw new SQLServerException(this, form.format(msgArgs), null, 0, false);
-            }
-        }
-        else {
-            SecureRandom random = new SecureRandom();
-            random.nextBytes(iv);
+        if (aeLogger.isLoggable(Level.FINER)) {
+            aeLogger.entering(SQLServerAeadAes256CbcHmac256Algorithm.class.getName(), "encryptData", "Encrypting data.");
         }
+        assert (plainText != null);
 
         int numBlocks = plainText.length / blockSizeInBytes + 1;
 
@@ -131,99 +157,121 @@ class SQLServerAeadAes256CbcHmac256Algorithm extends SQLServerEncryptionAlgorith
         int cipherStartIndex = ivStartIndex + blockSizeInBytes;
 
         // Output buffer size = size of VersionByte + Authentication Tag + IV + cipher Text blocks.
-        int outputBufSize = 1 + authenticationTagLen + iv.length + (numBlocks * blockSizeInBytes);
+        int outputBufSize = 1 + authenticationTagLen + blockSizeInBytes + (numBlocks * blockSizeInBytes);
         byte[] outBuffer = new byte[outputBufSize];
 
         // Copying the version to output buffer
         outBuffer[0] = algorithmVersion;
-        // Coping IV to the output buffer
-        System.arraycopy(iv, 0, outBuffer, ivStartIndex, iv.length);
-
-        // Start the AES encryption
 
         try {
-            // initialization vector
-            IvParameterSpec ivector = new IvParameterSpec(iv);
-            Cipher encryptCipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-            encryptCipher.init(Cipher.ENCRYPT_MODE, skeySpec, ivector);
-
-            int count = 0;
-            int cipherIndex = cipherStartIndex; // this is where cipherText starts
-
-            if (numBlocks > 1) {
-                count = (numBlocks - 1) * blockSizeInBytes;
-                cipherIndex += encryptCipher.update(plainText, 0, count, outBuffer, cipherIndex);
+            CryptoContext context = getCryptoContext();
+
+            // we will generate this initialization vector based whether
+            // this encryption type is deterministic, straight into the output buffer
+            if (isDeterministic) {
+                context.ivHmac.update(plainText);
+                context.ivHmac.doFinal(context.hash, 0);
+                System.arraycopy(context.hash, 0, outBuffer, ivStartIndex, blockSizeInBytes);
+            }
+            else {
+                if (null == context.random) {
+                    context.random = new SecureRandom();
+                }
+                byte[] iv = new byte[blockSizeInBytes];
+                context.random.nextBytes(iv);
+                System.arraycopy(iv, 0, outBuffer, ivStartIndex, blockSizeInBytes);
             }
-            // doFinal will complete the encryption
-            byte[] buffTmp = encryptCipher.doFinal(plainText, count, plainText.length - count);
-            // Encryption completed
-            System.arraycopy(buffTmp, 0, outBuffer, cipherIndex, buffTmp.length);
 
-            if (hasAuthenticationTag) {
+            // Start the AES encryption, into the output buffer after the IV
+            context.cipher.init(Cipher.ENCRYPT_MODE, encryptionKeySpec, new IvParameterSpec(outBuffer, ivStartIndex, blockSizeInBytes));
+            context.cipher.doFinal(plainText, 0, plainText.length, outBuffer, cipherStartIndex);
 
-                Mac hmac = Mac.getInstance("HmacSHA256");
-                SecretKeySpec initkey = new SecretKeySpec(columnEncryptionkey.getMacKey(), "HmacSHA256");
-                hmac.init(initkey);
+            if (hasAuthenticationTag) {
+                // the authentication tag is the whole hash, so it is copied straight into the output buffer
+                Mac hmac = context.hmac;
                 hmac.update(version, 0, version.length);
-                hmac.update(iv, 0, iv.length);
+                hmac.update(outBuffer, ivStartIndex, blockSizeInBytes);
                 hmac.update(outBuffer, cipherStartIndex, numBlocks * blockSizeInBytes);
                 hmac.update(versionSize, 0, version.length);
-                byte[] hash = hmac.doFinal();
-                // coping the authentication tag in the output buffer which holds cipher text
-                System.arraycopy(hash, 0, outBuffer, hmacStartIndex, authenticationTagLen);
-
+                hmac.doFinal(outBuffer, hmacStartIndex);
             }
         }
-        catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException | InvalidKeyException | NoSuchPaddingException
-                | IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
-
+        catch (GeneralSecurityException e) {
             MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_EncryptionFailed"));
             Object[] msgArgs = {e.getMessage()};
             throw new SQLServerException(this, form.format(msgArgs), null, 0, false);
         }
 
-        aeLogger.exiting(SQLServerAeadAes256CbcHmac256Algorithm.class.getName(), Thread.currentThread().getStackTrace()[1].getMethodName(),
-                "Data encrypted.");
+        if (aeLogger.isLoggable(Level.FINER)) {
+            aeLogger.exiting(SQLServerAeadAes256CbcHmac256Algorithm.class.getName(), "encryptData", "Data encrypted.");
+        }
         return outBuffer;
 
     }
 
     @Override
     byte[] decryptData(byte[] cipherText) throws SQLServerException {
-        return decryptData(cipherText, true);
+        assert (cipherText != null);
 
+        // The plain text is shorter than the cipher text
+        byte[] plainText = new byte[cipherText.length];
+        int plainTextLength = decryptData(cipherText, 0, cipherText.length, plainText, 0, true);
+        return Arrays.copyOf(plainText, plainTextLength);
+    }
+
+    @Override
+    int decryptData(byte[] cipherText,
+            int offset,
+            int length,
+            byte[] plainText,
+            int plainTextOffset) throws SQLServerException {
+        return decryptData(cipherText, offset, length, plainText, plainTextOffset, true);
     }
 
     /**
-     * Decrypt the cipher text and return plain text
+     * Decrypt the cipher text into the given buffer
      * 
      * @param cipherText
-     *            data to be decrypted
+     *            buffer of the data to be decrypted
+     * @param offset
+     *            offset of the data in the buffer
+     * @param length
+     *            length of the data
+     * @param plainText
+     *            buffer to decrypt into, with room for at least length bytes from plainTextOffset
+     * @param plainTextOffset
+     *            offset in the buffer to decrypt into
      * @param hasAuthenticationTag
      *            tells whether cipher text contain authentication tag
-     * @return plain text
+     * @return length of the plain text
      * @throws SQLServerException
      */
-    private byte[] decryptData(byte[] cipherText,
+    private int decryptData(byte[] cipherText,
+            int offset,
+            int length,
+            byte[] plainText,
+            int plainTextOffset,
             boolean hasAuthenticationTag) throws SQLServerException {
+        if (aeLogger.isLoggable(Level.FINER)) {
+            aeLogger.entering(SQLServerAeadAes256CbcHmac256Algorithm.class.getName(), "decryptData", "Decrypting data.");
+        }
         assert (cipherText != null);
-
-        byte[] iv = new byte[blockSizeInBytes];
+        assert (plainText != null);
 
         int minimumCipherTextLength = hasAuthenticationTag ? minimumCipherTextLengthInBytesWithAuthenticationTag
                 : minimumCipherTextLengthInBytesNoAuthenticationTag;
 
         // Here we check if length of cipher text is more than minimum value,
         // if not exception is thrown
-        if (cipherText.length < minimumCipherTextLength) {
+        if (length < minimumCipherTextLength) {
             MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_InvalidCipherTextSize"));
-            Object[] msgArgs = {cipherText.length, minimumCipherTextLength};
+            Object[] msgArgs = {length, minimumCipherTextLength};
             throw new SQLServerException(this, form.format(msgArgs), null, 0, false);
 
         }
 
         // Validate the version byte
-        int startIndex = 0;
+        int startIndex = offset;
         if (cipherText[startIndex] != algorithmVersion) {
             MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_InvalidAlgorithmVersion"));
             // converting byte to Hexa Decimal
@@ -242,118 +290,80 @@ class SQLServerAeadAes256CbcHmac256Algorithm extends SQLServerEncryptionAlgorith
             startIndex += keySizeInBytes;
         }
 
-        // Read IV from cipher text
-        System.arraycopy(cipherText, startIndex, iv, 0, iv.length);
-        startIndex += iv.length;
+        // The IV is read from the cipher text where it is
+        int ivOffset = startIndex;
+        startIndex += blockSizeInBytes;
 
         // To read encrypted text from cipher
         int cipherTextOffset = startIndex;
         // All data after IV is encrypted data
-        int cipherTextCount = cipherText.length - startIndex;
-
-        if (hasAuthenticationTag) {
-            byte[] authenticationTag;
-            try {
-                authenticationTag = prepareAuthenticationTag(iv, cipherText, cipherTextOffset, cipherTextCount);
-            }
-            catch (InvalidKeyException | NoSuchAlgorithmException e) {
-                MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_DecryptionFailed"));
-                Object[] msgArgs = {e.getMessage()};
-                throw new SQLServerException(this, form.format(msgArgs), null, 0, false);
-
-            }
-            if (!(SQLServerSecurityUtility.compareBytes(authenticationTag, cipherText, authenticationTagOffset, cipherTextCount))) {
+        int cipherTextCount = offset + length - startIndex;
 
-                throw new SQLServerException(this, SQLServerException.getErrString("R_InvalidAuthenticationTag"), null, 0, false);
+        int plainTextLength;
+        try {
+            CryptoContext context = getCryptoContext();
 
+            if (hasAuthenticationTag) {
+                prepareAuthenticationTag(context, cipherText, ivOffset, cipherTextOffset, cipherTextCount);
+                if (!isAuthenticationTagValid(context.hash, cipherText, authenticationTagOffset)) {
+                    throw new SQLServerException(this, SQLServerException.getErrString("R_InvalidAuthenticationTag"), null, 0, false);
+                }
             }
 
+            // Decrypt the text into the buffer
+            context.cipher.init(Cipher.DECRYPT_MODE, encryptionKeySpec, new IvParameterSpec(cipherText, ivOffset, blockSizeInBytes));
+            plainTextLength = context.cipher.doFinal(cipherText, cipherTextOffset, cipherTextCount, plainText, plainTextOffset);
         }
-
-        // Decrypt the text and return
-        return decryptData(iv, cipherText, cipherTextOffset, cipherTextCount);
-    }
-
-    /**
-     * Decrypt data with specified IV
-     * 
-     * @param iv
-     *            initialization vector
-     * @param cipherText
-     *            text to be decrypted
-     * @param offset
-     *            of cipher text
-     * @param count
-     *            length of cipher text
-     * @return plain text
-     * @throws SQLServerException
-     */
-    private byte[] decryptData(byte[] iv,
-            byte[] cipherText,
-            int offset,
-            int count) throws SQLServerException {
-        aeLogger.entering(SQLServerAeadAes256CbcHmac256Algorithm.class.getName(), Thread.currentThread().getStackTrace()[1].getMethodName(),
-                "Decrypting data.");
-        assert (cipherText != null);
-        assert (iv != null);
-        byte[] plainText = null;
-        // key to be used for decryption
-        SecretKeySpec skeySpec = new SecretKeySpec(columnEncryptionkey.getEncryptionKey(), "AES");
-        IvParameterSpec ivector = new IvParameterSpec(iv);
-        Cipher decryptCipher;
-        try {
-            // AES encryption CBC mode and PKCS5 padding
-            decryptCipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-            decryptCipher.init(Cipher.DECRYPT_MODE, skeySpec, ivector);
-            plainText = decryptCipher.doFinal(cipherText, offset, count);
-        }
-        catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException | InvalidKeyException | NoSuchPaddingException
-                | IllegalBlockSizeException | BadPaddingException e) {
-
+        catch (GeneralSecurityException e) {
             MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_DecryptionFailed"));
             Object[] msgArgs = {e.getMessage()};
             throw new SQLServerException(this, form.format(msgArgs), null, 0, false);
         }
 
-        aeLogger.exiting(SQLServerAeadAes256CbcHmac256Algorithm.class.getName(), Thread.currentThread().getStackTrace()[1].getMethodName(),
-                "Data decrypted.");
-        return plainText;
-
+        if (aeLogger.isLoggable(Level.FINER)) {
+            aeLogger.exiting(SQLServerAeadAes256CbcHmac256Algorithm.class.getName(), "decryptData", "Data decrypted.");
+        }
+        return plainTextLength;
     }
 
     /**
-     * Prepare the authentication tag
+     * Prepare the authentication tag, into the hash of the crypto context
      * 
-     * @param iv
-     *            initialization vector
+     * @param context
+     *            crypto context of the current thread
      * @param cipherText
+     * @param ivOffset
+     *            offset of the initialization vector in the cipher text
      * @param offset
      * @param length
      *            length of cipher text
-     * @return authentication tag
-     * @throws NoSuchAlgorithmException
-     * @throws InvalidKeyException
      */
-    private byte[] prepareAuthenticationTag(byte[] iv,
+    private void prepareAuthenticationTag(CryptoContext context,
             byte[] cipherText,
+            int ivOffset,
             int offset,
-            int length) throws NoSuchAlgorithmException, InvalidKeyException {
+            int length) throws GeneralSecurityException {
         assert (cipherText != null);
-        byte[] computedHash;
-        byte[] authenticationTag = new byte[keySizeInBytes];
 
-        Mac hmac = Mac.getInstance("HmacSHA256");
-        SecretKeySpec key = new SecretKeySpec(columnEncryptionkey.getMacKey(), "HmacSHA256");
-        hmac.init(key);
+        Mac hmac = context.hmac;
         hmac.update(version, 0, version.length);
-        hmac.update(iv, 0, iv.length);
+        hmac.update(cipherText, ivOffset, blockSizeInBytes);
         hmac.update(cipherText, offset, length);
         hmac.update(versionSize, 0, version.length);
-        computedHash = hmac.doFinal();
-        System.arraycopy(computedHash, 0, authenticationTag, 0, authenticationTag.length);
-
-        return authenticationTag;
+        hmac.doFinal(context.hash, 0);
+    }
 
+    /**
+     * Compares the computed authentication tag with the one in the cipher text, in time that does not depend on where they differ
+     */
+    private boolean isAuthenticationTagValid(byte[] authenticationTag,
+            byte[] cipherText,
+            int offset) {
+        int difference = 0;
+        for (int i = 0; i < keySizeInBytes; i++) {
+            difference |= authenticationTag[i] ^ cipherText[offset + i];
+        }
+        return 0 == difference;
     }
 
 }
@@ -14,7 +14,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Blob;
 import java.sql.SQLException;
-import java.sql.SQLFeatureNotSupportedException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -32,6 +31,10 @@ public final class SQLServerBlob implements java.sql.Blob, java.io.Serializable
     // This value is never null unless/until the free() method is called.
     private byte[] value;
 
+    // The value of a BLOB read from a response, which is read a part at a time until the BLOB is changed or searched.
+    // Either this value or the value above is null.
+    private LOBValue lobValue;
+
     private transient SQLServerConnection con;
     private boolean isClosed = false;
 
@@ -95,7 +98,7 @@ public final class SQLServerBlob implements java.sql.Blob, java.io.Serializable
 
     SQLServerBlob(BaseInputStream stream) throws SQLServerException {
         traceID = " SQLServerBlob:" + nextInstanceID();
-        activeStreams.add(stream);
+        lobValue = new LOBValue(stream);
         if (logger.isLoggable(Level.FINE))
             logger.fine(toString() + " created by (null connection)");
     }
@@ -122,6 +125,10 @@ public final class SQLServerBlob implements java.sql.Blob, java.io.Serializable
             }
 
             // Discard the value
+            if (null != lobValue) {
+                lobValue.close();
+                lobValue = null;
+            }
             value = null;
 
             isClosed = true;
@@ -141,35 +148,49 @@ public final class SQLServerBlob implements java.sql.Blob, java.io.Serializable
     public InputStream getBinaryStream() throws SQLException {
         checkClosed();
 
-        if (null == value && !activeStreams.isEmpty()) {
-            InputStream stream = (InputStream) activeStreams.get(0);
-            try {
-                stream.reset();
-            }
-            catch (IOException e) {
-                throw new SQLServerException(e.getMessage(), null, 0, e);
-            }
-            return (InputStream) activeStreams.get(0);
-        }
-        else {
-            return getBinaryStreamInternal(0, value.length);
-        }
+        return getBinaryStreamInternal(0, (int) length());
     }
 
+    /**
+     * Returns an InputStream object that contains a partial Blob value, starting with the byte specified by pos, which is length bytes in length.
+     * 
+     * @param pos
+     *            - the offset to the first byte of the partial value to be retrieved. The first byte in the Blob is at position 1
+     * @param length
+     *            - the length in bytes of the partial value to be retrieved
+     * @return InputStream through which the partial Blob value can be read
+     * @throws SQLException
+     *             - if pos is less than 1 or if pos is greater than the number of bytes in the Blob or if pos + length is greater than the number
+     *             of bytes in the Blob plus 1
+     */
     public InputStream getBinaryStream(long pos,
             long length) throws SQLException {
-        // Not implemented - partial materialization
-        throw new SQLFeatureNotSupportedException(SQLServerException.getErrString("R_notSupported"));
+        checkClosed();
+
+        long blobLength = length();
+        if (pos < 1 || pos > blobLength) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidPositionIndex"));
+            Object[] msgArgs = {new Long(pos)};
+            SQLServerException.makeFromDriverError(con, null, form.format(msgArgs), null, true);
+        }
+
+        if (length < 0 || length > blobLength - pos + 1) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidLength"));
+            Object[] msgArgs = {new Long(length)};
+            SQLServerException.makeFromDriverError(con, null, form.format(msgArgs), null, true);
+        }
+
+        return getBinaryStreamInternal((int) pos - 1, (int) length);
     }
 
     private InputStream getBinaryStreamInternal(int pos,
             int length) {
-        assert null != value;
+        assert null != value || null != lobValue;
         assert pos >= 0;
-        assert 0 <= length && length <= value.length - pos;
+        assert 0 <= length;
         assert null != activeStreams;
 
-        InputStream getterStream = new ByteArrayInputStream(value, pos, length);
+        InputStream getterStream = (null != lobValue) ? lobValue.getInputStream(pos, length) : new ByteArrayInputStream(value, pos, length);
         activeStreams.add(getterStream);
         return getterStream;
     }
@@ -191,7 +212,6 @@ public final class SQLServerBlob implements java.sql.Blob, java.io.Serializable
             int length) throws SQLException {
         checkClosed();
 
-        getBytesFromStream();
         if (pos < 1) {
             MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidPositionIndex"));
             Object[] msgArgs = {new Long(pos)};
@@ -207,16 +227,21 @@ public final class SQLServerBlob implements java.sql.Blob, java.io.Serializable
         // Adjust pos to zero based.
         pos--;
 
+        long blobLength = length();
+
         // Bound the starting position if necessary
-        if (pos > value.length)
-            pos = value.length;
+        if (pos > blobLength)
+            pos = blobLength;
 
         // Bound the length if necessary
-        if (length > value.length - pos)
-            length = (int) (value.length - pos);
+        if (length > blobLength - pos)
+            length = (int) (blobLength - pos);
 
         byte bTemp[] = new byte[length];
-        System.arraycopy(value, (int) pos, bTemp, 0, length);
+        if (null != lobValue)
+            lobValue.read(pos, bTemp, 0, length);
+        else
+            System.arraycopy(value, (int) pos, bTemp, 0, length);
         return bTemp;
     }
 
@@ -229,24 +254,18 @@ public final class SQLServerBlob implements java.sql.Blob, java.io.Serializable
      */
     public long length() throws SQLException {
         checkClosed();
-        getBytesFromStream();
-        return value.length;
+        return (null != lobValue) ? lobValue.length() : value.length;
     }
     
     /**
-     * Converts stream to byte[]
+     * Reads the whole value of a BLOB read from a response into memory, before it is changed or searched
      * @throws SQLServerException
      */
     private void getBytesFromStream() throws SQLServerException {
-        if (null == value) {
-            BaseInputStream stream = (BaseInputStream) activeStreams.get(0);
-            try {
-                stream.reset();
-            }
-            catch (IOException e) {
-                throw new SQLServerException(e.getMessage(), null, 0, e);
-            }
-            value = stream.getBytes();
+        if (null != lobValue) {
+            value = lobValue.getBytes();
+            lobValue.close();
+            lobValue = null;
         }
     }
 
@@ -8,23 +8,26 @@
 
 package com.microsoft.sqlserver.jdbc;
 
-import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.text.DecimalFormat;
 import java.text.MessageFormat;
 import java.time.OffsetDateTime;
 import java.time.OffsetTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * A simple implementation of the ISQLServerBulkRecord interface that can be used to read in the basic Java data types from a delimited file where
@@ -55,11 +58,20 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
     }
 
     /*
-     * Resources associated with reading in the file
+     * Resources associated with reading in the file. The partitions of a file read it through the channel of the record they were split from, which
+     * has the stream.
      */
-    private BufferedReader fileReader;
-    private InputStreamReader sr;
     private FileInputStream fis;
+    private FileChannel fileChannel;
+    private CSVFileScanner scanner;
+    private final Charset charset;
+
+    /*
+     * The range of the file to read, and whether its first line holds the column names.
+     */
+    private final long rangeStart;
+    private final long rangeEnd;
+    private final boolean firstLineIsColumnNames;
 
     /*
      * Metadata to represent the columns in the file. Each column should be mapped to its corresponding position within the file (from position 1 and
@@ -68,14 +80,33 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
     private Map<Integer, ColumnMetadata> columnMetadata;
 
     /*
-     * Current line of data to parse.
+     * Whether there is a current line of data to parse, and whether any line of data was read.
      */
-    private String currentLine = null;
+    private boolean hasCurrentLine = false;
+    private boolean started = false;
 
     /*
-     * Delimiter to parse lines with.
+     * Delimiter to parse lines with. A delimiter that is a regular expression splits each line with the pattern, as String.split does; any other is
+     * found by the scanner.
      */
     private final String delimiter;
+    private final String literalDelimiter;
+    private final Pattern delimiterPattern;
+
+    /*
+     * Fields of the current line, when the delimiter is a regular expression.
+     */
+    private String[] currentFields = null;
+
+    /*
+     * Whether fields may be enclosed in double quotes.
+     */
+    private boolean escapeDelimiters = false;
+
+    /*
+     * Regular expression metacharacters, as String.split checks for them.
+     */
+    private static final String REGEX_METACHARACTERS = ".$|()[{^?*+\\";
 
     /*
      * Contains all the column names if firstLineIsColumnNames is true
@@ -131,30 +162,42 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
         }
 
         this.delimiter = delimiter;
-        try {
-            // Create the file reader
-            fis = new FileInputStream(fileToParse);
-            if (null == encoding || 0 == encoding.length()) {
-                sr = new InputStreamReader(fis);
+        literalDelimiter = getLiteralDelimiter(delimiter);
+        Pattern pattern = null;
+        if (null == literalDelimiter) {
+            try {
+                pattern = Pattern.compile(delimiter);
             }
-            else {
-                sr = new InputStreamReader(fis, encoding);
+            catch (PatternSyntaxException e) {
+                throw new SQLServerException(null, e.getMessage(), null, 0, false);
             }
+        }
+        delimiterPattern = pattern;
+        rangeStart = 0;
+        rangeEnd = Long.MAX_VALUE;
+        this.firstLineIsColumnNames = firstLineIsColumnNames;
 
-            fileReader = new BufferedReader(sr);
-
-            if (firstLineIsColumnNames) {
-                currentLine = fileReader.readLine();
-                if (null != currentLine) {
-                    columnNames = currentLine.split(delimiter, -1);
-                }
+        if (null == encoding || 0 == encoding.length()) {
+            charset = Charset.defaultCharset();
+        }
+        else {
+            try {
+                charset = Charset.forName(encoding);
+            }
+            catch (IllegalArgumentException unsupportedEncoding) {
+                MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_unsupportedEncoding"));
+                throw new SQLServerException(form.format(new Object[] {encoding}), null, 0, unsupportedEncoding);
             }
         }
-        catch (UnsupportedEncodingException unsupportedEncoding) {
-            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_unsupportedEncoding"));
-            throw new SQLServerException(form.format(new Object[] {encoding}), null, 0, unsupportedEncoding);
+
+        try {
+            // Create the file reader
+            fis = new FileInputStream(fileToParse);
+            fileChannel = fis.getChannel();
+            createScanner();
         }
         catch (Exception e) {
+            close();
             throw new SQLServerException(null, e.getMessage(), null, 0, false);
         }
         columnMetadata = new HashMap<Integer, SQLServerBulkCSVFileRecord.ColumnMetadata>();
@@ -162,6 +205,29 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
         loggerExternal.exiting(loggerClassName, "SQLServerBulkCSVFileRecord");
     }
 
+    /*
+     * Creates a partition that reads a range of the file of the given record, with its metadata, formats and quoting.
+     */
+    private SQLServerBulkCSVFileRecord(SQLServerBulkCSVFileRecord file,
+            long rangeStart,
+            long rangeEnd,
+            boolean firstLineIsColumnNames) throws SQLServerException {
+        delimiter = file.delimiter;
+        literalDelimiter = file.literalDelimiter;
+        delimiterPattern = file.delimiterPattern;
+        charset = file.charset;
+        fileChannel = file.fileChannel;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.firstLineIsColumnNames = firstLineIsColumnNames;
+        columnNames = file.columnNames;
+        columnMetadata = file.columnMetadata;
+        dateTimeFormatter = file.dateTimeFormatter;
+        timeFormatter = file.timeFormatter;
+        escapeDelimiters = file.escapeDelimiters;
+        createScanner();
+    }
+
     /**
      * Creates a simple reader to parse data from a CSV file with the given encoding.
      * 
@@ -388,6 +454,102 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
         loggerExternal.exiting(loggerClassName, "setTimeWithTimezoneFormat");
     }
 
+    /**
+     * Sets whether fields may be enclosed in double quotes, as in RFC 4180. A quoted field may contain the delimiter, line breaks and double quotes,
+     * each written as two double quotes. By default double quotes are part of the data, as for BCP and BULK INSERT. Set before reading the rows, this
+     * also applies to the column names in the first line.
+     * 
+     * @param escapeDelimiters
+     *            true to read quoted fields; false otherwise
+     * @throws SQLServerException
+     *             If the delimiter is a regular expression, or the file cannot be read
+     */
+    public void setEscapeColumnDelimitersCSV(boolean escapeDelimiters) throws SQLServerException {
+        loggerExternal.entering(loggerClassName, "setEscapeColumnDelimitersCSV", escapeDelimiters);
+
+        if (escapeDelimiters && null == literalDelimiter) {
+            throwInvalidArgument("delimiter");
+        }
+
+        this.escapeDelimiters = escapeDelimiters;
+        if (started)
+            scanner.setQuoting(escapeDelimiters);
+        else
+            createScanner();
+
+        loggerExternal.exiting(loggerClassName, "setEscapeColumnDelimitersCSV");
+    }
+
+    /**
+     * Returns whether fields may be enclosed in double quotes.
+     * 
+     * @return true if quoted fields are read; false otherwise
+     */
+    public boolean isEscapeColumnDelimitersCSV() {
+        return escapeDelimiters;
+    }
+
+    /**
+     * Splits the rows of the file into partitions that read separate parts of the file, so that the rows can be parsed on several threads, for
+     * example by loading the partitions with SQLServerParallelBulkCopy. Each partition reads its rows with the column metadata, formats and quoting
+     * of this record, through the file of this record, which must not be closed before the partitions are read. The partitions read all rows,
+     * independently of the rows already read from this record. <br>
+     * <br>
+     * The file is split at the line breaks that follow evenly spaced positions. With quoting, line breaks may be part of quoted fields, so the file
+     * is first read once to follow the quoted fields, which takes a delimiter of a single character. The file can only be split if the encoding
+     * encodes line breaks, double quotes and the delimiter as their ASCII bytes, as UTF-8 and single byte encodings such as ISO-8859-1 do; otherwise,
+     * or if the file is too small, there are fewer partitions.
+     * 
+     * @param partitionCount
+     *            The number of partitions to split the rows into
+     * @return the partitions, in the order of their rows in the file
+     * @throws SQLServerException
+     *             If partitionCount is not positive, or the file cannot be read
+     */
+    public List<SQLServerBulkCSVFileRecord> getPartitions(int partitionCount) throws SQLServerException {
+        loggerExternal.entering(loggerClassName, "getPartitions", partitionCount);
+
+        if (0 >= partitionCount) {
+            throwInvalidArgument("partitionCount");
+        }
+
+        List<SQLServerBulkCSVFileRecord> partitions = new ArrayList<SQLServerBulkCSVFileRecord>(partitionCount);
+        if (!CSVFileScanner.isAsciiCompatible(charset, escapeDelimiters ? literalDelimiter : null)
+                || (escapeDelimiters && 1 != literalDelimiter.length())) {
+            partitions.add(new SQLServerBulkCSVFileRecord(this, rangeStart, rangeEnd, firstLineIsColumnNames));
+        }
+        else {
+            char quotingDelimiter = escapeDelimiters ? literalDelimiter.charAt(0) : ',';
+            try {
+                long end = Math.min(rangeEnd, fileChannel.size());
+                long start = rangeStart;
+                if (firstLineIsColumnNames) {
+                    start = CSVFileScanner.findRecordBoundaries(fileChannel, rangeStart, end, new long[] {rangeStart + 1}, quotingDelimiter,
+                            escapeDelimiters)[0];
+                }
+
+                long[] positions = new long[partitionCount - 1];
+                for (int i = 0; i < positions.length; i++)
+                    positions[i] = start + (end - start) * (i + 1) / partitionCount;
+                long[] boundaries = CSVFileScanner.findRecordBoundaries(fileChannel, start, end, positions, quotingDelimiter, escapeDelimiters);
+
+                for (int i = 0; i < partitionCount; i++) {
+                    long partitionEnd = (i < boundaries.length) ? boundaries[i] : end;
+                    if (start < partitionEnd) {
+                        partitions.add(new SQLServerBulkCSVFileRecord(this, start, partitionEnd, false));
+                        start = partitionEnd;
+                    }
+                }
+            }
+            catch (IOException e) {
+                throw new SQLServerException(e.getMessage(), null, 0, e);
+            }
+        }
+
+        loggerExternal.exiting(loggerClassName, "getPartitions", partitions.size());
+        return partitions;
+    }
+
     /**
      * Releases any resources associated with the file reader.
      * 
@@ -398,18 +560,6 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
         loggerExternal.entering(loggerClassName, "close");
 
         // Ignore errors since we are only cleaning up here
-        if (fileReader != null)
-            try {
-                fileReader.close();
-            }
-            catch (Exception e) {
-            }
-        if (sr != null)
-            try {
-                sr.close();
-            }
-            catch (Exception e) {
-            }
         if (fis != null)
             try {
                 fis.close();
@@ -456,16 +606,14 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
 
     @Override
     public Object[] getRowData() throws SQLServerException {
-        if (null == currentLine)
+        if (!hasCurrentLine)
             return null;
         else {
             // Binary data may be corrupted
-            // The limit in split() function should be a negative value, otherwise trailing empty strings are discarded.
             // Empty string is returned if there is no value.
-            String[] data = currentLine.split(delimiter, -1);
+            int fieldCount = (null != currentFields) ? currentFields.length : scanner.getFieldCount();
 
-            // Cannot go directly from String[] to Object[] and expect it to act as an array.
-            Object[] dataRow = new Object[data.length];
+            Object[] dataRow = new Object[fieldCount];
 
             Iterator<Entry<Integer, ColumnMetadata>> it = columnMetadata.entrySet().iterator();
             while (it.hasNext()) {
@@ -474,21 +622,23 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
 
                 // Reading a column not available in csv
                 // positionInFile > number of columns retrieved after split
-                if (data.length < pair.getKey() - 1) {
+                if (fieldCount < pair.getKey() - 1) {
                     MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidColumn"));
                     Object[] msgArgs = {pair.getKey()};
                     throw new SQLServerException(form.format(msgArgs), SQLState.COL_NOT_FOUND, DriverError.NOT_SET, null);
                 }
 
                 // Source header has more columns than current line read
-                if (columnNames != null && (columnNames.length > data.length)) {
+                if (columnNames != null && (columnNames.length > fieldCount)) {
                     MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_BulkCSVDataSchemaMismatch"));
                     Object[] msgArgs = {};
                     throw new SQLServerException(form.format(msgArgs), SQLState.COL_NOT_FOUND, DriverError.NOT_SET, null);
                 }
 
+                String value = null;
                 try {
-                    if (0 == data[pair.getKey() - 1].length()) {
+                    value = getField(pair.getKey() - 1);
+                    if (0 == value.length()) {
                         dataRow[pair.getKey() - 1] = null;
                         continue;
                     }
@@ -499,38 +649,50 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
                          * inserted into an numeric column. Our implementation does the same.
                          */
                         case java.sql.Types.INTEGER: {
+                            if (isPlainInteger(value, 9)) {
+                                dataRow[pair.getKey() - 1] = Integer.valueOf(value);
+                                break;
+                            }
                             // Formatter to remove the decimal part as SQL Server floors the decimal in integer types
                             DecimalFormat decimalFormatter = new DecimalFormat("#");
-                            String formatedfInput = decimalFormatter.format(Double.parseDouble(data[pair.getKey() - 1]));
+                            String formatedfInput = decimalFormatter.format(Double.parseDouble(value));
                             dataRow[pair.getKey() - 1] = Integer.valueOf(formatedfInput);
                             break;
                         }
 
                         case java.sql.Types.TINYINT:
                         case java.sql.Types.SMALLINT: {
+                            if (isPlainInteger(value, 4)) {
+                                dataRow[pair.getKey() - 1] = Short.valueOf(value);
+                                break;
+                            }
                             // Formatter to remove the decimal part as SQL Server floors the decimal in integer types
                             DecimalFormat decimalFormatter = new DecimalFormat("#");
-                            String formatedfInput = decimalFormatter.format(Double.parseDouble(data[pair.getKey() - 1]));
+                            String formatedfInput = decimalFormatter.format(Double.parseDouble(value));
                             dataRow[pair.getKey() - 1] = Short.valueOf(formatedfInput);
                             break;
                         }
 
                         case java.sql.Types.BIGINT: {
-                            BigDecimal bd = new BigDecimal(data[pair.getKey() - 1].trim());
+                            if (isPlainInteger(value, 18)) {
+                                dataRow[pair.getKey() - 1] = Long.valueOf(value);
+                                break;
+                            }
+                            BigDecimal bd = new BigDecimal(value.trim());
                             try {
                                 dataRow[pair.getKey() - 1] = bd.setScale(0, BigDecimal.ROUND_DOWN).longValueExact();
                             }
                             catch (ArithmeticException ex) {
-                                String value = "'" + data[pair.getKey() - 1] + "'";
+                                String quotedValue = "'" + value + "'";
                                 MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_errorConvertingValue"));
-                                throw new SQLServerException(form.format(new Object[] {value, JDBCType.of(cm.columnType)}), null, 0, ex);
+                                throw new SQLServerException(form.format(new Object[] {quotedValue, JDBCType.of(cm.columnType)}), null, 0, ex);
                             }
                             break;
                         }
 
                         case java.sql.Types.DECIMAL:
                         case java.sql.Types.NUMERIC: {
-                            BigDecimal bd = new BigDecimal(data[pair.getKey() - 1].trim());
+                            BigDecimal bd = new BigDecimal(value.trim());
                             dataRow[pair.getKey() - 1] = bd.setScale(cm.scale, RoundingMode.HALF_UP);
                             break;
                         }
@@ -539,21 +701,21 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
                             // "true" => 1, "false" => 0
                             // Any non-zero value (integer/double) => 1, 0/0.0 => 0
                             try {
-                                dataRow[pair.getKey() - 1] = (0 == Double.parseDouble(data[pair.getKey() - 1])) ? Boolean.FALSE : Boolean.TRUE;
+                                dataRow[pair.getKey() - 1] = (0 == Double.parseDouble(value)) ? Boolean.FALSE : Boolean.TRUE;
                             }
                             catch (NumberFormatException e) {
-                                dataRow[pair.getKey() - 1] = Boolean.parseBoolean(data[pair.getKey() - 1]);
+                                dataRow[pair.getKey() - 1] = Boolean.parseBoolean(value);
                             }
                             break;
                         }
 
                         case java.sql.Types.REAL: {
-                            dataRow[pair.getKey() - 1] = Float.parseFloat(data[pair.getKey() - 1]);
+                            dataRow[pair.getKey() - 1] = Float.parseFloat(value);
                             break;
                         }
 
                         case java.sql.Types.DOUBLE: {
-                            dataRow[pair.getKey() - 1] = Double.parseDouble(data[pair.getKey() - 1]);
+                            dataRow[pair.getKey() - 1] = Double.parseDouble(value);
                             break;
                         }
 
@@ -569,7 +731,7 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
                              * with(DATAFILETYPE='char',firstrow=1,FIELDTERMINATOR=',') select * from t1 shows 1 row with columns: 0x61, 0x62
                              */
                             // Strip off 0x if present.
-                            String binData = data[pair.getKey() - 1].trim();
+                            String binData = value.trim();
                             if (binData.startsWith("0x") || binData.startsWith("0X")) {
                                 dataRow[pair.getKey() - 1] = binData.substring(2);
                             }
@@ -586,11 +748,11 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
 
                             // The per-column DateTimeFormatter gets priority.
                             if (null != cm.dateTimeFormatter)
-                                offsetTimeValue = OffsetTime.parse(data[pair.getKey() - 1], cm.dateTimeFormatter);
+                                offsetTimeValue = OffsetTime.parse(value, cm.dateTimeFormatter);
                             else if (timeFormatter != null)
-                                offsetTimeValue = OffsetTime.parse(data[pair.getKey() - 1], timeFormatter);
+                                offsetTimeValue = OffsetTime.parse(value, timeFormatter);
                             else
-                                offsetTimeValue = OffsetTime.parse(data[pair.getKey() - 1]);
+                                offsetTimeValue = OffsetTime.parse(value);
 
                             dataRow[pair.getKey() - 1] = offsetTimeValue;
                             break;
@@ -603,11 +765,11 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
 
                             // The per-column DateTimeFormatter gets priority.
                             if (null != cm.dateTimeFormatter)
-                                offsetDateTimeValue = OffsetDateTime.parse(data[pair.getKey() - 1], cm.dateTimeFormatter);
+                                offsetDateTimeValue = OffsetDateTime.parse(value, cm.dateTimeFormatter);
                             else if (dateTimeFormatter != null)
-                                offsetDateTimeValue = OffsetDateTime.parse(data[pair.getKey() - 1], dateTimeFormatter);
+                                offsetDateTimeValue = OffsetDateTime.parse(value, dateTimeFormatter);
                             else
-                                offsetDateTimeValue = OffsetDateTime.parse(data[pair.getKey() - 1]);
+                                offsetDateTimeValue = OffsetDateTime.parse(value);
 
                             dataRow[pair.getKey() - 1] = offsetDateTimeValue;
                             break;
@@ -640,15 +802,15 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
                              * "Hello, world" is treated as one cell. BCP and BULK INSERT deos not allow field terminators in data:
                              * https://technet.microsoft.com/en-us/library/aa196735%28v=sql.80%29.aspx?f=255&MSPPError=-2147217396
                              */
-                            dataRow[pair.getKey() - 1] = data[pair.getKey() - 1];
+                            dataRow[pair.getKey() - 1] = value;
                             break;
                         }
                     }
                 }
                 catch (IllegalArgumentException e) {
-                    String value = "'" + data[pair.getKey() - 1] + "'";
+                    String quotedValue = "'" + value + "'";
                     MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_errorConvertingValue"));
-                    throw new SQLServerException(form.format(new Object[] {value, JDBCType.of(cm.columnType)}), null, 0, e);
+                    throw new SQLServerException(form.format(new Object[] {quotedValue, JDBCType.of(cm.columnType)}), null, 0, e);
                 }
                 catch (ArrayIndexOutOfBoundsException e) {
                     throw new SQLServerException(SQLServerException.getErrString("R_BulkCSVDataSchemaMismatch"), e);
@@ -661,13 +823,83 @@ public class SQLServerBulkCSVFileRecord implements ISQLServerBulkRecord, java.la
 
     @Override
     public boolean next() throws SQLServerException {
+        started = true;
         try {
-            currentLine = fileReader.readLine();
+            hasCurrentLine = scanner.next();
         }
         catch (IOException e) {
             throw new SQLServerException(e.getMessage(), null, 0, e);
         }
-        return (null != currentLine);
+        if (hasCurrentLine && null != delimiterPattern) {
+            // The limit in split() function should be a negative value, otherwise trailing empty strings are discarded.
+            currentFields = delimiterPattern.split(scanner.getField(0), -1);
+        }
+        return hasCurrentLine;
+    }
+
+    /*
+     * Creates the scanner for the range of the file, and reads the column names from its first line.
+     */
+    private void createScanner() throws SQLServerException {
+        scanner = new CSVFileScanner(fileChannel, rangeStart, rangeEnd, charset, literalDelimiter, escapeDelimiters);
+        if (firstLineIsColumnNames) {
+            try {
+                if (scanner.next()) {
+                    columnNames = (null != delimiterPattern) ? delimiterPattern.split(scanner.getField(0), -1) : new String[scanner.getFieldCount()];
+                    if (null == delimiterPattern) {
+                        for (int i = 0; i < columnNames.length; i++)
+                            columnNames[i] = scanner.getField(i);
+                    }
+                }
+            }
+            catch (IOException e) {
+                throw new SQLServerException(e.getMessage(), null, 0, e);
+            }
+        }
+    }
+
+    /*
+     * Returns a field of the current line. Throws ArrayIndexOutOfBoundsException if the line has fewer fields.
+     */
+    private String getField(int index) {
+        return (null != currentFields) ? currentFields[index] : scanner.getField(index);
+    }
+
+    /*
+     * Returns the string that separates the fields for the given delimiter, or null if the delimiter is a regular expression. As for String.split, a
+     * delimiter is a string if it has none of the regular expression metacharacters, or is a single character other than a letter or digit escaped
+     * with a backslash.
+     */
+    private static String getLiteralDelimiter(String delimiter) {
+        if (2 == delimiter.length() && '\\' == delimiter.charAt(0)) {
+            char c = delimiter.charAt(1);
+            boolean isLetterOrDigit = ('0' <= c && c <= '9') || ('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z');
+            return (isLetterOrDigit || Character.isSurrogate(c)) ? null : delimiter.substring(1);
+        }
+        if (0 == delimiter.length())
+            return null;
+        for (int i = 0; i < delimiter.length(); i++) {
+            if (-1 != REGEX_METACHARACTERS.indexOf(delimiter.charAt(i)))
+                return null;
+        }
+        return delimiter;
+    }
+
+    /*
+     * Returns whether the value is an integer of at most the given number of digits, with an optional sign, which can be parsed directly.
+     */
+    private static boolean isPlainInteger(String value,
+            int maxDigits) {
+        int length = value.length();
+        int i = ('-' == value.charAt(0) || '+' == value.charAt(0)) ? 1 : 0;
+        if (i == length || length - i > maxDigits)
+            return false;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
     }
 
     /*
@@ -156,7 +156,7 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
     /*
      * Metadata for the destination table columns
      */
-    class BulkColumnMetaData {
+    static class BulkColumnMetaData {
         String columnName;
         SSType ssType = null;
         int jdbcType;
@@ -221,6 +221,31 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
         }
     };
 
+    /*
+     * The metadata of a destination table, as cached by the connection when bulkCopyMetadataCacheTTL is set. Instances are never modified once
+     * cached, so they are shared by all bulk copies to the table on the connection.
+     */
+    static final class DestinationMetadata {
+        final int columnCount;
+        final Map<Integer, BulkColumnMetaData> columnMetadata;
+        final CekTable cekTable;
+        final long expiryTime;
+
+        DestinationMetadata(int columnCount,
+                Map<Integer, BulkColumnMetaData> columnMetadata,
+                CekTable cekTable,
+                long expiryTime) {
+            this.columnCount = columnCount;
+            this.columnMetadata = columnMetadata;
+            this.cekTable = cekTable;
+            this.expiryTime = expiryTime;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiryTime >= 0;
+        }
+    }
+
     /*
      * A map to store the metadata information for the destination table.
      */
@@ -242,73 +267,15 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
     private int srcColumnCount;
 
     /*
-     * Timer for the bulk copy operation. The other timeout timers in the TDS layer only measure the response of the first packet from SQL Server.
+     * Set when a batch of INSERT statements is executed as a bulk copy. A column mapping to an identity column then fails validation, so that the
+     * batch is executed as INSERT statements: without the KeepIdentity option the bulk copy would ignore the identity values instead.
      */
-    private final class BulkTimeoutTimer implements Runnable {
-        private final int timeoutSeconds;
-        private int secondsRemaining;
-        private final TDSCommand command;
-        private Thread timerThread;
-        private volatile boolean canceled = false;
-
-        BulkTimeoutTimer(int timeoutSeconds,
-                TDSCommand command) {
-            assert timeoutSeconds > 0;
-            assert null != command;
-
-            this.timeoutSeconds = timeoutSeconds;
-            this.secondsRemaining = timeoutSeconds;
-            this.command = command;
-        }
-
-        final void start() {
-            timerThread = new Thread(this);
-            timerThread.setDaemon(true);
-            timerThread.start();
-        }
-
-        final void stop() {
-            canceled = true;
-            timerThread.interrupt();
-        }
-
-        final boolean expired() {
-            return (secondsRemaining <= 0);
-        }
-
-        public void run() {
-            try {
-                // Poll every second while time is left on the timer.
-                // Return if/when the timer is canceled.
-                do {
-                    if (canceled)
-                        return;
-
-                    Thread.sleep(1000);
-                }
-                while (--secondsRemaining > 0);
-            }
-            catch (InterruptedException e) {
-                // re-interrupt the current thread, in order to restore the thread's interrupt status.
-                Thread.currentThread().interrupt();
-                return;
-            }
+    boolean rejectIdentityColumnMappings = false;
 
-            // If the timer wasn't canceled before it ran out of
-            // time then interrupt the registered command.
-            try {
-                command.interrupt(SQLServerException.getErrString("R_queryTimedOut"));
-            }
-            catch (SQLServerException e) {
-                // Unfortunately, there's nothing we can do if we
-                // fail to time out the request. There is no way
-                // to report back what happened.
-                command.log(Level.FINE, "Command could not be timed out. Reason: " + e.getMessage());
-            }
-        }
-    }
-
-    private BulkTimeoutTimer timeoutTimer = null;
+    /*
+     * Timer for the bulk copy operation. The other timeout timers in the TDS layer only measure the response of the first packet from SQL Server.
+     */
+    private TimeoutTimer timeoutTimer = null;
 
     /**
      * Initializes a new instance of the SQLServerBulkCopy class using the specified open instance of SQLServerConnection.
@@ -370,6 +337,20 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
         loggerExternal.exiting(loggerClassName, "SQLServerBulkCopy");
     }
 
+    /*
+     * Initializes a new instance of the SQLServerBulkCopy class that takes ownership of a connection opened for it, as if it had been opened from a
+     * connection string: the connection is closed with the SQLServerBulkCopy and the UseInternalTransaction option is allowed.
+     */
+    SQLServerBulkCopy(SQLServerConnection connection,
+            boolean ownsConnection) {
+        this.connection = connection;
+        this.ownsConnection = ownsConnection;
+
+        copyOptions = new SQLServerBulkCopyOptions();
+
+        initializeDefaults();
+    }
+
     /**
      * Adds a new column mapping, using ordinals to specify both the source and destination columns.
      * 
@@ -685,7 +666,7 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
             InsertBulk() {
                 super("InsertBulk", 0);
                 int timeoutSeconds = copyOptions.getBulkCopyTimeout();
-                timeoutTimer = (timeoutSeconds > 0) ? (new BulkTimeoutTimer(timeoutSeconds, this)) : null;
+                timeoutTimer = (timeoutSeconds > 0) ? (new TimeoutTimer(timeoutSeconds, this)) : null;
             }
 
             final boolean doExecute() throws SQLServerException {
@@ -718,12 +699,14 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
                     // It is not a timeout exception. Re-throw.
                     throw topLevelException;
                 }
+                finally {
+                    // Stop the timer on failure as well, so that it does not interrupt a later command.
+                    if (null != timeoutTimer) {
+                        if (logger.isLoggable(Level.FINEST))
+                            logger.finest(this.toString() + ": Stopping bulk timer...");
 
-                if (null != timeoutTimer) {
-                    if (logger.isLoggable(Level.FINEST))
-                        logger.finest(this.toString() + ": Stopping bulk timer...");
-
-                    timeoutTimer.stop();
+                        timeoutTimer.stop();
+                    }
                 }
 
                 return true;
@@ -1202,7 +1185,7 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
      * Helper method that throws a timeout exception if the cause of the exception was that the query was cancelled
      */
     private void checkForTimeoutException(SQLException e,
-            BulkTimeoutTimer timeoutTimer) throws SQLServerException {
+            TimeoutTimer timeoutTimer) throws SQLServerException {
         if ((null != e.getSQLState()) && (e.getSQLState().equals(SQLState.STATEMENT_CANCELED.getSQLStateCode())) && timeoutTimer.expired()) {
             // If SQLServerBulkCopy is managing the transaction, a rollback is needed.
             if (copyOptions.isUseInternalTransaction()) {
@@ -1620,15 +1603,23 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
         if (loggerExternal.isLoggable(Level.FINER))
             loggerExternal.finer(this.toString() + " Start writeToServer: " + start);
 
-        getDestinationMetadata();
+        boolean cachedDestinationMetadata = getDestinationMetadata();
 
-        // Get source metadata in the BulkColumnMetaData object so that we can access metadata
-        // from the same object for both ResultSet and File.
-        getSourceMetadata();
+        try {
+            // Get source metadata in the BulkColumnMetaData object so that we can access metadata
+            // from the same object for both ResultSet and File.
+            getSourceMetadata();
 
-        validateColumnMappings();
+            validateColumnMappings();
 
-        sendBulkLoadBCP();
+            sendBulkLoadBCP();
+        }
+        catch (SQLServerException e) {
+            // The cached metadata may no longer match the table, for instance after a column was added or dropped. Fetch it again next time.
+            if (cachedDestinationMetadata)
+                connection.invalidateBulkCopyMetadata(destinationTableName);
+            throw e;
+        }
 
         long end = System.currentTimeMillis();
         if (loggerExternal.isLoggable(Level.FINER)) {
@@ -1668,13 +1659,38 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
     }
 
     /*
-     * Retrieves the column metadata for the destination table (and saves it for later)
+     * Retrieves the column metadata for the destination table (and saves it for later). Returns true if the metadata is cached by the connection.
      */
-    private void getDestinationMetadata() throws SQLServerException {
+    private boolean getDestinationMetadata() throws SQLServerException {
         if (null == destinationTableName) {
             SQLServerException.makeFromDriverError(null, null, SQLServerException.getErrString("R_invalidDestinationTable"), null, false);
         }
 
+        if (0 < connection.getBulkCopyMetadataCacheTTL()) {
+            DestinationMetadata cached = connection.getBulkCopyMetadata(destinationTableName);
+            if (null == cached) {
+                fetchDestinationMetadata();
+                connection.putBulkCopyMetadata(destinationTableName, destColumnCount, destColumnMetadata, destCekTable);
+            }
+            else {
+                if (loggerExternal.isLoggable(Level.FINER))
+                    loggerExternal.finer(this.toString() + " Using cached metadata for destination table " + destinationTableName);
+
+                destColumnCount = cached.columnCount;
+                destColumnMetadata = cached.columnMetadata;
+                destCekTable = cached.cekTable;
+            }
+            return true;
+        }
+
+        fetchDestinationMetadata();
+        return false;
+    }
+
+    /*
+     * Queries the server for the column metadata of the destination table.
+     */
+    private void fetchDestinationMetadata() throws SQLServerException {
         SQLServerResultSet rs = null;
         SQLServerResultSet rsMoreMetaData = null;
 
@@ -1761,8 +1777,7 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
                     srcColumnMetadata.put(currentColumn,
                             new BulkColumnMetaData(sourceBulkRecord.getColumnName(currentColumn), true, sourceBulkRecord.getPrecision(currentColumn),
                                     sourceBulkRecord.getScale(currentColumn), sourceBulkRecord.getColumnType(currentColumn),
-                                    ((sourceBulkRecord instanceof SQLServerBulkCSVFileRecord)
-                                            ? ((SQLServerBulkCSVFileRecord) sourceBulkRecord).getColumnDateTimeFormatter(currentColumn) : null)));
+                                    getColumnDateTimeFormatter(sourceBulkRecord, currentColumn)));
                 }
             }
         }
@@ -1784,6 +1799,19 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
         return srcPrecision;
     }
 
+    /*
+     * Returns the DateTimeFormatter of a column of a bulk record, with which its temporal values are parsed: that of a CSV file, or of the CSV file
+     * read by a parallel bulk copy session. Returns null for other records.
+     */
+    static DateTimeFormatter getColumnDateTimeFormatter(ISQLServerBulkRecord bulkRecord,
+            int column) {
+        if (bulkRecord instanceof SQLServerBulkCSVFileRecord)
+            return ((SQLServerBulkCSVFileRecord) bulkRecord).getColumnDateTimeFormatter(column);
+        if (bulkRecord instanceof SQLServerParallelBulkCopy.SessionRecord)
+            return ((SQLServerParallelBulkCopy.SessionRecord) bulkRecord).getColumnDateTimeFormatter(column);
+        return null;
+    }
+
     /*
      * Validates the column mappings
      */
@@ -1923,6 +1951,11 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
 
                     // Remove mappings for identity column if KEEP IDENTITY OPTION is FALSE
                     if (destColumnMetadata.get(cm.destinationColumnOrdinal).isIdentity && !copyOptions.isKeepIdentity()) {
+                        if (rejectIdentityColumnMappings) {
+                            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidColumn"));
+                            Object[] msgArgs = {cm.destinationColumnName};
+                            throw new SQLServerException(form.format(msgArgs), SQLState.COL_NOT_FOUND, DriverError.NOT_SET, null);
+                        }
                         columnMappings.remove(i);
                         numMappings--;
                         i--;
@@ -2462,6 +2495,20 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
             srcColumnMetadata.put(srcColOrdinal, new BulkColumnMetaData(temp, srcCryptoMeta));
         }
 
+        // PLP if stream type and both the source and destination are not encrypted
+        // This is because AE does not support streaming types.
+        // Therefore an encrypted source or destination means the data must not actually be streaming data
+        return readColumnFromResultSet(sourceResultSet, srcColOrdinal, srcJdbcType, isStreaming && !isDestEncrypted && (null == srcCryptoMeta));
+    }
+
+    /*
+     * Reads a column of the current row of a source ResultSet with the getter that keeps the full value of its type. Streaming (PLP) character
+     * and binary columns are read as streams, and the others whole.
+     */
+    static Object readColumnFromResultSet(ResultSet sourceResultSet,
+            int srcColOrdinal,
+            int srcJdbcType,
+            boolean isStreaming) throws SQLServerException {
         try {
             // We are sending the data using JDBCType and not using SSType as SQL Server will automatically do the conversion.
             switch (srcJdbcType) {
@@ -2488,10 +2535,7 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
                 case java.sql.Types.CHAR:         	// Fixed-length, non-Unicode string data.
                 case java.sql.Types.VARCHAR:        // Variable-length, non-Unicode string data.
 
-                    // PLP if stream type and both the source and destination are not encrypted
-                    // This is because AE does not support streaming types.
-                    // Therefore an encrypted source or destination means the data must not actually be streaming data
-                    if (isStreaming && !isDestEncrypted && (null == srcCryptoMeta)) // PLP
+                    if (isStreaming) // PLP
                     {
                         // Use ResultSet.getString for non-streaming data and ResultSet.getCharacterStream() for streaming data,
                         // so that if the source data source does not have streaming enabled, the smaller size data will still work.
@@ -2505,10 +2549,7 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
                 case java.sql.Types.LONGNVARCHAR:
                 case java.sql.Types.NCHAR:
                 case java.sql.Types.NVARCHAR:
-                    // PLP if stream type and both the source and destination are not encrypted
-                    // This is because AE does not support streaming types.
-                    // Therefore an encrypted source or destination means the data must not actually be streaming data
-                    if (isStreaming && !isDestEncrypted && (null == srcCryptoMeta)) // PLP
+                    if (isStreaming) // PLP
                     {
                         // Use ResultSet.getString for non-streaming data and ResultSet.getNCharacterStream() for streaming data,
                         // so that if the source data source does not have streaming enabled, the smaller size data will still work.
@@ -2521,10 +2562,7 @@ public class SQLServerBulkCopy implements java.lang.AutoCloseable {
                 case java.sql.Types.LONGVARBINARY:
                 case java.sql.Types.BINARY:
                 case java.sql.Types.VARBINARY:
-                    // PLP if stream type and both the source and destination are not encrypted
-                    // This is because AE does not support streaming types.
-                    // Therefore an encrypted source or destination means the data must not actually be streaming data
-                    if (isStreaming && !isDestEncrypted && (null == srcCryptoMeta)) // PLP
+                    if (isStreaming) // PLP
                     {
                         return sourceResultSet.getBinaryStream(srcColOrdinal);
                     }
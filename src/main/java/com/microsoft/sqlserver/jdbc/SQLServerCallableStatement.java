@@ -46,6 +46,9 @@ public class SQLServerCallableStatement extends SQLServerPreparedStatement imple
     /** the call param names */
     private ArrayList<String> paramNames;
 
+    /** The index of the parameter names for findColumn */
+    private ColumnNameIndex paramNameIndex;
+
     /** Number of registered OUT parameters */
     int nOutParams = 0;
 
@@ -1418,10 +1421,6 @@ public class SQLServerCallableStatement extends SQLServerPreparedStatement imple
             }
         }
 
-        int l = 0;
-        if (paramNames != null)
-            l = paramNames.size();
-
         // In order to be as accurate as possible when locating parameter name
         // indexes, as well as be deterministic when running on various client
         // locales, we search for parameter names using the following scheme:
@@ -1429,30 +1428,20 @@ public class SQLServerCallableStatement extends SQLServerPreparedStatement imple
         // 1. Search using case-sensitive non-locale specific (binary) compare first.
         // 2. Search using case-insensitive, non-locale specific (binary) compare last.
 
-        int i = 0;
+        // The names are looked up in an index of the parameters, built on the first call,
+        // that searches them in this order.
         int matchPos = -1;
-        // Search using case-sensitive, non-locale specific (binary) compare.
-        // If the user supplies a true match for the parameter name, we will find it here.
-        for (i = 0; i < l; i++) {
-            String sParam = paramNames.get(i);
-            sParam = sParam.substring(1, sParam.length());
-            if (sParam.equals(columnName)) {
-                matchPos = i;
-                break;
-            }
-        }
-
-        if (-1 == matchPos) {
-            // Check for case-insensitive match using a non-locale aware method.
-            // Use VM supplied String.equalsIgnoreCase to do the "case-insensitive search".
-            for (i = 0; i < l; i++) {
-                String sParam = paramNames.get(i);
-                sParam = sParam.substring(1, sParam.length());
-                if (sParam.equalsIgnoreCase(columnName)) {
-                    matchPos = i;
-                    break;
+        if (paramNames != null) {
+            if (paramNameIndex == null) {
+                // Index the names without their leading @
+                String[] names = new String[paramNames.size()];
+                for (int i = 0; i < names.length; i++) {
+                    String sParam = paramNames.get(i);
+                    names[i] = sParam.substring(1, sParam.length());
                 }
+                paramNameIndex = new ColumnNameIndex(names);
             }
+            matchPos = paramNameIndex.indexOf(columnName);
         }
 
         if (-1 == matchPos) {
@@ -2826,6 +2815,53 @@ public class SQLServerCallableStatement extends SQLServerPreparedStatement imple
         loggerExternal.exiting(getClassNameLogging(), "setStructured");
     }
 
+    /**
+     * Populates a table valued parameter passed to a stored procedure with a columnar data table.
+     * 
+     * @param sCol
+     *            the name of the parameter
+     * @param tvpName
+     *            the name of the type TVP
+     * @param tvpColumnarDataTable
+     *            the columnar data table object
+     * @throws SQLServerException
+     *             when an error occurs
+     */
+    public final void setStructured(String sCol,
+            String tvpName,
+            SQLServerColumnarDataTable tvpColumnarDataTable) throws SQLServerException {
+        tvpName = getTVPNameIfNull(findColumn(sCol), tvpName);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.entering(getClassNameLogging(), "setStructured", new Object[] {sCol, tvpName, tvpColumnarDataTable});
+        checkClosed();
+        setValue(findColumn(sCol), JDBCType.TVP, tvpColumnarDataTable, JavaType.TVP, tvpName);
+        loggerExternal.exiting(getClassNameLogging(), "setStructured");
+    }
+
+    /**
+     * Populates a table valued parameter passed to a stored procedure with the rows of a streaming data table, which are read from their source
+     * while the parameter is sent.
+     * 
+     * @param sCol
+     *            the name of the parameter
+     * @param tvpName
+     *            the name of the type TVP
+     * @param tvpStreamingDataTable
+     *            the streaming data table object
+     * @throws SQLServerException
+     *             when an error occurs
+     */
+    public final void setStructured(String sCol,
+            String tvpName,
+            SQLServerStreamingDataTable<?> tvpStreamingDataTable) throws SQLServerException {
+        tvpName = getTVPNameIfNull(findColumn(sCol), tvpName);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.entering(getClassNameLogging(), "setStructured", new Object[] {sCol, tvpName, tvpStreamingDataTable});
+        checkClosed();
+        setValue(findColumn(sCol), JDBCType.TVP, tvpStreamingDataTable, JavaType.TVP, tvpName);
+        loggerExternal.exiting(getClassNameLogging(), "setStructured");
+    }
+
     /**
      * Populates a table valued parameter passed to a stored procedure with a ResultSet retrieved from another table
      * 
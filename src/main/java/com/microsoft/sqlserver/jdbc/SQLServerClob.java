@@ -21,7 +21,6 @@ import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.sql.Clob;
 import java.sql.SQLException;
-import java.sql.SQLFeatureNotSupportedException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -77,6 +76,14 @@ abstract class SQLServerClobBase implements Serializable {
     // This value is never null unless/until the free() method is called.
     private String value;
 
+    // The value of a CLOB read from a response, which is read a part at a time until the CLOB is changed or searched.
+    // Either this value or the value above is null.
+    private LOBValue lobValue;
+
+    // The number of bytes of each character of the value read from a response, when all the characters of its character set have the same
+    // length, so that its substrings are read without decoding it from the start; 0 otherwise.
+    private int bytesPerChar;
+
     private final SQLCollation sqlCollation;
 
     private boolean isClosed = false;
@@ -132,12 +139,7 @@ abstract class SQLServerClobBase implements Serializable {
             Logger logger,
             TypeInfo typeInfo) {
         this.con = connection;
-        if (data instanceof BaseInputStream) {
-            activeStreams.add((Closeable) data);
-        }
-        else {
-            this.value = (String) data;
-        }
+        this.value = (String) data;
         this.sqlCollation = collation;
         this.typeInfo = typeInfo;
         SQLServerClobBase.logger = logger;
@@ -148,6 +150,34 @@ abstract class SQLServerClobBase implements Serializable {
         }
     }
 
+    /**
+     * Create a new CLOB from the stream of a value read from a response
+     * 
+     * @param connection
+     *            SQLServerConnection
+     * @param stream
+     *            the stream of the CLOB data
+     * @param collation
+     *            the data collation
+     * @param logger
+     *            logger information
+     * @param typeInfo
+     *            the column TYPE_INFO
+     */
+    SQLServerClobBase(SQLServerConnection connection,
+            BaseInputStream stream,
+            SQLCollation collation,
+            Logger logger,
+            TypeInfo typeInfo) throws SQLServerException {
+        this(connection, (Object) null, collation, logger, typeInfo);
+        lobValue = new LOBValue(stream);
+
+        if (Encoding.UNICODE.charset().equals(typeInfo.getCharset()))
+            bytesPerChar = 2;
+        else if (typeInfo.supportsFastAsciiConversion())
+            bytesPerChar = 1;
+    }
+
     /**
      * Frees this Clob/NClob object and releases the resources that it holds.
      *
@@ -173,6 +203,10 @@ abstract class SQLServerClobBase implements Serializable {
             }
 
             // Discard the value.
+            if (null != lobValue) {
+                lobValue.close();
+                lobValue = null;
+            }
             value = null;
 
             isClosed = true;
@@ -204,19 +238,12 @@ abstract class SQLServerClobBase implements Serializable {
 
         // Need to use a BufferedInputStream since the stream returned by this method is assumed to support mark/reset
         InputStream getterStream = null;
-        if (null == value && !activeStreams.isEmpty()) {
-            InputStream inputStream = (InputStream) activeStreams.get(0);
-            try {
-                inputStream.reset();
-                getterStream = new BufferedInputStream(
-                        new ReaderInputStream(new InputStreamReader(inputStream), US_ASCII, inputStream.available()));
-            }
-            catch (IOException e) {
-                throw new SQLServerException(e.getMessage(), null, 0, e);
-            }
+        if (null != lobValue) {
+            // The number of characters is only known without decoding the value when they all have the same length
+            long readerLength = (0 != bytesPerChar) ? length() : DataTypes.UNKNOWN_STREAM_LENGTH;
+            getterStream = new BufferedInputStream(new ReaderInputStream(getLOBValueReader(0, lobValue.length()), US_ASCII, readerLength));
         }
         else {
-            getStringFromStream();
             getterStream = new BufferedInputStream(new ReaderInputStream(new StringReader(value), US_ASCII, value.length()));
 
         }
@@ -233,8 +260,7 @@ abstract class SQLServerClobBase implements Serializable {
     public Reader getCharacterStream() throws SQLException {
         checkClosed();
 
-        getStringFromStream();
-        Reader getterStream = new StringReader(value);
+        Reader getterStream = (null != lobValue) ? getLOBValueReader(0, lobValue.length()) : new StringReader(value);
         activeStreams.add(getterStream);
         return getterStream;
     }
@@ -248,12 +274,33 @@ abstract class SQLServerClobBase implements Serializable {
      *            A long that indicates the length in characters of the partial value to be retrieved.
      * @return A Reader object that contains the Clob data.
      * @throws SQLException
-     *             when an error occurs.
+     *             if pos is less than 1 or if pos is greater than the number of characters in the Clob or if pos + length is greater than the number
+     *             of characters in the Clob plus 1
      */
     public Reader getCharacterStream(long pos,
             long length) throws SQLException {
-        // Not implemented
-        throw new SQLFeatureNotSupportedException(SQLServerException.getErrString("R_notSupported"));
+        checkClosed();
+
+        long clobLength = length();
+        if (pos < 1 || pos > clobLength) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidPositionIndex"));
+            Object[] msgArgs = {new Long(pos)};
+            SQLServerException.makeFromDriverError(con, null, form.format(msgArgs), null, true);
+        }
+
+        if (length < 0 || length > clobLength - pos + 1) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidLength"));
+            Object[] msgArgs = {new Long(length)};
+            SQLServerException.makeFromDriverError(con, null, form.format(msgArgs), null, true);
+        }
+
+        // Adjust pos to zero based.
+        pos--;
+
+        Reader getterStream = (null != lobValue) ? getLOBValueReader(pos * bytesPerChar, length * bytesPerChar)
+                : new StringReader(value.substring((int) pos, (int) (pos + length)));
+        activeStreams.add(getterStream);
+        return getterStream;
     }
 
     /**
@@ -272,7 +319,8 @@ abstract class SQLServerClobBase implements Serializable {
             int length) throws SQLException {
         checkClosed();
 
-        getStringFromStream();
+        if (0 == bytesPerChar)
+            getStringFromStream();
         if (pos < 1) {
             MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidPositionIndex"));
             Object[] msgArgs = {new Long(pos)};
@@ -288,14 +336,19 @@ abstract class SQLServerClobBase implements Serializable {
         // Adjust pos to zero based.
         pos--;
 
+        long clobLength = length();
+
         // Bound the starting position if necessary
-        if (pos > value.length())
-            pos = value.length();
+        if (pos > clobLength)
+            pos = clobLength;
 
         // Bound the requested length to no larger than the remainder of the value beyond pos so that the
         // endIndex computed for the substring call below is within bounds.
-        if (length > value.length() - pos)
-            length = (int) (value.length() - pos);
+        if (length > clobLength - pos)
+            length = (int) (clobLength - pos);
+
+        if (null != lobValue)
+            return getLOBValueSubString(pos, length);
 
         // Note String.substring uses beginIndex and endIndex (not pos and length), so calculate endIndex.
         return value.substring((int) pos, (int) pos + length);
@@ -311,27 +364,52 @@ abstract class SQLServerClobBase implements Serializable {
     public long length() throws SQLException {
         checkClosed();
 
-        getStringFromStream();
-        return value.length();
+        if (0 == bytesPerChar)
+            getStringFromStream();
+        return (null != lobValue) ? lobValue.length() / bytesPerChar : value.length();
     }
     
     /**
-     * Converts the stream to String
+     * Reads the whole value of a CLOB read from a response into a String, before it is changed or searched, or when its characters do not all
+     * have the same length
      * @throws SQLServerException
      */
     private void getStringFromStream() throws SQLServerException {
-        if (null == value && !activeStreams.isEmpty()) {
-            BaseInputStream stream = (BaseInputStream) activeStreams.get(0);
-            try {
-                stream.reset();
-            }
-            catch (IOException e) {
-                throw new SQLServerException(e.getMessage(), null, 0, e);
-            }
-            value = new String((stream).getBytes(), typeInfo.getCharset());
+        if (null != lobValue) {
+            value = new String(lobValue.getBytes(), typeInfo.getCharset());
+            lobValue.close();
+            lobValue = null;
         }
     }
 
+    /**
+     * Returns a Reader of length bytes of the value read from a response, starting at the 0 based byte position pos.
+     */
+    private Reader getLOBValueReader(long pos,
+            long length) {
+        return new InputStreamReader(lobValue.getInputStream(pos, length), typeInfo.getCharset());
+    }
+
+    /**
+     * Reads length characters of the value read from a response, starting at the 0 based character position pos. The characters all have the
+     * same length.
+     */
+    private String getLOBValueSubString(long pos,
+            int length) throws SQLServerException {
+        assert 0 != bytesPerChar;
+
+        byte[] bytes = new byte[length * bytesPerChar];
+        lobValue.read(pos * bytesPerChar, bytes, 0, bytes.length);
+        if (1 == bytesPerChar)
+            return new String(bytes, typeInfo.getCharset());
+
+        // Decode the UTF-16LE code units one by one, so that a surrogate pair split by the substring is kept as String.substring keeps it.
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) ((bytes[2 * i] & 0xFF) | ((bytes[2 * i + 1] & 0xFF) << 8));
+        return new String(chars);
+    }
+
     /**
      * Retrieves the character position at which the specified Clob object searchstr appears in this Clob object. The search begins at position start.
      *
@@ -0,0 +1,381 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.CharBuffer;
+import java.text.MessageFormat;
+
+/**
+ * The values of a batch of rows of a result set, read by ISQLServerResultSet.fetchColumnBatch, with the values of each column in a
+ * SQLServerColumnVector.
+ */
+public final class SQLServerColumnBatch {
+    private final SQLServerColumnVector[] vectors;
+    private int rowCount;
+
+    // The buffer that character and binary values are read into before they are added to their vectors
+    private byte[] valueBytes = new byte[256];
+
+    SQLServerColumnBatch(Column[] columns,
+            int columnCount,
+            int maxRows) {
+        vectors = new SQLServerColumnVector[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            Column column = columns[i];
+            TypeInfo typeInfo = (null != column.getCryptoMetadata()) ? column.getCryptoMetadata().getBaseTypeInfo() : column.getTypeInfo();
+            vectors[i] = new SQLServerColumnVector(column.getColumnName(), typeInfo.getSSType(), maxRows);
+        }
+    }
+
+    /**
+     * Retrieves the number of rows of the batch.
+     *
+     * @return the number of rows, which is less than the number of rows asked for only if the result set has no more rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Retrieves the number of columns of the batch.
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return vectors.length;
+    }
+
+    /**
+     * Retrieves the values of a column of the batch.
+     *
+     * @param columnIndex
+     *            the index of the column, from 1 as in the result set
+     * @return the column vector
+     * @throws SQLServerException
+     *             if the index is not valid
+     */
+    public SQLServerColumnVector getColumn(int columnIndex) throws SQLServerException {
+        if (columnIndex < 1 || columnIndex > vectors.length) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_indexOutOfRange"));
+            Object[] msgArgs = {columnIndex};
+            SQLServerException.makeFromDriverError(null, null, form.format(msgArgs), "07009", false);
+        }
+        return vectors[columnIndex - 1];
+    }
+
+    /**
+     * Returns whether the values of the given columns can be read by readRow from the response, which they cannot if they are encrypted or
+     * filtered.
+     */
+    static boolean canReadRows(Column[] columns) {
+        for (Column column : columns) {
+            if (null != column.filter || null != column.getCryptoMetadata())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the values of the current row of a result set straight from the response, into the next row of the batch. The TDS reader is at the
+     * start of the row, after the null bitmap if it has one, and is left at the end of the row.
+     *
+     * @param tdsReader
+     *            the TDS reader of the result set
+     * @param columns
+     *            the columns of the result set, which canReadRows is true for
+     * @param nullBitmap
+     *            the null bitmap of the row if it is a NBCROW, or null
+     */
+    void readRow(TDSReader tdsReader,
+            Column[] columns,
+            byte[] nullBitmap) throws SQLServerException {
+        assert columns.length == vectors.length;
+
+        int row = rowCount;
+        for (int i = 0; i < vectors.length; i++) {
+            SQLServerColumnVector vector = vectors[i];
+            if (null != nullBitmap && 0 != (nullBitmap[i >> 3] & (1 << (i & 7)))) {
+                vector.setNull(row);
+                continue;
+            }
+
+            Column column = columns[i];
+            TypeInfo typeInfo = column.getTypeInfo();
+            switch (vector.getVectorType()) {
+                case INT:
+                case LONG: {
+                    int valueLength = readValueLength(typeInfo, tdsReader);
+                    long value;
+                    switch (valueLength) {
+                        case -1:
+                            vector.setNull(row);
+                            continue;
+
+                        case 8:
+                            value = tdsReader.readLong();
+                            break;
+
+                        case 4:
+                            value = tdsReader.readInt();
+                            break;
+
+                        case 2:
+                            value = tdsReader.readShort();
+                            break;
+
+                        case 1:
+                            value = tdsReader.readUnsignedByte();
+                            break;
+
+                        default:
+                            tdsReader.throwInvalidTDS();
+                            return;
+                    }
+                    if (SQLServerColumnVector.VectorType.INT == vector.getVectorType())
+                        vector.setInt(row, (int) value);
+                    else
+                        vector.setLong(row, value);
+                    break;
+                }
+
+                case DOUBLE: {
+                    int valueLength = readValueLength(typeInfo, tdsReader);
+                    if (-1 == valueLength) {
+                        vector.setNull(row);
+                    }
+                    else if (SSType.REAL == typeInfo.getSSType()) {
+                        if (4 != valueLength)
+                            tdsReader.throwInvalidTDS();
+                        vector.setDouble(row, Float.intBitsToFloat(tdsReader.readInt()));
+                    }
+                    else {
+                        if (8 != valueLength)
+                            tdsReader.throwInvalidTDS();
+                        vector.setDouble(row, Double.longBitsToDouble(tdsReader.readLong()));
+                    }
+                    break;
+                }
+
+                case STRING:
+                case BINARY: {
+                    int valueLength = readValueBytes(typeInfo, tdsReader);
+                    if (-1 == valueLength)
+                        vector.setNull(row);
+                    else if (SQLServerColumnVector.VectorType.BINARY == vector.getVectorType())
+                        vector.setBytes(row, valueBytes, 0, valueLength);
+                    else
+                        setString(vector, row, typeInfo, valueLength, tdsReader);
+                    break;
+                }
+
+                default: {
+                    // Read the value of another type as getObject does, and then move past it
+                    column.skipValue(tdsReader, false);
+                    TDSReaderMark valueEnd = tdsReader.mark();
+                    vector.setObject(row, column.getValue(typeInfo.getSSType().getJDBCType(), null, null, tdsReader));
+                    column.clear();
+                    tdsReader.reset(valueEnd);
+                    break;
+                }
+            }
+        }
+        setRowCount(row + 1);
+    }
+
+    /**
+     * Reads the values of the current row of a result set with its getters, into the next row of the batch.
+     */
+    void readRow(SQLServerResultSet rs) throws SQLServerException {
+        int row = rowCount;
+        for (int i = 0; i < vectors.length; i++) {
+            SQLServerColumnVector vector = vectors[i];
+            int columnIndex = i + 1;
+            switch (vector.getVectorType()) {
+                case INT:
+                    vector.setInt(row, rs.getInt(columnIndex));
+                    break;
+
+                case LONG:
+                    vector.setLong(row, rs.getLong(columnIndex));
+                    break;
+
+                case DOUBLE:
+                    vector.setDouble(row, rs.getDouble(columnIndex));
+                    break;
+
+                case STRING: {
+                    String value = rs.getString(columnIndex);
+                    if (null != value) {
+                        byte[] bytes = value.getBytes(UTF_8);
+                        vector.setBytes(row, bytes, 0, bytes.length);
+                    }
+                    break;
+                }
+
+                case BINARY: {
+                    byte[] value = rs.getBytes(columnIndex);
+                    if (null != value)
+                        vector.setBytes(row, value, 0, value.length);
+                    break;
+                }
+
+                default:
+                    vector.setObject(row, rs.getObject(columnIndex));
+                    break;
+            }
+            if (rs.wasNull())
+                vector.setNull(row);
+        }
+        setRowCount(row + 1);
+    }
+
+    private void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+        for (SQLServerColumnVector vector : vectors)
+            vector.setRowCount(rowCount);
+    }
+
+    /**
+     * Reads the length of a value that is not PLP, leaving the TDS reader at the start of the value, as ServerDTVImpl does.
+     *
+     * @return the length, or -1 if the value is null
+     */
+    private static int readValueLength(TypeInfo typeInfo,
+            TDSReader tdsReader) throws SQLServerException {
+        int valueLength;
+        boolean isNull;
+        switch (typeInfo.getSSLenType()) {
+            case FIXEDLENTYPE:
+                valueLength = typeInfo.getMaxLength();
+                isNull = (0 == valueLength);
+                break;
+
+            case BYTELENTYPE:
+                valueLength = tdsReader.readUnsignedByte();
+                isNull = (0 == valueLength);
+                break;
+
+            case USHORTLENTYPE:
+                valueLength = tdsReader.readUnsignedShort();
+                isNull = (65535 == valueLength);
+                break;
+
+            case LONGLENTYPE:
+                if (SSType.TEXT == typeInfo.getSSType() || SSType.IMAGE == typeInfo.getSSType() || SSType.NTEXT == typeInfo.getSSType()) {
+                    isNull = (0 == tdsReader.readUnsignedByte());
+                    valueLength = 0;
+                    if (!isNull) {
+                        // Skip the textptr and timestamp
+                        tdsReader.skip(24);
+                        valueLength = tdsReader.readInt();
+                    }
+                }
+                else {
+                    valueLength = tdsReader.readInt();
+                    isNull = (0 == valueLength);
+                }
+                break;
+
+            default:
+                assert false : "Unexpected SSLenType " + typeInfo.getSSLenType();
+                return -1;
+        }
+
+        if (isNull)
+            return -1;
+        if (valueLength < 0 || valueLength > typeInfo.getMaxLength())
+            tdsReader.throwInvalidTDS();
+        return valueLength;
+    }
+
+    /**
+     * Reads the bytes of a character or binary value, PLP or not, into valueBytes.
+     *
+     * @return the number of bytes, or -1 if the value is null
+     */
+    private int readValueBytes(TypeInfo typeInfo,
+            TDSReader tdsReader) throws SQLServerException {
+        if (SSLenType.PARTLENTYPE != typeInfo.getSSLenType()) {
+            int valueLength = readValueLength(typeInfo, tdsReader);
+            if (valueLength > 0) {
+                ensureValueBytes(valueLength);
+                tdsReader.readBytes(valueBytes, 0, valueLength);
+            }
+            return valueLength;
+        }
+
+        if (PLPInputStream.PLP_NULL == tdsReader.readLong())
+            return -1;
+
+        // Read the chunks up to the terminator
+        int valueLength = 0;
+        for (int chunkLength = tdsReader.readInt(); PLPInputStream.PLP_TERMINATOR != chunkLength; chunkLength = tdsReader.readInt()) {
+            if (chunkLength < 0 || valueLength + chunkLength < 0)
+                tdsReader.throwInvalidTDS();
+            ensureValueBytes(valueLength + chunkLength);
+            tdsReader.readBytes(valueBytes, valueLength, chunkLength);
+            valueLength += chunkLength;
+        }
+        return valueLength;
+    }
+
+    private void ensureValueBytes(int length) {
+        if (length > valueBytes.length) {
+            byte[] newValueBytes = new byte[Math.max(length, 2 * valueBytes.length)];
+            System.arraycopy(valueBytes, 0, newValueBytes, 0, valueBytes.length);
+            valueBytes = newValueBytes;
+        }
+    }
+
+    /**
+     * Sets a character value, read into valueBytes, encoding it in UTF-8.
+     */
+    private void setString(SQLServerColumnVector vector,
+            int row,
+            TypeInfo typeInfo,
+            int valueLength,
+            TDSReader tdsReader) throws SQLServerException {
+        switch (typeInfo.getSSType()) {
+            case NCHAR:
+            case NVARCHAR:
+            case NVARCHARMAX:
+            case NTEXT:
+                vector.setUnicodeBytes(row, valueBytes, 0, valueLength);
+                return;
+
+            default:
+                break;
+        }
+
+        if (typeInfo.supportsFastAsciiConversion() && isAscii(valueBytes, valueLength)) {
+            vector.setBytes(row, valueBytes, 0, valueLength);
+            return;
+        }
+
+        CharBuffer chars = tdsReader.decode(valueBytes, 0, valueLength, typeInfo.getCharset());
+        if (null != chars) {
+            vector.setChars(row, chars.array(), 0, chars.position());
+        }
+        else {
+            byte[] bytes = new String(valueBytes, 0, valueLength, typeInfo.getCharset()).getBytes(UTF_8);
+            vector.setBytes(row, bytes, 0, bytes.length);
+        }
+    }
+
+    private static boolean isAscii(byte[] bytes,
+            int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] < 0)
+                return false;
+        }
+        return true;
+    }
+}
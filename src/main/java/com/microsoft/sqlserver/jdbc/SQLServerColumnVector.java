@@ -0,0 +1,407 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A column of the rows of a SQLServerColumnBatch. <br>
+ * <br>
+ * The values are kept in an array of the type given by getVectorType, with the value of each row of the batch at the index of the row, from 0.
+ * Character and binary values are kept one after the other in a byte array, with the value of row r from getOffsets()[r] up to getOffsets()[r + 1].
+ * Whether the value of a row is null is kept in a bitmap. The arrays may be longer than the number of rows of the batch.
+ */
+public final class SQLServerColumnVector {
+
+    /**
+     * The types of arrays that the values of a column are kept in.
+     */
+    public enum VectorType {
+        /** BIT, TINYINT, SMALLINT and INT values, in an int array */
+        INT,
+
+        /** BIGINT values, in a long array */
+        LONG,
+
+        /** REAL and FLOAT values, in a double array */
+        DOUBLE,
+
+        /** CHAR, VARCHAR, TEXT, NCHAR, NVARCHAR and NTEXT values, encoded in UTF-8 in a byte array */
+        STRING,
+
+        /** BINARY, VARBINARY, IMAGE and TIMESTAMP values, in a byte array */
+        BINARY,
+
+        /** Values of the other types, as the objects that getObject returns */
+        OBJECT
+    }
+
+    private final String columnName;
+    private final VectorType vectorType;
+    private final long[] nullBitmap;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private int[] offsets;
+    private byte[] bytes;
+    private Object[] objects;
+    private int rowCount;
+
+    SQLServerColumnVector(String columnName,
+            SSType ssType,
+            int maxRows) {
+        this.columnName = columnName;
+        this.vectorType = getVectorType(ssType);
+        nullBitmap = new long[(maxRows + 63) >>> 6];
+        switch (vectorType) {
+            case INT:
+                ints = new int[maxRows];
+                break;
+
+            case LONG:
+                longs = new long[maxRows];
+                break;
+
+            case DOUBLE:
+                doubles = new double[maxRows];
+                break;
+
+            case STRING:
+            case BINARY:
+                offsets = new int[maxRows + 1];
+                bytes = new byte[Math.min(maxRows, 1024) * 16];
+                break;
+
+            default:
+                objects = new Object[maxRows];
+                break;
+        }
+    }
+
+    /**
+     * Returns the type of vector that the values of the given SQL Server type are kept in.
+     */
+    static VectorType getVectorType(SSType ssType) {
+        switch (ssType) {
+            case BIT:
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+                return VectorType.INT;
+
+            case BIGINT:
+                return VectorType.LONG;
+
+            case REAL:
+            case FLOAT:
+                return VectorType.DOUBLE;
+
+            case CHAR:
+            case VARCHAR:
+            case VARCHARMAX:
+            case TEXT:
+            case NCHAR:
+            case NVARCHAR:
+            case NVARCHARMAX:
+            case NTEXT:
+                return VectorType.STRING;
+
+            case BINARY:
+            case VARBINARY:
+            case VARBINARYMAX:
+            case IMAGE:
+            case TIMESTAMP:
+                return VectorType.BINARY;
+
+            default:
+                return VectorType.OBJECT;
+        }
+    }
+
+    /**
+     * Retrieves the name of the column.
+     *
+     * @return the column name
+     */
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * Retrieves the type of array that the values of the column are kept in.
+     *
+     * @return the vector type
+     */
+    public VectorType getVectorType() {
+        return vectorType;
+    }
+
+    /**
+     * Retrieves the number of rows of the batch.
+     *
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns whether the value of a row is null.
+     *
+     * @param row
+     *            the row, from 0
+     * @return true if the value is null
+     */
+    public boolean isNull(int row) {
+        return 0 != (nullBitmap[row >>> 6] & (1L << row));
+    }
+
+    /**
+     * Retrieves the bitmap of the null values, in which bit (row % 64) of element (row / 64) is set if the value of the row is null.
+     *
+     * @return the null bitmap
+     */
+    public long[] getNullBitmap() {
+        return nullBitmap;
+    }
+
+    /**
+     * Retrieves the values of an INT vector, which are 0 where they are null.
+     *
+     * @return the values, or null if the vector is not an INT vector
+     */
+    public int[] getInts() {
+        return ints;
+    }
+
+    /**
+     * Retrieves the values of a LONG vector, which are 0 where they are null.
+     *
+     * @return the values, or null if the vector is not a LONG vector
+     */
+    public long[] getLongs() {
+        return longs;
+    }
+
+    /**
+     * Retrieves the values of a DOUBLE vector, which are 0 where they are null.
+     *
+     * @return the values, or null if the vector is not a DOUBLE vector
+     */
+    public double[] getDoubles() {
+        return doubles;
+    }
+
+    /**
+     * Retrieves the offsets of the values of a STRING or BINARY vector in its bytes. A null value is empty.
+     *
+     * @return the offsets, one more than the number of rows, or null if the vector is not a STRING or BINARY vector
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Retrieves the bytes of the values of a STRING or BINARY vector.
+     *
+     * @return the bytes, or null if the vector is not a STRING or BINARY vector
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Retrieves the values of an OBJECT vector.
+     *
+     * @return the values, or null if the vector is not an OBJECT vector
+     */
+    public Object[] getObjects() {
+        return objects;
+    }
+
+    /**
+     * Retrieves the value of a row of a STRING vector as a String.
+     *
+     * @param row
+     *            the row, from 0
+     * @return the value, or null if it is null or the vector is not a STRING vector
+     */
+    public String getString(int row) {
+        if (VectorType.STRING != vectorType || isNull(row))
+            return null;
+        return new String(bytes, offsets[row], offsets[row + 1] - offsets[row], UTF_8);
+    }
+
+    /**
+     * Retrieves a copy of the bytes of the value of a row of a STRING or BINARY vector.
+     *
+     * @param row
+     *            the row, from 0
+     * @return the bytes, or null if the value is null or the vector is not a STRING or BINARY vector
+     */
+    public byte[] getBytes(int row) {
+        if (null == offsets || isNull(row))
+            return null;
+        byte[] value = new byte[offsets[row + 1] - offsets[row]];
+        System.arraycopy(bytes, offsets[row], value, 0, value.length);
+        return value;
+    }
+
+    void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    void setNull(int row) {
+        nullBitmap[row >>> 6] |= 1L << row;
+        if (null != offsets)
+            offsets[row + 1] = offsets[row];
+    }
+
+    void setInt(int row,
+            int value) {
+        ints[row] = value;
+    }
+
+    void setLong(int row,
+            long value) {
+        longs[row] = value;
+    }
+
+    void setDouble(int row,
+            double value) {
+        doubles[row] = value;
+    }
+
+    void setObject(int row,
+            Object value) {
+        if (null == value)
+            setNull(row);
+        else
+            objects[row] = value;
+    }
+
+    /**
+     * Sets the value of a row of a STRING or BINARY vector to the given bytes.
+     */
+    void setBytes(int row,
+            byte[] value,
+            int offset,
+            int length) {
+        int start = offsets[row];
+        ensureCapacity(row, length);
+        System.arraycopy(value, offset, bytes, start, length);
+        offsets[row + 1] = start + length;
+    }
+
+    /**
+     * Sets the value of a row of a STRING vector to the given characters, encoding them in UTF-8 as String.getBytes does.
+     */
+    void setChars(int row,
+            char[] chars,
+            int offset,
+            int length) {
+        ensureCapacity(row, 3 * length);
+        int pos = offsets[row];
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                    pos = putCodePoint(pos, Character.toCodePoint(c, chars[++i]));
+                }
+                else {
+                    bytes[pos++] = '?';
+                }
+            }
+            else {
+                pos = putChar(pos, c);
+            }
+        }
+        offsets[row + 1] = pos;
+    }
+
+    /**
+     * Sets the value of a row of a STRING vector to the given UTF-16LE bytes, encoding them in UTF-8. Malformed bytes become the replacement
+     * character, as when decoding them to a String first.
+     */
+    void setUnicodeBytes(int row,
+            byte[] value,
+            int offset,
+            int length) {
+        ensureCapacity(row, 3 * ((length + 1) / 2));
+        int pos = offsets[row];
+        int end = offset + (length & ~1);
+        boolean endsMalformed = (0 != (length & 1));
+        for (int i = offset; i < end; i += 2) {
+            char c = (char) ((value[i] & 0xFF) | (value[i + 1] << 8));
+            if (!Character.isSurrogate(c)) {
+                pos = putChar(pos, c);
+            }
+            else if (Character.isLowSurrogate(c)) {
+                pos = putChar(pos, '\uFFFD');
+            }
+            else if (i + 2 == end) {
+                // A high surrogate at the end is malformed together with an odd byte after it
+                pos = putChar(pos, '\uFFFD');
+                endsMalformed = false;
+            }
+            else {
+                // A high surrogate and the code unit after it make a character, or are malformed together
+                i += 2;
+                char low = (char) ((value[i] & 0xFF) | (value[i + 1] << 8));
+                if (Character.isLowSurrogate(low))
+                    pos = putCodePoint(pos, Character.toCodePoint(c, low));
+                else
+                    pos = putChar(pos, '\uFFFD');
+            }
+        }
+        if (endsMalformed)
+            pos = putChar(pos, '\uFFFD');
+        offsets[row + 1] = pos;
+    }
+
+    private int putChar(int pos,
+            char c) {
+        if (c < 0x80) {
+            bytes[pos++] = (byte) c;
+        }
+        else if (c < 0x800) {
+            bytes[pos++] = (byte) (0xC0 | (c >> 6));
+            bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+        else {
+            bytes[pos++] = (byte) (0xE0 | (c >> 12));
+            bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return pos;
+    }
+
+    private int putCodePoint(int pos,
+            int codePoint) {
+        bytes[pos++] = (byte) (0xF0 | (codePoint >> 18));
+        bytes[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        bytes[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        bytes[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+        return pos;
+    }
+
+    /**
+     * Ensures that the given number of bytes can be added to the bytes of the rows before the given row.
+     */
+    private void ensureCapacity(int row,
+            int length) {
+        int used = offsets[row];
+        if (used + length > bytes.length) {
+            byte[] newBytes = new byte[Math.max(used + length, 2 * bytes.length)];
+            System.arraycopy(bytes, 0, newBytes, 0, used);
+            bytes = newBytes;
+        }
+    }
+}
@@ -0,0 +1,700 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A column-oriented in-memory data table for table-valued parameters with many rows. SQLServerDataTable keeps each row as an array of objects;
+ * this table keeps the values of each column in an array of primitives, or of objects for the decimal, character, temporal and binary types, with
+ * a bitmap of the null values. The rows are sent in the order they were added.
+ * <br>
+ * <br>
+ * Rows are added with addRow, which takes the same values as SQLServerDataTable.addRow, or with appendRow followed by the set methods, which do
+ * not box the values. The table is not synchronized: it must be filled by a single thread, and not be modified while a statement it was passed to
+ * is executed.
+ */
+public final class SQLServerColumnarDataTable {
+
+    private static final int DEFAULT_ROW_CAPACITY = 16;
+
+    /**
+     * The metadata and the values of a column.
+     */
+    static final class Column {
+        final SQLServerDataColumn metadata;
+        final JDBCType jdbcType;
+
+        // Values of the BIGINT, INTEGER, SMALLINT, TINYINT and BIT columns
+        long[] longValues;
+
+        // Values of the DOUBLE, FLOAT and REAL columns
+        double[] doubleValues;
+
+        // Values of the other columns: BigDecimal for DECIMAL and NUMERIC, byte[] for BINARY and VARBINARY, and String for the character and
+        // temporal types
+        Object[] objectValues;
+
+        // Bit (row % 64) of element (row / 64) is set if the value of the row is null
+        long[] nulls;
+
+        Column(SQLServerDataColumn metadata,
+                int capacity) throws SQLServerException {
+            this.metadata = metadata;
+            jdbcType = JDBCType.of(metadata.javaSqlType);
+            switch (jdbcType) {
+                case BIGINT:
+                case INTEGER:
+                case SMALLINT:
+                case TINYINT:
+                case BIT:
+                    longValues = new long[capacity];
+                    break;
+
+                case DOUBLE:
+                case FLOAT:
+                case REAL:
+                    doubleValues = new double[capacity];
+                    break;
+
+                case TIMESTAMP_WITH_TIMEZONE:
+                case TIME_WITH_TIMEZONE:
+                    DriverJDBCVersion.checkSupportsJDBC42();
+                case DECIMAL:
+                case NUMERIC:
+                case DATE:
+                case TIME:
+                case TIMESTAMP:
+                case DATETIMEOFFSET:
+                case BINARY:
+                case VARBINARY:
+                case CHAR:
+                case VARCHAR:
+                case NCHAR:
+                case NVARCHAR:
+                    objectValues = new Object[capacity];
+                    break;
+
+                default:
+                    MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_unsupportedDataTypeTVP"));
+                    Object[] msgArgs = {jdbcType};
+                    throw new SQLServerException(null, form.format(msgArgs), null, 0, false);
+            }
+            nulls = new long[(capacity + 63) >>> 6];
+        }
+
+        void ensureCapacity(int capacity) {
+            if (null != longValues)
+                longValues = Arrays.copyOf(longValues, capacity);
+            else if (null != doubleValues)
+                doubleValues = Arrays.copyOf(doubleValues, capacity);
+            else
+                objectValues = Arrays.copyOf(objectValues, capacity);
+            nulls = Arrays.copyOf(nulls, (capacity + 63) >>> 6);
+        }
+
+        final boolean isNull(int row) {
+            return 0 != (nulls[row >>> 6] & (1L << row));
+        }
+
+        void setNull(int row) {
+            nulls[row >>> 6] |= (1L << row);
+            if (null != objectValues)
+                objectValues[row] = null;
+        }
+
+        private void setNotNull(int row) {
+            nulls[row >>> 6] &= ~(1L << row);
+        }
+
+        void setLong(int row,
+                long value) throws SQLServerException {
+            boolean inRange;
+            switch (jdbcType) {
+                case BIGINT:
+                    inRange = true;
+                    break;
+                case INTEGER:
+                    inRange = Integer.MIN_VALUE <= value && value <= Integer.MAX_VALUE;
+                    break;
+                case SMALLINT:
+                case TINYINT:
+                    inRange = Short.MIN_VALUE <= value && value <= Short.MAX_VALUE;
+                    break;
+                default:
+                    inRange = false;
+            }
+            if (!inRange)
+                throw new SQLServerException(null, SQLServerException.getErrString("R_TVPInvalidColumnValue"), null, 0, false);
+
+            longValues[row] = value;
+            setNotNull(row);
+        }
+
+        void setBoolean(int row,
+                boolean value) throws SQLServerException {
+            if (JDBCType.BIT != jdbcType)
+                throw new SQLServerException(null, SQLServerException.getErrString("R_TVPInvalidColumnValue"), null, 0, false);
+
+            longValues[row] = value ? 1 : 0;
+            setNotNull(row);
+        }
+
+        void setDouble(int row,
+                double value) throws SQLServerException {
+            if (null == doubleValues)
+                throw new SQLServerException(null, SQLServerException.getErrString("R_TVPInvalidColumnValue"), null, 0, false);
+
+            doubleValues[row] = value;
+            setNotNull(row);
+        }
+
+        void setBigDecimal(int row,
+                BigDecimal value) throws SQLServerException {
+            if (JDBCType.DECIMAL != jdbcType && JDBCType.NUMERIC != jdbcType)
+                throw new SQLServerException(null, SQLServerException.getErrString("R_TVPInvalidColumnValue"), null, 0, false);
+
+            if (null == value) {
+                setNull(row);
+                return;
+            }
+
+            // BigDecimal#precision returns number of digits in the unscaled value.
+            // Say, for value 0.01, it returns 1 but the precision should be 3 for SQLServer
+            int precision = Util.getValueLengthBaseOnJavaType(value, JavaType.of(value), null, null, jdbcType);
+            boolean isColumnMetadataUpdated = false;
+            if (value.scale() > metadata.scale) {
+                metadata.scale = value.scale();
+                isColumnMetadataUpdated = true;
+            }
+            if (precision > metadata.precision) {
+                metadata.precision = precision;
+                isColumnMetadataUpdated = true;
+            }
+
+            // precision equal: the maximum number of digits in integer part + the maximum scale
+            int numberOfDigitsIntegerPart = precision - value.scale();
+            if (numberOfDigitsIntegerPart > metadata.numberOfDigitsIntegerPart) {
+                metadata.numberOfDigitsIntegerPart = numberOfDigitsIntegerPart;
+                isColumnMetadataUpdated = true;
+            }
+
+            if (isColumnMetadataUpdated)
+                metadata.precision = metadata.scale + metadata.numberOfDigitsIntegerPart;
+
+            objectValues[row] = value;
+            setNotNull(row);
+        }
+
+        void setString(int row,
+                String value) throws SQLServerException {
+            switch (jdbcType) {
+                case CHAR:
+                case VARCHAR:
+                case NCHAR:
+                case NVARCHAR:
+                    if (null != value && 2 * value.length() > metadata.precision)
+                        metadata.precision = 2 * value.length();
+                    break;
+
+                case DATE:
+                case TIME:
+                case TIMESTAMP:
+                case DATETIMEOFFSET:
+                case TIMESTAMP_WITH_TIMEZONE:
+                case TIME_WITH_TIMEZONE:
+                    // Sending temporal types as string. Error from database is thrown if parsing fails
+                    // no need to send precision for temporal types, string literal will never exceed DataTypes.SHORT_VARTYPE_MAX_BYTES
+                    break;
+
+                default:
+                    throw new SQLServerException(null, SQLServerException.getErrString("R_TVPInvalidColumnValue"), null, 0, false);
+            }
+
+            if (null == value) {
+                setNull(row);
+                return;
+            }
+            objectValues[row] = value;
+            setNotNull(row);
+        }
+
+        void setBytes(int row,
+                byte[] value) throws SQLServerException {
+            if (JDBCType.BINARY != jdbcType && JDBCType.VARBINARY != jdbcType)
+                throw new SQLServerException(null, SQLServerException.getErrString("R_TVPInvalidColumnValue"), null, 0, false);
+
+            if (null == value) {
+                setNull(row);
+                return;
+            }
+            if (value.length > metadata.precision)
+                metadata.precision = value.length;
+            objectValues[row] = value;
+            setNotNull(row);
+        }
+
+        /**
+         * Sets the value of a row from an object, converted as SQLServerDataTable.addRow converts it.
+         */
+        void setObject(int row,
+                Object value) throws SQLServerException {
+            if (null == value) {
+                setNull(row);
+                return;
+            }
+
+            switch (jdbcType) {
+                case BIGINT:
+                case INTEGER:
+                case SMALLINT:
+                case TINYINT:
+                    if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+                        setLong(row, ((Number) value).longValue());
+                    else if (JDBCType.BIGINT == jdbcType)
+                        setLong(row, Long.parseLong(value.toString()));
+                    else if (JDBCType.INTEGER == jdbcType)
+                        setLong(row, Integer.parseInt(value.toString()));
+                    else
+                        setLong(row, Short.parseShort(value.toString()));
+                    break;
+
+                case BIT:
+                    setBoolean(row, (value instanceof Boolean) ? ((Boolean) value).booleanValue() : Boolean.parseBoolean(value.toString()));
+                    break;
+
+                case DOUBLE:
+                    setDouble(row, (value instanceof Double) ? ((Double) value).doubleValue() : Double.parseDouble(value.toString()));
+                    break;
+
+                case FLOAT:
+                case REAL:
+                    setDouble(row, (value instanceof Float) ? ((Float) value).floatValue() : Float.parseFloat(value.toString()));
+                    break;
+
+                case DECIMAL:
+                case NUMERIC:
+                    setBigDecimal(row, (value instanceof BigDecimal) ? (BigDecimal) value : new BigDecimal(value.toString()));
+                    break;
+
+                case DATE:
+                case TIME:
+                case TIMESTAMP:
+                case DATETIMEOFFSET:
+                case TIMESTAMP_WITH_TIMEZONE:
+                case TIME_WITH_TIMEZONE:
+                    // java.sql.Date, java.sql.Time and java.sql.Timestamp are subclass of java.util.Date
+                    if (value instanceof java.util.Date || value instanceof microsoft.sql.DateTimeOffset || value instanceof OffsetDateTime
+                            || value instanceof OffsetTime)
+                        setString(row, value.toString());
+                    else
+                        setString(row, (String) value);
+                    break;
+
+                case BINARY:
+                case VARBINARY:
+                    setBytes(row, (byte[]) value);
+                    break;
+
+                case CHAR:
+                    if (value instanceof UUID)
+                        value = value.toString();
+                case VARCHAR:
+                case NCHAR:
+                case NVARCHAR:
+                    setString(row, (String) value);
+                    break;
+
+                default:
+                    assert false : "Unexpected JDBC type " + jdbcType.toString();
+            }
+        }
+
+        /**
+         * Returns the value of a row as the object SQLServerDataTable.addRow would have stored.
+         */
+        Object getObject(int row) {
+            if (isNull(row))
+                return null;
+
+            switch (jdbcType) {
+                case BIGINT:
+                    return longValues[row];
+                case INTEGER:
+                    return (int) longValues[row];
+                case SMALLINT:
+                case TINYINT:
+                    return (short) longValues[row];
+                case BIT:
+                    return 0 != longValues[row];
+                case DOUBLE:
+                    return doubleValues[row];
+                case FLOAT:
+                case REAL:
+                    return (float) doubleValues[row];
+                default:
+                    return objectValues[row];
+            }
+        }
+    }
+
+    private final List<Column> columns = new ArrayList<Column>();
+    private int rowCount = 0;
+    private int rowCapacity;
+    private String tvpName = null;
+
+    /**
+     * Initializes a new instance of SQLServerColumnarDataTable.
+     */
+    public SQLServerColumnarDataTable() {
+        this(DEFAULT_ROW_CAPACITY);
+    }
+
+    /**
+     * Initializes a new instance of SQLServerColumnarDataTable with room for a number of rows, so that the column arrays do not have to grow while
+     * they are added.
+     *
+     * @param initialRowCapacity
+     *            the number of rows the table is expected to hold
+     */
+    public SQLServerColumnarDataTable(int initialRowCapacity) {
+        rowCapacity = Math.max(1, initialRowCapacity);
+    }
+
+    /**
+     * Clears the columns and the rows of this data table.
+     */
+    public void clear() {
+        columns.clear();
+        rowCount = 0;
+    }
+
+    /**
+     * Adds meta data for the specified column
+     *
+     * @param columnName
+     *            the name of the column
+     * @param sqlType
+     *            the sql type of the column
+     * @throws SQLServerException
+     *             when an error occurs
+     */
+    public void addColumnMetadata(String columnName,
+            int sqlType) throws SQLServerException {
+        addColumnMetadata(new SQLServerDataColumn(columnName, sqlType));
+    }
+
+    /**
+     * Adds meta data for the specified column. The rows that were added before the column have a null value in it.
+     *
+     * @param column
+     *            the name of the column
+     * @throws SQLServerException
+     *             when an error occurs
+     */
+    public void addColumnMetadata(SQLServerDataColumn column) throws SQLServerException {
+        // column names must be unique
+        Util.checkDuplicateColumnName(column.columnName, getColumnMetadata());
+        Column newColumn = new Column(column, rowCapacity);
+        for (int row = 0; row < rowCount; row++)
+            newColumn.setNull(row);
+        columns.add(newColumn);
+    }
+
+    /**
+     * Adds one row of data to the data table.
+     *
+     * @param values
+     *            values to be added in one row of data to the data table.
+     * @throws SQLServerException
+     *             when an error occurs
+     */
+    public void addRow(Object... values) throws SQLServerException {
+        if ((null != values) && values.length > columns.size()) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_moreDataInRowThanColumnInTVP"));
+            Object[] msgArgs = {};
+            throw new SQLServerException(null, form.format(msgArgs), null, 0, false);
+        }
+
+        ensureCapacity(rowCount + 1);
+        try {
+            for (int i = 0; i < columns.size(); i++)
+                columns.get(i).setObject(rowCount, ((null != values) && (i < values.length)) ? values[i] : null);
+        }
+        catch (NumberFormatException e) {
+            throw new SQLServerException(SQLServerException.getErrString("R_TVPInvalidColumnValue"), e);
+        }
+        catch (ClassCastException e) {
+            throw new SQLServerException(SQLServerException.getErrString("R_TVPInvalidColumnValue"), e);
+        }
+        rowCount++;
+    }
+
+    /**
+     * Adds a row whose values are all null to the data table. Its values are then set with the set methods, which set the values of the last row.
+     *
+     * @return the index of the row, starting at 0
+     */
+    public int appendRow() {
+        ensureCapacity(rowCount + 1);
+        for (Column column : columns)
+            column.setNull(rowCount);
+        return rowCount++;
+    }
+
+    /**
+     * Sets a value of the last row to null.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @throws SQLServerException
+     *             if there is no such column or no row
+     */
+    public void setNull(int columnIndex) throws SQLServerException {
+        getColumnOfLastRow(columnIndex).setNull(rowCount - 1);
+    }
+
+    /**
+     * Sets a value of the last row in a BIT column.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column or no row, or the column is not a BIT column
+     */
+    public void setBoolean(int columnIndex,
+            boolean value) throws SQLServerException {
+        getColumnOfLastRow(columnIndex).setBoolean(rowCount - 1, value);
+    }
+
+    /**
+     * Sets a value of the last row in a BIGINT, INTEGER, SMALLINT or TINYINT column.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column or no row, or the column is not an integer column
+     */
+    public void setShort(int columnIndex,
+            short value) throws SQLServerException {
+        getColumnOfLastRow(columnIndex).setLong(rowCount - 1, value);
+    }
+
+    /**
+     * Sets a value of the last row in a BIGINT, INTEGER, SMALLINT or TINYINT column.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column or no row, the column is not an integer column, or the value is out of its range
+     */
+    public void setInt(int columnIndex,
+            int value) throws SQLServerException {
+        getColumnOfLastRow(columnIndex).setLong(rowCount - 1, value);
+    }
+
+    /**
+     * Sets a value of the last row in a BIGINT, INTEGER, SMALLINT or TINYINT column.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column or no row, the column is not an integer column, or the value is out of its range
+     */
+    public void setLong(int columnIndex,
+            long value) throws SQLServerException {
+        getColumnOfLastRow(columnIndex).setLong(rowCount - 1, value);
+    }
+
+    /**
+     * Sets a value of the last row in a DOUBLE, FLOAT or REAL column. FLOAT and REAL values are sent with the precision of a float.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column or no row, or the column is not a floating point column
+     */
+    public void setDouble(int columnIndex,
+            double value) throws SQLServerException {
+        getColumnOfLastRow(columnIndex).setDouble(rowCount - 1, value);
+    }
+
+    /**
+     * Sets a value of the last row in a DOUBLE, FLOAT or REAL column.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column or no row, or the column is not a floating point column
+     */
+    public void setFloat(int columnIndex,
+            float value) throws SQLServerException {
+        getColumnOfLastRow(columnIndex).setDouble(rowCount - 1, value);
+    }
+
+    /**
+     * Sets a value of the last row in a DECIMAL or NUMERIC column. The precision and scale of the column grow to fit the value.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value, or null
+     * @throws SQLServerException
+     *             if there is no such column or no row, or the column is not a DECIMAL or NUMERIC column
+     */
+    public void setBigDecimal(int columnIndex,
+            BigDecimal value) throws SQLServerException {
+        getColumnOfLastRow(columnIndex).setBigDecimal(rowCount - 1, value);
+    }
+
+    /**
+     * Sets a value of the last row in a character column, or in a temporal column, whose values are sent as strings.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value, or null
+     * @throws SQLServerException
+     *             if there is no such column or no row, or the column is not a character or temporal column
+     */
+    public void setString(int columnIndex,
+            String value) throws SQLServerException {
+        getColumnOfLastRow(columnIndex).setString(rowCount - 1, value);
+    }
+
+    /**
+     * Sets a value of the last row in a BINARY or VARBINARY column. The array is not copied.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value, or null
+     * @throws SQLServerException
+     *             if there is no such column or no row, or the column is not a BINARY or VARBINARY column
+     */
+    public void setBytes(int columnIndex,
+            byte[] value) throws SQLServerException {
+        getColumnOfLastRow(columnIndex).setBytes(rowCount - 1, value);
+    }
+
+    /**
+     * Retrieves a value of the data table.
+     *
+     * @param rowIndex
+     *            the index of the row, starting at 0
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @return the value, or null
+     * @throws SQLServerException
+     *             if there is no such row or column
+     */
+    public Object getValue(int rowIndex,
+            int columnIndex) throws SQLServerException {
+        if (rowIndex < 0 || rowIndex >= rowCount)
+            throwInvalidIndex(rowIndex);
+        return getColumn(columnIndex).getObject(rowIndex);
+    }
+
+    /**
+     * Retrieves the number of rows of the data table.
+     *
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Retrieves the number of columns of the data table.
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    /**
+     * Retrieves the column meta data of this data table, by column index starting at 0.
+     *
+     * @return the column meta data
+     */
+    public Map<Integer, SQLServerDataColumn> getColumnMetadata() {
+        Map<Integer, SQLServerDataColumn> columnMetadata = new LinkedHashMap<Integer, SQLServerDataColumn>();
+        for (int i = 0; i < columns.size(); i++)
+            columnMetadata.put(i, columns.get(i).metadata);
+        return columnMetadata;
+    }
+
+    public String getTvpName() {
+        return tvpName;
+    }
+
+    /**
+     * Sets the name of the type of the table valued parameter.
+     *
+     * @param tvpName
+     *            the name of TVP
+     */
+    public void setTvpName(String tvpName) {
+        this.tvpName = tvpName;
+    }
+
+    final List<Column> getColumns() {
+        return columns;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= rowCapacity)
+            return;
+
+        int newCapacity = Math.max(capacity, 2 * rowCapacity);
+        for (Column column : columns)
+            column.ensureCapacity(newCapacity);
+        rowCapacity = newCapacity;
+    }
+
+    private Column getColumn(int columnIndex) throws SQLServerException {
+        if (columnIndex < 1 || columnIndex > columns.size())
+            throwInvalidIndex(columnIndex);
+        return columns.get(columnIndex - 1);
+    }
+
+    private Column getColumnOfLastRow(int columnIndex) throws SQLServerException {
+        if (0 == rowCount)
+            throw new SQLServerException(null, SQLServerException.getErrString("R_TVPNoRow"), null, 0, false);
+        return getColumn(columnIndex);
+    }
+
+    private static void throwInvalidIndex(int index) throws SQLServerException {
+        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_indexOutOfRange"));
+        Object[] msgArgs = {index};
+        throw new SQLServerException(null, form.format(msgArgs), null, 0, false);
+    }
+}
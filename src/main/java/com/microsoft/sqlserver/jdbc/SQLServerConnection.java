@@ -39,6 +39,8 @@ import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -47,6 +49,8 @@ import java.util.UUID;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 
@@ -98,6 +102,44 @@ public class SQLServerConnection implements ISQLServerConnection {
     static private Boolean defaultEnablePrepareOnFirstPreparedStatementCall = null; // Current default for new connections
     private Boolean enablePrepareOnFirstPreparedStatementCall = null; // Current limit for this particular connection.
 
+    /**
+     * The initial default on application start-up for the number of prepared statement handles cached per connection when statement pooling is
+     * enabled.
+     */
+    static final private int INITIAL_DEFAULT_STATEMENT_POOLING_CACHE_SIZE = 10; // Used to set the initial default, can be changed later.
+    private int statementPoolingCacheSize = INITIAL_DEFAULT_STATEMENT_POOLING_CACHE_SIZE; // Current limit for this particular connection.
+    private boolean disableStatementPooling = SQLServerDriverBooleanProperty.DISABLE_STATEMENT_POOLING.getDefaultValue();
+    private boolean useMultiRowValuesForBatchInsert = SQLServerDriverBooleanProperty.USE_MULTI_ROW_VALUES_FOR_BATCH_INSERT.getDefaultValue();
+    private int bulkCopyForBatchInsertThreshold = SQLServerDriverIntProperty.BULK_COPY_FOR_BATCH_INSERT_THRESHOLD.getDefaultValue();
+    private int bulkCopyMetadataCacheTTL = SQLServerDriverIntProperty.BULK_COPY_METADATA_CACHE_TTL.getDefaultValue();
+    private int validationInterval = SQLServerDriverIntProperty.VALIDATION_INTERVAL.getDefaultValue();
+    private int parameterEncryptionMetadataCacheSize = SQLServerDriverIntProperty.PARAMETER_ENCRYPTION_METADATA_CACHE_SIZE.getDefaultValue();
+    private int lobInMemoryLimit = SQLServerDriverIntProperty.LOB_IN_MEMORY_LIMIT.getDefaultValue();
+
+    // Cache of bulk copy destination table metadata, by database and table name.
+    private final Map<BulkCopyMetadataKey, SQLServerBulkCopy.DestinationMetadata> bulkCopyMetadataCache =
+            new HashMap<BulkCopyMetadataKey, SQLServerBulkCopy.DestinationMetadata>();
+
+    // Cache of the parameter encryption metadata returned by sp_describe_parameter_encryption, by database, SQL text and parameter types, in least
+    // recently used order. Each element of a value is the crypto metadata of a parameter, or null if the parameter is not encrypted.
+    private final Map<PreparedStatementHandleKey, CryptoMetadata[]> parameterEncryptionMetadataCache = new LinkedHashMap<PreparedStatementHandleKey, CryptoMetadata[]>(
+            16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(Map.Entry<PreparedStatementHandleKey, CryptoMetadata[]> eldest) {
+            return size() > parameterEncryptionMetadataCacheSize;
+        }
+    };
+
+    // Cache of server prepared statement handles, in least recently used order.
+    private final PreparedStatementHandleCache preparedStatementHandleCache = new PreparedStatementHandleCache();
+
+    // The temporary files that LOB values longer than lobInMemoryLimit are copied to.
+    private final LOBValue.TemporaryFiles lobTemporaryFiles;
+
+    // Queue of the asynchronous executions of the statements of this connection, which run one at a time.
+    final AsyncExecutionQueue asyncExecutionQueue = new AsyncExecutionQueue();
+
     // Handle the actual queue of discarded prepared statements.
     private ConcurrentLinkedQueue<PreparedStatementDiscardItem> discardedPreparedStatementHandles = new ConcurrentLinkedQueue<PreparedStatementDiscardItem>();
     private AtomicInteger discardedPreparedStatementHandleQueueCount = new AtomicInteger(0);
@@ -282,6 +324,22 @@ public class SQLServerConnection implements ISQLServerConnection {
         return socketTimeoutMilliseconds;
     }
 
+    private int packetPoolSize = SQLServerDriverIntProperty.PACKET_POOL_SIZE.getDefaultValue();
+
+    final int getPacketPoolSize() {
+        return packetPoolSize;
+    }
+
+    final LOBValue.TemporaryFiles getLobTemporaryFiles() {
+        return lobTemporaryFiles;
+    }
+
+    private boolean useSocketChannel = SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.getDefaultValue();
+
+    final boolean getUseSocketChannel() {
+        return useSocketChannel;
+    }
+
     private boolean sendTimeAsDatetime = SQLServerDriverBooleanProperty.SEND_TIME_AS_DATETIME.getDefaultValue();
 
     /**
@@ -703,6 +761,7 @@ public class SQLServerConnection implements ISQLServerConnection {
     SQLServerConnection(String parentInfo) throws SQLServerException {
         int connectionID = nextConnectionID();                   // sequential connection id
         traceID = "ConnectionID:" + connectionID;
+        lobTemporaryFiles = new LOBValue.TemporaryFiles(traceID);
         loggingClassName = "com.microsoft.sqlserver.jdbc.SQLServerConnection:" + connectionID;
         if (connectionlogger.isLoggable(Level.FINE))
             connectionlogger.fine(toString() + " created by (" + parentInfo + ")");
@@ -1194,12 +1253,135 @@ public class SQLServerConnection implements ISQLServerConnection {
 
             sPropKey = SQLServerDriverBooleanProperty.DISABLE_STATEMENT_POOLING.toString();
             sPropValue = activeConnectionProperties.getProperty(sPropKey);
-            if (sPropValue != null) // if the user does not set it, it is ok but if set the value can only be true
-                if (false == booleanPropertyOn(sPropKey, sPropValue)) {
-                    MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invaliddisableStatementPooling"));
-                    Object[] msgArgs = {new String(sPropValue)};
+            if (null != sPropValue) {
+                setDisableStatementPooling(booleanPropertyOn(sPropKey, sPropValue));
+            }
+
+            sPropKey = SQLServerDriverBooleanProperty.USE_MULTI_ROW_VALUES_FOR_BATCH_INSERT.toString();
+            sPropValue = activeConnectionProperties.getProperty(sPropKey);
+            if (null != sPropValue) {
+                setUseMultiRowValuesForBatchInsert(booleanPropertyOn(sPropKey, sPropValue));
+            }
+
+            sPropKey = SQLServerDriverIntProperty.STATEMENT_POOLING_CACHE_SIZE.toString();
+            if (activeConnectionProperties.getProperty(sPropKey) != null && activeConnectionProperties.getProperty(sPropKey).length() > 0) {
+                try {
+                    int n = (new Integer(activeConnectionProperties.getProperty(sPropKey))).intValue();
+                    if (n >= 0) {
+                        setStatementPoolingCacheSize(n);
+                    }
+                    else {
+                        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidStatementPoolingCacheSize"));
+                        Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                        SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                    }
+                }
+                catch (NumberFormatException e) {
+                    MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidStatementPoolingCacheSize"));
+                    Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                    SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                }
+            }
+
+            sPropKey = SQLServerDriverIntProperty.BULK_COPY_FOR_BATCH_INSERT_THRESHOLD.toString();
+            if (activeConnectionProperties.getProperty(sPropKey) != null && activeConnectionProperties.getProperty(sPropKey).length() > 0) {
+                try {
+                    int n = (new Integer(activeConnectionProperties.getProperty(sPropKey))).intValue();
+                    if (n >= 0) {
+                        setBulkCopyForBatchInsertThreshold(n);
+                    }
+                    else {
+                        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidBulkCopyForBatchInsertThreshold"));
+                        Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                        SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                    }
+                }
+                catch (NumberFormatException e) {
+                    MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidBulkCopyForBatchInsertThreshold"));
+                    Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
                     SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
                 }
+            }
+
+            sPropKey = SQLServerDriverIntProperty.BULK_COPY_METADATA_CACHE_TTL.toString();
+            if (activeConnectionProperties.getProperty(sPropKey) != null && activeConnectionProperties.getProperty(sPropKey).length() > 0) {
+                try {
+                    int n = (new Integer(activeConnectionProperties.getProperty(sPropKey))).intValue();
+                    if (n >= 0) {
+                        setBulkCopyMetadataCacheTTL(n);
+                    }
+                    else {
+                        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidBulkCopyMetadataCacheTTL"));
+                        Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                        SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                    }
+                }
+                catch (NumberFormatException e) {
+                    MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidBulkCopyMetadataCacheTTL"));
+                    Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                    SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                }
+            }
+
+            sPropKey = SQLServerDriverIntProperty.PARAMETER_ENCRYPTION_METADATA_CACHE_SIZE.toString();
+            if (activeConnectionProperties.getProperty(sPropKey) != null && activeConnectionProperties.getProperty(sPropKey).length() > 0) {
+                try {
+                    int n = (new Integer(activeConnectionProperties.getProperty(sPropKey))).intValue();
+                    if (n >= 0) {
+                        setParameterEncryptionMetadataCacheSize(n);
+                    }
+                    else {
+                        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidParameterEncryptionMetadataCacheSize"));
+                        Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                        SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                    }
+                }
+                catch (NumberFormatException e) {
+                    MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidParameterEncryptionMetadataCacheSize"));
+                    Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                    SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                }
+            }
+
+            sPropKey = SQLServerDriverIntProperty.LOB_IN_MEMORY_LIMIT.toString();
+            if (activeConnectionProperties.getProperty(sPropKey) != null && activeConnectionProperties.getProperty(sPropKey).length() > 0) {
+                try {
+                    int n = (new Integer(activeConnectionProperties.getProperty(sPropKey))).intValue();
+                    if (n >= 0) {
+                        setLobInMemoryLimit(n);
+                    }
+                    else {
+                        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidLobInMemoryLimit"));
+                        Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                        SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                    }
+                }
+                catch (NumberFormatException e) {
+                    MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidLobInMemoryLimit"));
+                    Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                    SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                }
+            }
+
+            sPropKey = SQLServerDriverIntProperty.VALIDATION_INTERVAL.toString();
+            if (activeConnectionProperties.getProperty(sPropKey) != null && activeConnectionProperties.getProperty(sPropKey).length() > 0) {
+                try {
+                    int n = (new Integer(activeConnectionProperties.getProperty(sPropKey))).intValue();
+                    if (n >= 0) {
+                        setValidationInterval(n);
+                    }
+                    else {
+                        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidValidationInterval"));
+                        Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                        SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                    }
+                }
+                catch (NumberFormatException e) {
+                    MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidValidationInterval"));
+                    Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                    SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                }
+            }
 
             sPropKey = SQLServerDriverBooleanProperty.INTEGRATED_SECURITY.toString();
             sPropValue = activeConnectionProperties.getProperty(sPropKey);
@@ -1436,6 +1618,32 @@ public class SQLServerConnection implements ISQLServerConnection {
                 }
             }
             
+            sPropKey = SQLServerDriverIntProperty.PACKET_POOL_SIZE.toString();
+            packetPoolSize = SQLServerDriverIntProperty.PACKET_POOL_SIZE.getDefaultValue();
+            if (activeConnectionProperties.getProperty(sPropKey) != null && activeConnectionProperties.getProperty(sPropKey).length() > 0) {
+                try {
+                    int n = (new Integer(activeConnectionProperties.getProperty(sPropKey))).intValue();
+                    if (n >= 0) {
+                        packetPoolSize = n;
+                    }
+                    else {
+                        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidPacketPoolSize"));
+                        Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                        SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                    }
+                }
+                catch (NumberFormatException e) {
+                    MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidPacketPoolSize"));
+                    Object[] msgArgs = {activeConnectionProperties.getProperty(sPropKey)};
+                    SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                }
+            }
+
+            sPropKey = SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.toString();
+            sPropValue = activeConnectionProperties.getProperty(sPropKey);
+            useSocketChannel = (null != sPropValue) ? booleanPropertyOn(sPropKey, sPropValue)
+                    : SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.getDefaultValue();
+
             sPropKey = SQLServerDriverIntProperty.SERVER_PREPARED_STATEMENT_DISCARD_THRESHOLD.toString();
             if (activeConnectionProperties.getProperty(sPropKey) != null && activeConnectionProperties.getProperty(sPropKey).length() > 0) {
                 try {
@@ -2361,7 +2569,7 @@ public class SQLServerConnection implements ISQLServerConnection {
         throw ex;
     }
 
-    private final Object schedulerLock = new Object();
+    private final Lock schedulerLock = new ReentrantLock();
 
     /**
      * Executes a command through the scheduler.
@@ -2370,7 +2578,8 @@ public class SQLServerConnection implements ISQLServerConnection {
      *            the command to execute
      */
     boolean executeCommand(TDSCommand newCommand) throws SQLServerException {
-        synchronized (schedulerLock) {
+        schedulerLock.lock();
+        try {
             // Detach (buffer) the response from any previously executing
             // command so that we can execute the new command.
             //
@@ -2403,6 +2612,9 @@ public class SQLServerConnection implements ISQLServerConnection {
 
             return commandComplete;
         }
+        finally {
+            schedulerLock.unlock();
+        }
     }
 
     void resetCurrentCommand() throws SQLServerException {
@@ -2675,6 +2887,15 @@ public class SQLServerConnection implements ISQLServerConnection {
         // Clean-up queue etc. related to batching of prepared statement discard actions (sp_unprepare).
         cleanupPreparedStatementDiscardActions();
 
+        // The server has released all prepared handles along with the session.
+        clearCachedPreparedStatementHandles();
+
+        clearBulkCopyMetadataCache();
+
+        clearParameterEncryptionMetadataCache();
+
+        lobTemporaryFiles.deleteAll();
+
         loggerExternal.exiting(getClassNameLogging(), "close");
     }
 
@@ -2746,6 +2967,13 @@ public class SQLServerConnection implements ISQLServerConnection {
         loggerExternal.exiting(getClassNameLogging(), "setCatalog");
     }
 
+    /**
+     * Returns the current database without checking the connection state.
+     */
+    final String getCatalogInternal() {
+        return sCatalog;
+    }
+
     /* L0 */ public String getCatalog() throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getCatalog");
         checkClosed();
@@ -4839,6 +5067,33 @@ public class SQLServerConnection implements ISQLServerConnection {
         if (isSessionUnAvailable())
             return false;
 
+        // The connection is valid if the server has just responded on it
+        if (0 != validationInterval && System.nanoTime() - tdsChannel.getLastReadTime() < TimeUnit.MILLISECONDS.toNanos(validationInterval)) {
+            loggerExternal.exiting(getClassNameLogging(), "isValid", true);
+            return true;
+        }
+
+        isValid = ping(timeout);
+        loggerExternal.exiting(getClassNameLogging(), "isValid", isValid);
+        return isValid;
+    }
+
+    /**
+     * Returns the time, from System.nanoTime, of the last read from the server on this connection.
+     */
+    final long getLastReadTime() {
+        return tdsChannel.getLastReadTime();
+    }
+
+    /**
+     * Queries the server to check that the connection works.
+     * 
+     * @param timeout
+     *            the number of seconds to wait for the query, or 0 to wait indefinitely
+     * @return true if the query succeeded
+     */
+    final boolean ping(int timeout) {
+        boolean isValid = false;
         try {
             SQLServerStatement stmt = new SQLServerStatement(this, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY,
                     SQLServerStatementColumnEncryptionSetting.UseConnectionSetting);
@@ -4861,8 +5116,6 @@ public class SQLServerConnection implements ISQLServerConnection {
             // even though query execution succeeded.
             connectionlogger.fine(toString() + " Exception checking connection validity: " + e.getMessage());
         }
-
-        loggerExternal.exiting(getClassNameLogging(), "isValid", isValid);
         return isValid;
     }
 
@@ -4888,17 +5141,124 @@ public class SQLServerConnection implements ISQLServerConnection {
         return t;
     }
 
+    /**
+     * Cache of parsed SQL text, shared by all connections. Entries are keyed by the SQL text as given by the application.
+     */
+    static final private int INITIAL_DEFAULT_PARSED_SQL_CACHE_SIZE = 100;
+    static private int parsedSQLCacheSize = INITIAL_DEFAULT_PARSED_SQL_CACHE_SIZE;
+    static final private Map<String, ParsedSQLCacheItem> parsedSQLCache = new LinkedHashMap<String, ParsedSQLCacheItem>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(Map.Entry<String, ParsedSQLCacheItem> eldest) {
+            return size() > parsedSQLCacheSize;
+        }
+    };
+
+    /**
+     * The initial default on application start-up for the number of parsed SQL statements cached by the driver.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    static public int getInitialDefaultParsedSQLCacheSize() {
+        return INITIAL_DEFAULT_PARSED_SQL_CACHE_SIZE;
+    }
+
+    /**
+     * Returns the number of distinct SQL statements whose parsed form (JDBC call syntax translation, parameter marker positions) is cached and
+     * shared by all connections. A value of 0 means parsed SQL is not cached.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    static public int getParsedSQLCacheSize() {
+        synchronized (parsedSQLCache) {
+            return parsedSQLCacheSize;
+        }
+    }
+
+    /**
+     * Specifies the number of distinct SQL statements whose parsed form (JDBC call syntax translation, parameter marker positions) is cached and
+     * shared by all connections. Shrinking the cache drops the least recently used entries. A value of 0 disables the cache.
+     * 
+     * @param value
+     *      Changes the setting per the description.
+     */
+    static public void setParsedSQLCacheSize(int value) {
+        synchronized (parsedSQLCache) {
+            parsedSQLCacheSize = Math.max(0, value);
+
+            Iterator<ParsedSQLCacheItem> items = parsedSQLCache.values().iterator();
+            while (parsedSQLCache.size() > parsedSQLCacheSize && items.hasNext()) {
+                items.next();
+                items.remove();
+            }
+        }
+    }
+
+    /**
+     * Translates the JDBC syntax of a SQL statement and locates its parameter markers, or returns the result of doing so earlier for the same
+     * SQL text.
+     * 
+     * @param sql
+     *            the user's SQL
+     * @throws SQLServerException
+     *             if the SQL cannot be translated
+     * @return the parsed SQL
+     */
+    static ParsedSQLCacheItem parseAndCacheSQL(String sql) throws SQLServerException {
+        ParsedSQLCacheItem parsedSQL;
+        synchronized (parsedSQLCache) {
+            parsedSQL = parsedSQLCache.get(sql);
+        }
+        if (null != parsedSQL)
+            return parsedSQL;
+
+        // Parse outside the lock; at worst two threads parse the same text concurrently and one result wins.
+        JDBCSyntaxTranslator translator = new JDBCSyntaxTranslator();
+        String processedSQL = translator.translate(sql);
+        parsedSQL = new ParsedSQLCacheItem(processedSQL, locateParams(processedSQL), translator.getProcedureName(), translator.hasReturnValueSyntax());
+
+        synchronized (parsedSQLCache) {
+            if (0 < parsedSQLCacheSize)
+                parsedSQLCache.put(sql, parsedSQL);
+        }
+        return parsedSQL;
+    }
+
+    /**
+     * Locates the JDBC syntax parameter markers '?' in a SQL statement.
+     * 
+     * @param sql
+     *            the translated SQL
+     * @return the offsets of the parameter markers
+     */
+    private static int[] locateParams(String sql) {
+        int nParams = 0;
+        int[] paramPositions = new int[4];
+
+        int offset = -1;
+        while ((offset = ParameterUtils.scanSQLForChar('?', sql, ++offset)) < sql.length()) {
+            if (nParams == paramPositions.length)
+                paramPositions = Arrays.copyOf(paramPositions, nParams * 2);
+            paramPositions[nParams++] = offset;
+        }
+
+        return Arrays.copyOf(paramPositions, nParams);
+    }
+
     /**
      * Replace JDBC syntax parameter markets '?' with SQL Server paramter markers @p1, @p2 etc...
      * 
      * @param sql
      *            the user's SQL
+     * @param paramPositions
+     *            the offsets of the parameter markers in the user's SQL
      * @throws SQLServerException
      * @return the returned syntax
      */
     static final char[] OUT = {' ', 'O', 'U', 'T'};
 
     /* L0 */ String replaceParameterMarkers(String sqlSrc,
+            int[] paramPositions,
             Parameter[] params,
             boolean isReturnValueSyntax) throws SQLServerException {
         final int MAX_PARAM_NAME_LEN = 6;
@@ -4909,7 +5269,7 @@ public class SQLServerConnection implements ISQLServerConnection {
 
         int paramIndex = 0;
         while (true) {
-            int srcEnd = ParameterUtils.scanSQLForChar('?', sqlSrc, srcBegin);
+            int srcEnd = (paramIndex >= paramPositions.length) ? sqlSrc.length() : paramPositions[paramIndex];
             sqlSrc.getChars(srcBegin, srcEnd, sqlDst, dstBegin);
             dstBegin += srcEnd - srcBegin;
 
@@ -5203,6 +5563,47 @@ public class SQLServerConnection implements ISQLServerConnection {
         return this.discardedPreparedStatementHandleQueueCount.get();
     }
 
+    /**
+     * Returns the number of response packet buffers currently held by this connection's packet pool, both in use and awaiting reuse. The pool is
+     * sized by the packetPoolSize connection property; this returns 0 if packet pooling is disabled.
+     * 
+     * @return Returns the current value per the description.
+     */
+    public int getPooledPacketCount() {
+        TDSPacketPool packetPool = (null == tdsChannel) ? null : tdsChannel.getPacketPool();
+        return (null == packetPool) ? 0 : packetPool.getPooledCount();
+    }
+
+    /**
+     * Returns the number of query and bulk copy timeouts that are currently running, across all connections. The timeouts of all connections
+     * are kept by a single scheduler thread rather than by a thread per timed statement.
+     * 
+     * @return Returns the current value per the description.
+     */
+    static public int getActiveTimeoutCount() {
+        return TimeoutScheduler.getActiveTimeoutCount();
+    }
+
+    /**
+     * Returns the number of response packets read on this connection that were given a recycled buffer from the packet pool.
+     * 
+     * @return Returns the current value per the description.
+     */
+    public long getReusedPacketCount() {
+        TDSPacketPool packetPool = (null == tdsChannel) ? null : tdsChannel.getPacketPool();
+        return (null == packetPool) ? 0 : packetPool.getReusedCount();
+    }
+
+    /**
+     * Returns the number of response packets read on this connection for which the packet pool had to allocate a new buffer.
+     * 
+     * @return Returns the current value per the description.
+     */
+    public long getAllocatedPacketCount() {
+        TDSPacketPool packetPool = (null == tdsChannel) ? null : tdsChannel.getPacketPool();
+        return (null == packetPool) ? 0 : packetPool.getAllocatedCount();
+    }
+
     /**
      * Forces the un-prepare requests for any outstanding discarded prepared statements to be executed.
      */
@@ -5408,6 +5809,542 @@ public class SQLServerConnection implements ISQLServerConnection {
             }
         }
     } 
+
+    /**
+     * Key identifying a server prepared statement handle that can be shared by prepared statements on this connection. Handles are only valid in
+     * the database they were prepared in, so the current database is part of the key. The parameter encryption metadata of the statements is
+     * cached by the same key.
+     */
+    static final class PreparedStatementHandleKey {
+        private final String catalog;
+        private final String preparedSQL;
+        private final String preparedTypeDefinitions;
+        private final int hashCode;
+
+        PreparedStatementHandleKey(String catalog,
+                String preparedSQL,
+                String preparedTypeDefinitions) {
+            this.catalog = catalog;
+            this.preparedSQL = preparedSQL;
+            this.preparedTypeDefinitions = preparedTypeDefinitions;
+
+            int hash = (null == catalog) ? 0 : catalog.hashCode();
+            hash = 31 * hash + preparedSQL.hashCode();
+            hash = 31 * hash + preparedTypeDefinitions.hashCode();
+            this.hashCode = hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof PreparedStatementHandleKey))
+                return false;
+
+            PreparedStatementHandleKey other = (PreparedStatementHandleKey) obj;
+            return hashCode == other.hashCode && preparedSQL.equals(other.preparedSQL)
+                    && preparedTypeDefinitions.equals(other.preparedTypeDefinitions)
+                    && ((null == catalog) ? null == other.catalog : catalog.equals(other.catalog));
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * A server prepared statement handle that is held in the statement pool and shared by the prepared statements that use it.
+     *
+     * Each statement holding the handle holds a reference on it. A handle that has been evicted from the pool is only un-prepared once the last
+     * statement holding it lets go.
+     */
+    static final class PreparedStatementHandle {
+        private final PreparedStatementHandleKey key;
+        private final int handle;
+        private int refCount = 0;
+        private boolean evicted = false;
+
+        PreparedStatementHandle(PreparedStatementHandleKey key,
+                int handle) {
+            this.key = key;
+            this.handle = handle;
+        }
+
+        final PreparedStatementHandleKey getKey() {
+            return key;
+        }
+
+        final int getHandle() {
+            return handle;
+        }
+    }
+
+    /**
+     * LRU map of pooled prepared statement handles. Handles pushed out of the map are un-prepared through the batched discard queue.
+     */
+    private final class PreparedStatementHandleCache extends LinkedHashMap<PreparedStatementHandleKey, PreparedStatementHandle> {
+        private static final long serialVersionUID = 1L;
+
+        PreparedStatementHandleCache() {
+            super(16, 0.75f, true);
+        }
+
+        protected boolean removeEldestEntry(Map.Entry<PreparedStatementHandleKey, PreparedStatementHandle> eldest) {
+            if (size() <= statementPoolingCacheSize)
+                return false;
+
+            evictPreparedStatementHandle(eldest.getValue());
+            return true;
+        }
+    }
+
+    /**
+     * Marks a pooled handle as no longer in the pool, and queues it for un-prepare if no statement is still using it.
+     */
+    private void evictPreparedStatementHandle(PreparedStatementHandle pooledHandle) {
+        if (this.getConnectionLogger().isLoggable(java.util.logging.Level.FINER))
+            this.getConnectionLogger().finer(this + ": Evicting PreparedHandle from statement pool:" + pooledHandle.handle);
+
+        pooledHandle.evicted = true;
+        if (0 == pooledHandle.refCount)
+            enqueuePreparedStatementDiscardItem(pooledHandle.handle, true);
+    }
+
+    /**
+     * Returns whether prepared statement handles are pooled on this connection, i.e. statement pooling is not disabled and the pool size is greater
+     * than 0.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public boolean isStatementPoolingEnabled() {
+        return !disableStatementPooling && 0 < statementPoolingCacheSize;
+    }
+
+    /**
+     * Returns whether statement pooling is disabled for this connection. When statement pooling is enabled, server prepared statement handles
+     * outlive the statements that prepared them and are reused by new prepared statements with the same SQL text and parameter types.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public boolean getDisableStatementPooling() {
+        return disableStatementPooling;
+    }
+
+    /**
+     * Specifies whether statement pooling is disabled for this connection. Disabling statement pooling does not discard handles that are already
+     * pooled; they are reused once statement pooling is enabled again, and released when the connection is closed.
+     * 
+     * @param value
+     *      Changes the setting per the description.
+     */
+    public void setDisableStatementPooling(boolean value) {
+        this.disableStatementPooling = value;
+    }
+
+    /**
+     * Returns whether batches of simple parameterized INSERT statements (INSERT INTO table [(columns)] VALUES (?, ...)) are executed as multi-row
+     * INSERT ... VALUES statements, each inserting as many rows of the batch as SQL Server allows, rather than as one RPC per row.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public boolean getUseMultiRowValuesForBatchInsert() {
+        return useMultiRowValuesForBatchInsert;
+    }
+
+    /**
+     * Specifies whether batches of simple parameterized INSERT statements (INSERT INTO table [(columns)] VALUES (?, ...)) are executed as multi-row
+     * INSERT ... VALUES statements, each inserting as many rows of the batch as SQL Server allows, rather than as one RPC per row. Statements
+     * that do not have this form are batched as usual.
+     * 
+     * @param value
+     *      Changes the setting per the description.
+     */
+    public void setUseMultiRowValuesForBatchInsert(boolean value) {
+        this.useMultiRowValuesForBatchInsert = value;
+    }
+
+    /**
+     * Returns the number of rows above which batches of simple parameterized INSERT statements with a column list (INSERT INTO table (columns)
+     * VALUES (?, ...)) are executed as bulk loads. 0 means batches are never bulk loaded.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getBulkCopyForBatchInsertThreshold() {
+        return bulkCopyForBatchInsertThreshold;
+    }
+
+    /**
+     * Specifies the number of rows above which batches of simple parameterized INSERT statements with a column list (INSERT INTO table (columns)
+     * VALUES (?, ...)) are executed as bulk loads rather than as one RPC per row. The bulk load checks constraints, fires triggers and runs in
+     * the connection's transaction like the INSERT statements would. Batches whose parameter values cannot be bulk loaded, such as streams, are
+     * batched as usual. 0 disables bulk loading of batches.
+     * 
+     * @param value
+     *      Changes the setting per the description.
+     */
+    public void setBulkCopyForBatchInsertThreshold(int value) {
+        this.bulkCopyForBatchInsertThreshold = Math.max(0, value);
+    }
+
+    /**
+     * Returns the number of seconds the column metadata of a bulk copy destination table is cached by this connection. 0 means the metadata is
+     * queried by each bulk copy.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getBulkCopyMetadataCacheTTL() {
+        return bulkCopyMetadataCacheTTL;
+    }
+
+    /**
+     * Specifies the number of seconds the column metadata of a bulk copy destination table, including its collations and column encryption keys,
+     * is cached by this connection. While cached, bulk copies to the table skip the metadata queries that otherwise precede each bulk load. The
+     * metadata of a table is fetched again once the time has passed, after a bulk copy to the table fails, or after
+     * {@link #invalidateBulkCopyMetadata(String)}. 0 disables the cache and discards the metadata cached so far.
+     * 
+     * @param value
+     *      Changes the setting per the description.
+     */
+    public void setBulkCopyMetadataCacheTTL(int value) {
+        this.bulkCopyMetadataCacheTTL = Math.max(0, value);
+        if (0 == bulkCopyMetadataCacheTTL)
+            clearBulkCopyMetadataCache();
+    }
+
+    /**
+     * Returns the number of milliseconds after a response from the server within which {@link #isValid(int)} reports this connection as valid
+     * without querying the server. 0 means isValid always queries the server.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getValidationInterval() {
+        return validationInterval;
+    }
+
+    /**
+     * Specifies the number of milliseconds after a response from the server within which {@link #isValid(int)} reports this connection as valid
+     * without querying the server, as the connection has just been shown to work. 0 makes isValid always query the server.
+     * 
+     * @param value
+     *      Changes the setting per the description.
+     */
+    public void setValidationInterval(int value) {
+        this.validationInterval = Math.max(0, value);
+    }
+
+    /**
+     * Returns the maximum length, in bytes, of a Blob, Clob or NClob value read from the server that is kept in memory. 0 means all values are kept
+     * in memory.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getLobInMemoryLimit() {
+        return lobInMemoryLimit;
+    }
+
+    /**
+     * Specifies the maximum length, in bytes, of a Blob, Clob or NClob value read from the server that is kept in memory. A LOB is read from the
+     * buffered response when a part of it is needed, rather than copied into a single array, so its value stays in the response buffers for as
+     * long as the LOB is used. A longer value is copied to a temporary file when the LOB is retrieved, so that the response can be released; the
+     * file is deleted when the LOB is freed or no longer referenced, or when the connection is closed. 0 keeps all values in memory.
+     * 
+     * @param value
+     *      Changes the setting per the description.
+     */
+    public void setLobInMemoryLimit(int value) {
+        this.lobInMemoryLimit = Math.max(0, value);
+    }
+
+    /**
+     * Returns the maximum number of statements whose parameter encryption metadata is cached by this connection. 0 means the metadata is queried
+     * for each new statement.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getParameterEncryptionMetadataCacheSize() {
+        return parameterEncryptionMetadataCacheSize;
+    }
+
+    /**
+     * Specifies the maximum number of statements whose parameter encryption metadata is cached by this connection. With Always Encrypted, a new
+     * prepared statement queries the server for the encryption of its parameters before its first execution; while the metadata of its SQL text
+     * and parameter types is cached, it skips that round trip. The least recently used metadata is discarded once the cache is full, and the
+     * metadata of a statement is queried again when the server reports that it has changed. Lowering the size discards the least recently used
+     * metadata that no longer fits; 0 disables the cache and discards the metadata cached so far.
+     * 
+     * @param value
+     *      Changes the setting per the description.
+     */
+    public void setParameterEncryptionMetadataCacheSize(int value) {
+        synchronized (parameterEncryptionMetadataCache) {
+            this.parameterEncryptionMetadataCacheSize = Math.max(0, value);
+
+            // Discard the least recently used metadata that no longer fits.
+            Iterator<PreparedStatementHandleKey> keys = parameterEncryptionMetadataCache.keySet().iterator();
+            while (parameterEncryptionMetadataCache.size() > parameterEncryptionMetadataCacheSize) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Discards the cached parameter encryption metadata of all statements, for instance after column encryption keys were rotated.
+     */
+    public void clearParameterEncryptionMetadataCache() {
+        synchronized (parameterEncryptionMetadataCache) {
+            parameterEncryptionMetadataCache.clear();
+        }
+    }
+
+    /**
+     * Returns the cached parameter encryption metadata of the statements with the given key, or null if there is none.
+     */
+    final CryptoMetadata[] getParameterEncryptionMetadata(PreparedStatementHandleKey key) {
+        synchronized (parameterEncryptionMetadataCache) {
+            return parameterEncryptionMetadataCache.get(key);
+        }
+    }
+
+    final void putParameterEncryptionMetadata(PreparedStatementHandleKey key,
+            CryptoMetadata[] cryptoMetadata) {
+        synchronized (parameterEncryptionMetadataCache) {
+            if (0 < parameterEncryptionMetadataCacheSize)
+                parameterEncryptionMetadataCache.put(key, cryptoMetadata);
+        }
+    }
+
+    final void invalidateParameterEncryptionMetadata(PreparedStatementHandleKey key) {
+        synchronized (parameterEncryptionMetadataCache) {
+            parameterEncryptionMetadataCache.remove(key);
+        }
+    }
+
+    /**
+     * Discards the cached bulk copy metadata of a destination table in the current database, for instance after the table was altered.
+     * 
+     * @param destinationTableName
+     *      the name of the table, as given to {@link SQLServerBulkCopy#setDestinationTableName(String)}
+     */
+    public void invalidateBulkCopyMetadata(String destinationTableName) {
+        synchronized (bulkCopyMetadataCache) {
+            bulkCopyMetadataCache.remove(new BulkCopyMetadataKey(sCatalog, destinationTableName));
+        }
+    }
+
+    /**
+     * Discards the cached bulk copy metadata of all destination tables.
+     */
+    public void clearBulkCopyMetadataCache() {
+        synchronized (bulkCopyMetadataCache) {
+            bulkCopyMetadataCache.clear();
+        }
+    }
+
+    /**
+     * Returns the cached metadata of a bulk copy destination table in the current database, or null if there is none or it has expired.
+     */
+    final SQLServerBulkCopy.DestinationMetadata getBulkCopyMetadata(String destinationTableName) {
+        BulkCopyMetadataKey key = new BulkCopyMetadataKey(sCatalog, destinationTableName);
+        synchronized (bulkCopyMetadataCache) {
+            SQLServerBulkCopy.DestinationMetadata metadata = bulkCopyMetadataCache.get(key);
+            if (null == metadata)
+                return null;
+
+            if (metadata.isExpired()) {
+                bulkCopyMetadataCache.remove(key);
+                return null;
+            }
+            return metadata;
+        }
+    }
+
+    final void putBulkCopyMetadata(String destinationTableName,
+            int columnCount,
+            Map<Integer, SQLServerBulkCopy.BulkColumnMetaData> columnMetadata,
+            CekTable cekTable) {
+        long expiryTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(bulkCopyMetadataCacheTTL);
+        synchronized (bulkCopyMetadataCache) {
+            bulkCopyMetadataCache.put(new BulkCopyMetadataKey(sCatalog, destinationTableName),
+                    new SQLServerBulkCopy.DestinationMetadata(columnCount, columnMetadata, cekTable, expiryTime));
+        }
+    }
+
+    /**
+     * Key of the cached metadata of a bulk copy destination table. An unqualified table name refers to a different table in each database, so the
+     * current database is part of the key.
+     */
+    static final class BulkCopyMetadataKey {
+        private final String catalog;
+        private final String destinationTableName;
+        private final int hashCode;
+
+        BulkCopyMetadataKey(String catalog,
+                String destinationTableName) {
+            this.catalog = catalog;
+            this.destinationTableName = destinationTableName;
+            this.hashCode = 31 * ((null == catalog) ? 0 : catalog.hashCode()) + destinationTableName.hashCode();
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof BulkCopyMetadataKey))
+                return false;
+
+            BulkCopyMetadataKey other = (BulkCopyMetadataKey) obj;
+            return hashCode == other.hashCode && destinationTableName.equals(other.destinationTableName)
+                    && ((null == catalog) ? null == other.catalog : catalog.equals(other.catalog));
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * The initial default on application start-up for the number of prepared statement handles pooled per connection.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    static public int getInitialDefaultStatementPoolingCacheSize() {
+        return INITIAL_DEFAULT_STATEMENT_POOLING_CACHE_SIZE;
+    }
+
+    /**
+     * Returns the maximum number of prepared statement handles pooled by this connection. Once the pool is full, the least recently used handle
+     * is queued for un-prepare (see getServerPreparedStatementDiscardThreshold()).
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getStatementPoolingCacheSize() {
+        return statementPoolingCacheSize;
+    }
+
+    /**
+     * Specifies the maximum number of prepared statement handles pooled by this connection. Shrinking the pool evicts the least recently used
+     * handles immediately.
+     * 
+     * @param value
+     *      Changes the setting per the description.
+     */
+    public void setStatementPoolingCacheSize(int value) {
+        synchronized (preparedStatementHandleCache) {
+            this.statementPoolingCacheSize = Math.max(0, value);
+
+            Iterator<PreparedStatementHandle> handles = preparedStatementHandleCache.values().iterator();
+            while (preparedStatementHandleCache.size() > statementPoolingCacheSize && handles.hasNext()) {
+                evictPreparedStatementHandle(handles.next());
+                handles.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of prepared statement handles currently pooled by this connection.
+     * 
+     * @return Returns the current value per the description.
+     */
+    public int getStatementHandleCacheEntryCount() {
+        synchronized (preparedStatementHandleCache) {
+            return preparedStatementHandleCache.size();
+        }
+    }
+
+    /**
+     * Looks up a pooled prepared statement handle and, if found, takes a reference on it on behalf of a statement.
+     * 
+     * @return the pooled handle, or null if none is pooled for the key.
+     */
+    final PreparedStatementHandle borrowCachedPreparedStatementHandle(PreparedStatementHandleKey key) {
+        synchronized (preparedStatementHandleCache) {
+            PreparedStatementHandle pooledHandle = preparedStatementHandleCache.get(key);
+            if (null != pooledHandle)
+                ++pooledHandle.refCount;
+            return pooledHandle;
+        }
+    }
+
+    /**
+     * Adds a newly prepared handle to the statement pool and takes a reference on it on behalf of the statement that prepared it.
+     * 
+     * @return the pooled handle, or null if the pool already holds a handle for the key; the caller then keeps the handle to itself.
+     */
+    final PreparedStatementHandle cachePreparedStatementHandle(PreparedStatementHandleKey key,
+            int handle) {
+        synchronized (preparedStatementHandleCache) {
+            if (preparedStatementHandleCache.containsKey(key))
+                return null;
+
+            PreparedStatementHandle pooledHandle = new PreparedStatementHandle(key, handle);
+            pooledHandle.refCount = 1;
+            preparedStatementHandleCache.put(key, pooledHandle);
+            return pooledHandle;
+        }
+    }
+
+    /**
+     * Releases a statement's reference on a pooled handle. The handle is queued for un-prepare if it has been evicted and was the last reference.
+     */
+    final void returnCachedPreparedStatementHandle(PreparedStatementHandle pooledHandle) {
+        synchronized (preparedStatementHandleCache) {
+            assert 0 < pooledHandle.refCount;
+            if (0 == --pooledHandle.refCount && pooledHandle.evicted)
+                enqueuePreparedStatementDiscardItem(pooledHandle.handle, true);
+        }
+    }
+
+    /**
+     * Removes a pooled handle that the server reported as no longer valid (e.g. because session settings it depends on changed). The handle is
+     * not un-prepared.
+     */
+    final void invalidateCachedPreparedStatementHandle(PreparedStatementHandle pooledHandle) {
+        synchronized (preparedStatementHandleCache) {
+            if (preparedStatementHandleCache.get(pooledHandle.key) == pooledHandle)
+                preparedStatementHandleCache.remove(pooledHandle.key);
+
+            // Prevent the handle from being un-prepared when its last reference goes away.
+            pooledHandle.evicted = false;
+        }
+    }
+
+    /**
+     * Remove all pooled prepared statement handles. Should be run when connection is closed.
+     */
+    private void clearCachedPreparedStatementHandles() {
+        synchronized (preparedStatementHandleCache) {
+            for (PreparedStatementHandle pooledHandle : preparedStatementHandleCache.values())
+                pooledHandle.evicted = false;
+            preparedStatementHandleCache.clear();
+        }
+    }
+}
+
+/**
+ * SQL text after JDBC syntax translation, along with the information the driver extracts from it while parsing. Instances are immutable and shared
+ * by all statements that use the same SQL text.
+ */
+final class ParsedSQLCacheItem {
+    /** The SQL text with JDBC call syntax translated to T-SQL EXECUTE syntax */
+    final String processedSQL;
+
+    /** The offsets of the parameter markers in processedSQL */
+    final int[] parameterPositions;
+
+    /** The name of the stored procedure called, or null if the SQL is not a stored procedure call */
+    final String procedureName;
+
+    /** True if the SQL is a stored procedure call that expects a return value */
+    final boolean bReturnValueSyntax;
+
+    ParsedSQLCacheItem(String processedSQL,
+            int[] parameterPositions,
+            String procedureName,
+            boolean bReturnValueSyntax) {
+        this.processedSQL = processedSQL;
+        this.parameterPositions = parameterPositions;
+        this.procedureName = procedureName;
+        this.bReturnValueSyntax = bReturnValueSyntax;
+    }
 }
 
 // Helper class for security manager functions used by SQLServerConnection class.
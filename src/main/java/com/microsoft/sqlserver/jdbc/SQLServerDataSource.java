@@ -36,7 +36,7 @@ public class SQLServerDataSource implements ISQLServerDataSource, DataSource, ja
     private boolean trustStorePasswordStripped = false;
     private static final long serialVersionUID = 654861379544314296L;
 
-    private Properties connectionProps;			// Properties passed to SQLServerConnection class.
+    Properties connectionProps;			// Properties passed to SQLServerConnection class.
     private String dataSourceURL;				// URL for datasource.
     private String dataSourceDescription;		// Description for datasource.
     static private final AtomicInteger baseDataSourceID = new AtomicInteger(0);	// Unique id generator for each DataSource instance (used for
@@ -713,6 +713,217 @@ public class SQLServerDataSource implements ISQLServerDataSource, DataSource, ja
                 SQLServerConnection.getDefaultServerPreparedStatementDiscardThreshold());
     }
 
+    /**
+     * Specifies whether statement pooling is disabled. When statement pooling is enabled, server prepared statement handles are pooled per
+     * connection and reused by new prepared statements with the same SQL text and parameter types. Statement pooling is disabled by default.
+     * 
+     * @param disableStatementPooling
+     *      Changes the setting per the description.
+     */
+    public void setDisableStatementPooling(boolean disableStatementPooling) {
+        setBooleanProperty(connectionProps, SQLServerDriverBooleanProperty.DISABLE_STATEMENT_POOLING.toString(), disableStatementPooling);
+    }
+
+    /**
+     * Returns whether statement pooling is disabled.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public boolean getDisableStatementPooling() {
+        return getBooleanProperty(connectionProps, SQLServerDriverBooleanProperty.DISABLE_STATEMENT_POOLING.toString(),
+                SQLServerDriverBooleanProperty.DISABLE_STATEMENT_POOLING.getDefaultValue());
+    }
+
+    /**
+     * Sets the maximum number of prepared statement handles pooled per connection when statement pooling is enabled.
+     * 
+     * @param statementPoolingCacheSize
+     *      Changes the setting per the description.
+     */
+    public void setStatementPoolingCacheSize(int statementPoolingCacheSize) {
+        setIntProperty(connectionProps, SQLServerDriverIntProperty.STATEMENT_POOLING_CACHE_SIZE.toString(), statementPoolingCacheSize);
+    }
+
+    /**
+     * Returns the maximum number of prepared statement handles pooled per connection when statement pooling is enabled.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getStatementPoolingCacheSize() {
+        return getIntProperty(connectionProps, SQLServerDriverIntProperty.STATEMENT_POOLING_CACHE_SIZE.toString(),
+                SQLServerDriverIntProperty.STATEMENT_POOLING_CACHE_SIZE.getDefaultValue());
+    }
+
+    /**
+     * Specifies whether batches of simple parameterized INSERT statements are executed as multi-row INSERT ... VALUES statements rather than as
+     * one RPC per row.
+     * 
+     * @param useMultiRowValuesForBatchInsert
+     *      Changes the setting per the description.
+     */
+    public void setUseMultiRowValuesForBatchInsert(boolean useMultiRowValuesForBatchInsert) {
+        setBooleanProperty(connectionProps, SQLServerDriverBooleanProperty.USE_MULTI_ROW_VALUES_FOR_BATCH_INSERT.toString(),
+                useMultiRowValuesForBatchInsert);
+    }
+
+    /**
+     * Returns whether batches of simple parameterized INSERT statements are executed as multi-row INSERT ... VALUES statements.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public boolean getUseMultiRowValuesForBatchInsert() {
+        return getBooleanProperty(connectionProps, SQLServerDriverBooleanProperty.USE_MULTI_ROW_VALUES_FOR_BATCH_INSERT.toString(),
+                SQLServerDriverBooleanProperty.USE_MULTI_ROW_VALUES_FOR_BATCH_INSERT.getDefaultValue());
+    }
+
+    /**
+     * Sets the number of rows above which batches of simple parameterized INSERT statements with a column list are executed as bulk loads
+     * rather than as one RPC per row. 0 disables bulk loading of batches.
+     * 
+     * @param bulkCopyForBatchInsertThreshold
+     *      Changes the setting per the description.
+     */
+    public void setBulkCopyForBatchInsertThreshold(int bulkCopyForBatchInsertThreshold) {
+        setIntProperty(connectionProps, SQLServerDriverIntProperty.BULK_COPY_FOR_BATCH_INSERT_THRESHOLD.toString(), bulkCopyForBatchInsertThreshold);
+    }
+
+    /**
+     * Returns the number of rows above which batches of simple parameterized INSERT statements are executed as bulk loads.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getBulkCopyForBatchInsertThreshold() {
+        return getIntProperty(connectionProps, SQLServerDriverIntProperty.BULK_COPY_FOR_BATCH_INSERT_THRESHOLD.toString(),
+                SQLServerDriverIntProperty.BULK_COPY_FOR_BATCH_INSERT_THRESHOLD.getDefaultValue());
+    }
+
+    /**
+     * Sets the number of seconds the column metadata of a bulk copy destination table is cached by each connection. 0 disables the cache.
+     * 
+     * @param bulkCopyMetadataCacheTTL
+     *      Changes the setting per the description.
+     */
+    public void setBulkCopyMetadataCacheTTL(int bulkCopyMetadataCacheTTL) {
+        setIntProperty(connectionProps, SQLServerDriverIntProperty.BULK_COPY_METADATA_CACHE_TTL.toString(), bulkCopyMetadataCacheTTL);
+    }
+
+    /**
+     * Returns the number of seconds the column metadata of a bulk copy destination table is cached by each connection.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getBulkCopyMetadataCacheTTL() {
+        return getIntProperty(connectionProps, SQLServerDriverIntProperty.BULK_COPY_METADATA_CACHE_TTL.toString(),
+                SQLServerDriverIntProperty.BULK_COPY_METADATA_CACHE_TTL.getDefaultValue());
+    }
+
+    /**
+     * Sets the number of milliseconds after a response from the server within which isValid reports a connection as valid without querying the
+     * server. 0 makes isValid always query the server.
+     * 
+     * @param validationInterval
+     *      Changes the setting per the description.
+     */
+    public void setValidationInterval(int validationInterval) {
+        setIntProperty(connectionProps, SQLServerDriverIntProperty.VALIDATION_INTERVAL.toString(), validationInterval);
+    }
+
+    /**
+     * Returns the number of milliseconds after a response from the server within which isValid reports a connection as valid without querying the
+     * server.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getValidationInterval() {
+        return getIntProperty(connectionProps, SQLServerDriverIntProperty.VALIDATION_INTERVAL.toString(),
+                SQLServerDriverIntProperty.VALIDATION_INTERVAL.getDefaultValue());
+    }
+
+    /**
+     * Sets the maximum number of statements whose parameter encryption metadata is cached by each connection, so that Always Encrypted statements
+     * with the same SQL text and parameter types do not query it again. 0 disables the cache.
+     * 
+     * @param parameterEncryptionMetadataCacheSize
+     *      Changes the setting per the description.
+     */
+    public void setParameterEncryptionMetadataCacheSize(int parameterEncryptionMetadataCacheSize) {
+        setIntProperty(connectionProps, SQLServerDriverIntProperty.PARAMETER_ENCRYPTION_METADATA_CACHE_SIZE.toString(),
+                parameterEncryptionMetadataCacheSize);
+    }
+
+    /**
+     * Returns the maximum number of statements whose parameter encryption metadata is cached by each connection.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getParameterEncryptionMetadataCacheSize() {
+        return getIntProperty(connectionProps, SQLServerDriverIntProperty.PARAMETER_ENCRYPTION_METADATA_CACHE_SIZE.toString(),
+                SQLServerDriverIntProperty.PARAMETER_ENCRYPTION_METADATA_CACHE_SIZE.getDefaultValue());
+    }
+
+    /**
+     * Sets the maximum length, in bytes, of a Blob, Clob or NClob value read from the server that is kept in memory. Longer values are copied to a
+     * temporary file when the LOB is retrieved. A value of 0 (the default) keeps all values in memory.
+     * 
+     * @param lobInMemoryLimit
+     *      Changes the setting per the description.
+     */
+    public void setLobInMemoryLimit(int lobInMemoryLimit) {
+        setIntProperty(connectionProps, SQLServerDriverIntProperty.LOB_IN_MEMORY_LIMIT.toString(), lobInMemoryLimit);
+    }
+
+    /**
+     * Returns the maximum length, in bytes, of a Blob, Clob or NClob value read from the server that is kept in memory.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getLobInMemoryLimit() {
+        return getIntProperty(connectionProps, SQLServerDriverIntProperty.LOB_IN_MEMORY_LIMIT.toString(),
+                SQLServerDriverIntProperty.LOB_IN_MEMORY_LIMIT.getDefaultValue());
+    }
+
+    /**
+     * Sets the maximum number of response packet buffers that each connection recycles instead of allocating a new buffer for every packet it
+     * reads. A value of 0 (the default) disables packet pooling.
+     * 
+     * @param packetPoolSize
+     *      Changes the setting per the description.
+     */
+    public void setPacketPoolSize(int packetPoolSize) {
+        setIntProperty(connectionProps, SQLServerDriverIntProperty.PACKET_POOL_SIZE.toString(), packetPoolSize);
+    }
+
+    /**
+     * Returns the maximum number of response packet buffers that each connection recycles. A value of 0 means packet pooling is disabled.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public int getPacketPoolSize() {
+        return getIntProperty(connectionProps, SQLServerDriverIntProperty.PACKET_POOL_SIZE.toString(),
+                SQLServerDriverIntProperty.PACKET_POOL_SIZE.getDefaultValue());
+    }
+
+    /**
+     * Sets whether connections communicate with the server over a java.nio SocketChannel with pooled direct buffers, using an SSLEngine for
+     * encryption, rather than over socket streams.
+     * 
+     * @param useSocketChannel
+     *      Changes the setting per the description.
+     */
+    public void setUseSocketChannel(boolean useSocketChannel) {
+        setBooleanProperty(connectionProps, SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.toString(), useSocketChannel);
+    }
+
+    /**
+     * Returns whether connections communicate with the server over a java.nio SocketChannel.
+     * 
+     * @return Returns the current setting per the description.
+     */
+    public boolean getUseSocketChannel() {
+        return getBooleanProperty(connectionProps, SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.toString(),
+                SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.getDefaultValue());
+    }
+
     public void setSocketTimeout(int socketTimeout) {
         setIntProperty(connectionProps, SQLServerDriverIntProperty.SOCKET_TIMEOUT.toString(), socketTimeout);
     }
@@ -776,7 +987,7 @@ public class SQLServerDataSource implements ISQLServerDataSource, DataSource, ja
 
     // Set an integer property value.
     // Caller will always supply a non-null props and propKey.
-    private void setIntProperty(Properties props,
+    void setIntProperty(Properties props,
             String propKey,
             int propValue) {
         if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
@@ -788,7 +999,7 @@ public class SQLServerDataSource implements ISQLServerDataSource, DataSource, ja
     // Reads a property value in int format.
     // Caller will always supply a non-null props and propKey.
     // Returns defaultValue if the specific property value is not set.
-    private int getIntProperty(Properties props,
+    int getIntProperty(Properties props,
             String propKey,
             int defaultValue) {
         if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
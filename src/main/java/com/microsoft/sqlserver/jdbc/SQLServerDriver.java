@@ -271,6 +271,13 @@ enum SQLServerDriverIntProperty {
 	QUERY_TIMEOUT  ("queryTimeout",    -1),
 	PORT_NUMBER    ("portNumber",      1433),
 	SOCKET_TIMEOUT ("socketTimeout",   0),
+	PACKET_POOL_SIZE ("packetPoolSize", 0),
+	STATEMENT_POOLING_CACHE_SIZE ("statementPoolingCacheSize", SQLServerConnection.getInitialDefaultStatementPoolingCacheSize()),
+	BULK_COPY_FOR_BATCH_INSERT_THRESHOLD ("bulkCopyForBatchInsertThreshold", 0),
+	BULK_COPY_METADATA_CACHE_TTL ("bulkCopyMetadataCacheTTL", 0),
+	VALIDATION_INTERVAL ("validationInterval", 0),
+	PARAMETER_ENCRYPTION_METADATA_CACHE_SIZE ("parameterEncryptionMetadataCacheSize", 100),
+	LOB_IN_MEMORY_LIMIT ("lobInMemoryLimit", 0),
     SERVER_PREPARED_STATEMENT_DISCARD_THRESHOLD("serverPreparedStatementDiscardThreshold", -1/*This is not the default, default handled in SQLServerConnection and is not final/const*/);  
     
     private String name;
@@ -305,7 +312,9 @@ enum SQLServerDriverBooleanProperty
 	TRUST_SERVER_CERTIFICATE                  ("trustServerCertificate",                    false),
 	XOPEN_STATES                              ("xopenStates",                               false),
 	FIPS                                      ("fips",                                      false),
-	ENABLE_PREPARE_ON_FIRST_PREPARED_STATEMENT("enablePrepareOnFirstPreparedStatementCall", false/*This is not the default, default handled in SQLServerConnection and is not final/const*/);
+	ENABLE_PREPARE_ON_FIRST_PREPARED_STATEMENT("enablePrepareOnFirstPreparedStatementCall", false/*This is not the default, default handled in SQLServerConnection and is not final/const*/),
+	USE_MULTI_ROW_VALUES_FOR_BATCH_INSERT     ("useMultiRowValuesForBatchInsert",           false),
+	USE_SOCKET_CHANNEL                        ("useSocketChannel",                          false);
 
     private String name;
     private boolean defaultValue;
@@ -338,7 +347,7 @@ public final class SQLServerDriver implements java.sql.Driver {
         new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.APPLICATION_NAME.toString(),    					      SQLServerDriverStringProperty.APPLICATION_NAME.getDefaultValue(), 									  false,		null),
         new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.COLUMN_ENCRYPTION.toString(),            			      SQLServerDriverStringProperty.COLUMN_ENCRYPTION.getDefaultValue(),       							      false,      new String[] {ColumnEncryptionSetting.Disabled.toString(), ColumnEncryptionSetting.Enabled.toString()}),
         new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.DATABASE_NAME.toString(),       					      SQLServerDriverStringProperty.DATABASE_NAME.getDefaultValue(),       								      false,    	null),                        
-        new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.DISABLE_STATEMENT_POOLING.toString(), 			      Boolean.toString(SQLServerDriverBooleanProperty.DISABLE_STATEMENT_POOLING.getDefaultValue()),       	  false,      new String[] {"true"}),
+        new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.DISABLE_STATEMENT_POOLING.toString(), 			      Boolean.toString(SQLServerDriverBooleanProperty.DISABLE_STATEMENT_POOLING.getDefaultValue()),       	  false,      TRUE_FALSE),
         new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.ENCRYPT.toString(),                      		      Boolean.toString(SQLServerDriverBooleanProperty.ENCRYPT.getDefaultValue()),        					  false,      TRUE_FALSE),
         new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.FAILOVER_PARTNER.toString(),              		      SQLServerDriverStringProperty.FAILOVER_PARTNER.getDefaultValue(),           							  false,      null),
         new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.HOSTNAME_IN_CERTIFICATE.toString(),       		      SQLServerDriverStringProperty.HOSTNAME_IN_CERTIFICATE.getDefaultValue(),           					  false,      null),
@@ -352,6 +361,8 @@ public final class SQLServerDriver implements java.sql.Driver {
         new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.LOGIN_TIMEOUT.toString(),                  			      Integer.toString(SQLServerDriverIntProperty.LOGIN_TIMEOUT.getDefaultValue()),         				  false,      null),
         new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.MULTI_SUBNET_FAILOVER.toString(),            	      Boolean.toString(SQLServerDriverBooleanProperty.MULTI_SUBNET_FAILOVER.getDefaultValue()),       		  false,      TRUE_FALSE),        
         new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.PACKET_SIZE.toString(),                    			      Integer.toString(SQLServerDriverIntProperty.PACKET_SIZE.getDefaultValue()), 							  false, 		null),
+        new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.PACKET_POOL_SIZE.toString(),                               Integer.toString(SQLServerDriverIntProperty.PACKET_POOL_SIZE.getDefaultValue()),                        false,      null),
+        new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.toString(),                         Boolean.toString(SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.getDefaultValue()),                  false,      TRUE_FALSE),
         new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.PASSWORD.toString(),                      		      SQLServerDriverStringProperty.PASSWORD.getDefaultValue(),           									  true,       null),
         new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.PORT_NUMBER.toString(),                    			      Integer.toString(SQLServerDriverIntProperty.PORT_NUMBER.getDefaultValue()),       					  false,      null),
         new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.QUERY_TIMEOUT.toString(),                                  Integer.toString(SQLServerDriverIntProperty.QUERY_TIMEOUT.getDefaultValue()),                           false,      null),
@@ -377,6 +388,13 @@ public final class SQLServerDriver implements java.sql.Driver {
         new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.FIPS.toString(),                                       Boolean.toString(SQLServerDriverBooleanProperty.FIPS.getDefaultValue()),                          	  false,      TRUE_FALSE),
         new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.ENABLE_PREPARE_ON_FIRST_PREPARED_STATEMENT.toString(), Boolean.toString(SQLServerConnection.getDefaultEnablePrepareOnFirstPreparedStatementCall()),      	  false,      TRUE_FALSE),
         new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.SERVER_PREPARED_STATEMENT_DISCARD_THRESHOLD.toString(),    Integer.toString(SQLServerConnection.getDefaultServerPreparedStatementDiscardThreshold()),        	  false,      null),
+        new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.STATEMENT_POOLING_CACHE_SIZE.toString(),                   Integer.toString(SQLServerDriverIntProperty.STATEMENT_POOLING_CACHE_SIZE.getDefaultValue()),            false,      null),
+        new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.USE_MULTI_ROW_VALUES_FOR_BATCH_INSERT.toString(),      Boolean.toString(SQLServerDriverBooleanProperty.USE_MULTI_ROW_VALUES_FOR_BATCH_INSERT.getDefaultValue()), false,    TRUE_FALSE),
+        new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.BULK_COPY_FOR_BATCH_INSERT_THRESHOLD.toString(),           Integer.toString(SQLServerDriverIntProperty.BULK_COPY_FOR_BATCH_INSERT_THRESHOLD.getDefaultValue()),    false,      null),
+        new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.BULK_COPY_METADATA_CACHE_TTL.toString(),                   Integer.toString(SQLServerDriverIntProperty.BULK_COPY_METADATA_CACHE_TTL.getDefaultValue()),            false,      null),
+        new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.VALIDATION_INTERVAL.toString(),                            Integer.toString(SQLServerDriverIntProperty.VALIDATION_INTERVAL.getDefaultValue()),                     false,      null),
+        new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.PARAMETER_ENCRYPTION_METADATA_CACHE_SIZE.toString(),       Integer.toString(SQLServerDriverIntProperty.PARAMETER_ENCRYPTION_METADATA_CACHE_SIZE.getDefaultValue()), false,      null),
+        new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.LOB_IN_MEMORY_LIMIT.toString(),                            Integer.toString(SQLServerDriverIntProperty.LOB_IN_MEMORY_LIMIT.getDefaultValue()),                     false,      null),
     };
 
     // Properties that can only be set by using Properties.
@@ -32,4 +32,25 @@ abstract class SQLServerEncryptionAlgorithm {
      * @return plain text after decryption
      */
     abstract byte[] decryptData(byte[] cipherText) throws SQLServerException;
+
+    /**
+     * Decrypt cipher text to plain text in the given buffer
+     * 
+     * @param cipherText
+     *            buffer of the data to be decrypted
+     * @param offset
+     *            offset of the data in the buffer
+     * @param length
+     *            length of the data
+     * @param plainText
+     *            buffer to decrypt into, with room for at least length bytes from plainTextOffset
+     * @param plainTextOffset
+     *            offset in the buffer to decrypt into
+     * @return length of the plain text
+     */
+    abstract int decryptData(byte[] cipherText,
+            int offset,
+            int length,
+            byte[] plainText,
+            int plainTextOffset) throws SQLServerException;
 }
@@ -0,0 +1,833 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * Bulk loads a SQL Server table over several connections at once. <br>
+ * <br>
+ * The rows of the source are read on the calling thread and handed out in chunks to a number of bulk copy sessions, each running an INSERT BULK
+ * on its own connection and thread, so that a large load is not limited to the throughput of one connection. Each session loads the chunks it
+ * takes in one bulk load, in batches of the batch size of the SQLServerBulkCopyOptions. A source that is split into partitions, such as a CSV file
+ * split with SQLServerBulkCSVFileRecord.getPartitions, is instead read by the sessions themselves, so that reading the rows is not limited to one
+ * thread either. <br>
+ * <br>
+ * The sessions run in separate transactions, so a failed load leaves the rows of the sessions that completed, and of the batches committed by
+ * the others. To load a heap with the TableLock option, which makes the load minimally logged, the sessions take bulk update locks, which are
+ * compatible with each other; on a table with a clustered index the TableLock option serializes the sessions.
+ */
+public class SQLServerParallelBulkCopy {
+    /*
+     * Class name for logging.
+     */
+    private static final String loggerClassName = "com.microsoft.sqlserver.jdbc.SQLServerParallelBulkCopy";
+
+    /*
+     * Logger
+     */
+    private static final java.util.logging.Logger loggerExternal = java.util.logging.Logger.getLogger(loggerClassName);
+
+    private static final String threadGroupName = "mssql-jdbc-ParallelBulkCopy";
+
+    private static final int DEFAULT_CHUNK_SIZE = 5000;
+
+    // How long a waiting producer or session sleeps before checking whether the load was aborted.
+    private static final long ABORT_CHECK_INTERVAL_MILLIS = 100;
+
+    // Queued after the last chunk, once for each session.
+    private static final Object[][] END_OF_DATA = new Object[0][];
+
+    /*
+     * A column mapping to apply to each session. The source and destination are a String name or an Integer ordinal.
+     */
+    private static final class ColumnMapping {
+        final Object source;
+        final Object destination;
+
+        ColumnMapping(Object source,
+                Object destination) {
+            this.source = source;
+            this.destination = destination;
+        }
+    }
+
+    private final String connectionUrl;
+    private final DataSource dataSource;
+    private final int degreeOfParallelism;
+
+    private final List<ColumnMapping> columnMappings = new LinkedList<ColumnMapping>();
+    private String destinationTableName;
+    private SQLServerBulkCopyOptions copyOptions = new SQLServerBulkCopyOptions();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private long rowsCopied;
+
+    // Set once a session or the source fails, to stop the others.
+    private volatile boolean aborted;
+
+    /**
+     * Initializes a new instance of the SQLServerParallelBulkCopy class that opens its connections with a connection string.
+     *
+     * @param connectionUrl
+     *            Connection string for the destination server.
+     * @param degreeOfParallelism
+     *            The number of connections to load the table over.
+     * @throws SQLServerException
+     *             If the connection string is empty or the degree of parallelism is not positive.
+     */
+    public SQLServerParallelBulkCopy(String connectionUrl,
+            int degreeOfParallelism) throws SQLServerException {
+        if ((connectionUrl == null) || connectionUrl.trim().equals("")) {
+            throw new SQLServerException(null, SQLServerException.getErrString("R_nullConnection"), null, 0, false);
+        }
+        if (0 >= degreeOfParallelism) {
+            throwInvalidArgument("degreeOfParallelism");
+        }
+
+        this.connectionUrl = connectionUrl;
+        this.dataSource = null;
+        this.degreeOfParallelism = degreeOfParallelism;
+    }
+
+    /**
+     * Initializes a new instance of the SQLServerParallelBulkCopy class that opens its connections from a data source.
+     *
+     * @param dataSource
+     *            Data source for the destination server. Its connections must be from the Microsoft JDBC driver for SQL Server.
+     * @param degreeOfParallelism
+     *            The number of connections to load the table over.
+     * @throws SQLServerException
+     *             If the data source is null or the degree of parallelism is not positive.
+     */
+    public SQLServerParallelBulkCopy(DataSource dataSource,
+            int degreeOfParallelism) throws SQLServerException {
+        if (null == dataSource) {
+            throwInvalidArgument("dataSource");
+        }
+        if (0 >= degreeOfParallelism) {
+            throwInvalidArgument("degreeOfParallelism");
+        }
+
+        this.connectionUrl = null;
+        this.dataSource = dataSource;
+        this.degreeOfParallelism = degreeOfParallelism;
+    }
+
+    /**
+     * Adds a new column mapping, using ordinals to specify both the source and destination columns.
+     *
+     * @param sourceColumn
+     *            Source column ordinal.
+     * @param destinationColumn
+     *            Destination column ordinal.
+     * @throws SQLServerException
+     *             If the column mapping is invalid
+     */
+    public void addColumnMapping(int sourceColumn,
+            int destinationColumn) throws SQLServerException {
+        if (0 >= sourceColumn) {
+            throwInvalidArgument("sourceColumn");
+        }
+        else if (0 >= destinationColumn) {
+            throwInvalidArgument("destinationColumn");
+        }
+        columnMappings.add(new ColumnMapping(sourceColumn, destinationColumn));
+    }
+
+    /**
+     * Adds a new column mapping, using an ordinal for the source column and a string for the destination column.
+     *
+     * @param sourceColumn
+     *            Source column ordinal.
+     * @param destinationColumn
+     *            Destination column name.
+     * @throws SQLServerException
+     *             If the column mapping is invalid
+     */
+    public void addColumnMapping(int sourceColumn,
+            String destinationColumn) throws SQLServerException {
+        if (0 >= sourceColumn) {
+            throwInvalidArgument("sourceColumn");
+        }
+        else if (null == destinationColumn || destinationColumn.isEmpty()) {
+            throwInvalidArgument("destinationColumn");
+        }
+        columnMappings.add(new ColumnMapping(sourceColumn, destinationColumn));
+    }
+
+    /**
+     * Adds a new column mapping, using a column name to describe the source column and an ordinal to specify the destination column.
+     *
+     * @param sourceColumn
+     *            Source column name.
+     * @param destinationColumn
+     *            Destination column ordinal.
+     * @throws SQLServerException
+     *             If the column mapping is invalid
+     */
+    public void addColumnMapping(String sourceColumn,
+            int destinationColumn) throws SQLServerException {
+        if (0 >= destinationColumn) {
+            throwInvalidArgument("destinationColumn");
+        }
+        else if (null == sourceColumn || sourceColumn.isEmpty()) {
+            throwInvalidArgument("sourceColumn");
+        }
+        columnMappings.add(new ColumnMapping(sourceColumn, destinationColumn));
+    }
+
+    /**
+     * Adds a new column mapping, using column names to specify both source and destination columns.
+     *
+     * @param sourceColumn
+     *            Source column name.
+     * @param destinationColumn
+     *            Destination column name.
+     * @throws SQLServerException
+     *             If the column mapping is invalid
+     */
+    public void addColumnMapping(String sourceColumn,
+            String destinationColumn) throws SQLServerException {
+        if (null == sourceColumn || sourceColumn.isEmpty()) {
+            throwInvalidArgument("sourceColumn");
+        }
+        else if (null == destinationColumn || destinationColumn.isEmpty()) {
+            throwInvalidArgument("destinationColumn");
+        }
+        columnMappings.add(new ColumnMapping(sourceColumn, destinationColumn));
+    }
+
+    /**
+     * Clears the contents of the column mappings
+     */
+    public void clearColumnMappings() {
+        columnMappings.clear();
+    }
+
+    /**
+     * Gets the name of the destination table on the server.
+     *
+     * @return Destination table name.
+     */
+    public String getDestinationTableName() {
+        return destinationTableName;
+    }
+
+    /**
+     * Sets the name of the destination table on the server.
+     *
+     * @param tableName
+     *            Destination table name.
+     * @throws SQLServerException
+     *             If the table name is null
+     */
+    public void setDestinationTableName(String tableName) throws SQLServerException {
+        if (null == tableName || 0 == tableName.trim().length()) {
+            throwInvalidArgument("tableName");
+        }
+
+        destinationTableName = tableName.trim();
+    }
+
+    /**
+     * Gets the SQLServerBulkCopyOptions of each bulk copy session.
+     *
+     * @return Current SQLServerBulkCopyOptions settings.
+     */
+    public SQLServerBulkCopyOptions getBulkCopyOptions() {
+        return copyOptions;
+    }
+
+    /**
+     * Sets the SQLServerBulkCopyOptions of each bulk copy session, if the supplied options are not null. As the sessions own their connections,
+     * the UseInternalTransaction option can be set.
+     *
+     * @param copyOptions
+     *            Settings to change how the WriteToServer methods behave.
+     */
+    public void setBulkCopyOptions(SQLServerBulkCopyOptions copyOptions) {
+        if (null != copyOptions) {
+            this.copyOptions = copyOptions;
+        }
+    }
+
+    /**
+     * Gets the number of source rows handed to a bulk copy session at a time.
+     *
+     * @return The chunk size.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the number of source rows handed to a bulk copy session at a time. Larger chunks lower the cost of handing out rows, smaller chunks
+     * spread the rows more evenly over the sessions and buffer fewer rows in memory.
+     *
+     * @param chunkSize
+     *            The chunk size.
+     * @throws SQLServerException
+     *             If the chunk size is not positive.
+     */
+    public void setChunkSize(int chunkSize) throws SQLServerException {
+        if (0 >= chunkSize) {
+            throwInvalidArgument("chunkSize");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Gets the number of rows copied by the last call to writeToServer. If the load failed, only the rows of the sessions that completed are
+     * counted.
+     *
+     * @return The number of rows copied.
+     */
+    public long getRowsCopied() {
+        return rowsCopied;
+    }
+
+    /**
+     * Copies all rows in the supplied ResultSet to the destination table over the connections of this SQLServerParallelBulkCopy.
+     *
+     * @param sourceData
+     *            ResultSet to read data rows from.
+     * @throws SQLServerException
+     *             If there are any issues encountered when performing the bulk copy operation. If several sessions fail, the failures of the
+     *             others are suppressed by the first one.
+     */
+    public void writeToServer(ResultSet sourceData) throws SQLServerException {
+        if (null == sourceData) {
+            throwInvalidArgument("sourceData");
+        }
+
+        writeToServer(new ResultSetRecord(sourceData));
+    }
+
+    /**
+     * Copies all rows from the supplied ISQLServerBulkRecord to the destination table over the connections of this SQLServerParallelBulkCopy.
+     *
+     * @param sourceData
+     *            ISQLServerBulkRecord to read data rows from.
+     * @throws SQLServerException
+     *             If there are any issues encountered when performing the bulk copy operation. If several sessions fail, the failures of the
+     *             others are suppressed by the first one.
+     */
+    public void writeToServer(ISQLServerBulkRecord sourceData) throws SQLServerException {
+        loggerExternal.entering(loggerClassName, "writeToServer");
+
+        if (null == sourceData) {
+            throwInvalidArgument("sourceData");
+        }
+        if (null == destinationTableName) {
+            SQLServerException.makeFromDriverError(null, null, SQLServerException.getErrString("R_invalidDestinationTable"), null, false);
+        }
+
+        BlockingQueue<Object[][]> chunks = new ArrayBlockingQueue<Object[][]>(2 * degreeOfParallelism);
+        List<SessionRecord> records = new ArrayList<SessionRecord>(degreeOfParallelism);
+        for (int i = 0; i < degreeOfParallelism; i++)
+            records.add(new ChunkRecord(sourceData, chunks));
+        runSessions(records, sourceData, chunks);
+
+        loggerExternal.exiting(loggerClassName, "writeToServer", rowsCopied);
+    }
+
+    /**
+     * Copies all rows from the supplied partitions of a source to the destination table over the connections of this SQLServerParallelBulkCopy.
+     * Unlike the rows of a single source, which are read on the calling thread, the partitions are read by the sessions, each reading the rows of
+     * one partition after another, so that the rows are also parsed in parallel. The partitions must have the same columns, as the partitions of a
+     * file from SQLServerBulkCSVFileRecord.getPartitions do, and there is at most one session for each partition.
+     *
+     * @param partitions
+     *            The partitions of the source to read data rows from.
+     * @throws SQLServerException
+     *             If there are any issues encountered when performing the bulk copy operation. If several sessions fail, the failures of the
+     *             others are suppressed by the first one.
+     */
+    public void writeToServer(List<? extends ISQLServerBulkRecord> partitions) throws SQLServerException {
+        loggerExternal.entering(loggerClassName, "writeToServer");
+
+        if (null == partitions || partitions.contains(null)) {
+            throwInvalidArgument("partitions");
+        }
+        if (null == destinationTableName) {
+            SQLServerException.makeFromDriverError(null, null, SQLServerException.getErrString("R_invalidDestinationTable"), null, false);
+        }
+
+        Queue<ISQLServerBulkRecord> remainingPartitions = new ConcurrentLinkedQueue<ISQLServerBulkRecord>(partitions);
+        int sessionCount = Math.min(degreeOfParallelism, partitions.size());
+        List<SessionRecord> records = new ArrayList<SessionRecord>(sessionCount);
+        for (int i = 0; i < sessionCount; i++)
+            records.add(new PartitionRecord(partitions.get(0), remainingPartitions));
+        runSessions(records, null, null);
+
+        loggerExternal.exiting(loggerClassName, "writeToServer", rowsCopied);
+    }
+
+    /*
+     * Runs a bulk copy session for each of the records, and waits for them. The rows of a single source are read into chunks on this thread; for
+     * partitions the source and chunks are null.
+     */
+    private void runSessions(final List<SessionRecord> records,
+            ISQLServerBulkRecord sourceData,
+            BlockingQueue<Object[][]> chunks) throws SQLServerException {
+        rowsCopied = 0;
+        aborted = false;
+        if (records.isEmpty())
+            return;
+
+        final List<Future<Long>> sessions = new ArrayList<Future<Long>>(records.size());
+        final List<Throwable> errors = new ArrayList<Throwable>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(records.size(), new ThreadFactory() {
+            private final ThreadGroup tg = new ThreadGroup(threadGroupName);
+            private final String threadNamePrefix = tg.getName() + "-";
+            private final AtomicInteger threadNumber = new AtomicInteger(0);
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(tg, r, threadNamePrefix + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        try {
+            for (final SessionRecord record : records) {
+                sessions.add(executor.submit(new Callable<Long>() {
+                    public Long call() throws SQLServerException {
+                        boolean succeeded = false;
+                        try {
+                            copySession(record);
+                            succeeded = true;
+                            return record.rowCount;
+                        }
+                        finally {
+                            if (!succeeded)
+                                aborted = true;
+                        }
+                    }
+                }));
+            }
+
+            if (null != sourceData) {
+                // Read the source on this thread, as the source need not be thread safe.
+                try {
+                    produceChunks(sourceData, chunks);
+                }
+                catch (SQLServerException | RuntimeException e) {
+                    // A bulk record may also fail with an unchecked exception; either way the sessions cancel their bulk loads.
+                    aborted = true;
+                    errors.add(e);
+                }
+
+                for (int i = 0; i < records.size(); i++) {
+                    if (!queueChunk(chunks, END_OF_DATA))
+                        break;
+                }
+            }
+
+            for (int i = 0; i < records.size(); i++) {
+                try {
+                    rowsCopied += sessions.get(i).get();
+                }
+                catch (ExecutionException e) {
+                    // Sessions that were stopped because of another failure have nothing to add.
+                    if (!records.get(i).abortedByOthers)
+                        errors.add(e.getCause());
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            aborted = true;
+            Thread.currentThread().interrupt();
+            errors.add(e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        if (!errors.isEmpty()) {
+            Throwable first = errors.get(0);
+            SQLServerException e = (first instanceof SQLServerException) ? (SQLServerException) first
+                    : new SQLServerException(first.getMessage(), first);
+            for (int i = 1; i < errors.size(); i++)
+                e.addSuppressed(errors.get(i));
+            throw e;
+        }
+    }
+
+    /*
+     * Runs one bulk copy session over its own connection, loading the chunks it takes from the queue.
+     */
+    private void copySession(SessionRecord record) throws SQLServerException {
+        try (SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(openConnection(), true)) {
+            bulkCopy.setDestinationTableName(destinationTableName);
+            bulkCopy.setBulkCopyOptions(copyOptions);
+            for (ColumnMapping mapping : columnMappings) {
+                if (mapping.source instanceof Integer) {
+                    if (mapping.destination instanceof Integer)
+                        bulkCopy.addColumnMapping((Integer) mapping.source, (Integer) mapping.destination);
+                    else
+                        bulkCopy.addColumnMapping((Integer) mapping.source, (String) mapping.destination);
+                }
+                else {
+                    if (mapping.destination instanceof Integer)
+                        bulkCopy.addColumnMapping((String) mapping.source, (Integer) mapping.destination);
+                    else
+                        bulkCopy.addColumnMapping((String) mapping.source, (String) mapping.destination);
+                }
+            }
+            bulkCopy.writeToServer(record);
+        }
+    }
+
+    private SQLServerConnection openConnection() throws SQLServerException {
+        Connection connection;
+        if (null != dataSource) {
+            try {
+                connection = dataSource.getConnection();
+            }
+            catch (SQLServerException e) {
+                throw e;
+            }
+            catch (SQLException e) {
+                throw new SQLServerException(e.getMessage(), e);
+            }
+        }
+        else {
+            connection = new SQLServerDriver().connect(connectionUrl, null);
+            if (null == connection) {
+                throw new SQLServerException(null, SQLServerException.getErrString("R_invalidConnection"), null, 0, false);
+            }
+        }
+
+        if (!connection.getClass().equals(SQLServerConnection.class)) {
+            try {
+                connection.close();
+            }
+            catch (SQLException e) {
+                // Ignore this exception
+            }
+            SQLServerException.makeFromDriverError(null, null, SQLServerException.getErrString("R_invalidDestConnection"), null, false);
+        }
+        return (SQLServerConnection) connection;
+    }
+
+    /*
+     * Reads the source into chunks of rows and queues them for the sessions, until the source is exhausted or the load is aborted.
+     */
+    private void produceChunks(ISQLServerBulkRecord sourceData,
+            BlockingQueue<Object[][]> chunks) throws SQLServerException, InterruptedException {
+        Object[][] chunk = new Object[chunkSize][];
+        int rowCount = 0;
+        while (!aborted && sourceData.next()) {
+            // Copy the row, as a source may reuse its array for the next row.
+            Object[] row = sourceData.getRowData();
+            chunk[rowCount++] = (null == row) ? null : row.clone();
+            if (chunkSize == rowCount) {
+                if (!queueChunk(chunks, chunk))
+                    return;
+                chunk = new Object[chunkSize][];
+                rowCount = 0;
+            }
+        }
+
+        if (0 < rowCount)
+            queueChunk(chunks, Arrays.copyOf(chunk, rowCount));
+    }
+
+    /*
+     * Queues a chunk, waiting for space in the queue. Returns false if the load was aborted, in which case nothing is queued so that the sessions
+     * cancel their bulk loads rather than complete them.
+     */
+    private boolean queueChunk(BlockingQueue<Object[][]> chunks,
+            Object[][] chunk) throws InterruptedException {
+        while (!aborted) {
+            if (chunks.offer(chunk, ABORT_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS))
+                return true;
+        }
+        return false;
+    }
+
+    private static void throwInvalidArgument(String argument) throws SQLServerException {
+        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidArgument"));
+        Object[] msgArgs = {argument};
+        SQLServerException.makeFromDriverError(null, null, form.format(msgArgs), null, false);
+    }
+
+    /*
+     * The rows of a bulk copy session, described by the metadata of the source.
+     */
+    abstract static class SessionRecord implements ISQLServerBulkRecord {
+        private final ISQLServerBulkRecord source;
+
+        long rowCount;
+        boolean abortedByOthers;
+
+        SessionRecord(ISQLServerBulkRecord source) {
+            this.source = source;
+        }
+
+        public Set<Integer> getColumnOrdinals() {
+            return source.getColumnOrdinals();
+        }
+
+        public String getColumnName(int column) {
+            return source.getColumnName(column);
+        }
+
+        public int getColumnType(int column) {
+            return source.getColumnType(column);
+        }
+
+        public int getPrecision(int column) {
+            return source.getPrecision(column);
+        }
+
+        public int getScale(int column) {
+            return source.getScale(column);
+        }
+
+        public boolean isAutoIncrement(int column) {
+            return source.isAutoIncrement(column);
+        }
+
+        /*
+         * Returns the DateTimeFormatter of a column, with which SQLServerBulkCopy parses its temporal values, if the source has one.
+         */
+        DateTimeFormatter getColumnDateTimeFormatter(int column) {
+            return SQLServerBulkCopy.getColumnDateTimeFormatter(source, column);
+        }
+    }
+
+    /*
+     * The rows of a bulk copy session: the rows of the chunks it takes from the queue.
+     */
+    private final class ChunkRecord extends SessionRecord {
+        private final BlockingQueue<Object[][]> chunks;
+        private Object[][] chunk;
+        private int currentRow;
+
+        ChunkRecord(ISQLServerBulkRecord source,
+                BlockingQueue<Object[][]> chunks) {
+            super(source);
+            this.chunks = chunks;
+        }
+
+        public Object[] getRowData() {
+            return chunk[currentRow];
+        }
+
+        public boolean next() throws SQLServerException {
+            if (null == chunk || ++currentRow == chunk.length) {
+                chunk = takeChunk();
+                currentRow = 0;
+                if (null == chunk)
+                    return false;
+            }
+            rowCount++;
+            return true;
+        }
+
+        // Returns the next chunk, or null once the source is exhausted. Throws if the load is aborted, so that the bulk load is cancelled.
+        private Object[][] takeChunk() throws SQLServerException {
+            try {
+                while (true) {
+                    Object[][] next = chunks.poll(ABORT_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (END_OF_DATA == next)
+                        return null;
+                    if (null != next)
+                        return next;
+                    if (aborted) {
+                        abortedByOthers = true;
+                        throw new SQLServerException(SQLServerException.getErrString("R_parallelBulkCopyAborted"), null);
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abortedByOthers = true;
+                throw new SQLServerException(SQLServerException.getErrString("R_parallelBulkCopyAborted"), e);
+            }
+        }
+    }
+
+    /*
+     * The rows of a bulk copy session: the rows of the partitions it takes from the queue, one after another.
+     */
+    private final class PartitionRecord extends SessionRecord {
+        private final Queue<ISQLServerBulkRecord> partitions;
+        private ISQLServerBulkRecord partition;
+
+        PartitionRecord(ISQLServerBulkRecord source,
+                Queue<ISQLServerBulkRecord> partitions) {
+            super(source);
+            this.partitions = partitions;
+        }
+
+        public Object[] getRowData() throws SQLServerException {
+            return partition.getRowData();
+        }
+
+        public boolean next() throws SQLServerException {
+            // Stop reading once another session failed, so that the bulk load is cancelled.
+            if (aborted) {
+                abortedByOthers = true;
+                throw new SQLServerException(SQLServerException.getErrString("R_parallelBulkCopyAborted"), null);
+            }
+
+            while (null != partition || null != (partition = partitions.poll())) {
+                if (partition.next()) {
+                    rowCount++;
+                    return true;
+                }
+                partition = null;
+            }
+            return false;
+        }
+    }
+
+    /*
+     * A ResultSet presented as a bulk copy source, so that its rows can be read into chunks.
+     */
+    private static final class ResultSetRecord implements ISQLServerBulkRecord {
+        // The longest string forms of temporal values: hh:mm:ss.fffffffff, yyyy-mm-dd hh:mm:ss.fffffffff and yyyy-mm-dd hh:mm:ss.fffffff +hh:mm
+        private static final int MAX_TIME_STRING_LENGTH = 18;
+        private static final int MAX_TIMESTAMP_STRING_LENGTH = 29;
+        private static final int MAX_DATETIMEOFFSET_STRING_LENGTH = 34;
+
+        private final ResultSet resultSet;
+        private final Set<Integer> columnOrdinals = new LinkedHashSet<Integer>();
+        private final String[] columnNames;
+        private final int[] columnTypes;
+        private final int[] precisions;
+        private final int[] scales;
+        private final boolean[] autoIncrement;
+
+        ResultSetRecord(ResultSet resultSet) throws SQLServerException {
+            this.resultSet = resultSet;
+            try {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                columnNames = new String[columnCount];
+                columnTypes = new int[columnCount];
+                precisions = new int[columnCount];
+                scales = new int[columnCount];
+                autoIncrement = new boolean[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    columnOrdinals.add(i + 1);
+                    columnNames[i] = metaData.getColumnName(i + 1);
+                    columnTypes[i] = metaData.getColumnType(i + 1);
+                    precisions[i] = metaData.getPrecision(i + 1);
+                    scales[i] = metaData.getScale(i + 1);
+                    autoIncrement[i] = metaData.isAutoIncrement(i + 1);
+
+                    // The decrypted values of an encrypted column are read as its base type, as by SQLServerBulkCopy.
+                    if (resultSet instanceof SQLServerResultSet) {
+                        CryptoMetadata cryptoMeta = ((SQLServerResultSet) resultSet).getColumn(i + 1).getCryptoMetadata();
+                        if (null != cryptoMeta)
+                            columnTypes[i] = cryptoMeta.baseTypeInfo.getSSType().getJDBCType().asJavaSqlType();
+                    }
+
+                    // The sessions send temporal values as varchar of the column's precision, so it must fit their string form.
+                    switch (columnTypes[i]) {
+                        case microsoft.sql.Types.DATETIME:
+                        case microsoft.sql.Types.SMALLDATETIME:
+                        case java.sql.Types.TIMESTAMP:
+                            precisions[i] = Math.max(precisions[i], MAX_TIMESTAMP_STRING_LENGTH);
+                            break;
+                        case java.sql.Types.TIME:
+                            precisions[i] = Math.max(precisions[i], MAX_TIME_STRING_LENGTH);
+                            break;
+                        case microsoft.sql.Types.DATETIMEOFFSET:
+                            precisions[i] = Math.max(precisions[i], MAX_DATETIMEOFFSET_STRING_LENGTH);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            }
+            catch (SQLException e) {
+                throw new SQLServerException(SQLServerException.getErrString("R_unableRetrieveColMeta"), e);
+            }
+        }
+
+        public Set<Integer> getColumnOrdinals() {
+            return columnOrdinals;
+        }
+
+        public String getColumnName(int column) {
+            return columnNames[column - 1];
+        }
+
+        public int getColumnType(int column) {
+            return columnTypes[column - 1];
+        }
+
+        public int getPrecision(int column) {
+            return precisions[column - 1];
+        }
+
+        public int getScale(int column) {
+            return scales[column - 1];
+        }
+
+        public boolean isAutoIncrement(int column) {
+            return autoIncrement[column - 1];
+        }
+
+        public Object[] getRowData() throws SQLServerException {
+            // The rows are queued in chunks, so streaming columns are read whole rather than as streams that are only valid on the current row.
+            Object[] row = new Object[columnTypes.length];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = SQLServerBulkCopy.readColumnFromResultSet(resultSet, i + 1, columnTypes[i], false);
+
+                // TIME is read as a Timestamp to keep all 7 fractional digits; the sessions send only its time of day.
+                if (java.sql.Types.TIME == columnTypes[i] && null != row[i]) {
+                    String value = row[i].toString();
+                    row[i] = value.substring(value.indexOf(' ') + 1);
+                }
+            }
+            return row;
+        }
+
+        public boolean next() throws SQLServerException {
+            try {
+                return resultSet.next();
+            }
+            catch (SQLException e) {
+                throw new SQLServerException(SQLServerException.getErrString("R_unableRetrieveSourceData"), e);
+            }
+        }
+    }
+}
@@ -10,7 +10,7 @@ package com.microsoft.sqlserver.jdbc;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
@@ -25,7 +25,7 @@ import javax.sql.StatementEventListener;
  */
 
 public class SQLServerPooledConnection implements PooledConnection {
-    private final Vector<ConnectionEventListener> listeners;
+    private final CopyOnWriteArrayList<ConnectionEventListener> listeners;
     private SQLServerDataSource factoryDataSource;
     private SQLServerConnection physicalConnection;
     private SQLServerConnectionPoolProxy lastProxyConnection;
@@ -38,7 +38,7 @@ public class SQLServerPooledConnection implements PooledConnection {
     SQLServerPooledConnection(SQLServerDataSource ds,
             String user,
             String password) throws SQLException {
-        listeners = new Vector<ConnectionEventListener>();
+        listeners = new CopyOnWriteArrayList<ConnectionEventListener>();
         // Piggyback SQLServerDataSource logger for now.
         pcLogger = SQLServerDataSource.dsLogger;
 
@@ -138,25 +138,22 @@ public class SQLServerPooledConnection implements PooledConnection {
             }
         }
 
-        // A connection handle issued from this pooled connection is closing or an error occurred in the connection
-        synchronized (listeners) {
-            for (int i = 0; i < listeners.size(); i++) {
-                ConnectionEventListener listener = listeners.elementAt(i);
-
-                if (listener == null)
-                    continue;
-
-                ConnectionEvent ev = new ConnectionEvent(this, e);
-                if (null == e) {
-                    if (pcLogger.isLoggable(Level.FINER))
-                        pcLogger.finer(toString() + " notifyEvent:connectionClosed " + safeCID());
-                    listener.connectionClosed(ev);
-                }
-                else {
-                    if (pcLogger.isLoggable(Level.FINER))
-                        pcLogger.finer(toString() + " notifyEvent:connectionErrorOccurred " + safeCID());
-                    listener.connectionErrorOccurred(ev);
-                }
+        // A connection handle issued from this pooled connection is closing or an error occurred in the connection.
+        // The listeners are iterated over a snapshot, so that returning a connection to the pool takes no lock.
+        for (ConnectionEventListener listener : listeners) {
+            if (listener == null)
+                continue;
+
+            ConnectionEvent ev = new ConnectionEvent(this, e);
+            if (null == e) {
+                if (pcLogger.isLoggable(Level.FINER))
+                    pcLogger.finer(toString() + " notifyEvent:connectionClosed " + safeCID());
+                listener.connectionClosed(ev);
+            }
+            else {
+                if (pcLogger.isLoggable(Level.FINER))
+                    pcLogger.finer(toString() + " notifyEvent:connectionErrorOccurred " + safeCID());
+                listener.connectionErrorOccurred(ev);
             }
         }
     }
@@ -164,9 +161,7 @@ public class SQLServerPooledConnection implements PooledConnection {
     public void addConnectionEventListener(ConnectionEventListener listener) {
         if (pcLogger.isLoggable(Level.FINER))
             pcLogger.finer(toString() + safeCID());
-        synchronized (listeners) {
-            listeners.add(listener);
-        }
+        listeners.add(listener);
     }
 
     public void close() throws SQLException {
@@ -183,18 +178,14 @@ public class SQLServerPooledConnection implements PooledConnection {
             }
             physicalConnection = null;
         }
-        synchronized (listeners) {
-            listeners.clear();
-        }
+        listeners.clear();
 
     }
 
     public void removeConnectionEventListener(ConnectionEventListener listener) {
         if (pcLogger.isLoggable(Level.FINER))
             pcLogger.finer(toString() + safeCID());
-        synchronized (listeners) {
-            listeners.remove(listener);
-        }
+        listeners.remove(listener);
     }
 
     public void addStatementEventListener(StatementEventListener listener) {
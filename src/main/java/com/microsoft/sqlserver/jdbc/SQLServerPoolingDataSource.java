@@ -0,0 +1,273 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.sql.Connection;
+import java.util.logging.Level;
+
+import javax.naming.Reference;
+
+/**
+ * SQLServerPoolingDataSource is a DataSource that pools the physical connections it provides itself, for applications that do not run with a
+ * connection pool manager. The connections returned by getConnection are handles to pooled connections, which return them to the pool when they are
+ * closed. A connection that has been used before is reset by the first request that is sent on it, with no round trip to the server of its own.
+ * <br>
+ * <br>
+ * The pool is started by the first call of getConnection, with the pool properties set at that time. Connections are opened in the background up to
+ * the minimum size of the pool, and on demand up to its maximum size, after which getConnection waits for a connection to be returned. Connections
+ * for a user and password passed to getConnection are not pooled.
+ */
+public class SQLServerPoolingDataSource extends SQLServerConnectionPoolDataSource {
+    private static final long serialVersionUID = 654861379544314297L;
+
+    // The pool properties are kept with the connection properties, so that they are part of the reference of the data source. Connections ignore
+    // them.
+    private static final String MIN_POOL_SIZE = "minPoolSize";
+    private static final String MAX_POOL_SIZE = "maxPoolSize";
+    private static final String POOL_WAIT_TIMEOUT = "poolWaitTimeout";
+    private static final String KEEP_ALIVE_INTERVAL = "keepAliveInterval";
+
+    private static final int DEFAULT_MIN_POOL_SIZE = 0;
+    private static final int DEFAULT_MAX_POOL_SIZE = 100;
+    private static final int DEFAULT_POOL_WAIT_TIMEOUT = 30000;
+    private static final int DEFAULT_KEEP_ALIVE_INTERVAL = 0;
+
+    private transient volatile ConnectionPool pool;
+    private transient boolean closed;
+
+    /**
+     * Sets the number of connections that the pool keeps open.
+     *
+     * @param minPoolSize
+     *            the minimum number of connections, 0 by default
+     */
+    public void setMinPoolSize(int minPoolSize) {
+        setIntProperty(connectionProps, MIN_POOL_SIZE, minPoolSize);
+    }
+
+    /**
+     * Retrieves the number of connections that the pool keeps open.
+     *
+     * @return the minimum number of connections
+     */
+    public int getMinPoolSize() {
+        return getIntProperty(connectionProps, MIN_POOL_SIZE, DEFAULT_MIN_POOL_SIZE);
+    }
+
+    /**
+     * Sets the number of connections that the pool opens at most.
+     *
+     * @param maxPoolSize
+     *            the maximum number of connections, 100 by default
+     */
+    public void setMaxPoolSize(int maxPoolSize) {
+        setIntProperty(connectionProps, MAX_POOL_SIZE, maxPoolSize);
+    }
+
+    /**
+     * Retrieves the number of connections that the pool opens at most.
+     *
+     * @return the maximum number of connections
+     */
+    public int getMaxPoolSize() {
+        return getIntProperty(connectionProps, MAX_POOL_SIZE, DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /**
+     * Sets how long getConnection waits for a connection to be returned to the pool when all its connections are in use.
+     *
+     * @param poolWaitTimeout
+     *            the time in milliseconds, 30000 by default
+     */
+    public void setPoolWaitTimeout(int poolWaitTimeout) {
+        setIntProperty(connectionProps, POOL_WAIT_TIMEOUT, poolWaitTimeout);
+    }
+
+    /**
+     * Retrieves how long getConnection waits for a connection to be returned to the pool when all its connections are in use.
+     *
+     * @return the time in milliseconds
+     */
+    public int getPoolWaitTimeout() {
+        return getIntProperty(connectionProps, POOL_WAIT_TIMEOUT, DEFAULT_POOL_WAIT_TIMEOUT);
+    }
+
+    /**
+     * Sets how long a connection of the pool may be idle, with nothing read from the server, before the pool queries the server in the background to
+     * check that it still works. Connections that do not work are closed and removed from the pool.
+     *
+     * @param keepAliveInterval
+     *            the time in seconds, or 0, the default, to not check idle connections
+     */
+    public void setKeepAliveInterval(int keepAliveInterval) {
+        setIntProperty(connectionProps, KEEP_ALIVE_INTERVAL, keepAliveInterval);
+    }
+
+    /**
+     * Retrieves how long a connection of the pool may be idle before the pool checks that it still works.
+     *
+     * @return the time in seconds, or 0 if idle connections are not checked
+     */
+    public int getKeepAliveInterval() {
+        return getIntProperty(connectionProps, KEEP_ALIVE_INTERVAL, DEFAULT_KEEP_ALIVE_INTERVAL);
+    }
+
+    /**
+     * Borrows a connection of the pool, starting the pool if it has not been started.
+     *
+     * @return a handle to a pooled connection
+     * @throws SQLServerException
+     *             if a connection cannot be opened, the pool has been closed, or no connection is returned to the pool within the pool wait timeout
+     */
+    public Connection getConnection() throws SQLServerException {
+        loggerExternal.entering(getClassNameLogging(), "getConnection");
+        Connection con = getPool().getConnection();
+        loggerExternal.exiting(getClassNameLogging(), "getConnection", con);
+        return con;
+    }
+
+    private ConnectionPool getPool() throws SQLServerException {
+        ConnectionPool p = pool;
+        if (null == p) {
+            synchronized (this) {
+                if (closed)
+                    SQLServerException.makeFromDriverError(null, null, SQLServerException.getErrString("R_poolIsClosed"), null, false);
+                p = pool;
+                if (null == p) {
+                    p = new ConnectionPool(this, getMinPoolSize(), getMaxPoolSize(), getPoolWaitTimeout(), getKeepAliveInterval());
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Closes the pool. Its idle connections are closed, and the connections in use are closed when they are returned.
+     */
+    public void close() {
+        loggerExternal.entering(getClassNameLogging(), "close");
+        synchronized (this) {
+            closed = true;
+            if (null != pool)
+                pool.close();
+        }
+        loggerExternal.exiting(getClassNameLogging(), "close");
+    }
+
+    /**
+     * Retrieves the number of connections of the pool that are in use.
+     *
+     * @return the number of active connections
+     */
+    public int getActiveConnectionCount() {
+        ConnectionPool p = pool;
+        return (null == p) ? 0 : p.getActiveConnectionCount();
+    }
+
+    /**
+     * Retrieves the number of connections of the pool that are not in use.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleConnectionCount() {
+        ConnectionPool p = pool;
+        return (null == p) ? 0 : p.getIdleConnectionCount();
+    }
+
+    /**
+     * Retrieves the number of connections of the pool.
+     *
+     * @return the number of connections
+     */
+    public int getConnectionCount() {
+        ConnectionPool p = pool;
+        return (null == p) ? 0 : p.getConnectionCount();
+    }
+
+    /**
+     * Retrieves the number of threads waiting in getConnection for a connection to be returned to the pool.
+     *
+     * @return the number of waiting threads
+     */
+    public int getWaitingThreadCount() {
+        ConnectionPool p = pool;
+        return (null == p) ? 0 : p.getWaitingThreadCount();
+    }
+
+    /**
+     * Retrieves the number of connections that getConnection has returned.
+     *
+     * @return the number of connection requests
+     */
+    public long getConnectionRequestCount() {
+        ConnectionPool p = pool;
+        return (null == p) ? 0 : p.getConnectionRequestCount();
+    }
+
+    /**
+     * Retrieves the total time that getConnection has taken to return connections, including waiting for them and opening them.
+     *
+     * @return the time in milliseconds
+     */
+    public long getTotalConnectionWaitTime() {
+        ConnectionPool p = pool;
+        return (null == p) ? 0 : p.getTotalConnectionWaitTime();
+    }
+
+    /**
+     * Retrieves the longest time that getConnection has taken to return a connection.
+     *
+     * @return the time in milliseconds
+     */
+    public long getMaxConnectionWaitTime() {
+        ConnectionPool p = pool;
+        return (null == p) ? 0 : p.getMaxConnectionWaitTime();
+    }
+
+    // Implement javax.naming.Referenceable interface methods.
+
+    public Reference getReference() {
+        if (loggerExternal.isLoggable(Level.FINER))
+            loggerExternal.entering(getClassNameLogging(), "getReference");
+        Reference ref = getReferenceInternal("com.microsoft.sqlserver.jdbc.SQLServerPoolingDataSource");
+        if (loggerExternal.isLoggable(Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getReference", ref);
+        return ref;
+    }
+
+    private Object writeReplace() throws java.io.ObjectStreamException {
+        return new SerializationProxy(this);
+    }
+
+    private void readObject(java.io.ObjectInputStream stream) throws java.io.InvalidObjectException {
+        // For added security/robustness, the only way to rehydrate a serialized SQLServerDataSource
+        // is to use a SerializationProxy. Direct use of readObject() is not supported.
+        throw new java.io.InvalidObjectException("");
+    }
+
+    // This is 90% duplicate from the SQLServerDataSource, the serialization proxy pattern does not lend itself to inheritance
+    // so the duplication is necessary
+    private static class SerializationProxy implements java.io.Serializable {
+        private final Reference ref;
+        private static final long serialVersionUID = 654661379842314127L;
+
+        SerializationProxy(SQLServerPoolingDataSource ds) {
+            // We do not need the class name so pass null, serialization mechanism
+            // stores the class info.
+            ref = ds.getReferenceInternal(null);
+        }
+
+        private Object readResolve() {
+            SQLServerPoolingDataSource ds = new SQLServerPoolingDataSource();
+            ds.initializeFromReference(ref);
+            return ds;
+        }
+    }
+}
@@ -22,11 +22,16 @@ import java.sql.SQLXML;
 import java.sql.Statement;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * SQLServerPreparedStatement provides JDBC prepared statement functionality. SQLServerPreparedStatement provides methods for the user to supply
@@ -60,6 +65,9 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
     /** The users SQL statement text */
     final String userSQL;
 
+    /** The offsets of the parameter markers in userSQL */
+    final int[] userSQLParamPositions;
+
     /** SQL statement with expanded parameter tokens */
     private String preparedSQL;
 
@@ -90,6 +98,9 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
     /** The prepared statement handle returned by the server */
     private int prepStmtHandle = 0;
 
+    /** The pooled handle that prepStmtHandle was taken from, if the handle is shared through the connection's statement pool */
+    private SQLServerConnection.PreparedStatementHandle cachedPreparedStatementHandle = null;
+
     /** Flag set to true when statement execution is expected to return the prepared statement handle */
     private boolean expectPrepStmtHandle = false;
     
@@ -98,6 +109,12 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
      */
     private boolean encryptionMetadataIsRetrieved = false;
 
+    /** The key of the parameter encryption metadata cached by the connection, if the crypto metadata of the parameters was taken from it */
+    private SQLServerConnection.PreparedStatementHandleKey cachedEncryptionMetadataKey = null;
+
+    /** Set while an asynchronous execution of the statement has not completed */
+    final AtomicBoolean isAsyncExecutionPending = new AtomicBoolean(false);
+
     // Internal function used in tracing
     String getClassNameInternal() {
         return "SQLServerPreparedStatement";
@@ -128,13 +145,13 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         stmtPoolable = true;
         sqlCommand = sql;
 
-        JDBCSyntaxTranslator translator = new JDBCSyntaxTranslator();
-        sql = translator.translate(sql);
-        procedureName = translator.getProcedureName(); // may return null
-        bReturnValueSyntax = translator.hasReturnValueSyntax();
+        ParsedSQLCacheItem parsedSQL = SQLServerConnection.parseAndCacheSQL(sql);
+        procedureName = parsedSQL.procedureName; // may be null
+        bReturnValueSyntax = parsedSQL.bReturnValueSyntax;
 
-        userSQL = sql;
-        initParams(userSQL);
+        userSQL = parsedSQL.processedSQL;
+        userSQLParamPositions = parsedSQL.parameterPositions;
+        initParams(userSQLParamPositions.length);
     }
 
     /**
@@ -144,6 +161,14 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         if (0 == prepStmtHandle)
             return;
 
+        // Pooled handles are owned by the connection's statement pool; just let go of this statement's reference.
+        if (null != cachedPreparedStatementHandle) {
+            returnCachedPreparedStatementHandle();
+            isExecutedAtLeastOnce = false;
+            connection.handlePreparedStatementDiscardActions(false);
+            return;
+        }
+
         // If the connection is already closed, don't bother trying to close
         // the prepared handle. We won't be able to, and it's already closed
         // on the server anyway.
@@ -199,6 +224,129 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         }
     }
 
+    /**
+     * Releases this statement's reference on the pooled handle it is using, leaving the handle in the connection's statement pool for other
+     * statements.
+     */
+    private void returnCachedPreparedStatementHandle() {
+        if (null == cachedPreparedStatementHandle)
+            return;
+
+        if (getStatementLogger().isLoggable(java.util.logging.Level.FINER))
+            getStatementLogger().finer(this + ": Returning pooled PreparedHandle:" + cachedPreparedStatementHandle.getHandle());
+
+        connection.returnCachedPreparedStatementHandle(cachedPreparedStatementHandle);
+        cachedPreparedStatementHandle = null;
+        prepStmtHandle = 0;
+    }
+
+    /**
+     * Returns the key under which the handle for the current prepared SQL and parameter type definitions is pooled.
+     */
+    private SQLServerConnection.PreparedStatementHandleKey getPreparedStatementHandleKey() {
+        return new SQLServerConnection.PreparedStatementHandleKey(connection.getCatalogInternal(), preparedSQL, preparedTypeDefinitions);
+    }
+
+    /**
+     * Tries to satisfy a (re)prepare with a handle from the connection's statement pool.
+     * 
+     * @return true if a pooled handle is now in use and the statement does not need to be prepared.
+     */
+    private boolean reuseCachedHandle() {
+        // A handle private to this statement gets un-prepared by the re-prepare itself.
+        if (!connection.isStatementPoolingEnabled() || (0 != prepStmtHandle && null == cachedPreparedStatementHandle))
+            return false;
+
+        SQLServerConnection.PreparedStatementHandleKey key = getPreparedStatementHandleKey();
+        if (null != cachedPreparedStatementHandle && key.equals(cachedPreparedStatementHandle.getKey()))
+            return true;
+
+        SQLServerConnection.PreparedStatementHandle pooledHandle = connection.borrowCachedPreparedStatementHandle(key);
+        if (null == pooledHandle)
+            return false;
+
+        // Let go of the pooled handle the statement was using before.
+        returnCachedPreparedStatementHandle();
+
+        if (getStatementLogger().isLoggable(java.util.logging.Level.FINER))
+            getStatementLogger().finer(this + ": Reusing pooled PreparedHandle:" + pooledHandle.getHandle());
+
+        cachedPreparedStatementHandle = pooledHandle;
+        prepStmtHandle = pooledHandle.getHandle();
+        isExecutedAtLeastOnce = true;
+        return true;
+    }
+
+    /**
+     * Returns the handle to pass to sp_prepexec/sp_cursorprepexec to be un-prepared by the server when the statement is re-prepared. Pooled
+     * handles may be in use by other statements, so they are released to the pool instead.
+     */
+    private int getHandleToReprepare() {
+        if (null != cachedPreparedStatementHandle) {
+            returnCachedPreparedStatementHandle();
+            return 0;
+        }
+        return prepStmtHandle;
+    }
+
+    /**
+     * Drops the pooled handle in use from the statement pool if the server no longer recognizes it, so that the statement gets prepared again.
+     * 
+     * Error 586: The prepared statement handle is not valid in this context (e.g. the database or SET options changed since it was prepared).
+     * Error 8179: Could not find prepared statement with handle.
+     * 
+     * @return true if the handle was dropped and the execution can be retried.
+     */
+    private boolean invalidateStaleCachedHandle(SQLServerException e) {
+        if (null == cachedPreparedStatementHandle)
+            return false;
+        if (586 != e.getErrorCode() && 8179 != e.getErrorCode())
+            return false;
+        if (connection.isSessionUnAvailable() || connection.rolledBackTransaction())
+            return false;
+
+        if (getStatementLogger().isLoggable(java.util.logging.Level.FINER))
+            getStatementLogger().finer(this + ": Pooled PreparedHandle:" + cachedPreparedStatementHandle.getHandle() + " is no longer valid, re-preparing");
+
+        connection.invalidateCachedPreparedStatementHandle(cachedPreparedStatementHandle);
+        returnCachedPreparedStatementHandle();
+        return true;
+    }
+
+    /**
+     * Returns true if one of the parameters is a streaming table valued parameter, whose rows cannot be sent again when the execution is retried.
+     */
+    private static boolean hasStreamingTVP(Parameter[] params) {
+        for (Parameter param : params) {
+            if (param.isStreamingTVP())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Discards the cached parameter encryption metadata that the parameters were set from, if the server reports that the encryption of the
+     * parameters does not match it: error 33514, which asks the client to retry with new metadata, or an operand type clash (206), as when a column
+     * was encrypted after the metadata was cached.
+     * 
+     * @return true if the metadata was discarded and the statement can be executed again with the metadata queried from the server.
+     */
+    private boolean invalidateChangedEncryptionMetadata(SQLServerException e) {
+        if (null == cachedEncryptionMetadataKey)
+            return false;
+        if (33514 != e.getErrorCode() && 206 != e.getErrorCode())
+            return false;
+        if (connection.isSessionUnAvailable() || connection.rolledBackTransaction())
+            return false;
+
+        if (getStatementLogger().isLoggable(java.util.logging.Level.FINER))
+            getStatementLogger().finer(this + ": Cached parameter encryption metadata is no longer valid, querying it again");
+
+        connection.invalidateParameterEncryptionMetadata(cachedEncryptionMetadataKey);
+        cachedEncryptionMetadataKey = null;
+        return true;
+    }
+
     /**
      * Closes this prepared statement.
      *
@@ -221,15 +369,8 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
      * 
      * @param sql
      */
-    /* L0 */ final void initParams(String sql) {
+    /* L0 */ final void initParams(int nParams) {
         encryptionMetadataIsRetrieved = false;
-        int nParams = 0;
-
-        // Figure out the expected number of parameters by counting the
-        // parameter placeholders in the SQL string.
-        int offset = -1;
-        while ((offset = ParameterUtils.scanSQLForChar('?', sql, ++offset)) < sql.length())
-            ++nParams;
 
         inOutParam = new Parameter[nParams];
         for (int i = 0; i < nParams; i++) {
@@ -263,7 +404,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         preparedTypeDefinitions = newTypeDefinitions;
 
         /* Replace the parameter marker '?' with the param numbers @p1, @p2 etc */
-        preparedSQL = connection.replaceParameterMarkers(userSQL, params, bReturnValueSyntax);
+        preparedSQL = connection.replaceParameterMarkers(userSQL, userSQLParamPositions, params, bReturnValueSyntax);
         if (bRequestedGeneratedKeys)
             preparedSQL = preparedSQL + identityQuery;
 
@@ -456,15 +597,50 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
             hasNewTypeDefinitions = buildPreparedStrings(inOutParam, true);
         }
 
-        // Start the request and detach the response reader so that we can
-        // continue using it after we return.
-        TDSWriter tdsWriter = command.startRequest(TDS.PKT_RPC);
+        for (int attempt = 1;; ++attempt) {
+            try {
+                // Start the request and detach the response reader so that we can
+                // continue using it after we return.
+                TDSWriter tdsWriter = command.startRequest(TDS.PKT_RPC);
+
+                doPrepExec(tdsWriter, inOutParam, hasNewTypeDefinitions);
 
-        doPrepExec(tdsWriter, inOutParam, hasNewTypeDefinitions);
+                ensureExecuteResultsReader(command.startResponse(getIsResponseBufferingAdaptive()));
+                startResults();
+                getNextResult();
+            }
+            catch (SQLServerException e) {
+                if (1 != attempt)
+                    throw e;
+
+                if (invalidateChangedEncryptionMetadata(e)) {
+                    // The rows of a streaming table valued parameter cannot be sent again; the next execution queries the metadata.
+                    if (hasStreamingTVP(inOutParam))
+                        throw e;
+
+                    // Finish off the failed response, and query the encryption metadata that is no longer cached.
+                    command.close();
+                    resetForReexecute();
+                    buildPreparedStrings(inOutParam, false);
+                    getParameterEncryptionMetadata(inOutParam);
+                    setMaxRowsAndMaxFieldSize();
+                    buildPreparedStrings(inOutParam, true);
+                    hasNewTypeDefinitions = true;
+                    continue;
+                }
 
-        ensureExecuteResultsReader(command.startResponse(getIsResponseBufferingAdaptive()));
-        startResults();
-        getNextResult();
+                // Likewise, with a streaming table valued parameter the next execution prepares the statement again.
+                if (!invalidateStaleCachedHandle(e) || hasStreamingTVP(inOutParam))
+                    throw e;
+
+                // Finish off the failed response before sending the request again.
+                command.close();
+                resetForReexecute();
+                hasNewTypeDefinitions = true;
+                continue;
+            }
+            break;
+        }
 
         if (EXECUTE_QUERY == executeMethod && null == resultSet) {
             SQLServerException.makeFromDriverError(connection, this, SQLServerException.getErrString("R_noResultset"), null, true);
@@ -499,6 +675,13 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                 if (getStatementLogger().isLoggable(java.util.logging.Level.FINER))
                     getStatementLogger().finer(toString() + ": Setting PreparedHandle:" + prepStmtHandle);
 
+                // Share directly executed handles through the connection's statement pool.
+                // Server cursor handles stay private to the statement.
+                if (executedSqlDirectly && connection.isStatementPoolingEnabled()) {
+                    assert null == cachedPreparedStatementHandle;
+                    cachedPreparedStatementHandle = connection.cachePreparedStatementHandle(getPreparedStatementHandleKey(), prepStmtHandle);
+                }
+
                 return true;
             }
         }
@@ -545,7 +728,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         // <prepared handle>
         // IN (reprepare): Old handle to unprepare before repreparing
         // OUT: The newly prepared handle
-        tdsWriter.writeRPCInt(null, new Integer(prepStmtHandle), true);
+        tdsWriter.writeRPCInt(null, new Integer(getHandleToReprepare()), true);
         prepStmtHandle = 0;
 
         // <cursor> OUT
@@ -587,7 +770,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         // <prepared handle>
         // IN (reprepare): Old handle to unprepare before repreparing
         // OUT: The newly prepared handle
-        tdsWriter.writeRPCInt(null, new Integer(prepStmtHandle), true);
+        tdsWriter.writeRPCInt(null, new Integer(getHandleToReprepare()), true);
         prepStmtHandle = 0;
 
         // <formal parameter defn> IN
@@ -671,7 +854,51 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         tdsWriter.writeRPCInt(null, new Integer(prepStmtHandle), false);
     }
 
+    /**
+     * Sets the crypto metadata of the parameters, from the parameter encryption metadata cached by the connection for the SQL text and parameter
+     * types of the statement, or else from sp_describe_parameter_encryption.
+     */
     private void getParameterEncryptionMetadata(Parameter[] params) throws SQLServerException {
+        SQLServerConnection.PreparedStatementHandleKey key = getPreparedStatementHandleKey();
+        CryptoMetadata[] cryptoMetadata = connection.getParameterEncryptionMetadata(key);
+        if (null != cryptoMetadata && cryptoMetadata.length == params.length) {
+            if (getStatementLogger().isLoggable(java.util.logging.Level.FINE)) {
+                getStatementLogger().fine("Parameter encryption metadata is cached.");
+            }
+            cachedEncryptionMetadataKey = key;
+        }
+        else {
+            cryptoMetadata = describeParameterEncryption(params.length);
+            connection.putParameterEncryptionMetadata(key, cryptoMetadata);
+            cachedEncryptionMetadataKey = null;
+        }
+
+        for (int i = 0; i < params.length; i++) {
+            CryptoMetadata md = cryptoMetadata[i];
+            if (null != md) {
+                // The parameters get their own crypto metadata, as the cached metadata is shared by other statements.
+                params[i].cryptoMeta = new CryptoMetadata(md.cekTableEntry, md.ordinal, md.cipherAlgorithmId, md.cipherAlgorithmName,
+                        md.encryptionType.getValue(), md.normalizationRuleVersion);
+                // Decrypt the symmetric key.(This will also validate and throw if needed).
+                SQLServerSecurityUtility.decryptSymmetricKey(params[i].cryptoMeta, connection);
+            }
+            else {
+                params[i].cryptoMeta = null;
+                if (true == params[i].getForceEncryption()) {
+                    MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_ForceEncryptionTrue_HonorAETrue_UnencryptedColumn"));
+                    Object[] msgArgs = {userSQL, i + 1};
+                    SQLServerException.makeFromDriverError(connection, this, form.format(msgArgs), null, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queries the parameter encryption metadata of the statement with sp_describe_parameter_encryption.
+     * 
+     * @return the crypto metadata of each parameter, or null for the parameters that are not encrypted
+     */
+    private CryptoMetadata[] describeParameterEncryption(int paramCount) throws SQLServerException {
         /*
          * The parameter list is created from the data types provided by the user for the parameters. the data types do not need to be the same as in
          * the table definition. Also, when string is sent to an int field, the parameter is defined as nvarchar(<size of string>). Same for varchar
@@ -679,6 +906,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
          */
         SQLServerResultSet rs = null;
         SQLServerCallableStatement stmt = null;
+        CryptoMetadata[] cryptoMetadata = new CryptoMetadata[paramCount];
 
         assert connection != null : "Connection should not be null";
 
@@ -705,7 +933,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         if (null == rs) {
             // No results. Meaning no parameter.
             // Should never happen.
-            return;
+            return cryptoMetadata;
         }
 
         Map<Integer, CekTableEntry> cekList = new HashMap<Integer, CekTableEntry>();
@@ -747,11 +975,11 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         }
 
         // Parameter count in the result set.
-        int paramCount = 0;
+        int describedParamCount = 0;
         try {
             rs = (SQLServerResultSet) stmt.getResultSet();
             while (rs.next()) {
-                paramCount++;
+                describedParamCount++;
                 String paramName = rs.getString(DescribeParameterEncryptionResultSet2.ParameterName.value());
                 int paramIndex = parameterNames.indexOf(paramName);
                 int cekOrdinal = rs.getInt(DescribeParameterEncryptionResultSet2.ColumnEncryptionKeyOrdinal.value());
@@ -766,19 +994,9 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                 SQLServerEncryptionType encType = SQLServerEncryptionType
                         .of((byte) rs.getInt(DescribeParameterEncryptionResultSet2.ColumnEncrytionType.value()));
                 if (SQLServerEncryptionType.PlainText != encType) {
-                    params[paramIndex].cryptoMeta = new CryptoMetadata(cekEntry, (short) cekOrdinal,
+                    cryptoMetadata[paramIndex] = new CryptoMetadata(cekEntry, (short) cekOrdinal,
                             (byte) rs.getInt(DescribeParameterEncryptionResultSet2.ColumnEncryptionAlgorithm.value()), null, encType.value,
                             (byte) rs.getInt(DescribeParameterEncryptionResultSet2.NormalizationRuleVersion.value()));
-                    // Decrypt the symmetric key.(This will also validate and throw if needed).
-                    SQLServerSecurityUtility.decryptSymmetricKey(params[paramIndex].cryptoMeta, connection);
-                }
-                else {
-                    if (true == params[paramIndex].getForceEncryption()) {
-                        MessageFormat form = new MessageFormat(
-                                SQLServerException.getErrString("R_ForceEncryptionTrue_HonorAETrue_UnencryptedColumn"));
-                        Object[] msgArgs = {userSQL, paramIndex + 1};
-                        SQLServerException.makeFromDriverError(connection, this, form.format(msgArgs), null, true);
-                    }
                 }
             }
             if (getStatementLogger().isLoggable(java.util.logging.Level.FINE)) {
@@ -794,7 +1012,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
             }
         }
 
-        if (paramCount != params.length) {
+        if (describedParamCount != paramCount) {
             // Encryption metadata wasn't sent by the server.
             // We expect the metadata to be sent for all the parameters in the original sp_describe_parameter_encryption.
             // For parameters that don't need encryption, the encryption type is set to plaintext.
@@ -810,6 +1028,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
             stmt.close();
         }
         connection.resetCurrentCommand();
+        return cryptoMetadata;
     }
 
     private boolean doPrepExec(TDSWriter tdsWriter,
@@ -820,15 +1039,26 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
 
         // Cursors never go the non-prepared statement route.
         if (isCursorable(executeMethod)) {
+            // Server cursor handles are not pooled; a pooled handle from a previous direct execution cannot be used here.
+            if (null != cachedPreparedStatementHandle) {
+                returnCachedPreparedStatementHandle();
+                needsPrepare = true;
+            }
+
             if (needsPrepare) 
                 buildServerCursorPrepExecParams(tdsWriter);
             else
                 buildServerCursorExecParams(tdsWriter);
         }
         else {
+            // Another statement with the same SQL and parameter types may already have prepared it.
+            if (needsPrepare && reuseCachedHandle())
+                needsPrepare = false;
+
             // Move overhead of needing to do prepare & unprepare to only use cases that need more than one execution.
             // First execution, use sp_executesql, optimizing for asumption we will not re-use statement.
-            if (!connection.getEnablePrepareOnFirstPreparedStatementCall() && !isExecutedAtLeastOnce) {
+            // With statement pooling the prepared handle outlives the statement, so prepare right away.
+            if (!connection.getEnablePrepareOnFirstPreparedStatementCall() && !connection.isStatementPoolingEnabled() && !isExecutedAtLeastOnce) {
                 buildExecSQLParams(tdsWriter);
                 isExecutedAtLeastOnce = true;
             }
@@ -2146,6 +2376,52 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         loggerExternal.exiting(getClassNameLogging(), "setStructured");
     }
 
+    /**
+     * Populates a table valued parameter with a columnar data table
+     * 
+     * @param n
+     *            the first parameter is 1, the second is 2, ...
+     * @param tvpName
+     *            the name of the table valued parameter
+     * @param tvpColumnarDataTable
+     *            the source columnar data table object
+     * @throws SQLServerException
+     *             when an error occurs
+     */
+    public final void setStructured(int n,
+            String tvpName,
+            SQLServerColumnarDataTable tvpColumnarDataTable) throws SQLServerException {
+        tvpName = getTVPNameIfNull(n, tvpName);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.entering(getClassNameLogging(), "setStructured", new Object[] {n, tvpName, tvpColumnarDataTable});
+        checkClosed();
+        setValue(n, JDBCType.TVP, tvpColumnarDataTable, JavaType.TVP, tvpName);
+        loggerExternal.exiting(getClassNameLogging(), "setStructured");
+    }
+
+    /**
+     * Populates a table valued parameter with the rows of a streaming data table, which are read from their source while the parameter is sent
+     * 
+     * @param n
+     *            the first parameter is 1, the second is 2, ...
+     * @param tvpName
+     *            the name of the table valued parameter
+     * @param tvpStreamingDataTable
+     *            the source streaming data table object
+     * @throws SQLServerException
+     *             when an error occurs
+     */
+    public final void setStructured(int n,
+            String tvpName,
+            SQLServerStreamingDataTable<?> tvpStreamingDataTable) throws SQLServerException {
+        tvpName = getTVPNameIfNull(n, tvpName);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.entering(getClassNameLogging(), "setStructured", new Object[] {n, tvpName, tvpStreamingDataTable});
+        checkClosed();
+        setValue(n, JDBCType.TVP, tvpStreamingDataTable, JavaType.TVP, tvpName);
+        loggerExternal.exiting(getClassNameLogging(), "setStructured");
+    }
+
     /**
      * Populates a table valued parameter with a data table
      * 
@@ -2283,7 +2559,9 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
 
                 PrepStmtBatchExecCmd batchCommand = new PrepStmtBatchExecCmd(this);
 
-                executeStatement(batchCommand);
+                Matcher batchInsert = matchBatchInsert();
+                if (null == batchInsert || !doExecuteBatchInsert(batchCommand, batchInsert))
+                    executeStatement(batchCommand);
 
                 updateCounts = new int[batchCommand.updateCounts.length];
                 for (int i = 0; i < batchCommand.updateCounts.length; ++i)
@@ -2341,7 +2619,9 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
 
                 PrepStmtBatchExecCmd batchCommand = new PrepStmtBatchExecCmd(this);
 
-                executeStatement(batchCommand);
+                Matcher batchInsert = matchBatchInsert();
+                if (null == batchInsert || !doExecuteBatchInsert(batchCommand, batchInsert))
+                    executeStatement(batchCommand);
 
                 updateCounts = new long[batchCommand.updateCounts.length];
 
@@ -2361,6 +2641,225 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         return updateCounts;
     }
 
+    /*
+     * Simple parameterized INSERT syntax regex
+     *
+     * INSERT [INTO] table [(column, ...)] VALUES (?, ...) [;]
+     *
+     * Group 1 is the statement up to and including VALUES, group 2 the table, group 3 the column list (if any) and group 4 the row of parameter
+     * markers. Comments, quoted (other than bracketed) identifiers and anything other than parameter markers in the row are not matched, so such
+     * statements are batched one row at a time.
+     */
+    private final static Pattern batchInsertSyntax = Pattern
+            .compile("(?is)\\s*(INSERT\\s+(?:INTO\\s+)?((?:\\[[^\\]?]+\\]|[^\\[\\s()?'\"/-])+)(?:\\s*\\(((?:\\[[^\\]?]+\\]|[^\\[()?'\"/-])*)\\))?\\s*VALUES)"
+                    + "\\s*(\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))\\s*;?\\s*");
+
+    /** Splits an INSERT column list into column names */
+    private final static Pattern batchInsertColumn = Pattern.compile("\\s*(?:\\[((?:[^\\]]|\\]\\])+)\\]|([^\\s,]+))\\s*(?:,|$)");
+
+    /** SQL Server limits a table value constructor to 1000 rows */
+    private static final int MAX_MULTI_ROW_INSERT_ROWS = 1000;
+
+    /** SQL Server limits an RPC to 2100 parameters, 3 of which are taken by sp_prepexec itself */
+    private static final int MAX_MULTI_ROW_INSERT_PARAMS = 2097;
+
+    /**
+     * Determines whether the batch can be executed as a bulk load or as multi-row INSERT ... VALUES statements.
+     * 
+     * @return the match of the statement's INSERT syntax, or null if the batch must be executed one row at a time.
+     */
+    private Matcher matchBatchInsert() {
+        if ((!connection.getUseMultiRowValuesForBatchInsert() && 0 == connection.getBulkCopyForBatchInsertThreshold()) || bRequestedGeneratedKeys
+                || 0 == inOutParam.length)
+            return null;
+
+        Matcher matcher = batchInsertSyntax.matcher(userSQL);
+        return matcher.matches() ? matcher : null;
+    }
+
+    /**
+     * Executes a batch of simple INSERT statements as a bulk load, if it is larger than the bulkCopyForBatchInsertThreshold, or otherwise as
+     * multi-row INSERT ... VALUES statements, if useMultiRowValuesForBatchInsert is set.
+     * 
+     * @return false if neither applies to the batch and it must be executed one row at a time.
+     */
+    private boolean doExecuteBatchInsert(PrepStmtBatchExecCmd batchCommand,
+            Matcher batchInsert) throws SQLServerException {
+        int bulkCopyThreshold = connection.getBulkCopyForBatchInsertThreshold();
+        if (0 < bulkCopyThreshold && bulkCopyThreshold < batchParamValues.size() && doExecuteBulkCopyInsertBatch(batchCommand, batchInsert))
+            return true;
+
+        if (connection.getUseMultiRowValuesForBatchInsert() && MAX_MULTI_ROW_INSERT_PARAMS >= inOutParam.length) {
+            doExecuteMultiRowInsertBatch(batchCommand, batchInsert);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Executes the batch as a bulk load into the INSERT statement's table. The bulk load checks constraints, fires triggers, keeps nulls and runs in
+     * the connection's transaction, so that it has the same effect as the INSERT statements. It either loads all rows or none. A batch that inserts
+     * into an identity column is not bulk loaded, as a bulk load would ignore its values, or with KeepIdentity insert them regardless of
+     * IDENTITY_INSERT.
+     * 
+     * @param batchCommand
+     *            the batch command that receives the update counts and the batch error
+     * @param batchInsert
+     *            the match of the statement's INSERT syntax
+     * @return false if the batch cannot be bulk loaded: the INSERT has no column list, the column names do not match the table's or include an
+     *         identity column, or a parameter value cannot be bulk copied (see BatchInsertBulkRecord).
+     * @throws SQLServerException
+     *             if the connection is closed or the transaction was rolled back
+     */
+    private boolean doExecuteBulkCopyInsertBatch(PrepStmtBatchExecCmd batchCommand,
+            Matcher batchInsert) throws SQLServerException {
+        if (null == batchInsert.group(3) || Util.shouldHonorAEForParameters(stmtColumnEncriptionSetting, connection))
+            return false;
+
+        ArrayList<String> columnNames = new ArrayList<String>();
+        Matcher column = batchInsertColumn.matcher(batchInsert.group(3));
+        while (column.regionStart() < column.regionEnd()) {
+            if (!column.lookingAt())
+                return false;
+            columnNames.add((null != column.group(1)) ? column.group(1).replace("]]", "]") : column.group(2));
+            column.region(column.end(), column.regionEnd());
+        }
+        if (columnNames.size() != inOutParam.length)
+            return false;
+
+        BatchInsertBulkRecord bulkRecord = BatchInsertBulkRecord.fromBatch(batchParamValues, columnNames.toArray(new String[columnNames.size()]),
+                connection.sendStringParametersAsUnicode());
+        if (null == bulkRecord)
+            return false;
+
+        final int numBatches = batchParamValues.size();
+        batchCommand.batchException = null;
+        batchCommand.updateCounts = new long[numBatches];
+        Arrays.fill(batchCommand.updateCounts, Statement.EXECUTE_FAILED); // Init to unknown status EXECUTE_FAILED
+
+        SQLServerBulkCopyOptions copyOptions = new SQLServerBulkCopyOptions();
+        copyOptions.setBulkCopyTimeout(queryTimeout);
+        copyOptions.setCheckConstraints(true);
+        copyOptions.setFireTriggers(true);
+        copyOptions.setKeepNulls(true);
+
+        SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(connection);
+        bulkCopy.rejectIdentityColumnMappings = true;
+        try {
+            bulkCopy.setBulkCopyOptions(copyOptions);
+            bulkCopy.setDestinationTableName(batchInsert.group(2));
+            for (int i = 0; i < columnNames.size(); i++)
+                bulkCopy.addColumnMapping(i + 1, columnNames.get(i));
+
+            bulkCopy.writeToServer(bulkRecord);
+            Arrays.fill(batchCommand.updateCounts, 1);
+        }
+        catch (SQLServerException e) {
+            // The destination columns, including identity columns, are validated before any row is sent; the rows can still be inserted one at a
+            // time.
+            if (SQLState.COL_NOT_FOUND.getSQLStateCode().equals(e.getSQLState()))
+                return false;
+
+            // If the failure was severe enough to close the connection or roll back a
+            // manual transaction, then propagate the error up as a SQLServerException.
+            if (connection.isSessionUnAvailable() || connection.rolledBackTransaction())
+                throw e;
+
+            batchCommand.batchException = e;
+        }
+        finally {
+            bulkCopy.close();
+        }
+
+        return true;
+    }
+
+    /**
+     * Executes the batch as multi-row INSERT ... VALUES statements, each inserting as many rows of the batch as SQL Server allows in one
+     * statement. A failed statement fails all of its rows; execution continues with the next statement, as with row-at-a-time batching. The
+     * statements share the query timeout: each is given the time that remains of it, and the batch fails once it has run out.
+     * 
+     * @param batchCommand
+     *            the batch command that receives the update counts and the first batch error
+     * @param multiRowInsert
+     *            the match of the statement's INSERT syntax
+     * @throws SQLServerException
+     *             if the connection is closed or the transaction was rolled back
+     */
+    private void doExecuteMultiRowInsertBatch(PrepStmtBatchExecCmd batchCommand,
+            Matcher multiRowInsert) throws SQLServerException {
+        final int numBatches = batchParamValues.size();
+        final int numParams = inOutParam.length;
+        final int maxRowsPerInsert = Math.min(MAX_MULTI_ROW_INSERT_ROWS, MAX_MULTI_ROW_INSERT_PARAMS / numParams);
+        final String insertPrefix = multiRowInsert.group(1);
+        final String insertRow = multiRowInsert.group(4);
+
+        batchCommand.batchException = null;
+        batchCommand.updateCounts = new long[numBatches];
+        Arrays.fill(batchCommand.updateCounts, Statement.EXECUTE_FAILED); // Init to unknown status EXECUTE_FAILED
+
+        final long deadline = (0 < queryTimeout) ? System.nanoTime() + TimeUnit.SECONDS.toNanos(queryTimeout) : 0;
+
+        // Full-size inserts reuse one statement (and its prepared handle); only the last, smaller insert needs another.
+        SQLServerPreparedStatement insertStmt = null;
+        int insertStmtRows = 0;
+        try {
+            for (int batch = 0; batch < numBatches;) {
+                int rows = Math.min(maxRowsPerInsert, numBatches - batch);
+                if (rows != insertStmtRows) {
+                    if (null != insertStmt)
+                        insertStmt.close();
+
+                    StringBuilder sql = new StringBuilder(insertPrefix.length() + 1 + rows * (insertRow.length() + 1));
+                    sql.append(insertPrefix).append(' ').append(insertRow);
+                    for (int i = 1; i < rows; i++)
+                        sql.append(',').append(insertRow);
+
+                    insertStmt = (SQLServerPreparedStatement) connection.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY, connection.getHoldability(), stmtColumnEncriptionSetting);
+                    insertStmtRows = rows;
+                }
+
+                if (0 < queryTimeout) {
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (0 >= remainingNanos)
+                        throw new SQLServerException(SQLServerException.getErrString("R_queryTimedOut"), SQLState.STATEMENT_CANCELED,
+                                DriverError.NOT_SET, null);
+
+                    // Round up, as a timeout of 0 seconds would mean no timeout.
+                    insertStmt.setQueryTimeout((int) ((remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+                }
+
+                for (int i = 0; i < rows; i++)
+                    System.arraycopy(batchParamValues.get(batch + i), 0, insertStmt.inOutParam, i * numParams, numParams);
+
+                try {
+                    // Each row inserts exactly one row unless, for example, a trigger changes the update count.
+                    int updateCount = insertStmt.executeUpdate();
+                    Arrays.fill(batchCommand.updateCounts, batch, batch + rows, (rows == updateCount) ? 1 : Statement.SUCCESS_NO_INFO);
+                }
+                catch (SQLServerException e) {
+                    // If the failure was severe enough to close the connection or roll back a
+                    // manual transaction, then propagate the error up as a SQLServerException
+                    // now, rather than continue with the batch. Likewise if the batch has timed out.
+                    if (connection.isSessionUnAvailable() || connection.rolledBackTransaction()
+                            || (0 < queryTimeout && 0 >= deadline - System.nanoTime()))
+                        throw e;
+
+                    if (null == batchCommand.batchException)
+                        batchCommand.batchException = e;
+                }
+
+                batch += rows;
+            }
+        }
+        finally {
+            if (null != insertStmt)
+                insertStmt.close();
+        }
+    }
+
     private final class PrepStmtBatchExecCmd extends TDSCommand {
         private final SQLServerPreparedStatement stmt;
         SQLServerException batchException;
@@ -2494,6 +2993,13 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                         updateCount = Statement.EXECUTE_FAILED;
                         if (null == batchCommand.batchException)
                             batchCommand.batchException = e;
+
+                        // A stale pooled handle fails the rest of the batch; make sure the next
+                        // execution prepares the statement again.
+                        invalidateStaleCachedHandle(e);
+
+                        // Likewise, make sure the next batch queries changed encryption metadata again.
+                        invalidateChangedEncryptionMetadata(e);
                     }
 
                     // In batch execution, we have a special update count
@@ -8,7 +8,10 @@
 
 package com.microsoft.sqlserver.jdbc;
 
+import java.sql.ResultSet;
 import java.sql.SQLType;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 
@@ -58,4 +61,20 @@ public class SQLServerPreparedStatement42 extends SQLServerPreparedStatement imp
             boolean forceEncrypt) throws SQLServerException {
         SQLServerPreparedStatement42Helper.setObject(this, parameterIndex, x, targetSqlType, precision, scale, forceEncrypt);
     }
+
+    public final CompletableFuture<ResultSet> executeQueryAsync() {
+        return SQLServerPreparedStatement42Helper.executeQueryAsync(this, null);
+    }
+
+    public final CompletableFuture<ResultSet> executeQueryAsync(Executor executor) {
+        return SQLServerPreparedStatement42Helper.executeQueryAsync(this, executor);
+    }
+
+    public final CompletableFuture<Integer> executeUpdateAsync() {
+        return SQLServerPreparedStatement42Helper.executeUpdateAsync(this, null);
+    }
+
+    public final CompletableFuture<Integer> executeUpdateAsync(Executor executor) {
+        return SQLServerPreparedStatement42Helper.executeUpdateAsync(this, executor);
+    }
 }
@@ -8,7 +8,19 @@
 
 package com.microsoft.sqlserver.jdbc;
 
+import java.sql.ResultSet;
 import java.sql.SQLType;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * 
@@ -86,4 +98,145 @@ class SQLServerPreparedStatement42Helper {
 
         SQLServerStatement.loggerExternal.exiting(ps.getClassNameLogging(), "setObject");
     }
+
+    private static final String asyncThreadGroupName = "mssql-jdbc-AsyncExecution";
+
+    // Maximum number of threads of the shared asynchronous execution pool. Executions beyond it wait in the pool's queue.
+    private static final int ASYNC_EXECUTOR_MAX_THREADS = 64;
+
+    /**
+     * The queue of the shared asynchronous execution pool. It takes an execution only if an idle thread is waiting for it, so that the pool starts
+     * another thread, up to its maximum, rather than queuing the execution. Executions refused once the pool is at its maximum are queued by
+     * enqueue.
+     */
+    private static final class AsyncExecutorQueue extends LinkedTransferQueue<Runnable> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean offer(Runnable execution) {
+            return tryTransfer(execution);
+        }
+
+        void enqueue(Runnable execution) {
+            super.offer(execution);
+        }
+    }
+
+    // Runs asynchronous executions that are not given an executor. Each thread waits on a different connection, as the executions of a connection
+    // are handed to the pool one at a time.
+    private static final ThreadPoolExecutor asyncExecutor = new ThreadPoolExecutor(0, ASYNC_EXECUTOR_MAX_THREADS, 60L, TimeUnit.SECONDS,
+            new AsyncExecutorQueue(), new ThreadFactory() {
+                private final ThreadGroup tg = new ThreadGroup(asyncThreadGroupName);
+                private final String threadNamePrefix = tg.getName() + "-";
+                private final AtomicInteger threadNumber = new AtomicInteger(0);
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(tg, r, threadNamePrefix + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            }, new RejectedExecutionHandler() {
+                public void rejectedExecution(Runnable execution,
+                        ThreadPoolExecutor executor) {
+                    ((AsyncExecutorQueue) executor.getQueue()).enqueue(execution);
+                }
+            });
+
+    static final CompletableFuture<ResultSet> executeQueryAsync(final SQLServerPreparedStatement ps,
+            Executor executor) {
+        DriverJDBCVersion.checkSupportsJDBC42();
+
+        if (SQLServerStatement.loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            SQLServerStatement.loggerExternal.entering(ps.getClassNameLogging(), "executeQueryAsync", executor);
+
+        CompletableFuture<ResultSet> future = executeAsync(ps, new Callable<ResultSet>() {
+            public ResultSet call() throws SQLServerException {
+                return ps.executeQuery();
+            }
+        }, executor);
+
+        if (SQLServerStatement.loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            SQLServerStatement.loggerExternal.exiting(ps.getClassNameLogging(), "executeQueryAsync", future);
+        return future;
+    }
+
+    static final CompletableFuture<Integer> executeUpdateAsync(final SQLServerPreparedStatement ps,
+            Executor executor) {
+        DriverJDBCVersion.checkSupportsJDBC42();
+
+        if (SQLServerStatement.loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            SQLServerStatement.loggerExternal.entering(ps.getClassNameLogging(), "executeUpdateAsync", executor);
+
+        CompletableFuture<Integer> future = executeAsync(ps, new Callable<Integer>() {
+            public Integer call() throws SQLServerException {
+                return ps.executeUpdate();
+            }
+        }, executor);
+
+        if (SQLServerStatement.loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            SQLServerStatement.loggerExternal.exiting(ps.getClassNameLogging(), "executeUpdateAsync", future);
+        return future;
+    }
+
+    /**
+     * Queues an execution of the statement on its connection, to run on the executor (or on the shared asynchronous execution pool if null) after
+     * the earlier asynchronous executions of the connection, and completes the returned future with its result. Cancelling the future before the
+     * execution completes cancels the statement.
+     * 
+     * The future completes exceptionally at once if an asynchronous execution of the statement has not completed yet, as executing the statement
+     * again would close the result of that execution.
+     */
+    private static <T> CompletableFuture<T> executeAsync(final SQLServerPreparedStatement ps,
+            final Callable<T> execution,
+            Executor executor) {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+
+        if (!ps.isAsyncExecutionPending.compareAndSet(false, true)) {
+            future.completeExceptionally(new SQLServerException(ps, SQLServerException.getErrString("R_asyncExecutionPending"), null, 0, false));
+            return future;
+        }
+
+        future.whenComplete(new BiConsumer<T, Throwable>() {
+            public void accept(T result,
+                    Throwable e) {
+                ps.isAsyncExecutionPending.set(false);
+
+                if (future.isCancelled()) {
+                    try {
+                        ps.cancel();
+                    }
+                    catch (SQLServerException cancelException) {
+                        if (SQLServerStatement.loggerExternal.isLoggable(java.util.logging.Level.FINE))
+                            SQLServerStatement.loggerExternal.fine(ps.toString() + " Ignored error cancelling asynchronous execution: "
+                                    + cancelException.getMessage());
+                    }
+                }
+            }
+        });
+
+        ps.connection.asyncExecutionQueue.add(new AsyncExecutionQueue.Execution((null != executor) ? executor : asyncExecutor) {
+            public void run() {
+                // Nothing to do if the future was cancelled before the execution started.
+                if (future.isDone())
+                    return;
+
+                try {
+                    T result = execution.call();
+
+                    // Release the result set of an execution that was cancelled too late to stop it.
+                    if (!future.complete(result) && result instanceof ResultSet)
+                        ((ResultSet) result).close();
+                }
+                catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            void rejected(RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return future;
+    }
 }
@@ -93,6 +93,7 @@ public final class SQLServerResource extends ListResourceBundle {
 				{"R_invalidQueryTimeOutValue", "The query timeout value {0} is not valid."},
 				{"R_invalidFetchDirection", "The fetch direction {0} is not valid."},
 				{"R_invalidFetchSize", "The fetch size cannot be negative."},
+				{"R_invalidColumnBatchSize", "The number of rows of a column batch must be greater than 0."},
 				{"R_noColumnParameterValue", "No column parameter values were specified to update the row."},
 				{"R_statementMustBeExecuted", "The statement must be executed before any results can be obtained."},
 				{"R_modeSuppliedNotValid", "The supplied mode is not valid."},
@@ -126,6 +127,10 @@ public final class SQLServerResource extends ListResourceBundle {
 				{"R_unknownType", "The Java type {0} is not a supported type."},
 				{"R_physicalConnectionIsClosed", "The physical connection is closed for this pooled connection."},
 				{"R_invalidDataSourceReference", "Invalid DataSource reference."},
+				{"R_invalidPoolSize", "The pool sizes are not valid: minPoolSize {0}, maxPoolSize {1}."},
+				{"R_invalidPoolWaitTimeout", "The pool wait timeout {0} is not valid."},
+				{"R_poolWaitTimedOut", "No connection of the pool became available within {0} milliseconds."},
+				{"R_poolIsClosed", "The connection pool is closed."},
 				{"R_cantGetColumnValueFromDeletedRow", "Cannot get a value from a deleted row."},
 				{"R_cantGetUpdatedColumnValue", "Updated columns cannot be accessed until updateRow() or cancelRowUpdates() has been called."},
 				{"R_cantUpdateColumn","The column value cannot be updated."},
@@ -134,7 +139,6 @@ public final class SQLServerResource extends ListResourceBundle {
 				{"R_notConfiguredForIntegrated", "This driver is not configured for integrated authentication."},
 				{"R_failoverPartnerWithoutDB", "databaseName is required when using the failoverPartner connection property."},
 				{"R_invalidPartnerConfiguration", "The database {0} on server {1} is not configured for database mirroring."},
-				{"R_invaliddisableStatementPooling", "The disableStatementPooling value {0} is not valid."},
 				{"R_invalidselectMethod", "The selectMethod {0} is not valid."},
 				{"R_invalidpropertyValue", "The data type of connection property {0} is not valid. All the properties for this connection must be of String type."},
 				{"R_invalidArgument", "The argument {0} is not valid."},
@@ -166,6 +170,13 @@ public final class SQLServerResource extends ListResourceBundle {
 				{"R_applicationNamePropertyDescription", "The application name for SQL Server profiling and logging tools."},
 				{"R_lastUpdateCountPropertyDescription", "Ensures that only the last update count is returned from an SQL statement passed to the server."},
 				{"R_disableStatementPoolingPropertyDescription", "Disables the statement pooling feature."},
+				{"R_statementPoolingCacheSizePropertyDescription", "The maximum number of prepared statement handles that are pooled per connection when statement pooling is enabled."},
+				{"R_useMultiRowValuesForBatchInsertPropertyDescription", "Executes batches of simple parameterized INSERT statements as multi-row INSERT ... VALUES statements."},
+				{"R_bulkCopyForBatchInsertThresholdPropertyDescription", "Executes batches of simple parameterized INSERT statements with more rows than this threshold as bulk loads. 0 disables bulk loading of batches."},
+				{"R_parameterEncryptionMetadataCacheSizePropertyDescription", "The maximum number of statements whose parameter encryption metadata is cached by the connection. 0 disables the cache."},
+				{"R_lobInMemoryLimitPropertyDescription", "The maximum length, in bytes, of a Blob, Clob or NClob value read from the server that is kept in memory. Longer values are copied to a temporary file. 0 keeps all values in memory."},
+				{"R_validationIntervalPropertyDescription", "The number of milliseconds after a response from the server within which isValid reports the connection as valid without querying the server. 0 makes isValid always query the server."},
+				{"R_bulkCopyMetadataCacheTTLPropertyDescription", "The number of seconds the column metadata of a bulk copy destination table is cached by the connection. 0 disables the cache."},
 				{"R_integratedSecurityPropertyDescription", "Indicates whether Windows authentication will be used to connect to SQL Server."},
 				{"R_authenticationSchemePropertyDescription", "The authentication scheme to be used for integrated authentication."},
 				{"R_lockTimeoutPropertyDescription", "The number of milliseconds to wait before the database reports a lock time-out."},
@@ -188,6 +199,8 @@ public final class SQLServerResource extends ListResourceBundle {
 				{"R_TransparentNetworkIPResolutionPropertyDescription", "Determines whether to use the Transparent Network IP Resolution feature."},
 				{"R_queryTimeoutPropertyDescription", "The number of seconds to wait before the database reports a query time-out."},
 				{"R_socketTimeoutPropertyDescription", "The number of milliseconds to wait before the java.net.SocketTimeoutException is raised."},
+				{"R_packetPoolSizePropertyDescription", "The maximum number of response packet buffers that are recycled per connection. A value of 0 disables packet pooling."},
+				{"R_useSocketChannelPropertyDescription", "Communicates with the server over a java.nio SocketChannel with direct buffers, and uses an SSLEngine for encryption, instead of socket streams."},
 				{"R_serverPreparedStatementDiscardThresholdPropertyDescription", "The threshold for when to close discarded prepare statements on the server (calling a batch of sp_unprepares). A value of 1 or less will cause sp_unprepare to be called immediately on PreparedStatment close."},
 				{"R_enablePrepareOnFirstPreparedStatementCallPropertyDescription", "This setting specifies whether a prepared statement is prepared (sp_prepexec) on first use (property=true) or on second after first calling sp_executesql (property=false)."},
 				{"R_gsscredentialPropertyDescription", "Impersonated GSS Credential to access SQL Server."}, 
@@ -222,6 +235,7 @@ public final class SQLServerResource extends ListResourceBundle {
 				{"R_ParsingError", "Failed to parse data for the {0} type."},
 				{"R_BulkTypeNotSupported", "Data type {0} is not supported in bulk copy."},
 				{"R_invalidTransactionOption", "UseInternalTransaction option can not be set to TRUE when used with a Connection object."},
+				{"R_parallelBulkCopyAborted", "The bulk copy session was aborted because another session or the source failed."},
 				{"R_invalidNegativeArg", "The {0} argument cannot be negative."},
 				{"R_BulkColumnMappingsIsEmpty", "Cannot perform bulk copy operation if the only mapping is an identity column and KeepIdentity is set to false."},        
 				{"R_BulkCSVDataSchemaMismatch", "Source data does not match source schema."},
@@ -334,8 +348,10 @@ public final class SQLServerResource extends ListResourceBundle {
 				{"R_unsupportedConversionTVP", "The conversion from {0} to {1} is unsupported for Table-Valued Parameter."},
 				{"R_TVPMixedSource", "Cannot add column metadata. This Table-Valued Parameter has a ResultSet from which metadata will be derived."},
 				{"R_TVPEmptyMetadata", "There are not enough fields in the Structured type. Structured types must have at least one field."},
-				{"R_TVPInvalidValue", "The value provided for Table-Valued Parameter {0} is not valid. Only SQLServerDataTable, ResultSet and ISQLServerDataRecord objects are supported."},
+				{"R_TVPInvalidValue", "The value provided for Table-Valued Parameter {0} is not valid. Only SQLServerDataTable, SQLServerColumnarDataTable, SQLServerStreamingDataTable, ResultSet and ISQLServerDataRecord objects are supported."},
 				{"R_TVPInvalidColumnValue", "Input data is not in correct format."},
+				{"R_TVPNoRow", "No row has been added to this data table."},
+				{"R_TVPRowsAlreadySent", "The rows of this streaming data table have already been sent."},
 				{"R_AADIntegratedOnNonWindows","ActiveDirectoryIntegrated is only supported on Windows operating systems."},
 				{"R_TVPSortOrdinalGreaterThanFieldCount", "The sort ordinal {0} on field {1} exceeds the total number of fields."},
 				{"R_TVPMissingSortOrderOrOrdinal", "The sort order and ordinal must either both be specified, or neither should be specified (SortOrder.Unspecified and -1). The values given were: order = {0}, ordinal = {1}."},
@@ -380,5 +396,13 @@ public final class SQLServerResource extends ListResourceBundle {
 				{"R_invalidFipsEncryptConfig", "Could not enable FIPS due to either encrypt is not true or using trusted certificate settings."},
 				{"R_invalidFipsProviderConfig", "Could not enable FIPS due to invalid FIPSProvider or TrustStoreType."},
 				{"R_serverPreparedStatementDiscardThreshold", "The serverPreparedStatementDiscardThreshold {0} is not valid."},
+				{"R_invalidPacketPoolSize", "The packetPoolSize {0} is not valid."},
+				{"R_invalidStatementPoolingCacheSize", "The statementPoolingCacheSize {0} is not valid."},
+				{"R_invalidBulkCopyForBatchInsertThreshold", "The bulkCopyForBatchInsertThreshold {0} is not valid."},
+				{"R_invalidBulkCopyMetadataCacheTTL", "The bulkCopyMetadataCacheTTL {0} is not valid."},
+				{"R_invalidValidationInterval", "The validationInterval {0} is not valid."},
+				{"R_invalidParameterEncryptionMetadataCacheSize", "The parameterEncryptionMetadataCacheSize {0} is not valid."},
+				{"R_invalidLobInMemoryLimit", "The lobInMemoryLimit {0} is not valid."},
+				{"R_asyncExecutionPending", "An asynchronous execution of the statement has not completed."},
     };
 }
@@ -26,6 +26,11 @@ import java.sql.SQLFeatureNotSupportedException;
 import java.sql.SQLWarning;
 import java.sql.SQLXML;
 import java.text.MessageFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
 import java.util.Calendar;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -169,6 +174,9 @@ public class SQLServerResultSet implements ISQLServerResultSet {
     /** The current row's column values */
     private final Column[] columns;
 
+    /** The index of the column names for findColumn, built when it is first called */
+    private ColumnNameIndex columnNameIndex;
+
     // The CekTable retrieved from the COLMETADATA token for this resultset.
     private CekTable cekTable = null;
 
@@ -180,6 +188,7 @@ public class SQLServerResultSet implements ISQLServerResultSet {
     final void setColumnName(int index,
             String name) {
         columns[index - 1].setColumnName(name);
+        columnNameIndex = null;
     }
 
     /**
@@ -621,25 +630,16 @@ public class SQLServerResultSet implements ISQLServerResultSet {
         // database default locale when making comparisons, this would produce
         // inconsistent results on different clients or different servers.
 
-        // Search using case-sensitive, non-locale specific (binary) compare.
-        // If the user supplies a true match for the column name, we will find it here.
-        int i;
-        for (i = 0; i < columns.length; i++) {
-            if (columns[i].getColumnName().equals(columnName)) {
-                loggerExternal.exiting(getClassNameLogging(), "findColumn", i + 1);
-                return i + 1;
-            }
-        }
-
-        // Check for case-insensitive match using a non-locale aware method.
         // Per JDBC spec, 27.3 "The driver will do a case-insensitive search for
         // columnName in it's attempt to map it to the column's index".
         // Use VM supplied String.equalsIgnoreCase to do the "case-insensitive search".
-        for (i = 0; i < columns.length; i++) {
-            if (columns[i].getColumnName().equalsIgnoreCase(columnName)) {
-                loggerExternal.exiting(getClassNameLogging(), "findColumn", i + 1);
-                return i + 1;
-            }
+
+        // The names are looked up in an index of the columns, built on the first call,
+        // that searches them in this order.
+        int i = getColumnNameIndex().indexOf(columnName);
+        if (-1 != i) {
+            loggerExternal.exiting(getClassNameLogging(), "findColumn", i + 1);
+            return i + 1;
         }
         MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidColumnName"));
         Object[] msgArgs = {columnName};
@@ -648,6 +648,25 @@ public class SQLServerResultSet implements ISQLServerResultSet {
         return 0;
     }
 
+    /*
+     * Returns the index of the column names. The index of the previous result set of the statement is used again when it has the same columns, as
+     * a prepared statement that is executed again has.
+     */
+    private ColumnNameIndex getColumnNameIndex() {
+        if (null == columnNameIndex) {
+            ColumnNameIndex index = stmt.columnNameIndex;
+            if (null == index || !index.hasNames(columns)) {
+                String[] names = new String[columns.length];
+                for (int i = 0; i < columns.length; i++)
+                    names[i] = columns[i].getColumnName();
+                index = new ColumnNameIndex(names);
+                stmt.columnNameIndex = index;
+            }
+            columnNameIndex = index;
+        }
+        return columnNameIndex;
+    }
+
     final int getColumnCount() {
         int nCols = columns.length;
         if (0 != serverCursorId)
@@ -1023,6 +1042,47 @@ public class SQLServerResultSet implements ISQLServerResultSet {
         return false;
     }
 
+    public SQLServerColumnBatch fetchColumnBatch(int maxRows) throws SQLServerException {
+        loggerExternal.entering(getClassNameLogging(), "fetchColumnBatch", maxRows);
+        checkClosed();
+        if (maxRows < 1)
+            SQLServerException.makeFromDriverError(stmt.connection, stmt, SQLServerException.getErrString("R_invalidColumnBatchSize"), null, false);
+
+        SQLServerColumnBatch batch = new SQLServerColumnBatch(columns, getColumnCount(), maxRows);
+
+        // The rows of a forward only client cursor are read straight from the response, with no Column values.
+        // Other rows are read with the getters.
+        boolean readsRows = isForwardOnly() && 0 == serverCursorId && SQLServerColumnBatch.canReadRows(columns);
+        byte[] nullBitmap = null;
+        while (batch.getRowCount() < maxRows && next()) {
+            if (!readsRows) {
+                batch.readRow(this);
+                continue;
+            }
+
+            // The last row of the batch is read again from its start by the getters, as next() leaves it
+            boolean isLastRow = (batch.getRowCount() == maxRows - 1);
+            TDSReaderMark rowMark = isLastRow ? tdsReader.mark() : null;
+            if (RowType.NBCROW == resultSetCurrentRowType) {
+                if (null == nullBitmap)
+                    nullBitmap = new byte[((columns.length - 1) >> 3) + 1];
+                tdsReader.readBytes(nullBitmap, 0, nullBitmap.length);
+                batch.readRow(tdsReader, columns, nullBitmap);
+            }
+            else {
+                batch.readRow(tdsReader, columns, null);
+            }
+
+            if (isLastRow)
+                tdsReader.reset(rowMark);
+            else
+                lastColumnIndex = 0;
+        }
+
+        loggerExternal.exiting(getClassNameLogging(), "fetchColumnBatch", batch.getRowCount());
+        return batch;
+    }
+
     public boolean wasNull() throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "wasNull");
         checkClosed();
@@ -1914,11 +1974,101 @@ public class SQLServerResultSet implements ISQLServerResultSet {
             JDBCType jdbcType,
             InputStreamGetterArgs getterArgs,
             Calendar cal) throws SQLServerException {
-        Object o = getterGetColumn(columnIndex).getValue(jdbcType, getterArgs, cal, tdsReader);
+        return getValue(getterGetColumn(columnIndex), jdbcType, getterArgs, cal);
+    }
+
+    private Object getValue(Column column,
+            JDBCType jdbcType,
+            InputStreamGetterArgs getterArgs,
+            Calendar cal) throws SQLServerException {
+        Object o = column.getValue(jdbcType, getterArgs, cal, tdsReader);
         lastValueWasNull = (null == o);
         return o;
     }
 
+    /*
+     * Returns the value of a column for getBoolean, getByte, getShort, getInt and getLong, which narrow it as the conversion to the boxed type of
+     * jdbcType would. Integral values from the server are read as primitives, so that reading them allocates nothing.
+     */
+    private long getIntegralValue(int columnIndex,
+            JDBCType jdbcType) throws SQLServerException {
+        Column column = getterGetColumn(columnIndex);
+        if (column.hasIntegralValue()) {
+            long value = column.getLongValue(tdsReader);
+            lastValueWasNull = column.isNull();
+            return value;
+        }
+
+        Object value = getValue(column, jdbcType, null, null);
+        if (null == value)
+            return 0;
+        if (value instanceof Boolean)
+            return ((Boolean) value).booleanValue() ? 1 : 0;
+        return ((Number) value).longValue();
+    }
+
+    /*
+     * Returns the value of a column for getDouble. Integral and floating point values from the server are read as primitives.
+     */
+    private double getDoubleValue(int columnIndex) throws SQLServerException {
+        Column column = getterGetColumn(columnIndex);
+        if (column.hasIntegralValue()) {
+            long value = column.getLongValue(tdsReader);
+            lastValueWasNull = column.isNull();
+            return value;
+        }
+        if (column.hasFloatingPointValue()) {
+            double value = column.getDoubleValue(tdsReader);
+            lastValueWasNull = column.isNull();
+            return value;
+        }
+
+        Double value = (Double) getValue(column, JDBCType.DOUBLE, null, null);
+        return null != value ? value.doubleValue() : 0;
+    }
+
+    /*
+     * Returns the value of a column for getFloat. Integral and floating point values from the server are read as primitives.
+     */
+    private float getFloatValue(int columnIndex) throws SQLServerException {
+        Column column = getterGetColumn(columnIndex);
+        if (column.hasIntegralValue()) {
+            long value = column.getLongValue(tdsReader);
+            lastValueWasNull = column.isNull();
+            return value;
+        }
+        if (column.hasFloatingPointValue()) {
+            double value = column.getDoubleValue(tdsReader);
+            lastValueWasNull = column.isNull();
+            return (float) value;
+        }
+
+        Float value = (Float) getValue(column, JDBCType.REAL, null, null);
+        return null != value ? value.floatValue() : 0;
+    }
+
+    /*
+     * Returns the value of a column for getObject as a java.time.LocalDateTime or, withOffset, a java.time.OffsetDateTime. Temporal values from
+     * the server are converted directly from their date and time parts, rather than through java.sql.Timestamp.
+     */
+    private Object getJavaTimeValue(int columnIndex,
+            boolean withOffset) throws SQLServerException {
+        Column column = getterGetColumn(columnIndex);
+        if (column.hasTemporalValue() && withOffset == (SSType.DATETIMEOFFSET == column.getTypeInfo().getSSType())) {
+            Object value = column.getJavaTimeValue(tdsReader);
+            lastValueWasNull = (null == value);
+            return value;
+        }
+
+        if (withOffset) {
+            microsoft.sql.DateTimeOffset value = (microsoft.sql.DateTimeOffset) getValue(column, JDBCType.DATETIMEOFFSET, null, null);
+            return (null != value) ? OffsetDateTime.ofInstant(value.getTimestamp().toInstant(), DDC.zoneOffset(value.getMinutesOffset())) : null;
+        }
+
+        java.sql.Timestamp value = (java.sql.Timestamp) getValue(column, JDBCType.TIMESTAMP, null, null);
+        return (null != value) ? value.toLocalDateTime() : null;
+    }
+
     private Object getStream(int columnIndex,
             StreamType streamType) throws SQLServerException {
         Object value = getValue(columnIndex, streamType.getJDBCType(),
@@ -1998,33 +2148,37 @@ public class SQLServerResultSet implements ISQLServerResultSet {
     public boolean getBoolean(int columnIndex) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getBoolean", columnIndex);
         checkClosed();
-        Boolean value = (Boolean) getValue(columnIndex, JDBCType.BIT);
-        loggerExternal.exiting(getClassNameLogging(), "getBoolean", value);
-        return null != value ? value.booleanValue() : false;
+        boolean value = 0 != getIntegralValue(columnIndex, JDBCType.BIT);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getBoolean", value);
+        return value;
     }
 
     public boolean getBoolean(String columnName) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getBoolean", columnName);
         checkClosed();
-        Boolean value = (Boolean) getValue(findColumn(columnName), JDBCType.BIT);
-        loggerExternal.exiting(getClassNameLogging(), "getBoolean", value);
-        return null != value ? value.booleanValue() : false;
+        boolean value = 0 != getIntegralValue(findColumn(columnName), JDBCType.BIT);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getBoolean", value);
+        return value;
     }
 
     public byte getByte(int columnIndex) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getByte", columnIndex);
         checkClosed();
-        Short value = (Short) getValue(columnIndex, JDBCType.TINYINT);
-        loggerExternal.exiting(getClassNameLogging(), "getByte", value);
-        return null != value ? value.byteValue() : 0;
+        byte value = (byte) getIntegralValue(columnIndex, JDBCType.TINYINT);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getByte", value);
+        return value;
     }
 
     public byte getByte(String columnName) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getByte", columnName);
         checkClosed();
-        Short value = (Short) getValue(findColumn(columnName), JDBCType.TINYINT);
-        loggerExternal.exiting(getClassNameLogging(), "getByte", value);
-        return null != value ? value.byteValue() : 0;
+        byte value = (byte) getIntegralValue(findColumn(columnName), JDBCType.TINYINT);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getByte", value);
+        return value;
     }
 
     public byte[] getBytes(int columnIndex) throws SQLServerException {
@@ -2082,65 +2236,73 @@ public class SQLServerResultSet implements ISQLServerResultSet {
     public double getDouble(int columnIndex) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getDouble", columnIndex);
         checkClosed();
-        Double value = (Double) getValue(columnIndex, JDBCType.DOUBLE);
-        loggerExternal.exiting(getClassNameLogging(), "getDouble", value);
-        return null != value ? value.doubleValue() : 0;
+        double value = getDoubleValue(columnIndex);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getDouble", value);
+        return value;
     }
 
     public double getDouble(String columnName) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getDouble", columnName);
         checkClosed();
-        Double value = (Double) getValue(findColumn(columnName), JDBCType.DOUBLE);
-        loggerExternal.exiting(getClassNameLogging(), "getDouble", value);
-        return null != value ? value.doubleValue() : 0;
+        double value = getDoubleValue(findColumn(columnName));
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getDouble", value);
+        return value;
     }
 
     public float getFloat(int columnIndex) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getFloat", columnIndex);
         checkClosed();
-        Float value = (Float) getValue(columnIndex, JDBCType.REAL);
-        loggerExternal.exiting(getClassNameLogging(), "getFloat", value);
-        return null != value ? value.floatValue() : 0;
+        float value = getFloatValue(columnIndex);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getFloat", value);
+        return value;
     }
 
     public float getFloat(String columnName) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getFloat", columnName);
         checkClosed();
-        Float value = (Float) getValue(findColumn(columnName), JDBCType.REAL);
-        loggerExternal.exiting(getClassNameLogging(), "getFloat", value);
-        return null != value ? value.floatValue() : 0;
+        float value = getFloatValue(findColumn(columnName));
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getFloat", value);
+        return value;
     }
 
     public int getInt(int columnIndex) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getInt", columnIndex);
         checkClosed();
-        Integer value = (Integer) getValue(columnIndex, JDBCType.INTEGER);
-        loggerExternal.exiting(getClassNameLogging(), "getInt", value);
-        return null != value ? value.intValue() : 0;
+        int value = (int) getIntegralValue(columnIndex, JDBCType.INTEGER);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getInt", value);
+        return value;
     }
 
     public int getInt(String columnName) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getInt", columnName);
         checkClosed();
-        Integer value = (Integer) getValue(findColumn(columnName), JDBCType.INTEGER);
-        loggerExternal.exiting(getClassNameLogging(), "getInt", value);
-        return null != value ? value.intValue() : 0;
+        int value = (int) getIntegralValue(findColumn(columnName), JDBCType.INTEGER);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getInt", value);
+        return value;
     }
 
     public long getLong(int columnIndex) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getLong", columnIndex);
         checkClosed();
-        Long value = (Long) getValue(columnIndex, JDBCType.BIGINT);
-        loggerExternal.exiting(getClassNameLogging(), "getLong", value);
-        return null != value ? value.longValue() : 0;
+        long value = getIntegralValue(columnIndex, JDBCType.BIGINT);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getLong", value);
+        return value;
     }
 
     public long getLong(String columnName) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getLong", columnName);
         checkClosed();
-        Long value = (Long) getValue(findColumn(columnName), JDBCType.BIGINT);
-        loggerExternal.exiting(getClassNameLogging(), "getLong", value);
-        return null != value ? value.longValue() : 0;
+        long value = getIntegralValue(findColumn(columnName), JDBCType.BIGINT);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getLong", value);
+        return value;
     }
 
     public java.sql.ResultSetMetaData getMetaData() throws SQLServerException {
@@ -2162,8 +2324,28 @@ public class SQLServerResultSet implements ISQLServerResultSet {
 
     public <T> T getObject(int columnIndex,
             Class<T> type) throws SQLException {
-        // The driver currently does not implement the optional JDBC APIs
-        throw new SQLFeatureNotSupportedException(SQLServerException.getErrString("R_notSupported"));
+        loggerExternal.entering(getClassNameLogging(), "getObject", columnIndex);
+        checkClosed();
+        Object value;
+        if (LocalDateTime.class == type || LocalDate.class == type || LocalTime.class == type) {
+            LocalDateTime localDateTime = (LocalDateTime) getJavaTimeValue(columnIndex, false);
+            if (null == localDateTime || LocalDateTime.class == type)
+                value = localDateTime;
+            else if (LocalDate.class == type)
+                value = localDateTime.toLocalDate();
+            else
+                value = localDateTime.toLocalTime();
+        }
+        else if (OffsetDateTime.class == type || OffsetTime.class == type) {
+            OffsetDateTime offsetDateTime = (OffsetDateTime) getJavaTimeValue(columnIndex, true);
+            value = (null == offsetDateTime || OffsetDateTime.class == type) ? offsetDateTime : offsetDateTime.toOffsetTime();
+        }
+        else {
+            // The driver currently does not implement the optional JDBC APIs for other types
+            throw new SQLFeatureNotSupportedException(SQLServerException.getErrString("R_notSupported"));
+        }
+        loggerExternal.exiting(getClassNameLogging(), "getObject", value);
+        return type.cast(value);
     }
 
     public Object getObject(String columnName) throws SQLServerException {
@@ -2176,24 +2358,29 @@ public class SQLServerResultSet implements ISQLServerResultSet {
 
     public <T> T getObject(String columnName,
             Class<T> type) throws SQLException {
-        // The driver currently does not implement the optional JDBC APIs
-        throw new SQLFeatureNotSupportedException(SQLServerException.getErrString("R_notSupported"));
+        loggerExternal.entering(getClassNameLogging(), "getObject", columnName);
+        checkClosed();
+        T value = getObject(findColumn(columnName), type);
+        loggerExternal.exiting(getClassNameLogging(), "getObject", value);
+        return value;
     }
 
     public short getShort(int columnIndex) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getShort", columnIndex);
         checkClosed();
-        Short value = (Short) getValue(columnIndex, JDBCType.SMALLINT);
-        loggerExternal.exiting(getClassNameLogging(), "getShort", value);
-        return null != value ? value.shortValue() : 0;
+        short value = (short) getIntegralValue(columnIndex, JDBCType.SMALLINT);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getShort", value);
+        return value;
     }
 
     public short getShort(String columnName) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getShort", columnName);
         checkClosed();
-        Short value = (Short) getValue(findColumn(columnName), JDBCType.SMALLINT);
-        loggerExternal.exiting(getClassNameLogging(), "getShort", value);
-        return null != value ? value.shortValue() : 0;
+        short value = (short) getIntegralValue(findColumn(columnName), JDBCType.SMALLINT);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getShort", value);
+        return value;
     }
 
     public String getString(int columnIndex) throws SQLServerException {
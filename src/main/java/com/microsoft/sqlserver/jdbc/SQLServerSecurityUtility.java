@@ -10,6 +10,7 @@ package com.microsoft.sqlserver.jdbc;
 
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import javax.crypto.Mac;
@@ -180,6 +181,21 @@ class SQLServerSecurityUtility {
     static byte[] decryptWithKey(byte[] cipherText,
             CryptoMetadata md,
             SQLServerConnection connection) throws SQLServerException {
+        byte[] plainText = new byte[cipherText.length];
+        int plainTextLength = decryptWithKey(cipherText, 0, cipherText.length, plainText, md, connection);
+        return Arrays.copyOf(plainText, plainTextLength);
+    }
+
+    /*
+     * Decrypts the ciphertext at the given offset of a buffer into another buffer, which has room for at least length bytes, and returns the length
+     * of the plaintext.
+     */
+    static int decryptWithKey(byte[] cipherText,
+            int offset,
+            int length,
+            byte[] plainText,
+            CryptoMetadata md,
+            SQLServerConnection connection) throws SQLServerException {
         String serverName = connection.getTrustedServerNameAE();
         assert null != serverName : "serverName should not be null in DecryptWithKey.";
 
@@ -189,11 +205,6 @@ class SQLServerSecurityUtility {
         }
 
         assert md.IsAlgorithmInitialized() : "Decryption Algorithm is not initialized";
-        byte[] plainText = md.cipherAlgorithm.decryptData(cipherText); // this call succeeds or throws.
-        if (null == plainText) {
-            throw new SQLServerException(null, SQLServerException.getErrString("R_PlainTextNullAE"), null, 0, false);
-        }
-
-        return plainText;
+        return md.cipherAlgorithm.decryptData(cipherText, offset, length, plainText, 0); // this call succeeds or throws.
     }
 }
@@ -234,6 +234,11 @@ public class SQLServerStatement implements ISQLServerStatement {
      */
     int resultSetCount = 0;
 
+    /**
+     * The index of the column names of the last result set that findColumn was called on, for the result sets of later executions.
+     */
+    ColumnNameIndex columnNameIndex;
+
     /**
      * Increment opened result set counter
      */
@@ -761,10 +766,9 @@ public class SQLServerStatement implements ISQLServerStatement {
 
     private String ensureSQLSyntax(String sql) throws SQLServerException {
         if (sql.indexOf(LEFT_CURLY_BRACKET) >= 0) {
-            JDBCSyntaxTranslator translator = new JDBCSyntaxTranslator();
-            String execSyntax = translator.translate(sql);
-            procedureName = translator.getProcedureName();
-            return execSyntax;
+            ParsedSQLCacheItem parsedSQL = SQLServerConnection.parseAndCacheSQL(sql);
+            procedureName = parsedSQL.procedureName;
+            return parsedSQL.processedSQL;
         }
 
         return sql;
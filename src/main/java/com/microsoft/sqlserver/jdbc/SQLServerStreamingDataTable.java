@@ -0,0 +1,162 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A table-valued parameter whose rows are read from an iterator or a stream of source objects while the parameter is sent. An
+ * ISQLServerTVPRowBinder sets the values of each row from its source object into a reused SQLServerTVPRow, which is written to the request right
+ * away, so that the memory used does not depend on the number of rows.
+ * <br>
+ * <br>
+ * The columns are described by SQLServerMetaData, as for ISQLServerDataRecord, and their precision and scale must be set before the rows are sent.
+ * The rows can be sent only once: executing the statement again with the same table throws an exception.
+ *
+ * @param <T>
+ *            the type of the source objects of the rows
+ */
+public final class SQLServerStreamingDataTable<T> {
+
+    private final Iterator<? extends T> rows;
+    private final ISQLServerTVPRowBinder<? super T> binder;
+    private final List<SQLServerMetaData> columnMetadata = new ArrayList<SQLServerMetaData>();
+    private String tvpName = null;
+    private boolean rowsSent = false;
+
+    /**
+     * Initializes a new instance of SQLServerStreamingDataTable with the rows of an iterator.
+     *
+     * @param rows
+     *            the source objects of the rows
+     * @param binder
+     *            the binder that sets the values of each row from its source object
+     */
+    public SQLServerStreamingDataTable(Iterator<? extends T> rows,
+            ISQLServerTVPRowBinder<? super T> binder) {
+        this.rows = rows;
+        this.binder = binder;
+    }
+
+    /**
+     * Initializes a new instance of SQLServerStreamingDataTable with the rows of a stream. The stream is consumed, but not closed, when the table is
+     * sent.
+     *
+     * @param rows
+     *            the source objects of the rows
+     * @param binder
+     *            the binder that sets the values of each row from its source object
+     */
+    public SQLServerStreamingDataTable(Stream<? extends T> rows,
+            ISQLServerTVPRowBinder<? super T> binder) {
+        DriverJDBCVersion.checkSupportsJDBC42();
+        this.rows = rows.iterator();
+        this.binder = binder;
+    }
+
+    /**
+     * Adds meta data for the specified column
+     *
+     * @param columnName
+     *            the name of the column
+     * @param sqlType
+     *            the sql type of the column
+     * @throws SQLServerException
+     *             when an error occurs
+     */
+    public void addColumnMetadata(String columnName,
+            int sqlType) throws SQLServerException {
+        addColumnMetadata(new SQLServerMetaData(columnName, sqlType));
+    }
+
+    /**
+     * Adds meta data for the specified column
+     *
+     * @param column
+     *            the meta data of the column, with the precision and scale of the values
+     * @throws SQLServerException
+     *             when an error occurs
+     */
+    public void addColumnMetadata(SQLServerMetaData column) throws SQLServerException {
+        // column names must be unique
+        for (SQLServerMetaData metaData : columnMetadata) {
+            if (metaData.columnName.equals(column.columnName)) {
+                MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_TVPDuplicateColumnName"));
+                Object[] msgArgs = {column.columnName};
+                throw new SQLServerException(null, form.format(msgArgs), null, 0, false);
+            }
+        }
+        columnMetadata.add(column);
+    }
+
+    /**
+     * Retrieves the number of columns of the data table.
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return columnMetadata.size();
+    }
+
+    /**
+     * Retrieves the meta data of a column of the data table.
+     *
+     * @param column
+     *            the first column is 1, the second is 2, and so on
+     * @return SQLServerMetaData of column
+     */
+    public SQLServerMetaData getColumnMetaData(int column) {
+        return columnMetadata.get(column - 1);
+    }
+
+    public String getTvpName() {
+        return tvpName;
+    }
+
+    /**
+     * Sets the name of the type of the table valued parameter.
+     *
+     * @param tvpName
+     *            the name of TVP
+     */
+    public void setTvpName(String tvpName) {
+        this.tvpName = tvpName;
+    }
+
+    final List<SQLServerMetaData> getColumnMetadataList() {
+        return columnMetadata;
+    }
+
+    /**
+     * Marks the rows as sent, before they start being sent.
+     */
+    void startRows() throws SQLServerException {
+        if (rowsSent)
+            throw new SQLServerException(null, SQLServerException.getErrString("R_TVPRowsAlreadySent"), null, 0, false);
+        rowsSent = true;
+    }
+
+    /**
+     * Binds the values of the next row to the row, if there is one.
+     *
+     * @return false if there are no more rows
+     */
+    boolean nextRow(SQLServerTVPRow row) throws SQLServerException {
+        if (!rows.hasNext())
+            return false;
+
+        row.clear();
+        binder.bindRow(rows.next(), row);
+        return true;
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.util.List;
+
+/**
+ * The row of a SQLServerStreamingDataTable that an ISQLServerTVPRowBinder sets the values of. The same row is reused for all the rows of the table:
+ * it is written to the request as soon as its values are set, so that the rows of the table are never held in memory together.
+ * <br>
+ * <br>
+ * The column metadata of the table is sent before its rows, so values must fit the precision and scale of their columns. Character and binary values
+ * longer than 8000 bytes need columns with a precision above 4000 characters or 8000 bytes, which are sent as max types.
+ */
+public final class SQLServerTVPRow {
+
+    private final SQLServerColumnarDataTable.Column[] columns;
+
+    SQLServerTVPRow(List<SQLServerMetaData> columnMetadata) throws SQLServerException {
+        columns = new SQLServerColumnarDataTable.Column[columnMetadata.size()];
+        for (int i = 0; i < columns.length; i++) {
+            SQLServerMetaData metaData = columnMetadata.get(i);
+            SQLServerDataColumn column = new SQLServerDataColumn(metaData.columnName, metaData.javaSqlType);
+            column.precision = metaData.precision;
+            column.scale = metaData.scale;
+            columns[i] = new SQLServerColumnarDataTable.Column(column, 1);
+        }
+        clear();
+    }
+
+    /**
+     * Sets a value of the row to null.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @throws SQLServerException
+     *             if there is no such column
+     */
+    public void setNull(int columnIndex) throws SQLServerException {
+        getColumn(columnIndex).setNull(0);
+    }
+
+    /**
+     * Sets a value of the row in a BIT column.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column, or the column is not a BIT column
+     */
+    public void setBoolean(int columnIndex,
+            boolean value) throws SQLServerException {
+        getColumn(columnIndex).setBoolean(0, value);
+    }
+
+    /**
+     * Sets a value of the row in a BIGINT, INTEGER, SMALLINT or TINYINT column.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column, or the column is not an integer column
+     */
+    public void setShort(int columnIndex,
+            short value) throws SQLServerException {
+        getColumn(columnIndex).setLong(0, value);
+    }
+
+    /**
+     * Sets a value of the row in a BIGINT, INTEGER, SMALLINT or TINYINT column.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column, the column is not an integer column, or the value is out of its range
+     */
+    public void setInt(int columnIndex,
+            int value) throws SQLServerException {
+        getColumn(columnIndex).setLong(0, value);
+    }
+
+    /**
+     * Sets a value of the row in a BIGINT, INTEGER, SMALLINT or TINYINT column.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column, the column is not an integer column, or the value is out of its range
+     */
+    public void setLong(int columnIndex,
+            long value) throws SQLServerException {
+        getColumn(columnIndex).setLong(0, value);
+    }
+
+    /**
+     * Sets a value of the row in a DOUBLE, FLOAT or REAL column. FLOAT and REAL values are sent with the precision of a float.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column, or the column is not a floating point column
+     */
+    public void setDouble(int columnIndex,
+            double value) throws SQLServerException {
+        getColumn(columnIndex).setDouble(0, value);
+    }
+
+    /**
+     * Sets a value of the row in a DOUBLE, FLOAT or REAL column.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value
+     * @throws SQLServerException
+     *             if there is no such column, or the column is not a floating point column
+     */
+    public void setFloat(int columnIndex,
+            float value) throws SQLServerException {
+        getColumn(columnIndex).setDouble(0, value);
+    }
+
+    /**
+     * Sets a value of the row in a DECIMAL or NUMERIC column.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value, or null
+     * @throws SQLServerException
+     *             if there is no such column, the column is not a DECIMAL or NUMERIC column, or the value has more decimal places than the scale of
+     *             the column
+     */
+    public void setBigDecimal(int columnIndex,
+            BigDecimal value) throws SQLServerException {
+        SQLServerColumnarDataTable.Column column = getColumn(columnIndex);
+        int scale = column.metadata.scale;
+        if (null != value && value.scale() > scale) {
+            try {
+                value = value.setScale(scale);
+            }
+            catch (ArithmeticException e) {
+                throw new SQLServerException(SQLServerException.getErrString("R_TVPInvalidColumnValue"), e);
+            }
+        }
+        column.setBigDecimal(0, value);
+        column.metadata.scale = scale;
+    }
+
+    /**
+     * Sets a value of the row in a character column, or in a temporal column, whose values are sent as strings.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value, or null
+     * @throws SQLServerException
+     *             if there is no such column, the column is not a character or temporal column, or the value is too long for the column
+     */
+    public void setString(int columnIndex,
+            String value) throws SQLServerException {
+        SQLServerColumnarDataTable.Column column = getColumn(columnIndex);
+        int precision = column.metadata.precision;
+        if (null != value && (2 * precision) <= DataTypes.SHORT_VARTYPE_MAX_BYTES && (2 * value.length()) > DataTypes.SHORT_VARTYPE_MAX_BYTES)
+            throw new SQLServerException(null, SQLServerException.getErrString("R_TVPInvalidColumnValue"), null, 0, false);
+        column.setString(0, value);
+        column.metadata.precision = precision;
+    }
+
+    /**
+     * Sets a value of the row in a BINARY or VARBINARY column. The array is not copied.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value, or null
+     * @throws SQLServerException
+     *             if there is no such column, the column is not a BINARY or VARBINARY column, or the value is too long for the column
+     */
+    public void setBytes(int columnIndex,
+            byte[] value) throws SQLServerException {
+        SQLServerColumnarDataTable.Column column = getColumn(columnIndex);
+        int precision = column.metadata.precision;
+        if (null != value && precision <= DataTypes.SHORT_VARTYPE_MAX_BYTES && value.length > DataTypes.SHORT_VARTYPE_MAX_BYTES)
+            throw new SQLServerException(null, SQLServerException.getErrString("R_TVPInvalidColumnValue"), null, 0, false);
+        column.setBytes(0, value);
+        column.metadata.precision = precision;
+    }
+
+    /**
+     * Sets a value of the row from an object, which is converted to the type of the column as SQLServerDataTable.addRow converts it.
+     *
+     * @param columnIndex
+     *            the first column is 1, the second is 2, ...
+     * @param value
+     *            the value, or null
+     * @throws SQLServerException
+     *             if there is no such column, or the value cannot be converted to the type of the column
+     */
+    public void setObject(int columnIndex,
+            Object value) throws SQLServerException {
+        SQLServerColumnarDataTable.Column column = getColumn(columnIndex);
+        try {
+            switch (column.jdbcType) {
+                case DECIMAL:
+                case NUMERIC:
+                    setBigDecimal(columnIndex, (null == value || value instanceof BigDecimal) ? (BigDecimal) value : new BigDecimal(value.toString()));
+                    break;
+
+                case BINARY:
+                case VARBINARY:
+                    setBytes(columnIndex, (byte[]) value);
+                    break;
+
+                case CHAR:
+                case VARCHAR:
+                case NCHAR:
+                case NVARCHAR:
+                    setString(columnIndex, (null == value) ? null : value.toString());
+                    break;
+
+                default:
+                    column.setObject(0, value);
+            }
+        }
+        catch (NumberFormatException e) {
+            throw new SQLServerException(SQLServerException.getErrString("R_TVPInvalidColumnValue"), e);
+        }
+        catch (ClassCastException e) {
+            throw new SQLServerException(SQLServerException.getErrString("R_TVPInvalidColumnValue"), e);
+        }
+    }
+
+    /**
+     * Sets all the values of the row to null.
+     */
+    void clear() {
+        for (SQLServerColumnarDataTable.Column column : columns)
+            column.setNull(0);
+    }
+
+    /**
+     * Returns the values of the row as the objects SQLServerDataTable.addRow would have stored.
+     */
+    Object[] getRowData(Object[] rowData) {
+        for (int i = 0; i < columns.length; i++)
+            rowData[i] = columns[i].getObject(0);
+        return rowData;
+    }
+
+    final SQLServerColumnarDataTable.Column[] getColumns() {
+        return columns;
+    }
+
+    private SQLServerColumnarDataTable.Column getColumn(int columnIndex) throws SQLServerException {
+        if (columnIndex < 1 || columnIndex > columns.length) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_indexOutOfRange"));
+            Object[] msgArgs = {columnIndex};
+            throw new SQLServerException(null, form.format(msgArgs), null, 0, false);
+        }
+        return columns[columnIndex - 1];
+    }
+}
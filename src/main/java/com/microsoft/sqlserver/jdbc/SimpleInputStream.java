@@ -21,6 +21,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 abstract class BaseInputStream extends InputStream {
     abstract byte[] getBytes() throws SQLServerException;
 
+    /**
+     * Returns the length of the whole stream stated by the response, or -1 if the response does not state it.
+     */
+    abstract int getStatedLength();
+
     // Flag indicating whether the stream conforms to adaptive response buffering API restrictions
     final boolean isAdaptive;
 
@@ -149,6 +154,10 @@ final class SimpleInputStream extends BaseInputStream {
         this.payloadLength = payLoadLength;
     }
 
+    int getStatedLength() {
+        return payloadLength;
+    }
+
     /**
      * Closes the stream releasing all resources held.
      * 
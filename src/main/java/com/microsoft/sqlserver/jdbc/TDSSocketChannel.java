@@ -0,0 +1,502 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+
+/**
+ * TDSSocketChannel implements the I/O of a TDSChannel over a java.nio SocketChannel, as an alternative to the socket streams (useSocketChannel
+ * connection property).
+ *
+ * Data is read from and written to the channel through direct buffers, which are recycled across connections, so that the socket I/O does not
+ * go through the JVM's temporary direct buffers. Reads fill the read buffer with as much data as the socket has available, so a TDS packet
+ * header and its payload are typically read with a single system call.
+ *
+ * The channel is used in non-blocking mode. Reads wait for data with a selector, which allows the socket timeout to be honored.
+ *
+ * When SSL is enabled, the data is encrypted and decrypted with an SSLEngine directly between the direct buffers and the TDS packet buffers. As
+ * with the socket streams, the SSL handshake itself is framed in TDS prelogin messages, so it is done over the TDSChannel's handshake streams.
+ */
+final class TDSSocketChannel {
+    private static final Logger logger = Logger.getLogger("com.microsoft.sqlserver.jdbc.internals.TDS.Channel");
+
+    // Size of the pooled direct buffers. Large enough for a TDS packet of the maximum size and for an SSL record.
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Maximum number of idle direct buffers kept for reuse by new connections.
+    private static final int MAX_POOLED_BUFFERS = 64;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> bufferPool = new ConcurrentLinkedQueue<ByteBuffer>();
+    private static final AtomicInteger pooledBufferCount = new AtomicInteger(0);
+
+    private static ByteBuffer allocateBuffer(int size) {
+        if (size <= BUFFER_SIZE) {
+            ByteBuffer buffer = bufferPool.poll();
+            if (null != buffer) {
+                pooledBufferCount.decrementAndGet();
+                buffer.clear();
+                return buffer;
+            }
+
+            size = BUFFER_SIZE;
+        }
+
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    private static void releaseBuffer(ByteBuffer buffer) {
+        if (null == buffer || BUFFER_SIZE != buffer.capacity())
+            return;
+
+        if (pooledBufferCount.incrementAndGet() <= MAX_POOLED_BUFFERS)
+            bufferPool.offer(buffer);
+        else
+            pooledBufferCount.decrementAndGet();
+    }
+
+    private final SocketChannel channel;
+    private final String traceID;
+    private final int timeoutMillis;
+
+    // Reads and writes are each done by one thread at a time, but a write (such as an attention signal)
+    // may be done while another thread is reading.
+    private final Lock readLock = new ReentrantLock();
+    private final Lock writeLock = new ReentrantLock();
+
+    private final Selector readSelector;
+
+    // Only needed when the socket send buffer fills up, so opened on first use.
+    private Selector writeSelector;
+
+    // Data read from the channel and not yet consumed (SSL records when SSL is enabled), between the buffer's position and limit.
+    private ByteBuffer readBuffer;
+
+    // Data to be written to the channel (SSL records when SSL is enabled).
+    private ByteBuffer writeBuffer;
+
+    // When SSL is enabled, the SSL engine and the decrypted data not yet consumed, between the buffer's position and limit.
+    private volatile SSLEngine sslEngine;
+    private ByteBuffer appReadBuffer;
+
+    public String toString() {
+        return traceID;
+    }
+
+    /**
+     * Creates the I/O interface for a connected socket channel.
+     *
+     * @param channel
+     *            the connected socket channel
+     * @param timeoutMillis
+     *            the socket timeout in milliseconds, or 0 for no timeout
+     * @param traceID
+     *            the trace ID of the TDSChannel
+     * @throws IOException
+     *             if the channel cannot be switched to non-blocking mode
+     */
+    TDSSocketChannel(SocketChannel channel,
+            int timeoutMillis,
+            String traceID) throws IOException {
+        this.channel = channel;
+        this.timeoutMillis = timeoutMillis;
+        this.traceID = traceID + " (TDSSocketChannel)";
+
+        channel.configureBlocking(false);
+        readSelector = Selector.open();
+        channel.register(readSelector, SelectionKey.OP_READ);
+
+        readBuffer = allocateBuffer(BUFFER_SIZE);
+        readBuffer.flip();
+        writeBuffer = allocateBuffer(BUFFER_SIZE);
+    }
+
+    /**
+     * Reads up to length bytes, waiting until at least one byte is available.
+     *
+     * @return the number of bytes read, or -1 if the server closed the connection
+     */
+    int read(byte[] data,
+            int offset,
+            int length) throws IOException {
+        readLock.lock();
+        try {
+            if (null == readBuffer)
+                throw new ClosedChannelException();
+
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            ByteBuffer source = (null == sslEngine) ? readBuffer : appReadBuffer;
+            while (!source.hasRemaining()) {
+                if (-1 == ((null == sslEngine) ? fill(deadline) : unwrap(deadline)))
+                    return -1;
+            }
+
+            int bytesRead = Math.min(length, source.remaining());
+            source.get(data, offset, bytesRead);
+            return bytesRead;
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Writes all length bytes to the channel.
+     */
+    void write(byte[] data,
+            int offset,
+            int length) throws IOException {
+        writeLock.lock();
+        try {
+            if (null == writeBuffer)
+                throw new ClosedChannelException();
+
+            SSLEngine engine = sslEngine;
+            if (null == engine) {
+                while (length > 0) {
+                    int bytesToWrite = Math.min(length, writeBuffer.capacity());
+                    writeBuffer.clear();
+                    writeBuffer.put(data, offset, bytesToWrite);
+                    writeBuffer.flip();
+                    writeFully();
+
+                    offset += bytesToWrite;
+                    length -= bytesToWrite;
+                }
+            }
+            else {
+                ByteBuffer source = ByteBuffer.wrap(data, offset, length);
+                while (source.hasRemaining()) {
+                    writeBuffer.clear();
+                    SSLEngineResult result = engine.wrap(source, writeBuffer);
+                    if (SSLEngineResult.Status.OK != result.getStatus())
+                        throw new SSLException("Unexpected SSL status " + result.getStatus() + " encrypting data");
+
+                    writeBuffer.flip();
+                    writeFully();
+                }
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Does the SSL handshake and enables SSL for subsequent reads and writes.
+     *
+     * @param engine
+     *            the client mode SSL engine
+     * @param handshakeInput
+     *            stream for reading the server's handshake data (framed in TDS messages)
+     * @param handshakeOutput
+     *            stream for writing the client's handshake data (framed in TDS messages)
+     */
+    void startTLS(SSLEngine engine,
+            InputStream handshakeInput,
+            OutputStream handshakeOutput) throws IOException {
+        assert null == sslEngine;
+
+        ByteBuffer handshakeData = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+        handshakeData.flip();
+        ByteBuffer appData = allocateBuffer(engine.getSession().getApplicationBufferSize());
+        ByteBuffer outData = allocateBuffer(engine.getSession().getPacketBufferSize());
+        ByteBuffer noData = ByteBuffer.allocate(0);
+
+        boolean handshakeComplete = false;
+        try {
+            engine.beginHandshake();
+            HandshakeStatus status = engine.getHandshakeStatus();
+            while (HandshakeStatus.FINISHED != status && HandshakeStatus.NOT_HANDSHAKING != status) {
+                SSLEngineResult result;
+                switch (status) {
+                    case NEED_TASK:
+                        runDelegatedTasks(engine);
+                        status = engine.getHandshakeStatus();
+                        break;
+
+                    case NEED_WRAP:
+                        outData.clear();
+                        result = engine.wrap(noData, outData);
+                        if (SSLEngineResult.Status.OK != result.getStatus())
+                            throw new SSLException("Unexpected SSL status " + result.getStatus() + " during handshake");
+
+                        outData.flip();
+                        byte[] record = new byte[outData.remaining()];
+                        outData.get(record);
+                        handshakeOutput.write(record);
+                        status = result.getHandshakeStatus();
+                        break;
+
+                    case NEED_UNWRAP:
+                        result = engine.unwrap(handshakeData, appData);
+                        if (SSLEngineResult.Status.BUFFER_UNDERFLOW == result.getStatus()) {
+                            readHandshakeRecord(handshakeInput, handshakeData);
+                            status = engine.getHandshakeStatus();
+                        }
+                        else if (SSLEngineResult.Status.OK != result.getStatus()) {
+                            throw new SSLException("Unexpected SSL status " + result.getStatus() + " during handshake");
+                        }
+                        else {
+                            status = result.getHandshakeStatus();
+                        }
+                        break;
+
+                    default:
+                        throw new SSLException("Unexpected SSL handshake status " + status);
+                }
+            }
+
+            // The handshake is framed in TDS messages, so the server does not send data past it.
+            assert !handshakeData.hasRemaining();
+            assert 0 == appData.position();
+
+            appData.flip();
+            appReadBuffer = appData;
+            sslEngine = engine;
+            handshakeComplete = true;
+
+            if (logger.isLoggable(Level.FINER))
+                logger.finer(toString() + " SSL enabled with " + engine.getSession().getProtocol());
+        }
+        finally {
+            releaseBuffer(outData);
+            if (!handshakeComplete)
+                releaseBuffer(appData);
+        }
+    }
+
+    /**
+     * Disables SSL for subsequent reads and writes, without any further SSL I/O.
+     */
+    void stopTLS() {
+        readLock.lock();
+        try {
+            writeLock.lock();
+            try {
+                assert null == appReadBuffer || !appReadBuffer.hasRemaining();
+                sslEngine = null;
+                releaseBuffer(appReadBuffer);
+                appReadBuffer = null;
+            }
+            finally {
+                writeLock.unlock();
+            }
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the channel and recycles its buffers.
+     */
+    void close() {
+        // Closing the selectors wakes up any thread waiting for I/O, so the locks below can be taken.
+        closeSelector(readSelector);
+        writeLock.lock();
+        try {
+            if (null != writeSelector)
+                closeSelector(writeSelector);
+        }
+        finally {
+            writeLock.unlock();
+        }
+
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            if (logger.isLoggable(Level.FINE))
+                logger.log(Level.FINE, toString() + ": Ignored error closing socket channel", e);
+        }
+
+        readLock.lock();
+        try {
+            writeLock.lock();
+            try {
+                releaseBuffer(readBuffer);
+                releaseBuffer(writeBuffer);
+                releaseBuffer(appReadBuffer);
+                readBuffer = null;
+                writeBuffer = null;
+                appReadBuffer = null;
+                sslEngine = null;
+            }
+            finally {
+                writeLock.unlock();
+            }
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    private void closeSelector(Selector selector) {
+        try {
+            selector.close();
+        }
+        catch (IOException e) {
+            if (logger.isLoggable(Level.FINE))
+                logger.log(Level.FINE, toString() + ": Ignored error closing selector", e);
+        }
+    }
+
+    /**
+     * Reads as much data as is available from the channel into the read buffer, waiting for data if none is available.
+     *
+     * @return the number of bytes read, or -1 at end of stream
+     */
+    private int fill(long deadline) throws IOException {
+        readBuffer.compact();
+        try {
+            if (!readBuffer.hasRemaining())
+                throw new SSLException("SSL record exceeds the read buffer size");
+
+            int bytesRead;
+            while (0 == (bytesRead = channel.read(readBuffer)))
+                await(readSelector, deadline, "Read timed out");
+
+            return bytesRead;
+        }
+        finally {
+            readBuffer.flip();
+        }
+    }
+
+    /**
+     * Decrypts the next SSL record(s) from the read buffer into the application read buffer, reading from the channel as needed.
+     *
+     * @return the number of bytes decrypted, or -1 at end of stream
+     */
+    private int unwrap(long deadline) throws IOException {
+        appReadBuffer.compact();
+        try {
+            while (true) {
+                SSLEngineResult result = sslEngine.unwrap(readBuffer, appReadBuffer);
+                switch (result.getStatus()) {
+                    case OK:
+                        if (HandshakeStatus.NEED_TASK == result.getHandshakeStatus())
+                            runDelegatedTasks(sslEngine);
+                        else if (HandshakeStatus.NEED_WRAP == result.getHandshakeStatus())
+                            throw new SSLException("SSL renegotiation is not supported");
+
+                        if (0 < result.bytesProduced())
+                            return result.bytesProduced();
+                        break;
+
+                    case BUFFER_UNDERFLOW:
+                        if (-1 == fill(deadline))
+                            return -1;
+                        break;
+
+                    case CLOSED:
+                        return -1;
+
+                    default:
+                        throw new SSLException("Unexpected SSL status " + result.getStatus() + " decrypting data");
+                }
+            }
+        }
+        finally {
+            appReadBuffer.flip();
+        }
+    }
+
+    /**
+     * Writes the contents of the write buffer to the channel, waiting for the socket send buffer to drain as needed.
+     */
+    private void writeFully() throws IOException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (writeBuffer.hasRemaining()) {
+            if (0 == channel.write(writeBuffer)) {
+                if (null == writeSelector) {
+                    writeSelector = Selector.open();
+                    channel.register(writeSelector, SelectionKey.OP_WRITE);
+                }
+
+                await(writeSelector, deadline, "Write timed out");
+            }
+        }
+    }
+
+    /**
+     * Waits until the channel is ready for the selector's operation, the socket timeout expires, or the channel is closed.
+     */
+    private void await(Selector selector,
+            long deadline,
+            String timeoutMessage) throws IOException {
+        long waitMillis = 0;
+        if (0 < timeoutMillis) {
+            waitMillis = deadline - System.currentTimeMillis();
+            if (waitMillis <= 0)
+                throw new SocketTimeoutException(timeoutMessage);
+        }
+
+        try {
+            selector.select(waitMillis);
+            selector.selectedKeys().clear();
+        }
+        catch (ClosedSelectorException e) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private static void readHandshakeRecord(InputStream handshakeInput,
+            ByteBuffer handshakeData) throws IOException {
+        // SSL record header: content type (1 byte), protocol version (2 bytes), record length (2 bytes, big-endian)
+        byte[] header = new byte[5];
+        readFully(handshakeInput, header);
+        byte[] body = new byte[((header[3] & 0xFF) << 8) | (header[4] & 0xFF)];
+        readFully(handshakeInput, body);
+
+        handshakeData.compact();
+        if (handshakeData.remaining() < header.length + body.length)
+            throw new SSLException("SSL handshake record exceeds the buffer size");
+
+        handshakeData.put(header);
+        handshakeData.put(body);
+        handshakeData.flip();
+    }
+
+    private static void readFully(InputStream is,
+            byte[] data) throws IOException {
+        for (int bytesRead = 0; bytesRead < data.length;) {
+            int n = is.read(data, bytesRead, data.length - bytesRead);
+            if (n < 0)
+                throw new IOException(SQLServerException.getErrString("R_truncatedServerResponse"));
+            bytesRead += n;
+        }
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine) {
+        Runnable task;
+        while (null != (task = engine.getDelegatedTask()))
+            task.run();
+    }
+}
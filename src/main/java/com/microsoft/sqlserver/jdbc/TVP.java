@@ -21,6 +21,8 @@ enum TVPType {
     ResultSet,
     ISQLServerDataRecord,
     SQLServerDataTable,
+    SQLServerColumnarDataTable,
+    SQLServerStreamingDataTable,
     Null
 }
 
@@ -47,6 +49,15 @@ class TVP {
     Map<Integer, SQLServerMetaData> columnMetadata = null;
     Iterator<Entry<Integer, Object[]>> sourceDataTableRowIterator = null;
     ISQLServerDataRecord sourceRecord = null;
+    SQLServerColumnarDataTable sourceColumnarDataTable = null;
+    int currentColumnarDataTableRow = -1;
+    SQLServerStreamingDataTable<?> sourceStreamingDataTable = null;
+    SQLServerTVPRow streamingDataTableRow = null;
+    // True once the rows of the streaming data table source are being read
+    private boolean streamingDataTableRowsStarted = false;
+
+    // Reused for the values of each row of a ResultSet, columnar or streaming data table source
+    private Object[] rowData = null;
 
     TVPType tvpType = null;
 
@@ -83,6 +94,32 @@ class TVP {
         populateMetadataFromDataTable();
     }
 
+    TVP(String tvpPartName,
+            SQLServerColumnarDataTable tvpColumnarDataTable) throws SQLServerException {
+        if (tvpPartName == null) {
+            tvpPartName = tvpColumnarDataTable.getTvpName();
+        }
+        initTVP(TVPType.SQLServerColumnarDataTable, tvpPartName);
+        sourceColumnarDataTable = tvpColumnarDataTable;
+        populateMetadataFromColumnarDataTable();
+    }
+
+    TVP(String tvpPartName,
+            SQLServerStreamingDataTable<?> tvpStreamingDataTable) throws SQLServerException {
+        if (tvpPartName == null) {
+            tvpPartName = tvpStreamingDataTable.getTvpName();
+        }
+        initTVP(TVPType.SQLServerStreamingDataTable, tvpPartName);
+        sourceStreamingDataTable = tvpStreamingDataTable;
+        populateMetadataFromStreamingDataTable();
+
+        // validate sortOrdinal and throw all relavent exceptions before proceeding
+        validateOrderProperty();
+
+        // The row also checks that the column types are supported
+        streamingDataTableRow = new SQLServerTVPRow(sourceStreamingDataTable.getColumnMetadataList());
+    }
+
     TVP(String tvpPartName,
             ResultSet tvpResultSet) throws SQLServerException {
         initTVP(TVPType.ResultSet, tvpPartName);
@@ -109,7 +146,8 @@ class TVP {
     Object[] getRowData() throws SQLServerException {
         if (TVPType.ResultSet == tvpType) {
             int colCount = columnMetadata.size();
-            Object[] rowData = new Object[colCount];
+            if (null == rowData)
+                rowData = new Object[colCount];
             for (int i = 0; i < colCount; i++) {
                 try {
                     rowData[i] = sourceResultSet.getObject(i + 1);
@@ -124,6 +162,19 @@ class TVP {
             Map.Entry<Integer, Object[]> rowPair = sourceDataTableRowIterator.next();
             return rowPair.getValue();
         }
+        else if (TVPType.SQLServerColumnarDataTable == tvpType) {
+            int colCount = columnMetadata.size();
+            if (null == rowData)
+                rowData = new Object[colCount];
+            for (int i = 0; i < colCount; i++)
+                rowData[i] = sourceColumnarDataTable.getValue(currentColumnarDataTableRow, i + 1);
+            return rowData;
+        }
+        else if (TVPType.SQLServerStreamingDataTable == tvpType) {
+            if (null == rowData)
+                rowData = new Object[columnMetadata.size()];
+            return streamingDataTableRow.getRowData(rowData);
+        }
         else
             return sourceRecord.getRowData();
     }
@@ -140,6 +191,16 @@ class TVP {
         else if (TVPType.SQLServerDataTable == tvpType) {
             return sourceDataTableRowIterator.hasNext();
         }
+        else if (TVPType.SQLServerColumnarDataTable == tvpType) {
+            return ++currentColumnarDataTableRow < sourceColumnarDataTable.getRowCount();
+        }
+        else if (TVPType.SQLServerStreamingDataTable == tvpType) {
+            if (!streamingDataTableRowsStarted) {
+                sourceStreamingDataTable.startRows();
+                streamingDataTableRowsStarted = true;
+            }
+            return sourceStreamingDataTable.nextRow(streamingDataTableRow);
+        }
         else
             return sourceRecord.next();
     }
@@ -160,6 +221,31 @@ class TVP {
         }
     }
 
+    void populateMetadataFromColumnarDataTable() throws SQLServerException {
+        assert null != sourceColumnarDataTable;
+
+        if (0 == sourceColumnarDataTable.getColumnCount()) {
+            throw new SQLServerException(SQLServerException.getErrString("R_TVPEmptyMetadata"), null);
+        }
+        int i = 0;
+        for (SQLServerColumnarDataTable.Column column : sourceColumnarDataTable.getColumns()) {
+            columnMetadata.put(i++, new SQLServerMetaData(column.metadata.columnName, column.metadata.javaSqlType, column.metadata.precision,
+                    column.metadata.scale));
+        }
+    }
+
+    void populateMetadataFromStreamingDataTable() throws SQLServerException {
+        assert null != sourceStreamingDataTable;
+
+        if (0 == sourceStreamingDataTable.getColumnCount()) {
+            throw new SQLServerException(SQLServerException.getErrString("R_TVPEmptyMetadata"), null);
+        }
+        for (int i = 0; i < sourceStreamingDataTable.getColumnCount(); i++) {
+            // Make a copy here as we do not want to change user's metadata.
+            columnMetadata.put(i, new SQLServerMetaData(sourceStreamingDataTable.getColumnMetaData(i + 1)));
+        }
+    }
+
     void populateMetadataFromResultSet() throws SQLServerException {
         assert null != sourceResultSet;
         try {
@@ -32,6 +32,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.OffsetTime;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.EnumMap;
 import java.util.GregorianCalendar;
@@ -286,6 +287,45 @@ final class DTV {
         return impl.getValue(this, jdbcType, scale, streamGetterArgs, cal, typeInfo, cryptoMetadata, tdsReader);
     }
 
+    /**
+     * Returns whether the DTV's value is read from the server, rather than set by the app.
+     */
+    final boolean isServerValue() {
+        return null == impl || impl instanceof ServerDTVImpl;
+    }
+
+    /**
+     * Returns the DTV's current value, an unencrypted BIT, TINYINT, SMALLINT, INT or BIGINT value read from the server, as a long. Returns 0 if
+     * the value is null.
+     */
+    final long getLongValue(TypeInfo typeInfo,
+            TDSReader tdsReader) throws SQLServerException {
+        if (null == impl)
+            impl = new ServerDTVImpl();
+        return ((ServerDTVImpl) impl).getLongValue(typeInfo, tdsReader);
+    }
+
+    /**
+     * Returns the DTV's current value, an unencrypted REAL or FLOAT value read from the server, as a double. Returns 0 if the value is null.
+     */
+    final double getDoubleValue(TypeInfo typeInfo,
+            TDSReader tdsReader) throws SQLServerException {
+        if (null == impl)
+            impl = new ServerDTVImpl();
+        return ((ServerDTVImpl) impl).getDoubleValue(typeInfo, tdsReader);
+    }
+
+    /**
+     * Returns the DTV's current value, an unencrypted temporal value read from the server, as a java.time.LocalDateTime or, for DATETIMEOFFSET, a
+     * java.time.OffsetDateTime. Returns null if the value is null.
+     */
+    final Object getJavaTimeValue(TypeInfo typeInfo,
+            TDSReader tdsReader) throws SQLServerException {
+        if (null == impl)
+            impl = new ServerDTVImpl();
+        return ((ServerDTVImpl) impl).getJavaTimeValue(typeInfo, tdsReader);
+    }
+
     Object getSetterValue() {
         return impl.getSetterValue();
     }
@@ -511,8 +551,13 @@ final class DTV {
              * java.time.LocalDate, java.time.LocalTime, java.time.LocalDateTime or microsoft.sql.DateTimeOffset) into a Gregorian calendar. Don't use
              * the DTV's calendar directly, as it may not be Gregorian...
              */
+            // DATETIME2 and DATE parameters, as most setters send to Katmai and later, are written from the
+            // date and time parts of their values, without a calendar, wherever that gives the same result.
+            if (null != value && null == typeInfo && null == cryptoMeta && conn.isKatmaiOrLater() && sendLocalTemporal(dtv, javaType, value))
+                return;
+
             if (null != value) {
-                TimeZone timeZone = TimeZone.getDefault(); // Time zone to associate with the value in the Gregorian calendar
+                TimeZone timeZone = null; // Time zone to associate with the value in the Gregorian calendar
                 long utcMillis = 0;    // Value to which the calendar is to be set (in milliseconds 1/1/1970 00:00:00 GMT)
 
                 // Figure out the value components according to the type of the Java object passed in...
@@ -987,6 +1032,80 @@ final class DTV {
             } // setters
         }
 
+        /**
+         * Sends a java.sql.Timestamp, java.sql.Date, java.util.Date, java.util.Calendar, LocalDateTime or LocalDate value set as a TIMESTAMP,
+         * DATETIME, SMALLDATETIME or DATE parameter as a DATETIME2 or DATE value, from its date and time parts in the local time zone.
+         *
+         * Returns false, without sending anything, for other values and for dates before 1583, for which only a calendar resolves the difference
+         * between the Julian dates of the JDBC temporal types and the pure Gregorian dates of SQL Server.
+         */
+        private boolean sendLocalTemporal(DTV dtv,
+                JavaType javaType,
+                Object value) throws SQLServerException {
+            JDBCType jdbcType = dtv.getJdbcType();
+            if (JDBCType.DATE != jdbcType && JDBCType.TIMESTAMP != jdbcType && JDBCType.DATETIME != jdbcType && JDBCType.SMALLDATETIME != jdbcType)
+                return false;
+
+            long epochDays;
+            int secondsSinceMidnight;
+            int subSecondNanos;
+            switch (javaType) {
+                case LOCALDATETIME: {
+                    LocalDateTime localDateTimeValue = (LocalDateTime) value;
+                    epochDays = localDateTimeValue.toLocalDate().toEpochDay();
+                    secondsSinceMidnight = localDateTimeValue.toLocalTime().toSecondOfDay();
+                    subSecondNanos = localDateTimeValue.getNano();
+                    break;
+                }
+
+                case LOCALDATE:
+                    epochDays = ((LocalDate) value).toEpochDay();
+                    secondsSinceMidnight = 0;
+                    subSecondNanos = 0;
+                    break;
+
+                case TIMESTAMP:
+                case DATE:
+                case UTILDATE:
+                case CALENDAR: {
+                    long utcMillis = (JavaType.CALENDAR == javaType) ? ((Calendar) value).getTimeInMillis() : ((java.util.Date) value).getTime();
+                    TimeZone timeZone = (null != dtv.getCalendar()) ? dtv.getCalendar().getTimeZone() : TimeZone.getDefault();
+                    long localMillis = utcMillis + timeZone.getOffset(utcMillis);
+                    epochDays = Math.floorDiv(localMillis, 24 * 60 * 60 * 1000L);
+
+                    if (JavaType.DATE == javaType) {
+                        // Normalized to midnight, as by timestampNormalizedCalendar
+                        secondsSinceMidnight = 0;
+                        subSecondNanos = 0;
+                    }
+                    else {
+                        secondsSinceMidnight = (int) (Math.floorMod(localMillis, 24 * 60 * 60 * 1000L) / 1000);
+                        subSecondNanos = (JavaType.TIMESTAMP == javaType) ? ((java.sql.Timestamp) value).getNanos()
+                                : Nanos.PER_MILLISECOND * (int) Math.floorMod(utcMillis, 1000L);
+                    }
+                    break;
+                }
+
+                default:
+                    return false;
+            }
+
+            long daysIntoCE = epochDays + DDC.daysSinceBaseDate(TDS.BASE_YEAR_1970, 1, 1);
+            if (daysIntoCE < GregorianChange.DAYS_SINCE_BASE_DATE_HINT)
+                return false;
+
+            // Dates after 9999 are rejected as out of range by the writer.
+            if (daysIntoCE > Integer.MAX_VALUE)
+                daysIntoCE = Integer.MAX_VALUE;
+
+            if (JDBCType.DATE == jdbcType)
+                tdsWriter.writeRPCDate(name, (int) daysIntoCE, isOutParam);
+            else
+                tdsWriter.writeRPCDateTime2(name, (int) daysIntoCE, secondsSinceMidnight, subSecondNanos, TDS.MAX_FRACTIONAL_SECONDS_SCALE,
+                        isOutParam);
+            return true;
+        }
+
         /**
          * Normalizes a GregorianCalendar value appropriately for a DATETIME, SMALLDATETIME, DATETIME2, or DATETIMEOFFSET SQL Server data type.
          *
@@ -3316,6 +3435,10 @@ final class ServerDTVImpl extends DTVImpl {
     private TDSReaderMark valueMark;
     private boolean isNull;
 
+    // The buffers that encrypted values of the column are read and decrypted into
+    private byte[] cipherTextBuffer;
+    private byte[] plainTextBuffer;
+
     /**
      * Sets the value of the DTV to an app-specified Java type.
      *
@@ -3510,6 +3633,28 @@ final class ServerDTVImpl extends DTVImpl {
         valueMark = tdsReader.mark();
     }
 
+    /**
+     * Reads an encrypted value that is not PLP, at the value mark, and decrypts it.
+     *
+     * @return the decrypted value
+     */
+    private byte[] readAndDecrypt(TDSReader tdsReader,
+            CryptoMetadata cryptoMetadata,
+            SQLServerConnection con) throws SQLServerException {
+        if (null == cipherTextBuffer || cipherTextBuffer.length < valueLength) {
+            cipherTextBuffer = new byte[valueLength];
+            plainTextBuffer = new byte[valueLength];
+        }
+        tdsReader.readBytes(cipherTextBuffer, 0, valueLength);
+
+        if (aeLogger.isLoggable(java.util.logging.Level.FINE)) {
+            aeLogger.fine("Encrypted data is retrieved.");
+        }
+
+        int plainTextLength = SQLServerSecurityUtility.decryptWithKey(cipherTextBuffer, 0, valueLength, plainTextBuffer, cryptoMetadata, con);
+        return Arrays.copyOf(plainTextBuffer, plainTextLength);
+    }
+
     Object denormalizedValue(byte[] decryptedValue,
             JDBCType jdbcType,
             TypeInfo baseTypeInfo,
@@ -3796,25 +3941,31 @@ final class ServerDTVImpl extends DTVImpl {
             tdsReader.reset(valueMark);
 
             if (encrypted) {
-                if (DataTypes.UNKNOWN_STREAM_LENGTH == valueLength) {
-                    convertedValue = DDC.convertStreamToObject(PLPInputStream.makeStream(tdsReader, streamGetterArgs, this), typeInfo,
-                            JDBCType.VARBINARY, streamGetterArgs);
+                if (DataTypes.UNKNOWN_STREAM_LENGTH != valueLength && StreamType.BINARY != streamGetterArgs.streamType) {
+                    // Read the value and decrypt it in the buffers of the DTV, which are used again for the next rows
+                    decryptedValue = readAndDecrypt(tdsReader, cryptoMetadata, con);
                 }
                 else {
-                    convertedValue = DDC.convertStreamToObject(new SimpleInputStream(tdsReader, valueLength, streamGetterArgs, this), typeInfo,
-                            JDBCType.VARBINARY, streamGetterArgs);
-                }
+                    if (DataTypes.UNKNOWN_STREAM_LENGTH == valueLength) {
+                        convertedValue = DDC.convertStreamToObject(PLPInputStream.makeStream(tdsReader, streamGetterArgs, this), typeInfo,
+                                JDBCType.VARBINARY, streamGetterArgs);
+                    }
+                    else {
+                        convertedValue = DDC.convertStreamToObject(new SimpleInputStream(tdsReader, valueLength, streamGetterArgs, this), typeInfo,
+                                JDBCType.VARBINARY, streamGetterArgs);
+                    }
 
-                if (aeLogger.isLoggable(java.util.logging.Level.FINE)) {
-                    aeLogger.fine("Encrypted data is retrieved.");
-                }
+                    if (aeLogger.isLoggable(java.util.logging.Level.FINE)) {
+                        aeLogger.fine("Encrypted data is retrieved.");
+                    }
 
-                // AE does not support streaming types
-                if ((convertedValue instanceof SimpleInputStream) || (convertedValue instanceof PLPInputStream)) {
-                    throw new SQLServerException(SQLServerException.getErrString("R_notSupported"), null);
-                }
+                    // AE does not support streaming types
+                    if ((convertedValue instanceof SimpleInputStream) || (convertedValue instanceof PLPInputStream)) {
+                        throw new SQLServerException(SQLServerException.getErrString("R_notSupported"), null);
+                    }
 
-                decryptedValue = SQLServerSecurityUtility.decryptWithKey((byte[]) convertedValue, cryptoMetadata, con);
+                    decryptedValue = SQLServerSecurityUtility.decryptWithKey((byte[]) convertedValue, cryptoMetadata, con);
+                }
                 return denormalizedValue(decryptedValue, jdbcType, cryptoMetadata.baseTypeInfo, con, streamGetterArgs,
                         cryptoMetadata.normalizationRuleVersion, cal);
             }
@@ -3838,14 +3989,28 @@ final class ServerDTVImpl extends DTVImpl {
                     break;
                 }
 
-                // Convert other variable length native types
-                // (CHAR/VARCHAR/TEXT/NCHAR/NVARCHAR/NTEXT/BINARY/VARBINARY/IMAGE) -> ANY jdbcType.
+                // Convert character native types (CHAR/VARCHAR/TEXT/NCHAR/NVARCHAR/NTEXT) -> ANY jdbcType.
+                // A value that is not streamed, and that is converted by way of a String, is decoded
+                // straight from the response. Otherwise it is converted from a stream as the other types below.
                 case CHAR:
                 case VARCHAR:
                 case TEXT:
                 case NCHAR:
                 case NVARCHAR:
-                case NTEXT:
+                case NTEXT: {
+                    if (StreamType.NONE == streamGetterArgs.streamType && !streamGetterArgs.isAdaptive && DDC.convertsFromString(jdbcType)) {
+                        String stringValue = tdsReader.readString(valueLength, typeInfo.getCharset(), typeInfo.supportsFastAsciiConversion());
+                        convertedValue = DDC.convertStringToObject(stringValue, typeInfo, jdbcType, streamGetterArgs.streamType);
+                    }
+                    else {
+                        convertedValue = DDC.convertStreamToObject(new SimpleInputStream(tdsReader, valueLength, streamGetterArgs, this), typeInfo,
+                                jdbcType, streamGetterArgs);
+                    }
+                    break;
+                }
+
+                // Convert other variable length native types
+                // (BINARY/VARBINARY/IMAGE) -> ANY jdbcType.
                 case IMAGE:
                 case BINARY:
                 case VARBINARY:
@@ -3952,6 +4117,78 @@ final class ServerDTVImpl extends DTVImpl {
         return convertedValue;
     }
 
+    /**
+     * Reads a BIT, TINYINT, SMALLINT, INT or BIGINT value as a long.
+     *
+     * This is the primitive counterpart of getValue for the numeric getters: it reads the value the same way, but without converting it to an
+     * object that the caller would only unbox.
+     */
+    long getLongValue(TypeInfo typeInfo,
+            TDSReader tdsReader) throws SQLServerException {
+        if (null == valueMark && (!isNull))
+            getValuePrep(typeInfo, tdsReader);
+
+        if (isNull)
+            return 0;
+
+        tdsReader.reset(valueMark);
+        switch (valueLength) {
+            case 8:
+                return tdsReader.readLong();
+
+            case 4:
+                return tdsReader.readInt();
+
+            case 2:
+                return tdsReader.readShort();
+
+            case 1:
+                return tdsReader.readUnsignedByte();
+
+            default:
+                tdsReader.throwInvalidTDS();
+                return 0;
+        }
+    }
+
+    /**
+     * Reads a REAL or FLOAT value as a double, without converting it to an object.
+     */
+    double getDoubleValue(TypeInfo typeInfo,
+            TDSReader tdsReader) throws SQLServerException {
+        if (null == valueMark && (!isNull))
+            getValuePrep(typeInfo, tdsReader);
+
+        if (isNull)
+            return 0;
+
+        tdsReader.reset(valueMark);
+        if (SSType.REAL == typeInfo.getSSType()) {
+            if (4 != valueLength)
+                tdsReader.throwInvalidTDS();
+            return Float.intBitsToFloat(tdsReader.readInt());
+        }
+
+        if (8 != valueLength)
+            tdsReader.throwInvalidTDS();
+        return Double.longBitsToDouble(tdsReader.readLong());
+    }
+
+    /**
+     * Reads a temporal value as a java.time object, without converting it to a JDBC temporal type first.
+     */
+    Object getJavaTimeValue(TypeInfo typeInfo,
+            TDSReader tdsReader) throws SQLServerException {
+        if (null == valueMark && (!isNull))
+            getValuePrep(typeInfo, tdsReader);
+
+        if (isNull)
+            return null;
+
+        tdsReader.reset(valueMark);
+        return tdsReader.readJavaTime(valueLength, typeInfo);
+    }
+
     Object getSetterValue() {
         // This function is never called, but must be implemented; it's abstract in DTVImpl.
         assert false;
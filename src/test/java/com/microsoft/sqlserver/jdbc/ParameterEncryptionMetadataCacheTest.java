@@ -0,0 +1,108 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests the parameter encryption metadata cache of the connection, which needs neither a server nor a key store.
+ */
+@RunWith(JUnitPlatform.class)
+public class ParameterEncryptionMetadataCacheTest {
+
+    private static SQLServerConnection.PreparedStatementHandleKey key(int i) {
+        return new SQLServerConnection.PreparedStatementHandleKey("db", "insert into t values (@P0)", "@P0 int," + i);
+    }
+
+    /**
+     * Metadata put for a key is returned for an equal key, as for another statement with the same SQL
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCacheHit() throws Exception {
+        SQLServerConnection con = new SQLServerConnection("test");
+        con.setParameterEncryptionMetadataCacheSize(2);
+
+        CryptoMetadata[] metadata = new CryptoMetadata[1];
+        con.putParameterEncryptionMetadata(key(1), metadata);
+        assertSame(metadata, con.getParameterEncryptionMetadata(key(1)));
+        assertNull(con.getParameterEncryptionMetadata(key(2)));
+    }
+
+    /**
+     * The least recently used metadata is evicted once the cache holds parameterEncryptionMetadataCacheSize entries
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLruEviction() throws Exception {
+        SQLServerConnection con = new SQLServerConnection("test");
+        con.setParameterEncryptionMetadataCacheSize(2);
+
+        con.putParameterEncryptionMetadata(key(1), new CryptoMetadata[1]);
+        con.putParameterEncryptionMetadata(key(2), new CryptoMetadata[1]);
+
+        // Using key 1 makes key 2 the least recently used.
+        assertNotNull(con.getParameterEncryptionMetadata(key(1)));
+        con.putParameterEncryptionMetadata(key(3), new CryptoMetadata[1]);
+
+        assertNull(con.getParameterEncryptionMetadata(key(2)), "least recently used metadata was not evicted");
+        assertNotNull(con.getParameterEncryptionMetadata(key(1)));
+        assertNotNull(con.getParameterEncryptionMetadata(key(3)));
+
+        // Shrinking the cache discards the least recently used metadata that no longer fits.
+        con.setParameterEncryptionMetadataCacheSize(1);
+        assertNull(con.getParameterEncryptionMetadata(key(1)));
+        assertNotNull(con.getParameterEncryptionMetadata(key(3)));
+    }
+
+    /**
+     * A size of 0 discards the cached metadata and caches nothing more
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCacheDisabled() throws Exception {
+        SQLServerConnection con = new SQLServerConnection("test");
+        con.setParameterEncryptionMetadataCacheSize(2);
+        con.putParameterEncryptionMetadata(key(1), new CryptoMetadata[1]);
+
+        con.setParameterEncryptionMetadataCacheSize(0);
+        assertNull(con.getParameterEncryptionMetadata(key(1)));
+
+        con.putParameterEncryptionMetadata(key(2), new CryptoMetadata[1]);
+        assertNull(con.getParameterEncryptionMetadata(key(2)));
+    }
+
+    /**
+     * Invalidated metadata is no longer returned, and the rest of the cache is kept
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testInvalidate() throws Exception {
+        SQLServerConnection con = new SQLServerConnection("test");
+        con.setParameterEncryptionMetadataCacheSize(2);
+        con.putParameterEncryptionMetadata(key(1), new CryptoMetadata[1]);
+        con.putParameterEncryptionMetadata(key(2), new CryptoMetadata[1]);
+
+        con.invalidateParameterEncryptionMetadata(key(1));
+        assertNull(con.getParameterEncryptionMetadata(key(1)));
+        assertNotNull(con.getParameterEncryptionMetadata(key(2)));
+
+        con.clearParameterEncryptionMetadataCache();
+        assertNull(con.getParameterEncryptionMetadata(key(2)));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.bulkCopy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import com.microsoft.sqlserver.testframework.AbstractTest;
+import com.microsoft.sqlserver.testframework.Utils;
+import com.microsoft.sqlserver.testframework.util.RandomUtil;
+
+/**
+ * Test bulk copies to a destination table whose metadata is cached by the connection
+ */
+@RunWith(JUnitPlatform.class)
+@DisplayName("BulkCopy Metadata Cache Test")
+public class BulkCopyMetadataCacheTest extends AbstractTest {
+    private static final String tableName = "[" + RandomUtil.getIdentifier("BulkCopyMetadataCache") + "]";
+
+    @BeforeAll
+    static void createTable() throws SQLException {
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+            stmt.executeUpdate("create table " + tableName + " (id int, name nvarchar(50))");
+        }
+    }
+
+    @AfterAll
+    static void dropTable() throws SQLException {
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+        }
+    }
+
+    /**
+     * Copies rows twice with the metadata cached, then again after the table is altered and its metadata invalidated.
+     *
+     * @throws SQLException
+     */
+    @Test
+    @DisplayName("BulkCopy:test cached destination metadata")
+    void testCachedMetadata() throws SQLException {
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager.getConnection(connectionString + ";bulkCopyMetadataCacheTTL=60");
+                Statement stmt = con.createStatement()) {
+            assertEquals(60, con.getBulkCopyMetadataCacheTTL());
+
+            copy(con, "select 1, N'one'");
+            copy(con, "select 2, N'two'");
+            assertEquals(2, countRows(stmt));
+
+            stmt.executeUpdate("alter table " + tableName + " add quantity int null");
+            con.invalidateBulkCopyMetadata(tableName);
+            copy(con, "select 3, N'three', 30");
+            assertEquals(3, countRows(stmt));
+
+            try (ResultSet rs = stmt.executeQuery("select quantity from " + tableName + " where id = 3")) {
+                rs.next();
+                assertEquals(30, rs.getInt(1));
+            }
+
+            con.setBulkCopyMetadataCacheTTL(0);
+            copy(con, "select 4, N'four', 40");
+            assertEquals(4, countRows(stmt));
+        }
+    }
+
+    /**
+     * Copies rows to tables of the same name in two databases, whose metadata is cached separately.
+     *
+     * @throws SQLException
+     */
+    @Test
+    @DisplayName("BulkCopy:test cached destination metadata by database")
+    void testCachedMetadataByDatabase() throws SQLException {
+        String otherTableName = "[" + RandomUtil.getIdentifier("BulkCopyMetadataCacheByDatabase") + "]";
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager.getConnection(connectionString + ";bulkCopyMetadataCacheTTL=60");
+                Statement stmt = con.createStatement()) {
+            String database = con.getCatalog();
+            try {
+                Utils.dropTableIfExists(otherTableName, stmt);
+                stmt.executeUpdate("create table " + otherTableName + " (id int, name nvarchar(50))");
+                copy(con, otherTableName, "select 1, N'one'");
+
+                con.setCatalog("tempdb");
+                try {
+                    Utils.dropTableIfExists(otherTableName, stmt);
+                    stmt.executeUpdate("create table " + otherTableName + " (id int, name nvarchar(50), quantity int)");
+                    copy(con, otherTableName, "select 1, N'one', 10");
+                    copy(con, otherTableName, "select 2, N'two', 20");
+                    assertEquals(2, countRows(stmt, otherTableName));
+                }
+                finally {
+                    Utils.dropTableIfExists(otherTableName, stmt);
+                    con.setCatalog(database);
+                }
+
+                copy(con, otherTableName, "select 2, N'two'");
+                assertEquals(2, countRows(stmt, otherTableName));
+            }
+            finally {
+                Utils.dropTableIfExists(otherTableName, stmt);
+            }
+        }
+    }
+
+    private void copy(SQLServerConnection con,
+            String sourceQuery) throws SQLException {
+        copy(con, tableName, sourceQuery);
+    }
+
+    private void copy(SQLServerConnection con,
+            String destinationTableName,
+            String sourceQuery) throws SQLException {
+        try (Connection sourceCon = DriverManager.getConnection(connectionString); Statement sourceStmt = sourceCon.createStatement();
+                ResultSet source = sourceStmt.executeQuery(sourceQuery); SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(con)) {
+            bulkCopy.setDestinationTableName(destinationTableName);
+            bulkCopy.writeToServer(source);
+        }
+    }
+
+    private int countRows(Statement stmt) throws SQLException {
+        return countRows(stmt, tableName);
+    }
+
+    private int countRows(Statement stmt,
+            String tableName) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("select count(*) from " + tableName)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.bulkCopy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkRecord;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCSVFileRecord;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerException;
+import com.microsoft.sqlserver.jdbc.SQLServerParallelBulkCopy;
+import com.microsoft.sqlserver.testframework.AbstractTest;
+import com.microsoft.sqlserver.testframework.Utils;
+import com.microsoft.sqlserver.testframework.util.RandomUtil;
+
+/**
+ * Test SQLServerParallelBulkCopy
+ */
+@RunWith(JUnitPlatform.class)
+@DisplayName("BulkCopy Parallel Test")
+public class BulkCopyParallelTest extends AbstractTest {
+    private static final String tableName = "[" + RandomUtil.getIdentifier("BulkCopyParallel") + "]";
+    private static final int rowCount = 20000;
+
+    // 20000 rows numbered from 1
+    private static final String sourceQuery = "select top " + rowCount
+            + " row_number() over (order by (select null)) as id, N'row' as name from sys.all_columns a cross join sys.all_columns b";
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+            stmt.executeUpdate("create table " + tableName + " (id bigint, name nvarchar(50))");
+        }
+    }
+
+    @AfterEach
+    void dropTable() throws SQLException {
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+        }
+    }
+
+    /**
+     * Loads the rows of a ResultSet over four connections with table locks.
+     *
+     * @throws SQLException
+     */
+    @Test
+    @DisplayName("BulkCopy:test parallel load")
+    void testParallelLoad() throws SQLException {
+        SQLServerParallelBulkCopy bulkCopy = new SQLServerParallelBulkCopy(connectionString, 4);
+        bulkCopy.setDestinationTableName(tableName);
+        bulkCopy.setChunkSize(1000);
+        SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+        options.setTableLock(true);
+        bulkCopy.setBulkCopyOptions(options);
+
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            try (ResultSet source = stmt.executeQuery(sourceQuery)) {
+                bulkCopy.writeToServer(source);
+            }
+            assertEquals(rowCount, bulkCopy.getRowsCopied());
+
+            try (ResultSet rs = stmt.executeQuery("select count(*), count(distinct id), min(id), max(id) from " + tableName)) {
+                rs.next();
+                assertEquals(rowCount, rs.getInt(1));
+                assertEquals(rowCount, rs.getInt(2));
+                assertEquals(1, rs.getLong(3));
+                assertEquals(rowCount, rs.getLong(4));
+            }
+        }
+    }
+
+    /**
+     * Loads time(7) and datetime2(7) values from a ResultSet in parallel, without losing their fractional seconds.
+     *
+     * @throws SQLException
+     */
+    @Test
+    @DisplayName("BulkCopy:test parallel load of temporal values")
+    void testParallelLoadOfTemporalValues() throws SQLException {
+        String temporalTableName = "[" + RandomUtil.getIdentifier("BulkCopyParallelTemporal") + "]";
+        String temporalQuery = "select id, dateadd(ns, id * 100, cast('12:34:56.1234567' as time(7))) as t, "
+                + "dateadd(ns, id * 100, cast('2017-06-01 12:34:56.1234567' as datetime2(7))) as dt from (" + sourceQuery + ") s";
+
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            try {
+                Utils.dropTableIfExists(temporalTableName, stmt);
+                stmt.executeUpdate("create table " + temporalTableName + " (id bigint, t time(7), dt datetime2(7))");
+
+                SQLServerParallelBulkCopy bulkCopy = new SQLServerParallelBulkCopy(connectionString, 4);
+                bulkCopy.setDestinationTableName(temporalTableName);
+                bulkCopy.setChunkSize(1000);
+                try (ResultSet source = stmt.executeQuery(temporalQuery)) {
+                    bulkCopy.writeToServer(source);
+                }
+                assertEquals(rowCount, bulkCopy.getRowsCopied());
+
+                try (ResultSet rs = stmt.executeQuery("select count(*) from " + temporalTableName + " d join (" + temporalQuery
+                        + ") s on d.id = s.id and d.t = s.t and d.dt = s.dt")) {
+                    rs.next();
+                    assertEquals(rowCount, rs.getInt(1), "Verify the fractional seconds are kept");
+                }
+            }
+            finally {
+                Utils.dropTableIfExists(temporalTableName, stmt);
+            }
+        }
+    }
+
+    /**
+     * Loads a CSV file with quoted fields, which contain delimiters, line breaks and double quotes, in partitions that are parsed by the sessions.
+     *
+     * @throws SQLException
+     * @throws IOException
+     */
+    @Test
+    @DisplayName("BulkCopy:test parallel load of CSV partitions")
+    void testParallelLoadOfCSVPartitions() throws SQLException, IOException {
+        File file = File.createTempFile("BulkCopyParallel", ".csv");
+        try {
+            try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+                writer.write("id,name\r\n");
+                for (int i = 1; i <= rowCount; i++) {
+                    writer.write(i + ",\"row, \"\"" + i + "\"\"\nend\"\r\n");
+                }
+            }
+
+            SQLServerParallelBulkCopy bulkCopy = new SQLServerParallelBulkCopy(connectionString, 4);
+            bulkCopy.setDestinationTableName(tableName);
+            try (SQLServerBulkCSVFileRecord fileRecord = new SQLServerBulkCSVFileRecord(file.getPath(), "UTF-8", ",", true)) {
+                fileRecord.setEscapeColumnDelimitersCSV(true);
+                fileRecord.addColumnMetadata(1, null, java.sql.Types.BIGINT, 0, 0);
+                fileRecord.addColumnMetadata(2, null, java.sql.Types.NVARCHAR, 50, 0);
+                List<SQLServerBulkCSVFileRecord> partitions = fileRecord.getPartitions(8);
+                assertTrue(1 < partitions.size(), "Verify the file is split");
+                bulkCopy.writeToServer(partitions);
+            }
+            assertEquals(rowCount, bulkCopy.getRowsCopied());
+
+            try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement();
+                    ResultSet rs = stmt.executeQuery("select count(*), count(distinct id), max(id), "
+                            + "sum(case when name = N'row, \"' + cast(id as nvarchar(10)) + N'\"' + nchar(10) + N'end' then 1 else 0 end) from "
+                            + tableName)) {
+                rs.next();
+                assertEquals(rowCount, rs.getInt(1));
+                assertEquals(rowCount, rs.getInt(2));
+                assertEquals(rowCount, rs.getLong(3));
+                assertEquals(rowCount, rs.getInt(4));
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Loads a CSV file whose timestamps have a custom format, given to the column as a DateTimeFormatter, in partitions and in chunks.
+     *
+     * @throws SQLException
+     * @throws IOException
+     */
+    @Test
+    @DisplayName("BulkCopy:test parallel load of CSV with a custom date format")
+    void testParallelLoadOfCSVWithDateTimeFormatter() throws SQLException, IOException {
+        String temporalTableName = "[" + RandomUtil.getIdentifier("BulkCopyParallelDateFormat") + "]";
+        File file = File.createTempFile("BulkCopyParallel", ".csv");
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(temporalTableName, stmt);
+            stmt.executeUpdate("create table " + temporalTableName + " (id bigint, stamp datetimeoffset(0))");
+
+            try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+                writer.write("id,stamp\r\n");
+                for (int i = 1; i <= rowCount; i++) {
+                    writer.write(i + ",01/06/2017 12:34:56 +02:00\r\n");
+                }
+            }
+
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss XXX");
+            for (boolean partitioned : new boolean[] {true, false}) {
+                SQLServerParallelBulkCopy bulkCopy = new SQLServerParallelBulkCopy(connectionString, 4);
+                bulkCopy.setDestinationTableName(temporalTableName);
+                try (SQLServerBulkCSVFileRecord fileRecord = new SQLServerBulkCSVFileRecord(file.getPath(), "UTF-8", ",", true)) {
+                    fileRecord.addColumnMetadata(1, null, java.sql.Types.BIGINT, 0, 0);
+                    fileRecord.addColumnMetadata(2, null, java.sql.Types.TIMESTAMP_WITH_TIMEZONE, 0, 0, formatter);
+                    if (partitioned)
+                        bulkCopy.writeToServer(fileRecord.getPartitions(8));
+                    else
+                        bulkCopy.writeToServer(fileRecord);
+                }
+                assertEquals(rowCount, bulkCopy.getRowsCopied());
+            }
+
+            try (ResultSet rs = stmt.executeQuery(
+                    "select count(*) from " + temporalTableName + " where stamp = cast('2017-06-01 12:34:56 +02:00' as datetimeoffset(0))")) {
+                rs.next();
+                assertEquals(2 * rowCount, rs.getInt(1));
+            }
+        }
+        finally {
+            try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+                Utils.dropTableIfExists(temporalTableName, stmt);
+            }
+            file.delete();
+        }
+    }
+
+    /**
+     * Verifies the failure of the sessions is reported when the destination table does not exist.
+     *
+     * @throws SQLException
+     */
+    @Test
+    @DisplayName("BulkCopy:test parallel load failure")
+    void testParallelLoadFailure() throws SQLException {
+        final SQLServerParallelBulkCopy bulkCopy = new SQLServerParallelBulkCopy(connectionString, 2);
+        bulkCopy.setDestinationTableName("[" + RandomUtil.getIdentifier("NoSuchTable") + "]");
+
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement();
+                final ResultSet source = stmt.executeQuery(sourceQuery)) {
+            assertThrows(SQLServerException.class, new org.junit.jupiter.api.function.Executable() {
+                @Override
+                public void execute() throws SQLServerException {
+                    bulkCopy.writeToServer(source);
+                }
+            });
+            assertEquals(0, bulkCopy.getRowsCopied());
+        }
+    }
+
+    /**
+     * Verifies the load is aborted, and the failure reported, when the source fails with an unchecked exception.
+     *
+     * @throws SQLException
+     */
+    @Test
+    @DisplayName("BulkCopy:test parallel load source failure")
+    void testParallelLoadSourceFailure() throws SQLException {
+        final SQLServerParallelBulkCopy bulkCopy = new SQLServerParallelBulkCopy(connectionString, 2);
+        bulkCopy.setDestinationTableName(tableName);
+        bulkCopy.setChunkSize(1000);
+
+        final IllegalStateException failure = new IllegalStateException("source failure");
+        final ISQLServerBulkRecord source = new ISQLServerBulkRecord() {
+            private int row = 0;
+
+            public Set<Integer> getColumnOrdinals() {
+                Set<Integer> ordinals = new LinkedHashSet<Integer>();
+                ordinals.add(1);
+                ordinals.add(2);
+                return ordinals;
+            }
+
+            public String getColumnName(int column) {
+                return (1 == column) ? "id" : "name";
+            }
+
+            public int getColumnType(int column) {
+                return (1 == column) ? java.sql.Types.BIGINT : java.sql.Types.NVARCHAR;
+            }
+
+            public int getPrecision(int column) {
+                return (1 == column) ? 19 : 50;
+            }
+
+            public int getScale(int column) {
+                return 0;
+            }
+
+            public boolean isAutoIncrement(int column) {
+                return false;
+            }
+
+            public Object[] getRowData() {
+                return new Object[] {(long) row, "row"};
+            }
+
+            public boolean next() {
+                if (rowCount / 2 == row)
+                    throw failure;
+                row++;
+                return true;
+            }
+        };
+
+        SQLServerException e = assertThrows(SQLServerException.class, new org.junit.jupiter.api.function.Executable() {
+            @Override
+            public void execute() throws SQLServerException {
+                bulkCopy.writeToServer(source);
+            }
+        });
+        assertSame(failure, e.getCause());
+        assertEquals(0, bulkCopy.getRowsCopied());
+
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement();
+                ResultSet rs = stmt.executeQuery("select count(*) from " + tableName)) {
+            rs.next();
+            assertEquals(0, rs.getInt(1), "Verify the sessions cancelled their bulk loads");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import com.microsoft.sqlserver.testframework.TDSStubServer;
+
+/**
+ * Runs many queries concurrently against an in-process TDS server, to exercise the locking of the driver's I/O path under contention.
+ */
+@RunWith(JUnitPlatform.class)
+public class ConcurrentQueryTest {
+
+    private static final int NUM_THREADS = 500;
+    private static final int QUERIES_PER_THREAD = 20;
+
+    private static TDSStubServer server;
+
+    @BeforeAll
+    public static void startServer() throws Exception {
+        server = new TDSStubServer();
+    }
+
+    @AfterAll
+    public static void stopServer() throws Exception {
+        if (null != server)
+            server.close();
+    }
+
+    /**
+     * Test 10,000 queries run concurrently over many connections, with query timeouts, over both socket transports.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        final int queryCountBefore = server.getQueryCount();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>(NUM_THREADS);
+            for (int i = 0; i < NUM_THREADS; i++) {
+                final int threadNumber = i;
+                results.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        start.await();
+                        return runQueries(threadNumber);
+                    }
+                }));
+            }
+
+            start.countDown();
+
+            int totalQueries = 0;
+            for (Future<Integer> result : results)
+                totalQueries += result.get(5, TimeUnit.MINUTES);
+
+            assertEquals(NUM_THREADS * QUERIES_PER_THREAD, totalQueries, "Wrong number of queries run.");
+            assertEquals(NUM_THREADS * QUERIES_PER_THREAD, server.getQueryCount() - queryCountBefore, "Wrong number of queries received.");
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, SQLServerConnection.getActiveTimeoutCount(), "Query timeouts should not outlive their queries.");
+    }
+
+    private static int runQueries(int threadNumber) throws SQLException {
+        // Alternate between the socket and the socket channel transports.
+        String connectionString = server.getConnectionString() + ";useSocketChannel=" + (0 == threadNumber % 2);
+
+        int queries = 0;
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            stmt.setQueryTimeout(60);
+            for (int i = 0; i < QUERIES_PER_THREAD; i++) {
+                int value = threadNumber * QUERIES_PER_THREAD + i;
+                try (ResultSet rs = stmt.executeQuery("SELECT " + value)) {
+                    assertTrue(rs.next(), "Query should return a row.");
+                    assertEquals(value, rs.getInt(1), "Wrong value returned.");
+                    assertTrue(!rs.next(), "Query should return only one row.");
+                }
+                ++queries;
+            }
+        }
+        return queries;
+    }
+}
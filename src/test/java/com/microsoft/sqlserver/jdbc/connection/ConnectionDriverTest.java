@@ -294,6 +294,25 @@ public class ConnectionDriverTest extends AbstractTest {
         conn.close();
     }
 
+    @Test
+    public void testValidationInterval() throws Exception {
+        SQLServerConnection conn = (SQLServerConnection) DriverManager.getConnection(connectionString + ";validationInterval=60000");
+        assertEquals(60000, conn.getValidationInterval(), "Wrong validationInterval");
+
+        // The connection has just read the login response, so it is valid without a query
+        assertTrue(conn.isValid(0), "Newly created connection should be valid");
+        conn.close();
+        assertTrue(!conn.isValid(0), "Closed connection should be invalid");
+
+        try {
+            DriverManager.getConnection(connectionString + ";validationInterval=-1");
+            throw new Exception("No exception thrown with negative validationInterval");
+        }
+        catch (SQLException e) {
+            assertEquals(e.getMessage(), "The validationInterval -1 is not valid.", "Wrong exception message");
+        }
+    }
+
     @Test
     public void testDeadConnection() throws SQLException {
         assumeTrue(!DBConnection.isSqlAzure(DriverManager.getConnection(connectionString)), "Skipping test case on Azure SQL.");
@@ -0,0 +1,75 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import com.microsoft.sqlserver.testframework.AbstractTest;
+
+/**
+ * Tests the packetPoolSize connection property.
+ */
+@RunWith(JUnitPlatform.class)
+public class PacketPoolTest extends AbstractTest {
+
+    // Produces a result set that spans many TDS packets.
+    private static final String MULTI_PACKET_QUERY = "SELECT TOP 20000 a.object_id, REPLICATE('x', 200) AS filler FROM sys.all_objects a CROSS JOIN sys.all_objects b";
+
+    @Test
+    public void testPacketPoolDisabledByDefault() throws SQLException {
+        try (SQLServerConnection conn = (SQLServerConnection) DriverManager.getConnection(connectionString);
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(MULTI_PACKET_QUERY)) {
+            while (rs.next())
+                ;
+            assertEquals(0, conn.getPooledPacketCount(), "No packets should be pooled when packetPoolSize is not set.");
+            assertEquals(0, conn.getAllocatedPacketCount(), "No packets should be pooled when packetPoolSize is not set.");
+            assertEquals(0, conn.getReusedPacketCount(), "No packets should be pooled when packetPoolSize is not set.");
+        }
+    }
+
+    @Test
+    public void testPooledPacketsReadCorrectly() throws SQLException {
+        int rowCount = 0;
+        try (SQLServerConnection conn = (SQLServerConnection) DriverManager.getConnection(connectionString + ";packetPoolSize=16");
+                Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(MULTI_PACKET_QUERY)) {
+                while (rs.next()) {
+                    assertEquals(200, rs.getString(2).length(), "Unexpected value read from pooled packet.");
+                    ++rowCount;
+                }
+            }
+            assertEquals(20000, rowCount, "Unexpected row count.");
+            assertTrue(conn.getPooledPacketCount() <= 16, "The pool should not track more packets than packetPoolSize.");
+            assertTrue(0 < conn.getAllocatedPacketCount() + conn.getReusedPacketCount(), "Response packets should come from the pool.");
+        }
+    }
+
+    @Test
+    public void testInvalidPacketPoolSize() {
+        try {
+            DriverManager.getConnection(connectionString + ";packetPoolSize=-1");
+            fail("Connection should fail with a negative packetPoolSize.");
+        }
+        catch (SQLException e) {
+            assertTrue(e.getMessage().contains("packetPoolSize"), "Unexpected error: " + e.getMessage());
+        }
+    }
+}
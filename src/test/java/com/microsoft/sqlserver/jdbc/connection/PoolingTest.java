@@ -9,6 +9,7 @@ package com.microsoft.sqlserver.jdbc.connection;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import java.lang.management.ManagementFactory;
@@ -31,10 +32,13 @@ import org.junit.runner.RunWith;
 
 import com.microsoft.sqlserver.jdbc.ISQLServerConnection;
 import com.microsoft.sqlserver.jdbc.SQLServerException;
+import com.microsoft.sqlserver.jdbc.SQLServerPoolingDataSource;
 import com.microsoft.sqlserver.jdbc.SQLServerXADataSource;
+import com.microsoft.sqlserver.testframework.AbstractSQLGenerator;
 import com.microsoft.sqlserver.testframework.AbstractTest;
 import com.microsoft.sqlserver.testframework.DBConnection;
 import com.microsoft.sqlserver.testframework.DBTable;
+import com.microsoft.sqlserver.testframework.Utils;
 import com.microsoft.sqlserver.testframework.util.RandomUtil;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
@@ -190,6 +194,117 @@ public class PoolingTest extends AbstractTest {
     }
 
 
+    /**
+     * test the connection pool of SQLServerPoolingDataSource
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testPoolingDataSource() throws SQLException {
+        SQLServerPoolingDataSource ds = new SQLServerPoolingDataSource();
+        ds.setURL(connectionString);
+        ds.setMaxPoolSize(1);
+        ds.setPoolWaitTimeout(1000);
+
+        try {
+            connect(ds);
+            assertEquals(1, ds.getConnectionCount(), "Unexpected number of pooled connections.");
+            assertEquals(1, ds.getIdleConnectionCount(), "Unexpected number of idle connections.");
+
+            UUID Id1;
+            try (Connection con = ds.getConnection()) {
+                assertEquals(1, ds.getActiveConnectionCount(), "Unexpected number of active connections.");
+                Id1 = ((ISQLServerConnection) con).getClientConnectionId();
+                con.setAutoCommit(false);
+
+                // the only connection is in use
+                try {
+                    ds.getConnection();
+                    fail("Unexpected: got a connection from a full pool");
+                }
+                catch (SQLServerException e) {
+                    assertEquals(0, ds.getWaitingThreadCount(), "Unexpected number of waiting threads.");
+                }
+            }
+
+            try (Connection con = ds.getConnection()) {
+                assertEquals(Id1, ((ISQLServerConnection) con).getClientConnectionId(), "ClientConnection Ids from pool are not the same.");
+                assertTrue(con.getAutoCommit(), "Auto-commit mode is not reset.");
+            }
+            assertEquals(3, ds.getConnectionRequestCount(), "Unexpected number of connection requests.");
+        }
+        finally {
+            ds.close();
+        }
+        assertEquals(0, ds.getConnectionCount(), "Pooled connections are not closed with the pool.");
+    }
+
+    /**
+     * test that SQLServerPoolingDataSource rolls back the pending transaction of a connection that is returned, so that the idle connection holds
+     * no locks
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testPoolingDataSourceRollback() throws SQLException {
+        String tableName = AbstractSQLGenerator.escapeIdentifier(RandomUtil.getIdentifier("PoolingRollback"));
+        SQLServerPoolingDataSource ds = new SQLServerPoolingDataSource();
+        ds.setURL(connectionString);
+        ds.setMaxPoolSize(1);
+
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE " + tableName + " (c1 INT)");
+            try {
+                try (Connection pooledCon = ds.getConnection(); Statement pooledStmt = pooledCon.createStatement()) {
+                    pooledCon.setAutoCommit(false);
+                    pooledStmt.executeUpdate("INSERT INTO " + tableName + " VALUES (1)");
+                }
+                assertEquals(1, ds.getIdleConnectionCount(), "Unexpected number of idle connections.");
+
+                // the insert is not committed, and its lock on the table is released
+                stmt.execute("SET LOCK_TIMEOUT 5000");
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
+                    rs.next();
+                    assertEquals(0, rs.getInt(1), "Pending transaction is not rolled back.");
+                }
+            }
+            finally {
+                ds.close();
+                Utils.dropTableIfExists(tableName, stmt);
+            }
+        }
+    }
+
+    /**
+     * test that the keep-alive of SQLServerPoolingDataSource keeps idle connections that work
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testPoolingDataSourceKeepAlive() throws Exception {
+        SQLServerPoolingDataSource ds = new SQLServerPoolingDataSource();
+        ds.setURL(connectionString);
+        ds.setMinPoolSize(2);
+        ds.setKeepAliveInterval(1);
+
+        try {
+            UUID Id1;
+            try (Connection con = ds.getConnection()) {
+                Id1 = ((ISQLServerConnection) con).getClientConnectionId();
+            }
+            Thread.sleep(3000);
+            assertEquals(2, ds.getIdleConnectionCount(), "Idle connections are not kept.");
+
+            try (Connection con = ds.getConnection()) {
+                assertEquals(Id1, ((ISQLServerConnection) con).getClientConnectionId(), "ClientConnection Ids from pool are not the same.");
+                assertTrue(con.isValid(5), "Pooled connection should be valid");
+            }
+        }
+        finally {
+            ds.close();
+        }
+    }
+
     /**
      * setup connection, get connection from pool, and test threads
      * 
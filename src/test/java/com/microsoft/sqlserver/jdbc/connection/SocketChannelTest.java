@@ -0,0 +1,84 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.AbstractTest;
+
+/**
+ * Tests the useSocketChannel connection property.
+ */
+@RunWith(JUnitPlatform.class)
+public class SocketChannelTest extends AbstractTest {
+
+    // Produces a result set that spans many TDS packets.
+    private static final String MULTI_PACKET_QUERY = "SELECT TOP 20000 a.object_id, REPLICATE('x', 200) AS filler FROM sys.all_objects a CROSS JOIN sys.all_objects b";
+
+    private static void verifyRoundTrips(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(MULTI_PACKET_QUERY)) {
+            int rowCount = 0;
+            while (rs.next()) {
+                assertEquals(200, rs.getString(2).length(), "Unexpected value read over the socket channel.");
+                ++rowCount;
+            }
+            assertEquals(20000, rowCount, "Unexpected row count.");
+        }
+
+        // A request that spans many TDS packets.
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100000; i++)
+            value.append((char) ('a' + i % 26));
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT LEN(?)")) {
+            pstmt.setString(1, value.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(value.length(), rs.getInt(1), "Unexpected value written over the socket channel.");
+            }
+        }
+    }
+
+    @Test
+    public void testSocketChannel() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(connectionString + ";useSocketChannel=true")) {
+            verifyRoundTrips(conn);
+        }
+    }
+
+    @Test
+    public void testSocketChannelWithEncryption() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(connectionString + ";useSocketChannel=true;encrypt=true;trustServerCertificate=true")) {
+            verifyRoundTrips(conn);
+        }
+    }
+
+    @Test
+    public void testSocketChannelSocketTimeout() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(connectionString + ";useSocketChannel=true;socketTimeout=2000");
+                Statement stmt = conn.createStatement()) {
+            stmt.execute("WAITFOR DELAY '00:00:05'");
+            fail("Execution should fail with a socket timeout.");
+        }
+        catch (SQLException e) {
+            assertTrue(e.getMessage().contains("Read timed out"), "Unexpected error: " + e.getMessage());
+        }
+    }
+}
@@ -8,22 +8,33 @@
 package com.microsoft.sqlserver.jdbc.resultset;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZoneOffset;
 
 import org.junit.jupiter.api.Test;
 import org.junit.platform.runner.JUnitPlatform;
 import org.junit.runner.RunWith;
 
 import com.microsoft.sqlserver.jdbc.ISQLServerResultSet;
+import com.microsoft.sqlserver.jdbc.SQLServerColumnBatch;
+import com.microsoft.sqlserver.jdbc.SQLServerColumnVector;
 import com.microsoft.sqlserver.testframework.AbstractTest;
 import com.microsoft.sqlserver.testframework.Utils;
 import com.microsoft.sqlserver.testframework.util.RandomUtil;
@@ -102,5 +113,257 @@ public class ResultSetTest extends AbstractTest {
             }
         }
     }
-    
+
+    /**
+     * Tests the numeric getters on each integral and floating point type, which read the values without boxing them, against getObject.
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testPrimitiveGetters() throws SQLException {
+        try (Connection con = DriverManager.getConnection(connectionString);
+             Statement stmt = con.createStatement()) {
+
+            stmt.executeUpdate("create table " + tableName
+                    + " (id int, c1 bit, c2 tinyint, c3 smallint, c4 int, c5 bigint, c6 real, c7 float, c8 decimal(10, 2))");
+            stmt.executeUpdate("insert into " + tableName + " values (1, 1, 255, -32768, -2147483648, 9223372036854775807, 1.5, -2.25, 123.45)");
+            stmt.executeUpdate("insert into " + tableName + " values (2, null, null, null, null, null, null, null, null)");
+
+            try (ResultSet rs = stmt.executeQuery("select c1, c2, c3, c4, c5, c6, c7, c8 from " + tableName + " order by id")) {
+                assertTrue(rs.next());
+                for (int i = 1; i <= 8; i++) {
+                    Object value = rs.getObject(i);
+                    double expected = (value instanceof Boolean) ? (((Boolean) value) ? 1 : 0) : ((Number) value).doubleValue();
+                    assertEquals(expected, rs.getDouble(i), "getDouble of column " + i);
+                    assertEquals((float) expected, rs.getFloat(i), "getFloat of column " + i);
+                    assertEquals(!(0 == expected), rs.getBoolean(i), "getBoolean of column " + i);
+                    if (i <= 5) {
+                        long expectedLong = (value instanceof Boolean) ? (((Boolean) value) ? 1 : 0) : ((Number) value).longValue();
+                        assertEquals(expectedLong, rs.getLong(i), "getLong of column " + i);
+                        assertEquals((int) expectedLong, rs.getInt(i), "getInt of column " + i);
+                        assertEquals((short) expectedLong, rs.getShort(i), "getShort of column " + i);
+                        assertEquals((byte) expectedLong, rs.getByte(i), "getByte of column " + i);
+                    }
+                    assertTrue(!rs.wasNull());
+                }
+
+                assertTrue(rs.next());
+                for (int i = 1; i <= 8; i++) {
+                    assertEquals(0, rs.getInt(i));
+                    assertTrue(rs.wasNull());
+                    assertEquals(0, rs.getLong(i));
+                    assertEquals(0.0, rs.getDouble(i));
+                    assertEquals(0.0f, rs.getFloat(i));
+                    assertEquals(false, rs.getBoolean(i));
+                    assertTrue(rs.wasNull());
+                }
+            } finally {
+                Utils.dropTableIfExists(tableName, stmt);
+            }
+        }
+    }
+
+    /**
+     * Tests getObject with the java.time classes on each temporal type, against the JDBC temporal getters.
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testJavaTimeGetters() throws SQLException {
+        try (Connection con = DriverManager.getConnection(connectionString);
+             Statement stmt = con.createStatement()) {
+
+            stmt.executeUpdate("create table " + tableName
+                    + " (id int, c1 date, c2 time(7), c3 datetime, c4 smalldatetime, c5 datetime2(7), c6 datetimeoffset(7))");
+            stmt.executeUpdate("insert into " + tableName + " values (1, '2017-06-01', '12:30:15.1234567', '2017-06-01 12:30:15.123',"
+                    + " '2017-06-01 12:30', '2017-06-01 12:30:15.1234567', '2017-06-01 12:30:15.1234567 -07:30')");
+            stmt.executeUpdate("insert into " + tableName + " values (2, '0001-01-01', '00:00:00', '1753-01-01 00:00:00',"
+                    + " '1900-01-01 00:00', '9999-12-31 23:59:59.9999999', '0001-01-01 23:00:00 +14:00')");
+            stmt.executeUpdate("insert into " + tableName + " values (3, null, null, null, null, null, null)");
+
+            try (ResultSet rs = stmt.executeQuery("select c1, c2, c3, c4, c5, c6 from " + tableName + " order by id")) {
+                assertTrue(rs.next());
+                assertEquals(LocalDate.of(2017, 6, 1), rs.getObject(1, LocalDate.class));
+                assertEquals(LocalTime.of(12, 30, 15, 123456700), rs.getObject(2, LocalTime.class));
+                assertEquals(LocalDateTime.of(2017, 6, 1, 12, 30, 15, 123000000), rs.getObject(3, LocalDateTime.class));
+                assertEquals(LocalDateTime.of(2017, 6, 1, 12, 30), rs.getObject("c4", LocalDateTime.class));
+                assertEquals(LocalDateTime.of(2017, 6, 1, 12, 30, 15, 123456700), rs.getObject(5, LocalDateTime.class));
+                assertEquals(rs.getTimestamp(5).toLocalDateTime(), rs.getObject(5, LocalDateTime.class));
+                assertEquals(rs.getDate(5).toLocalDate(), rs.getObject(5, LocalDate.class));
+
+                OffsetDateTime offsetDateTime = OffsetDateTime.of(2017, 6, 1, 12, 30, 15, 123456700, ZoneOffset.ofHoursMinutes(-7, -30));
+                assertEquals(offsetDateTime, rs.getObject(6, OffsetDateTime.class));
+                assertEquals(offsetDateTime.toOffsetTime(), rs.getObject(6, OffsetTime.class));
+                assertTrue(!rs.wasNull());
+
+                assertTrue(rs.next());
+                assertEquals(LocalDate.of(1, 1, 1), rs.getObject(1, LocalDate.class));
+                assertEquals(LocalTime.MIDNIGHT, rs.getObject(2, LocalTime.class));
+                assertEquals(LocalDateTime.of(1753, 1, 1, 0, 0), rs.getObject(3, LocalDateTime.class));
+                assertEquals(LocalDateTime.of(1900, 1, 1, 0, 0), rs.getObject(4, LocalDateTime.class));
+                assertEquals(LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999999900), rs.getObject(5, LocalDateTime.class));
+                assertEquals(OffsetDateTime.of(1, 1, 1, 23, 0, 0, 0, ZoneOffset.ofHours(14)), rs.getObject(6, OffsetDateTime.class));
+
+                assertTrue(rs.next());
+                for (int i = 1; i <= 5; i++) {
+                    assertNull(rs.getObject(i, LocalDateTime.class));
+                    assertTrue(rs.wasNull());
+                }
+                assertNull(rs.getObject(6, OffsetDateTime.class));
+                assertTrue(rs.wasNull());
+            } finally {
+                Utils.dropTableIfExists(tableName, stmt);
+            }
+        }
+    }
+
+    /**
+     * Tests findColumn, which finds a name that matches exactly before one that matches ignoring case, and the first of several matching names, also
+     * when the statement is executed again with the same or other column names.
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testFindColumn() throws SQLException {
+        try (Connection con = DriverManager.getConnection(connectionString);
+             Statement stmt = con.createStatement()) {
+
+            for (int i = 0; i < 2; i++) {
+                try (ResultSet rs = stmt.executeQuery("select 1 as Col, 2 as col, 3 as dup, 4 as DUP, 5 as dup")) {
+                    assertEquals(1, rs.findColumn("Col"));
+                    assertEquals(2, rs.findColumn("col"));
+                    assertEquals(1, rs.findColumn("COL"));
+                    assertEquals(3, rs.findColumn("dup"));
+                    assertEquals(4, rs.findColumn("DUP"));
+                    assertEquals(3, rs.findColumn("Dup"));
+                    try {
+                        rs.findColumn("none");
+                        fail("findColumn did not throw for an unknown column");
+                    }
+                    catch (SQLException e) {
+                        assertTrue(e.getMessage().contains("none"), "Verify exception message: " + e.getMessage());
+                    }
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("select 1 as other, 2 as Col")) {
+                assertEquals(1, rs.findColumn("OTHER"));
+                assertEquals(2, rs.findColumn("col"));
+            }
+        }
+    }
+
+    /**
+     * Tests fetchColumnBatch, which reads the rows into column vectors, against the getters.
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testFetchColumnBatch() throws SQLException {
+        try (Connection con = DriverManager.getConnection(connectionString);
+             Statement stmt = con.createStatement()) {
+
+            stmt.executeUpdate("create table " + tableName
+                    + " (id int, c1 bigint, c2 float, c3 nvarchar(20), c4 varchar(20), c5 varbinary(10), c6 decimal(10, 2), c7 nvarchar(max))");
+            stmt.executeUpdate("insert into " + tableName + " values (1, 10000000000, 1.5, N'na\u00efve', 'plain', 0x0102, 12.34, N'long')");
+            stmt.executeUpdate("insert into " + tableName + " values (2, null, null, null, null, null, null, null)");
+            stmt.executeUpdate("insert into " + tableName + " values (3, -1, -2.5, N'', '', 0x, -0.01, N'')");
+
+            try (ResultSet rs = stmt.executeQuery("select * from " + tableName + " order by id")) {
+                SQLServerColumnBatch batch = ((ISQLServerResultSet) rs).fetchColumnBatch(2);
+                assertEquals(2, batch.getRowCount());
+                assertEquals(8, batch.getColumnCount());
+
+                SQLServerColumnVector id = batch.getColumn(1);
+                assertEquals(SQLServerColumnVector.VectorType.INT, id.getVectorType());
+                assertEquals(1, id.getInts()[0]);
+                assertEquals(2, id.getInts()[1]);
+                assertEquals(10000000000L, batch.getColumn(2).getLongs()[0]);
+                assertEquals(1.5, batch.getColumn(3).getDoubles()[0], 0);
+                assertEquals("na\u00efve", batch.getColumn(4).getString(0));
+                assertEquals("plain", batch.getColumn(5).getString(0));
+                assertEquals(2, batch.getColumn(6).getBytes(0).length);
+                assertEquals(new BigDecimal("12.34"), batch.getColumn(7).getObjects()[0]);
+                assertEquals("long", batch.getColumn(8).getString(0));
+                for (int i = 2; i <= 8; i++) {
+                    assertTrue(!batch.getColumn(i).isNull(0));
+                    assertTrue(batch.getColumn(i).isNull(1));
+                }
+
+                // The cursor is on the last row of the batch
+                assertEquals(2, rs.getRow());
+                assertEquals(2, rs.getInt(1));
+                assertNull(rs.getString(4));
+
+                batch = ((ISQLServerResultSet) rs).fetchColumnBatch(2);
+                assertEquals(1, batch.getRowCount());
+                assertEquals(3, batch.getColumn(1).getInts()[0]);
+                assertEquals(-1, batch.getColumn(2).getLongs()[0]);
+                assertEquals("", batch.getColumn(4).getString(0));
+                assertEquals(0, batch.getColumn(6).getBytes(0).length);
+                assertEquals("", batch.getColumn(8).getString(0));
+                assertTrue(rs.isAfterLast());
+
+                assertEquals(0, ((ISQLServerResultSet) rs).fetchColumnBatch(2).getRowCount());
+            } finally {
+                Utils.dropTableIfExists(tableName, stmt);
+            }
+        }
+    }
+
+    /**
+     * Tests getString and getObject on CHAR, VARCHAR, TEXT and NVARCHAR values with non-ASCII characters in code page collations, which are decoded
+     * straight from the response when it is fully buffered, against the values read from streams with adaptive buffering. The long values continue
+     * into the next packet.
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testStringGetters() throws SQLException {
+        String latin = "Gr\u00f6\u00dfe caf\u00e9 \u20ac";
+        String cyrillic = "\u041f\u0440\u0438\u0432\u0435\u0442, \u043c\u0438\u0440";
+        String unicode = "\u65e5\u672c\u8a9e \ud83d\ude00 " + cyrillic;
+        StringBuilder longLatin = new StringBuilder();
+        StringBuilder longUnicode = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            longLatin.append("caf\u00e9 \u00e0 ").append(i % 10);
+            longUnicode.append("\u041c\u0438\u0440 ").append(i % 10);
+        }
+        String[][] rows = {{latin, longLatin.toString(), cyrillic, unicode, latin},
+                {"ascii only  ", "plain ascii text", "plain ascii", "plain unicode", "plain text"},
+                {"\u00e9           ", "\u00e9", "\u0436", "\u00e9", "\u00e9"}, {null, null, null, null, null}};
+
+        try (Connection con = DriverManager.getConnection(connectionString);
+             Statement stmt = con.createStatement()) {
+            stmt.executeUpdate("create table " + tableName + " (id int, c1 char(12) collate Latin1_General_CI_AS,"
+                    + " c2 varchar(8000) collate Latin1_General_CI_AS, c3 varchar(50) collate Cyrillic_General_CI_AS, c4 nvarchar(4000),"
+                    + " c5 text collate Latin1_General_CI_AS)");
+            try (PreparedStatement pstmt = con.prepareStatement("insert into " + tableName + " values (?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < rows.length; i++) {
+                    pstmt.setInt(1, i);
+                    for (int j = 0; j < rows[i].length; j++)
+                        pstmt.setString(j + 2, rows[i][j]);
+                    pstmt.executeUpdate();
+                }
+            }
+
+            try {
+                for (String responseBuffering : new String[] {"full", "adaptive"}) {
+                    try (Connection bufferingCon = DriverManager.getConnection(connectionString + ";responseBuffering=" + responseBuffering);
+                         Statement bufferingStmt = bufferingCon.createStatement();
+                         ResultSet rs = bufferingStmt.executeQuery("select c1, c2, c3, c4, c5 from " + tableName + " order by id")) {
+                        for (String[] row : rows) {
+                            assertTrue(rs.next());
+                            for (int j = 0; j < row.length; j++) {
+                                assertEquals(row[j], rs.getString(j + 1), "getString of column " + (j + 1) + " with " + responseBuffering);
+                                assertEquals(row[j], rs.getObject(j + 1), "getObject of column " + (j + 1) + " with " + responseBuffering);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                Utils.dropTableIfExists(tableName, stmt);
+            }
+        }
+    }
 }
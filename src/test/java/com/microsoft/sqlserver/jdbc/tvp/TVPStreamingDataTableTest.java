@@ -0,0 +1,143 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.tvp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerTVPRowBinder;
+import com.microsoft.sqlserver.jdbc.SQLServerException;
+import com.microsoft.sqlserver.jdbc.SQLServerMetaData;
+import com.microsoft.sqlserver.jdbc.SQLServerPreparedStatement;
+import com.microsoft.sqlserver.jdbc.SQLServerStreamingDataTable;
+import com.microsoft.sqlserver.jdbc.SQLServerTVPRow;
+import com.microsoft.sqlserver.testframework.AbstractTest;
+import com.microsoft.sqlserver.testframework.DBConnection;
+import com.microsoft.sqlserver.testframework.DBStatement;
+
+@RunWith(JUnitPlatform.class)
+public class TVPStreamingDataTableTest extends AbstractTest {
+
+    private static DBConnection conn = null;
+    static DBStatement stmt = null;
+    private static String tvpName = "streamingTVP";
+    private static String destTable = "tvpStreamingTable";
+    private static final int ROWS = 1000;
+
+    /**
+     * Test that the rows of a streaming data table are sent in order, with their nulls, and only once
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testStreamingDataTable() throws SQLException {
+        Iterator<Integer> rows = new Iterator<Integer>() {
+            int i = 0;
+
+            public boolean hasNext() {
+                return i < ROWS;
+            }
+
+            public Integer next() {
+                return i++;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        SQLServerStreamingDataTable<Integer> tvp = new SQLServerStreamingDataTable<Integer>(rows, new ISQLServerTVPRowBinder<Integer>() {
+            public void bindRow(Integer i,
+                    SQLServerTVPRow row) throws SQLServerException {
+                row.setInt(1, i);
+                if (0 != i % 10)
+                    row.setLong(2, (long) i * 1000000);
+                row.setBigDecimal(3, new BigDecimal(i).movePointLeft(2));
+                row.setString(4, "row" + i);
+            }
+        });
+        tvp.addColumnMetadata("c1", java.sql.Types.INTEGER);
+        tvp.addColumnMetadata("c2", java.sql.Types.BIGINT);
+        tvp.addColumnMetadata(new SQLServerMetaData("c3", java.sql.Types.NUMERIC, 10, 2));
+        tvp.addColumnMetadata(new SQLServerMetaData("c4", java.sql.Types.NVARCHAR, 50, 0));
+
+        SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement) connection
+                .prepareStatement("INSERT INTO " + destTable + " select * from ? ;");
+        pstmt.setStructured(1, tvpName, tvp);
+        pstmt.execute();
+        try {
+            pstmt.execute();
+            throw new SQLException("Exception expected.");
+        }
+        catch (SQLServerException e) {
+            assertEquals("The rows of this streaming data table have already been sent.", e.getMessage());
+        }
+        pstmt.close();
+
+        ResultSet rs = (ResultSet) stmt.executeQuery("select * from " + destTable + " order by c1").product();
+        int i = 0;
+        while (rs.next()) {
+            assertEquals(i, rs.getInt(1));
+            if (0 == i % 10) {
+                rs.getLong(2);
+                assertTrue(rs.wasNull());
+            }
+            else {
+                assertEquals((long) i * 1000000, rs.getLong(2));
+            }
+            assertEquals(new BigDecimal(i).movePointLeft(2), rs.getBigDecimal(3));
+            assertEquals("row" + i, rs.getString(4));
+            i++;
+        }
+        assertEquals(ROWS, i);
+        rs.close();
+    }
+
+    @BeforeEach
+    private void testSetup() throws SQLException {
+        conn = new DBConnection(connectionString);
+        stmt = conn.createStatement();
+
+        dropTables();
+        dropTVPS();
+
+        stmt.executeUpdate("CREATE TYPE " + tvpName + " as table (c1 int null, c2 bigint null, c3 numeric(10,2) null, c4 nvarchar(50) null)");
+        stmt.execute("create table " + destTable + " (c1 int null, c2 bigint null, c3 numeric(10,2) null, c4 nvarchar(50) null);");
+    }
+
+    private static void dropTables() throws SQLException {
+        stmt.executeUpdate("if object_id('" + destTable + "','U') is not null" + " drop table " + destTable);
+    }
+
+    private static void dropTVPS() throws SQLException {
+        stmt.executeUpdate("IF EXISTS (SELECT * FROM sys.types WHERE is_table_type = 1 AND name = '" + tvpName + "') " + " drop type " + tvpName);
+    }
+
+    @AfterEach
+    private void terminateVariation() throws SQLException {
+        dropTables();
+        dropTVPS();
+        if (null != stmt) {
+            stmt.close();
+        }
+        if (null != conn) {
+            conn.close();
+        }
+    }
+}
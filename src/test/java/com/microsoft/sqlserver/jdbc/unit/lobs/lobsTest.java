@@ -393,6 +393,62 @@ public class lobsTest extends AbstractTest {
         dropTables(table);
     }
 
+    /**
+     * Tests reading parts of a Blob and an NClob, kept in the response buffers and copied to a temporary file
+     * 
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("testLobs_PartialRead")
+    public void testPartialRead() throws Exception {
+        testLobs_PartialRead(connectionString);
+        testLobs_PartialRead(connectionString + ";lobInMemoryLimit=1000");
+    }
+
+    private void testLobs_PartialRead(String connectionString) throws Exception {
+        String types[] = {"varbinary(max)", "nvarchar(max)"};
+        table = createTable(table, types, false);  // create empty table
+        int size = 100000;
+
+        byte[] data = new byte[size];
+        ThreadLocalRandom.current().nextBytes(data);
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++)
+            chars[i] = (char) ('a' + i % 26);
+        String stringData = new String(chars);
+
+        Connection conn = DriverManager.getConnection(connectionString);
+        PreparedStatement ps = conn.prepareStatement("INSERT INTO " + table.getEscapedTableName() + "  VALUES(?, ?)");
+        ps.setBytes(1, data);
+        ps.setString(2, stringData);
+        ps.executeUpdate();
+
+        ResultSet rs = conn.createStatement().executeQuery("select * from " + table.getEscapedTableName());
+        while (rs.next()) {
+            Blob blob = rs.getBlob(1);
+            NClob nclob = rs.getNClob(2);
+            assertEquals(blob.length(), size);
+            assertTrue(Arrays.equals(blob.getBytes(50001, 1000), Arrays.copyOfRange(data, 50000, 51000)), "Blob part does not match");
+            assertTrue(Arrays.equals(blob.getBytes(11, 1000), Arrays.copyOfRange(data, 10, 1010)), "Blob part does not match");
+
+            InputStream stream = blob.getBinaryStream(size - 99, 100);
+            byte[] chunk = new byte[100];
+            int read = 0;
+            for (int n = 0; read < chunk.length && (n = stream.read(chunk, read, chunk.length - read)) > 0; read += n)
+                ;
+            assertTrue(Arrays.equals(chunk, Arrays.copyOfRange(data, size - 100, size)), "Blob stream does not match");
+
+            assertEquals(nclob.length(), size);
+            assertEquals(nclob.getSubString(50001, 1000), stringData.substring(50000, 51000));
+
+            blob.free();
+            nclob.free();
+        }
+        rs.close();
+        conn.close();
+        dropTables(table);
+    }
+
     @Test
     @DisplayName("testUpdatorNClob")
     public void testUpdatorNClob() throws Exception {
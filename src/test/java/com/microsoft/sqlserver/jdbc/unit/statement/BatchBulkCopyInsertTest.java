@@ -0,0 +1,235 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.unit.statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import com.microsoft.sqlserver.testframework.AbstractSQLGenerator;
+import com.microsoft.sqlserver.testframework.AbstractTest;
+import com.microsoft.sqlserver.testframework.Utils;
+import com.microsoft.sqlserver.testframework.util.RandomUtil;
+
+/**
+ * Tests executing large batches of simple INSERT statements as bulk loads (bulkCopyForBatchInsertThreshold).
+ */
+@RunWith(JUnitPlatform.class)
+public class BatchBulkCopyInsertTest extends AbstractTest {
+
+    String tableN = RandomUtil.getIdentifier("BatchBulkCopyInsert");
+    String tableName = AbstractSQLGenerator.escapeIdentifier(tableN);
+
+    @BeforeEach
+    public void init() throws SQLException {
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager.getConnection(connectionString);
+                Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+            stmt.executeUpdate("CREATE TABLE " + tableName
+                    + " (c1 INT PRIMARY KEY, c2 NVARCHAR(50), c3 DECIMAL(10, 3), c4 DATETIME2, c5 INT CHECK (c5 >= 0))");
+        }
+    }
+
+    @AfterEach
+    public void terminate() throws SQLException {
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager.getConnection(connectionString);
+                Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+        }
+    }
+
+    /**
+     * Test a batch larger than the threshold, including null values and decimal values of different scales.
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testBulkCopyInsertBatch() throws SQLException {
+        final int numRows = 1000;
+        final Timestamp ts = Timestamp.valueOf("2017-06-01 12:34:56.1234567");
+
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager.getConnection(connectionString + ";bulkCopyForBatchInsertThreshold=10");
+                PreparedStatement pstmt = con.prepareStatement("INSERT INTO " + tableName + " ([c1], c2, c3, c4, c5) VALUES (?, ?, ?, ?, ?)")) {
+            assertEquals(10, con.getBulkCopyForBatchInsertThreshold());
+
+            for (int i = 0; i < numRows; i++) {
+                pstmt.setInt(1, i);
+                if (0 == i % 10)
+                    pstmt.setNull(2, java.sql.Types.NVARCHAR);
+                else
+                    pstmt.setString(2, "row " + i);
+                pstmt.setBigDecimal(3, (0 == i % 2) ? new BigDecimal(i) : new BigDecimal(i).movePointLeft(3));
+                pstmt.setTimestamp(4, ts);
+                pstmt.setInt(5, i);
+                pstmt.addBatch();
+            }
+
+            int[] updateCounts = pstmt.executeBatch();
+            assertEquals(numRows, updateCounts.length, "Wrong number of update counts.");
+            for (int updateCount : updateCounts)
+                assertEquals(1, updateCount, "Wrong update count.");
+
+            try (Statement stmt = con.createStatement();
+                    ResultSet rs = stmt.executeQuery("SELECT c1, c2, c3, c4 FROM " + tableName + " ORDER BY c1")) {
+                int i = 0;
+                while (rs.next()) {
+                    assertEquals(i, rs.getInt(1));
+                    assertEquals((0 == i % 10) ? null : "row " + i, rs.getString(2));
+                    assertEquals(0, ((0 == i % 2) ? new BigDecimal(i) : new BigDecimal(i).movePointLeft(3)).compareTo(rs.getBigDecimal(3)));
+                    assertEquals(ts, rs.getTimestamp(4));
+                    ++i;
+                }
+                assertEquals(numRows, i, "Wrong number of rows inserted.");
+            }
+        }
+    }
+
+    /**
+     * Test that a constraint violation fails the whole bulk load and the batch reports a BatchUpdateException.
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testBulkCopyInsertBatchWithError() throws SQLException {
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager.getConnection(connectionString);
+                PreparedStatement pstmt = con.prepareStatement("INSERT INTO " + tableName + " (c1, c5) VALUES (?, ?)")) {
+            con.setBulkCopyForBatchInsertThreshold(1);
+
+            for (int i = 0; i < 5; i++) {
+                pstmt.setInt(1, i);
+                pstmt.setInt(2, (3 == i) ? -1 : i);
+                pstmt.addBatch();
+            }
+
+            try {
+                pstmt.executeBatch();
+                fail("Batch should fail with a check constraint violation.");
+            }
+            catch (BatchUpdateException e) {
+                assertEquals(5, e.getUpdateCounts().length, "Wrong number of update counts.");
+                for (int updateCount : e.getUpdateCounts())
+                    assertEquals(Statement.EXECUTE_FAILED, updateCount, "Wrong update count.");
+            }
+
+            try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
+                assertTrue(rs.next());
+                assertEquals(0, rs.getInt(1), "No rows should be inserted.");
+            }
+        }
+    }
+
+    /**
+     * Test that a batch with column names that do not match the table's exactly is batched one row at a time.
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testBulkCopyInsertBatchFallback() throws SQLException {
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager.getConnection(connectionString + ";bulkCopyForBatchInsertThreshold=1");
+                PreparedStatement pstmt = con.prepareStatement("INSERT INTO " + tableName + " (C1, C2) VALUES (?, ?)")) {
+            for (int i = 0; i < 5; i++) {
+                pstmt.setInt(1, i);
+                pstmt.setString(2, "row " + i);
+                pstmt.addBatch();
+            }
+
+            int[] updateCounts = pstmt.executeBatch();
+            assertEquals(5, updateCounts.length, "Wrong number of update counts.");
+            for (int updateCount : updateCounts)
+                assertEquals(1, updateCount, "Wrong update count.");
+        }
+    }
+
+    /**
+     * Test that a batch with explicit values for an identity column behaves as the INSERT statements whatever its size: it fails unless
+     * IDENTITY_INSERT is on, and then inserts the values given.
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testBulkCopyInsertBatchIdentity() throws SQLException {
+        String identityTableName = AbstractSQLGenerator.escapeIdentifier(RandomUtil.getIdentifier("BatchBulkCopyInsertIdentity"));
+
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager.getConnection(connectionString + ";bulkCopyForBatchInsertThreshold=5");
+                Statement stmt = con.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE " + identityTableName + " (id INT IDENTITY PRIMARY KEY, c2 NVARCHAR(50))");
+            try {
+                try (PreparedStatement pstmt = con.prepareStatement("INSERT INTO " + identityTableName + " (id, c2) VALUES (?, ?)")) {
+                    for (int numRows : new int[] {2, 10}) {
+                        for (int i = 0; i < numRows; i++) {
+                            pstmt.setInt(1, 100 + i);
+                            pstmt.setString(2, "row " + i);
+                            pstmt.addBatch();
+                        }
+                        try {
+                            pstmt.executeBatch();
+                            fail("Batch of " + numRows + " rows should fail without IDENTITY_INSERT.");
+                        }
+                        catch (BatchUpdateException e) {
+                            assertEquals(numRows, e.getUpdateCounts().length, "Wrong number of update counts.");
+                        }
+                    }
+
+                    stmt.execute("SET IDENTITY_INSERT " + identityTableName + " ON");
+                    for (int i = 0; i < 10; i++) {
+                        pstmt.setInt(1, 100 + i);
+                        pstmt.setString(2, "row " + i);
+                        pstmt.addBatch();
+                    }
+                    for (int updateCount : pstmt.executeBatch())
+                        assertEquals(1, updateCount, "Wrong update count.");
+                    stmt.execute("SET IDENTITY_INSERT " + identityTableName + " OFF");
+                }
+
+                // A batch that leaves the identity column out is bulk loaded, and the server generates the identity values.
+                try (PreparedStatement pstmt = con.prepareStatement("INSERT INTO " + identityTableName + " (c2) VALUES (?)")) {
+                    for (int i = 0; i < 10; i++) {
+                        pstmt.setString(1, "generated " + i);
+                        pstmt.addBatch();
+                    }
+                    for (int updateCount : pstmt.executeBatch())
+                        assertEquals(1, updateCount, "Wrong update count.");
+                }
+
+                try (ResultSet rs = stmt.executeQuery("SELECT id, c2 FROM " + identityTableName + " ORDER BY id")) {
+                    for (int i = 0; i < 20; i++) {
+                        assertTrue(rs.next(), "Wrong number of rows inserted.");
+                        if (i < 10) {
+                            assertEquals(100 + i, rs.getInt(1));
+                            assertEquals("row " + i, rs.getString(2));
+                        }
+                        else {
+                            assertTrue(rs.getInt(1) > 109, "Identity value was not generated.");
+                            assertEquals("generated " + (i - 10), rs.getString(2));
+                        }
+                    }
+                    assertTrue(!rs.next(), "Wrong number of rows inserted.");
+                }
+            }
+            finally {
+                Utils.dropTableIfExists(identityTableName, stmt);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.unit.statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.sql.BatchUpdateException;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import com.microsoft.sqlserver.testframework.AbstractSQLGenerator;
+import com.microsoft.sqlserver.testframework.AbstractTest;
+import com.microsoft.sqlserver.testframework.Utils;
+import com.microsoft.sqlserver.testframework.util.RandomUtil;
+
+/**
+ * Tests executing batches of simple INSERT statements as multi-row INSERT ... VALUES statements (useMultiRowValuesForBatchInsert).
+ */
+@RunWith(JUnitPlatform.class)
+public class BatchMultiRowInsertTest extends AbstractTest {
+
+    String tableN = RandomUtil.getIdentifier("BatchMultiRowInsert");
+    String tableName = AbstractSQLGenerator.escapeIdentifier(tableN);
+
+    @BeforeEach
+    public void init() throws SQLException {
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager.getConnection(connectionString);
+                Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+            stmt.executeUpdate("CREATE TABLE " + tableName + " (c1 INT PRIMARY KEY, c2 NVARCHAR(50), c3 FLOAT)");
+        }
+    }
+
+    @AfterEach
+    public void terminate() throws SQLException {
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager.getConnection(connectionString);
+                Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+        }
+    }
+
+    /**
+     * Test a batch large enough to be split over several multi-row inserts, including a smaller last insert.
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testMultiRowInsertBatch() throws SQLException {
+        final int numRows = 2500;
+
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager
+                .getConnection(connectionString + ";useMultiRowValuesForBatchInsert=true");
+                PreparedStatement pstmt = con.prepareStatement("INSERT INTO " + tableName + " (c1, c2, c3) VALUES (?, ?, ?)")) {
+            assertTrue(con.getUseMultiRowValuesForBatchInsert());
+
+            for (int i = 0; i < numRows; i++) {
+                pstmt.setInt(1, i);
+                if (0 == i % 10)
+                    pstmt.setNull(2, java.sql.Types.NVARCHAR);
+                else
+                    pstmt.setString(2, "row " + i);
+                pstmt.setDouble(3, i / 2.0);
+                pstmt.addBatch();
+            }
+
+            int[] updateCounts = pstmt.executeBatch();
+            assertEquals(numRows, updateCounts.length, "Wrong number of update counts.");
+            for (int updateCount : updateCounts)
+                assertEquals(1, updateCount, "Wrong update count.");
+
+            try (Statement stmt = con.createStatement();
+                    ResultSet rs = stmt.executeQuery("SELECT c1, c2, c3 FROM " + tableName + " ORDER BY c1")) {
+                int i = 0;
+                while (rs.next()) {
+                    assertEquals(i, rs.getInt(1));
+                    assertEquals((0 == i % 10) ? null : "row " + i, rs.getString(2));
+                    assertEquals(i / 2.0, rs.getDouble(3), 0);
+                    ++i;
+                }
+                assertEquals(numRows, i, "Wrong number of rows inserted.");
+            }
+        }
+    }
+
+    /**
+     * Test that a failed multi-row insert fails all of its rows and the batch reports a BatchUpdateException.
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testMultiRowInsertBatchWithError() throws SQLException {
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager.getConnection(connectionString);
+                PreparedStatement pstmt = con.prepareStatement("INSERT INTO " + tableName + " VALUES (?, ?, ?)")) {
+            con.setUseMultiRowValuesForBatchInsert(true);
+
+            // The duplicate key fails the whole statement.
+            for (int i : new int[] {1, 2, 2}) {
+                pstmt.setInt(1, i);
+                pstmt.setString(2, "row " + i);
+                pstmt.setDouble(3, i);
+                pstmt.addBatch();
+            }
+
+            try {
+                pstmt.executeBatch();
+                fail("Batch should fail with a duplicate key.");
+            }
+            catch (BatchUpdateException e) {
+                assertEquals(3, e.getUpdateCounts().length, "Wrong number of update counts.");
+                for (int updateCount : e.getUpdateCounts())
+                    assertEquals(Statement.EXECUTE_FAILED, updateCount, "Wrong update count.");
+            }
+
+            try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
+                assertTrue(rs.next());
+                assertEquals(0, rs.getInt(1), "No rows should be inserted.");
+            }
+        }
+    }
+
+    /**
+     * Test that statements that are not simple INSERT statements are batched one row at a time.
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testNonInsertBatch() throws SQLException {
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager
+                .getConnection(connectionString + ";useMultiRowValuesForBatchInsert=true");
+                PreparedStatement pstmt = con.prepareStatement("INSERT INTO " + tableName + " (c1, c2, c3) SELECT ?, ?, ?")) {
+            for (int i = 0; i < 3; i++) {
+                pstmt.setInt(1, i);
+                pstmt.setString(2, "row " + i);
+                pstmt.setDouble(3, i);
+                pstmt.addBatch();
+            }
+
+            int[] updateCounts = pstmt.executeBatch();
+            assertEquals(3, updateCounts.length, "Wrong number of update counts.");
+            for (int updateCount : updateCounts)
+                assertEquals(1, updateCount, "Wrong update count.");
+        }
+    }
+
+    /**
+     * Test that the multi-row inserts of a batch share its query timeout, rather than each getting the full timeout.
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testMultiRowInsertBatchTimeout() throws SQLException {
+        try (SQLServerConnection con = (SQLServerConnection) DriverManager
+                .getConnection(connectionString + ";useMultiRowValuesForBatchInsert=true");
+                PreparedStatement pstmt = con.prepareStatement("INSERT INTO " + tableName + " (c1, c2, c3) VALUES (?, ?, ?)");
+                Statement stmt = con.createStatement()) {
+            // Each of the three multi-row inserts takes 1.5 seconds, within the timeout of 3 seconds but not all together.
+            String triggerName = AbstractSQLGenerator.escapeIdentifier(RandomUtil.getIdentifier("BatchMultiRowInsertTrigger"));
+            stmt.executeUpdate("CREATE TRIGGER " + triggerName + " ON " + tableName + " AFTER INSERT AS WAITFOR DELAY '00:00:01.500'");
+
+            for (int i = 0; i < 2500; i++) {
+                pstmt.setInt(1, i);
+                pstmt.setString(2, "row " + i);
+                pstmt.setDouble(3, i);
+                pstmt.addBatch();
+            }
+            pstmt.setQueryTimeout(3);
+
+            try {
+                pstmt.executeBatch();
+                fail("Batch should time out.");
+            }
+            catch (BatchUpdateException e) {
+                fail("Batch should time out rather than fail some of its rows: " + e.getMessage());
+            }
+            catch (SQLException e) {
+                assertEquals("The query has timed out.", e.getMessage());
+            }
+        }
+    }
+}
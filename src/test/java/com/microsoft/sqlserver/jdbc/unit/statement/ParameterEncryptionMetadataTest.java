@@ -0,0 +1,189 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.unit.statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.AbstractSQLGenerator;
+import com.microsoft.sqlserver.testframework.AbstractTest;
+import com.microsoft.sqlserver.testframework.Utils;
+import com.microsoft.sqlserver.testframework.util.RandomUtil;
+
+/**
+ * Tests that prepared statements reuse the parameter encryption metadata cached by the connection, and query it again when the server reports
+ * that it has changed. The table is not encrypted, so that sp_describe_parameter_encryption runs without a key store.
+ */
+@RunWith(JUnitPlatform.class)
+public class ParameterEncryptionMetadataTest extends AbstractTest {
+
+    String tableN = RandomUtil.getIdentifier("ParameterEncryptionMetadata");
+    String tableName = AbstractSQLGenerator.escapeIdentifier(tableN);
+
+    private final Logger stmtLogger = Logger.getLogger("com.microsoft.sqlserver.jdbc.internals.SQLServerStatement");
+    private Level stmtLoggerLevel;
+
+    /**
+     * Counts the calls to sp_describe_parameter_encryption, from the statement log.
+     */
+    private final DescribeCounter describeCounter = new DescribeCounter();
+
+    private static final class DescribeCounter extends Handler {
+        int count;
+
+        @Override
+        public void publish(LogRecord record) {
+            if (null != record.getMessage() && record.getMessage().startsWith("Calling stored procedure sp_describe_parameter_encryption"))
+                count++;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @BeforeEach
+    public void init() throws SQLException {
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+            stmt.executeUpdate("CREATE TABLE " + tableName + " (c1 INT, c2 NVARCHAR(50))");
+        }
+
+        stmtLoggerLevel = stmtLogger.getLevel();
+        stmtLogger.setLevel(Level.FINE);
+        stmtLogger.addHandler(describeCounter);
+    }
+
+    @AfterEach
+    public void terminate() throws SQLException {
+        stmtLogger.removeHandler(describeCounter);
+        stmtLogger.setLevel(stmtLoggerLevel);
+
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+        }
+    }
+
+    private Connection getConnection(int cacheSize) throws SQLException {
+        return DriverManager.getConnection(connectionString + ";columnEncryptionSetting=Enabled;parameterEncryptionMetadataCacheSize=" + cacheSize);
+    }
+
+    private void insert(Connection con,
+            String sql) throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+            pstmt.setInt(1, 1);
+            pstmt.setString(2, "one");
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * A second statement with the same SQL uses the cached metadata
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testCacheHit() throws SQLException {
+        try (Connection con = getConnection(10)) {
+            String sql = "INSERT INTO " + tableName + " VALUES (?, ?)";
+            insert(con, sql);
+            assertEquals(1, describeCounter.count);
+
+            insert(con, sql);
+            assertEquals(1, describeCounter.count, "cached parameter encryption metadata was not used");
+        }
+    }
+
+    /**
+     * The metadata of the least recently used statement is queried again once more statements than the cache size were executed
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testLruEviction() throws SQLException {
+        try (Connection con = getConnection(2)) {
+            String sql1 = "INSERT INTO " + tableName + " VALUES (?, ?)";
+            String sql2 = "INSERT INTO " + tableName + " (c1, c2) VALUES (?, ?)";
+            String sql3 = "INSERT INTO " + tableName + " (c2, c1) VALUES (?, ?)";
+            insert(con, sql1);
+            insert(con, sql2);
+            insert(con, sql1);
+            assertEquals(2, describeCounter.count);
+
+            // sql2 is the least recently used, and is evicted.
+            insert(con, sql3);
+            assertEquals(3, describeCounter.count);
+            insert(con, sql1);
+            assertEquals(3, describeCounter.count);
+            insert(con, sql2);
+            assertEquals(4, describeCounter.count, "least recently used parameter encryption metadata was not evicted");
+        }
+    }
+
+    /**
+     * With a cache size of 0, each statement queries the metadata
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testCacheDisabled() throws SQLException {
+        try (Connection con = getConnection(0)) {
+            String sql = "INSERT INTO " + tableName + " VALUES (?, ?)";
+            insert(con, sql);
+            insert(con, sql);
+            assertEquals(2, describeCounter.count);
+        }
+    }
+
+    /**
+     * After an operand type clash, the cached metadata is discarded, queried again, and the statement is retried once
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testChangedMetadataRetry() throws SQLException {
+        try (Connection con = getConnection(10); Statement stmt = con.createStatement()) {
+            String sql = "INSERT INTO " + tableName + " VALUES (?, ?)";
+            insert(con, sql);
+            assertEquals(1, describeCounter.count);
+
+            // An int parameter clashes with the new type of the column.
+            Utils.dropTableIfExists(tableName, stmt);
+            stmt.executeUpdate("CREATE TABLE " + tableName + " (c1 DATE, c2 NVARCHAR(50))");
+
+            try {
+                insert(con, sql);
+                fail("Operand type clash expected");
+            }
+            catch (SQLException e) {
+                assertEquals(206, e.getErrorCode(), e.getMessage());
+            }
+            assertEquals(2, describeCounter.count, "parameter encryption metadata was not queried again exactly once");
+        }
+    }
+}
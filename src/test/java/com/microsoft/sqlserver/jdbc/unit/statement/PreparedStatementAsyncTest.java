@@ -0,0 +1,210 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.unit.statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerPreparedStatement42;
+import com.microsoft.sqlserver.testframework.AbstractSQLGenerator;
+import com.microsoft.sqlserver.testframework.AbstractTest;
+import com.microsoft.sqlserver.testframework.Utils;
+import com.microsoft.sqlserver.testframework.util.RandomUtil;
+
+/**
+ * Tests the asynchronous execution methods of ISQLServerPreparedStatement42.
+ */
+@RunWith(JUnitPlatform.class)
+public class PreparedStatementAsyncTest extends AbstractTest {
+
+    String tableN = RandomUtil.getIdentifier("PreparedStatementAsync");
+    String tableName = AbstractSQLGenerator.escapeIdentifier(tableN);
+
+    @BeforeEach
+    public void init() throws SQLException {
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+            stmt.executeUpdate("CREATE TABLE " + tableName + " (c1 INT PRIMARY KEY, c2 NVARCHAR(50))");
+        }
+    }
+
+    @AfterEach
+    public void terminate() throws SQLException {
+        try (Connection con = DriverManager.getConnection(connectionString); Statement stmt = con.createStatement()) {
+            Utils.dropTableIfExists(tableName, stmt);
+        }
+    }
+
+    /**
+     * Test asynchronous updates and queries on several connections at once.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteAsync() throws Exception {
+        final int numConnections = 10;
+        List<Connection> connections = new ArrayList<Connection>();
+        try {
+            List<CompletableFuture<Integer>> updates = new ArrayList<CompletableFuture<Integer>>();
+            for (int i = 0; i < numConnections; i++) {
+                Connection con = DriverManager.getConnection(connectionString);
+                connections.add(con);
+
+                ISQLServerPreparedStatement42 pstmt = (ISQLServerPreparedStatement42) con
+                        .prepareStatement("WAITFOR DELAY '00:00:01'; INSERT INTO " + tableName + " VALUES (?, ?)");
+                pstmt.setInt(1, i);
+                pstmt.setString(2, "row " + i);
+                updates.add(pstmt.executeUpdateAsync());
+            }
+
+            // The updates run concurrently, so they take about as long as one of them.
+            long elapsedMillis = -System.currentTimeMillis();
+            for (CompletableFuture<Integer> update : updates)
+                assertEquals(1, update.get(30, TimeUnit.SECONDS).intValue(), "Wrong update count.");
+            elapsedMillis += System.currentTimeMillis();
+            assertTrue(elapsedMillis < numConnections * 1000, "Asynchronous updates did not run concurrently.");
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try (ISQLServerPreparedStatement42 pstmt = (ISQLServerPreparedStatement42) connections.get(0)
+                    .prepareStatement("SELECT COUNT(*) FROM " + tableName)) {
+                try (ResultSet rs = pstmt.executeQueryAsync(executor).get(30, TimeUnit.SECONDS)) {
+                    assertTrue(rs.next());
+                    assertEquals(numConnections, rs.getInt(1), "Wrong number of rows inserted.");
+                }
+            }
+            finally {
+                executor.shutdown();
+            }
+        }
+        finally {
+            for (Connection con : connections)
+                con.close();
+        }
+    }
+
+    /**
+     * Test that an execution error completes the future exceptionally.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteAsyncWithError() throws Exception {
+        try (Connection con = DriverManager.getConnection(connectionString);
+                ISQLServerPreparedStatement42 pstmt = (ISQLServerPreparedStatement42) con
+                        .prepareStatement("INSERT INTO " + tableName + " VALUES (?, ?)")) {
+            pstmt.setInt(1, 1);
+            pstmt.setString(2, "row 1");
+            assertEquals(1, pstmt.executeUpdateAsync().get().intValue());
+
+            try {
+                pstmt.executeUpdateAsync().get();
+                fail("Execution should fail with a duplicate key.");
+            }
+            catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SQLException, "Unexpected error: " + e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Test that cancelling the future cancels the statement.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCancelExecuteAsync() throws Exception {
+        try (Connection con = DriverManager.getConnection(connectionString);
+                ISQLServerPreparedStatement42 pstmt = (ISQLServerPreparedStatement42) con.prepareStatement("WAITFOR DELAY '00:00:30'")) {
+            long elapsedMillis = -System.currentTimeMillis();
+            CompletableFuture<Integer> future = pstmt.executeUpdateAsync();
+            Thread.sleep(1000);
+            assertTrue(future.cancel(true));
+
+            try {
+                future.get();
+                fail("The future should be cancelled.");
+            }
+            catch (CancellationException e) {
+                // expected
+            }
+
+            // The connection is usable once the cancelled statement returns.
+            try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT 1")) {
+                assertTrue(rs.next());
+            }
+            elapsedMillis += System.currentTimeMillis();
+            assertTrue(elapsedMillis < 30000, "The statement was not cancelled.");
+        }
+    }
+
+    /**
+     * Test that the asynchronous executions of a connection run one after the other, and that a statement cannot be executed asynchronously again
+     * before its asynchronous execution completes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteAsyncOnOneConnection() throws Exception {
+        try (Connection con = DriverManager.getConnection(connectionString)) {
+            List<ISQLServerPreparedStatement42> statements = new ArrayList<ISQLServerPreparedStatement42>();
+            List<CompletableFuture<Integer>> updates = new ArrayList<CompletableFuture<Integer>>();
+            try {
+                for (int i = 0; i < 3; i++) {
+                    ISQLServerPreparedStatement42 pstmt = (ISQLServerPreparedStatement42) con
+                            .prepareStatement("WAITFOR DELAY '00:00:01'; INSERT INTO " + tableName + " VALUES (?, ?)");
+                    statements.add(pstmt);
+                    pstmt.setInt(1, i);
+                    pstmt.setString(2, "row " + i);
+                    updates.add(pstmt.executeUpdateAsync());
+                }
+
+                try {
+                    statements.get(0).executeUpdateAsync().get(30, TimeUnit.SECONDS);
+                    fail("A second asynchronous execution of the statement should fail.");
+                }
+                catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof SQLException, "Unexpected error: " + e.getCause());
+                }
+
+                for (CompletableFuture<Integer> update : updates)
+                    assertEquals(1, update.get(30, TimeUnit.SECONDS).intValue(), "Wrong update count.");
+
+                try (ResultSet rs = ((ISQLServerPreparedStatement42) con.prepareStatement("SELECT COUNT(*) FROM " + tableName)).executeQueryAsync()
+                        .get(30, TimeUnit.SECONDS)) {
+                    assertTrue(rs.next());
+                    assertEquals(3, rs.getInt(1), "Wrong number of rows inserted.");
+                }
+            }
+            finally {
+                for (ISQLServerPreparedStatement42 pstmt : statements)
+                    pstmt.close();
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@
  */
 package com.microsoft.sqlserver.jdbc.unit.statement;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -254,4 +255,105 @@ public class PreparedStatementTest extends AbstractTest {
             assertSame(0, con.getDiscardedServerPreparedStatementCount());
         }
     }
+
+    /**
+     * Test that prepared statement handles are shared through the connection's statement pool.
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testStatementPooling() throws SQLException {
+        try (SQLServerConnection con = (SQLServerConnection)DriverManager.getConnection(connectionString + ";disableStatementPooling=false;statementPoolingCacheSize=2")) {
+            assertTrue(con.isStatementPoolingEnabled());
+            assertEquals(2, con.getStatementPoolingCacheSize());
+
+            String lookupUniqueifier = UUID.randomUUID().toString();
+            String query = String.format("/*statementpoolingtest_%s*/SELECT * FROM sys.objects WHERE object_id > ?;", lookupUniqueifier);
+
+            // First statement prepares the handle and puts it in the pool.
+            try (SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement)con.prepareStatement(query)) {
+                pstmt.setInt(1, 0);
+                pstmt.execute();
+            }
+            assertEquals(1, con.getStatementHandleCacheEntryCount());
+            assertEquals(0, con.getDiscardedServerPreparedStatementCount());
+
+            // Second statement reuses the pooled handle rather than preparing again.
+            try (SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement)con.prepareStatement(query)) {
+                pstmt.setInt(1, 1);
+                pstmt.execute();
+            }
+            assertEquals(1, con.getStatementHandleCacheEntryCount());
+            assertEquals(0, con.getDiscardedServerPreparedStatementCount());
+
+            // Filling the pool evicts the least recently used handle.
+            for (int i = 0; i < 2; ++i) {
+                try (SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement)con.prepareStatement(query + i)) {
+                    pstmt.setInt(1, 0);
+                    pstmt.execute();
+                }
+            }
+            assertEquals(2, con.getStatementHandleCacheEntryCount());
+            assertEquals(1, con.getDiscardedServerPreparedStatementCount());
+
+            // Handles are pooled per database, so switching databases prepares a new handle.
+            String catalog = con.getCatalog();
+            con.setCatalog("master");
+            try (SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement)con.prepareStatement(query + 0)) {
+                pstmt.setInt(1, 0);
+                pstmt.execute();
+            }
+            con.setCatalog(catalog);
+            assertEquals(2, con.getStatementHandleCacheEntryCount());
+            assertEquals(2, con.getDiscardedServerPreparedStatementCount());
+
+            // Shrinking the pool evicts handles immediately.
+            con.setStatementPoolingCacheSize(0);
+            assertEquals(0, con.getStatementHandleCacheEntryCount());
+        }
+
+        // Statement pooling is disabled by default.
+        try (SQLServerConnection con = (SQLServerConnection)DriverManager.getConnection(connectionString)) {
+            try (SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement)con.prepareStatement("SELECT * FROM sys.objects;")) {
+                pstmt.execute();
+                pstmt.execute();
+            }
+            assertEquals(0, con.getStatementHandleCacheEntryCount());
+        }
+    }
+
+    /**
+     * Test that statements created from cached parsed SQL behave the same as statements whose SQL is parsed anew.
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testParsedSQLCache() throws SQLException {
+        String query = "/*parsedsqlcachetest*/SELECT ?, '?' /* ? */, ?;";
+
+        try (SQLServerConnection con = (SQLServerConnection)DriverManager.getConnection(connectionString)) {
+            for (int cacheSize : new int[] {0, SQLServerConnection.getInitialDefaultParsedSQLCacheSize()}) {
+                SQLServerConnection.setParsedSQLCacheSize(cacheSize);
+                assertEquals(cacheSize, SQLServerConnection.getParsedSQLCacheSize());
+
+                // Run twice so that the second statement is created from the cache, if enabled.
+                for (int i = 0; i < 2; ++i) {
+                    try (SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement)con.prepareStatement(query)) {
+                        assertEquals(2, pstmt.getParameterMetaData().getParameterCount());
+                        pstmt.setInt(1, i);
+                        pstmt.setInt(2, i + 1);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            assertTrue(rs.next());
+                            assertEquals(i, rs.getInt(1));
+                            assertEquals("?", rs.getString(2));
+                            assertEquals(i + 1, rs.getInt(3));
+                        }
+                    }
+                }
+            }
+        }
+        finally {
+            SQLServerConnection.setParsedSQLCacheSize(SQLServerConnection.getInitialDefaultParsedSQLCacheSize());
+        }
+    }
 }
@@ -37,6 +37,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.platform.runner.JUnitPlatform;
 import org.junit.runner.RunWith;
 
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
 import com.microsoft.sqlserver.jdbc.SQLServerDataSource;
 import com.microsoft.sqlserver.jdbc.SQLServerResultSet;
 import com.microsoft.sqlserver.jdbc.SQLServerResultSetMetaData;
@@ -205,6 +206,35 @@ public class StatementTest extends AbstractTest {
             con.close();
         }
 
+        /**
+         * Test that query timeouts are released by the shared timeout scheduler once the statements complete, whether they time out or not.
+         */
+        @Test
+        public void testQueryTimeoutsReleased() throws Exception {
+            int activeTimeouts = SQLServerConnection.getActiveTimeoutCount();
+
+            try (Connection con = DriverManager.getConnection(connectionString);
+                    PreparedStatement ps = con.prepareStatement("SELECT 1")) {
+                ps.setQueryTimeout(30);
+                for (int i = 0; i < 100; i++) {
+                    try (ResultSet rs = ps.executeQuery()) {
+                        assertTrue(rs.next());
+                    }
+                }
+                assertEquals(activeTimeouts, SQLServerConnection.getActiveTimeoutCount(), "Timeouts of completed statements are still running.");
+
+                try (Statement stmt = con.createStatement()) {
+                    stmt.setQueryTimeout(1);
+                    stmt.execute("WAITFOR DELAY '00:00:05'");
+                    assertEquals(false, true, "Execution did not timeout");
+                }
+                catch (SQLException e) {
+                    assertTrue("The query has timed out.".equalsIgnoreCase(e.getMessage()), "Unexpected exception: " + e.getMessage());
+                }
+                assertEquals(activeTimeouts, SQLServerConnection.getActiveTimeoutCount(), "Timeouts of timed out statements are still running.");
+            }
+        }
+
         /**
          * Test that cancelling a Statement while consuming a large response ends the response.
          *
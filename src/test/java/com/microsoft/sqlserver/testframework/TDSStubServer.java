@@ -0,0 +1,358 @@
+/*
+ * Microsoft JDBC Driver for SQL Server
+ *
+ * Copyright(c) Microsoft Corporation All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.testframework;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A minimal in-process TDS server, for tests that exercise the driver's I/O path without a SQL Server.
+ *
+ * The server accepts any login without encryption, and answers each SQL batch of the form <code>SELECT n</code> with a single row holding the
+ * integer n in a column named "value". Any other SQL batch completes without a result. Attention signals are acknowledged.
+ */
+public class TDSStubServer implements AutoCloseable {
+    private static final int PACKET_SIZE = 4096;
+    private static final int PACKET_HEADER_SIZE = 8;
+
+    private static final byte PKT_QUERY = 1;
+    private static final byte PKT_REPLY = 4;
+    private static final byte PKT_CANCEL_REQ = 6;
+    private static final byte PKT_LOGON70 = 16;
+    private static final byte PKT_PRELOGIN = 18;
+    private static final byte STATUS_BIT_EOM = 0x01;
+
+    private static final int TDS_COLMETADATA = 0x81;
+    private static final int TDS_LOGIN_ACK = 0xAD;
+    private static final int TDS_ROW = 0xD1;
+    private static final int TDS_DONE = 0xFD;
+
+    private static final int DONE_COUNT = 0x0010;
+    private static final int DONE_ATTN = 0x0020;
+    private static final int CMD_SELECT = 0xC1;
+
+    private static final int TDS_VERSION = 0x74000004; // TDS 7.4
+    private static final int SERVER_MAJOR_VERSION = 13;
+    private static final byte ENCRYPT_NOT_SUP = 0x02;
+
+    private static final Pattern selectSyntax = Pattern.compile("\\s*SELECT\\s+(-?\\d+)\\s*;?\\s*", Pattern.CASE_INSENSITIVE);
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final Set<Socket> sockets = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger queryCount = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    /**
+     * Starts a server listening on an ephemeral port of the loopback address.
+     *
+     * @throws IOException
+     *             if the server socket cannot be opened
+     */
+    public TDSStubServer() throws IOException {
+        serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "TDSStubServer-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        executor.execute(new Runnable() {
+            public void run() {
+                acceptConnections();
+            }
+        });
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return a connection string for connecting to this server
+     */
+    public String getConnectionString() {
+        return "jdbc:sqlserver://localhost:" + getPort() + ";user=stub;password=stub";
+    }
+
+    /**
+     * @return the number of connections accepted so far
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * @return the number of SQL batches answered so far
+     */
+    public int getQueryCount() {
+        return queryCount.get();
+    }
+
+    /**
+     * Stops the server and closes all of its connections.
+     */
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket socket : sockets)
+            closeQuietly(socket);
+        executor.shutdownNow();
+    }
+
+    private void acceptConnections() {
+        while (!closed) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            }
+            catch (IOException e) {
+                // The server socket was closed.
+                return;
+            }
+
+            connectionCount.incrementAndGet();
+            sockets.add(socket);
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        serve(socket);
+                    }
+                    catch (IOException e) {
+                        // The client went away; nothing more to do for this connection.
+                    }
+                    finally {
+                        sockets.remove(socket);
+                        closeQuietly(socket);
+                    }
+                }
+            });
+        }
+    }
+
+    private void serve(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        OutputStream out = socket.getOutputStream();
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        while (true) {
+            byte type = readMessage(in, payload);
+            if (-1 == type)
+                return;
+
+            switch (type) {
+                case PKT_PRELOGIN:
+                    writeMessage(out, preloginResponse());
+                    break;
+                case PKT_LOGON70:
+                    writeMessage(out, loginResponse());
+                    break;
+                case PKT_QUERY:
+                    queryCount.incrementAndGet();
+                    writeMessage(out, queryResponse(payload.toByteArray()));
+                    break;
+                case PKT_CANCEL_REQ:
+                    writeMessage(out, done(DONE_ATTN, 0, 0));
+                    break;
+                default:
+                    throw new IOException("Unsupported TDS message type:" + type);
+            }
+        }
+    }
+
+    /**
+     * Reads the packets of one message into payload, and returns the message type, or -1 at the end of the stream.
+     */
+    private static byte readMessage(DataInputStream in,
+            ByteArrayOutputStream payload) throws IOException {
+        payload.reset();
+        byte[] header = new byte[PACKET_HEADER_SIZE];
+        byte[] data = new byte[PACKET_SIZE];
+        while (true) {
+            try {
+                in.readFully(header);
+            }
+            catch (EOFException e) {
+                return -1;
+            }
+
+            int payloadLength = (((header[2] & 0xFF) << 8) | (header[3] & 0xFF)) - PACKET_HEADER_SIZE;
+            if (payloadLength > data.length)
+                data = new byte[payloadLength];
+            in.readFully(data, 0, payloadLength);
+            payload.write(data, 0, payloadLength);
+
+            if (STATUS_BIT_EOM == (header[1] & STATUS_BIT_EOM))
+                return header[0];
+        }
+    }
+
+    private static void writeMessage(OutputStream out,
+            byte[] payload) throws IOException {
+        final int maxPayload = PACKET_SIZE - PACKET_HEADER_SIZE;
+        ByteArrayOutputStream message = new ByteArrayOutputStream(payload.length + PACKET_HEADER_SIZE);
+        int packetNumber = 1;
+        int offset = 0;
+        do {
+            int length = Math.min(maxPayload, payload.length - offset);
+            boolean last = (offset + length == payload.length);
+            int packetLength = length + PACKET_HEADER_SIZE;
+            message.write(PKT_REPLY);
+            message.write(last ? STATUS_BIT_EOM : 0);
+            message.write(packetLength >> 8);
+            message.write(packetLength);
+            message.write(0); // SPID
+            message.write(0);
+            message.write(packetNumber++);
+            message.write(0); // Window
+            message.write(payload, offset, length);
+            offset += length;
+        }
+        while (offset < payload.length);
+
+        out.write(message.toByteArray());
+        out.flush();
+    }
+
+    private static byte[] preloginResponse() {
+        return new byte[] {
+                // OPTION_TOKEN (BYTE), OFFSET (USHORT), LENGTH (USHORT)
+                0x00, 0, 11, 0, 6, // VERSION
+                0x01, 0, 17, 0, 1, // ENCRYPTION
+                (byte) 0xFF, // TERMINATOR
+
+                // Server version
+                SERVER_MAJOR_VERSION, 0, 0, 0, 0, 0,
+
+                // Encryption
+                ENCRYPT_NOT_SUP};
+    }
+
+    private static byte[] loginResponse() {
+        byte[] programName = "TDSStubServer".getBytes(StandardCharsets.UTF_16LE);
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        response.write(TDS_LOGIN_ACK);
+        writeShort(response, 1 + 4 + 1 + programName.length + 4);
+        response.write(1); // Interface
+        writeIntBigEndian(response, TDS_VERSION);
+        response.write(programName.length / 2);
+        response.write(programName, 0, programName.length);
+        response.write(SERVER_MAJOR_VERSION);
+        response.write(0); // Minor version
+        response.write(0); // Build number
+        response.write(0);
+
+        byte[] done = done(0, 0, 0);
+        response.write(done, 0, done.length);
+        return response.toByteArray();
+    }
+
+    private static byte[] queryResponse(byte[] request) {
+        // The SQL text follows the ALL_HEADERS section, whose total length is its first DWORD.
+        int headersLength = readInt(request, 0);
+        String sql = new String(request, headersLength, request.length - headersLength, StandardCharsets.UTF_16LE);
+
+        Matcher matcher = selectSyntax.matcher(sql);
+        if (!matcher.matches())
+            return done(0, 0, 0);
+
+        byte[] columnName = "value".getBytes(StandardCharsets.UTF_16LE);
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        response.write(TDS_COLMETADATA);
+        writeShort(response, 1); // Column count
+        writeInt(response, 0); // User type
+        writeShort(response, 0x0001); // Flags: nullable
+        response.write(0x26); // INTN
+        response.write(4);
+        response.write(columnName.length / 2);
+        response.write(columnName, 0, columnName.length);
+
+        response.write(TDS_ROW);
+        response.write(4);
+        writeInt(response, Integer.parseInt(matcher.group(1)));
+
+        byte[] done = done(DONE_COUNT, CMD_SELECT, 1);
+        response.write(done, 0, done.length);
+        return response.toByteArray();
+    }
+
+    private static byte[] done(int status,
+            int curCmd,
+            long rowCount) {
+        ByteArrayOutputStream token = new ByteArrayOutputStream(13);
+        token.write(TDS_DONE);
+        writeShort(token, status);
+        writeShort(token, curCmd);
+        writeInt(token, (int) rowCount);
+        writeInt(token, (int) (rowCount >>> 32));
+        return token.toByteArray();
+    }
+
+    private static void writeShort(ByteArrayOutputStream out,
+            int value) {
+        out.write(value);
+        out.write(value >> 8);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out,
+            int value) {
+        out.write(value);
+        out.write(value >> 8);
+        out.write(value >> 16);
+        out.write(value >> 24);
+    }
+
+    private static void writeIntBigEndian(ByteArrayOutputStream out,
+            int value) {
+        out.write(value >> 24);
+        out.write(value >> 16);
+        out.write(value >> 8);
+        out.write(value);
+    }
+
+    private static int readInt(byte[] data,
+            int offset) {
+        return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8) | ((data[offset + 2] & 0xFF) << 16) | ((data[offset + 3] & 0xFF) << 24);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        }
+        catch (IOException e) {
+            // Already closed.
+        }
+    }
+}